@@ -0,0 +1,6 @@
+alter table files add column size bigint not null default 0;
+alter table files add column content_type varchar not null default 'application/octet-stream';
+alter table files add column hash varchar;
+alter table files add column upload_date timestamp;
+alter table files add column width int;
+alter table files add column height int;
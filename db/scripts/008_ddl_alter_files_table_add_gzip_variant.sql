@@ -0,0 +1,2 @@
+alter table files add column gzip_path varchar;
+alter table files add column gzip_size bigint;
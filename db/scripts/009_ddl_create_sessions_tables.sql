@@ -0,0 +1,14 @@
+create table sessions (
+    id varchar primary key,
+    creation_date timestamp not null,
+    expires_at timestamp not null
+);
+
+create index sessions_expires_at_idx on sessions(expires_at);
+
+create table session_attributes (
+    session_id varchar not null references sessions(id) on delete cascade,
+    name varchar not null,
+    content varchar not null,
+    primary key (session_id, name)
+);
@@ -0,0 +1,7 @@
+create table data_versions (
+    name varchar primary key,
+    version bigint not null
+);
+
+insert into data_versions(name, version) values ('vacancies', 0);
+insert into data_versions(name, version) values ('candidates', 0);
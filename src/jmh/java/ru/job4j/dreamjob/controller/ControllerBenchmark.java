@@ -0,0 +1,148 @@
+package ru.job4j.dreamjob.controller;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.thymeleaf.spring5.SpringTemplateEngine;
+import org.thymeleaf.spring5.view.ThymeleafViewResolver;
+import org.thymeleaf.templateresolver.ClassLoaderTemplateResolver;
+import ru.job4j.dreamjob.model.Candidate;
+import ru.job4j.dreamjob.model.City;
+import ru.job4j.dreamjob.model.SessionPrincipal;
+import ru.job4j.dreamjob.model.Vacancy;
+import ru.job4j.dreamjob.service.CandidateService;
+import ru.job4j.dreamjob.service.CityService;
+import ru.job4j.dreamjob.service.VacancyService;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+
+/**
+ * VacancyController и CandidateController через MockMvc вместе с отрисовкой
+ * настоящих шаблонов Thymeleaf. Сервисы заменены заглушками, поэтому меряется
+ * только веб-слой: разбор запроса, контроллер и шаблон при разной длине списка.
+ * Без кеша фрагментов версия данных меняется на каждом запросе, и таблица
+ * списка отрисовывается заново. С потоковой отрисовкой список любой длины идет
+ * мимо кеша через итератор со сбросом ответа частями.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ControllerBenchmark {
+    @Param({"10", "1000"})
+    public int rows;
+
+    @Param({"true", "false"})
+    public boolean fragmentCache;
+
+    @Param({"false", "true"})
+    public boolean streaming;
+
+    private final AtomicLong versions = new AtomicLong();
+
+    private MockMvc mockMvc;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        /* без logback.xml уровень DEBUG: журнал MVC на каждый запрос исказил бы замер */
+        ((ch.qos.logback.classic.Logger) LoggerFactory.getLogger(Logger.ROOT_LOGGER_NAME))
+                .setLevel(ch.qos.logback.classic.Level.WARN);
+        var vacancies = new ArrayList<Vacancy>();
+        var candidates = new ArrayList<Candidate>();
+        for (var i = 1; i <= rows; i++) {
+            vacancies.add(new Vacancy(i, "Java Developer " + i, "description",
+                    LocalDateTime.now(), i % 2 == 0, 1, i));
+            candidates.add(new Candidate(i, "Кандидат " + i, "description",
+                    LocalDateTime.now(), 1, i));
+        }
+        var vacancyService = mock(VacancyService.class);
+        when(vacancyService.findAll()).thenReturn(vacancies);
+        when(vacancyService.count()).thenReturn(rows);
+        when(vacancyService.streamAll()).thenAnswer(invocation -> vacancies.stream());
+        when(vacancyService.getVersion()).thenAnswer(invocation -> version());
+        when(vacancyService.findById(1)).thenReturn(Optional.of(vacancies.get(0)));
+        var candidateService = mock(CandidateService.class);
+        when(candidateService.findAll()).thenReturn(candidates);
+        when(candidateService.count()).thenReturn(rows);
+        when(candidateService.streamAll()).thenAnswer(invocation -> candidates.stream());
+        when(candidateService.getVersion()).thenAnswer(invocation -> version());
+        when(candidateService.findById(1)).thenReturn(Optional.of(candidates.get(0)));
+        var cityService = mock(CityService.class);
+        when(cityService.findAll()).thenReturn(List.of(new City(1, "Москва")));
+
+        var viewResolver = viewResolver();
+        var cache = new RenderedFragmentCache(viewResolver.getTemplateEngine(),
+                new SimpleMeterRegistry(), 100);
+        var pageETags = new PageETags(new PathMatchingResourcePatternResolver());
+        var listStreaming = new ListStreaming(streaming ? 0 : Integer.MAX_VALUE, 100);
+        mockMvc = MockMvcBuilders
+                .standaloneSetup(
+                        new VacancyController(vacancyService, cityService, cache, pageETags,
+                                listStreaming),
+                        new CandidateController(candidateService, cityService, cache, pageETags,
+                                listStreaming))
+                .setViewResolvers(viewResolver)
+                .defaultRequest(get("/").requestAttr("user", SessionPrincipal.GUEST))
+                .build();
+        if (!render("/vacancies").contains("Java Developer " + rows)) {
+            throw new IllegalStateException("Шаблон списка вакансий не отрисован");
+        }
+    }
+
+    /* контекст приложения резолверу представлений передает сам MockMvc */
+    private static ThymeleafViewResolver viewResolver() {
+        var templateResolver = new ClassLoaderTemplateResolver();
+        templateResolver.setPrefix("templates/");
+        templateResolver.setSuffix(".html");
+        templateResolver.setCharacterEncoding("UTF-8");
+        var templateEngine = new SpringTemplateEngine();
+        templateEngine.setTemplateResolver(templateResolver);
+        var viewResolver = new ThymeleafViewResolver();
+        viewResolver.setTemplateEngine(templateEngine);
+        viewResolver.setCharacterEncoding("UTF-8");
+        return viewResolver;
+    }
+
+    private long version() {
+        return fragmentCache ? 0 : versions.incrementAndGet();
+    }
+
+    private String render(String uri) throws Exception {
+        return mockMvc.perform(get(uri)).andReturn().getResponse().getContentAsString();
+    }
+
+    @Benchmark
+    public String vacancyList() throws Exception {
+        return render("/vacancies");
+    }
+
+    @Benchmark
+    public String vacancy() throws Exception {
+        return render("/vacancies/1");
+    }
+
+    @Benchmark
+    public String candidateList() throws Exception {
+        return render("/candidates");
+    }
+
+    @Benchmark
+    public String candidate() throws Exception {
+        return render("/candidates/1");
+    }
+}
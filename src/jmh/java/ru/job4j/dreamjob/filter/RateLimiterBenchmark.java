@@ -0,0 +1,42 @@
+package ru.job4j.dreamjob.filter;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Накладные расходы лимитера на запрос: один горячий ключ (все потоки
+ * конкурируют за одну корзину) и много ключей (разные IP).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(4)
+public class RateLimiterBenchmark {
+    @Param({"1", "10000"})
+    public int keys;
+
+    private RateLimiter limiter;
+
+    private String[] keyNames;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        limiter = new RateLimiter(1_000_000, Duration.ofSeconds(1));
+        keyNames = new String[keys];
+        for (var i = 0; i < keys; i++) {
+            keyNames[i] = "ip:10.0." + (i / 256) + "." + (i % 256);
+        }
+    }
+
+    @Benchmark
+    public long tryAcquire() {
+        var key = keyNames[ThreadLocalRandom.current().nextInt(keys)];
+        return limiter.tryAcquire(key, System.nanoTime());
+    }
+}
@@ -0,0 +1,142 @@
+package ru.job4j.dreamjob.repository;
+
+import org.openjdk.jmh.annotations.*;
+import org.sql2o.Sql2o;
+import ru.job4j.dreamjob.configuration.DatasourceConfiguration;
+import ru.job4j.dreamjob.configuration.LocalDateTimeQuirks;
+import ru.job4j.dreamjob.model.Candidate;
+import ru.job4j.dreamjob.model.Vacancy;
+
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntFunction;
+import java.util.function.IntPredicate;
+import java.util.function.Supplier;
+
+/**
+ * save/findById/findAll репозиториев вакансий и резюме: хранение в памяти
+ * против Sql2o на H2 в памяти, при разном числе строк в таблице.
+ * Сохраненные во время итерации строки удаляются после нее, чтобы размер
+ * таблицы не рос от итерации к итерации.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RepositoryBenchmark {
+    private static final String URL = "jdbc:h2:mem:repository-benchmark;DB_CLOSE_DELAY=-1";
+
+    @Param({"memory", "sql2o"})
+    public String storage;
+
+    @Param({"vacancy", "candidate"})
+    public String entity;
+
+    @Param({"100", "10000"})
+    public int rows;
+
+    private Supplier<Integer> save;
+
+    private IntFunction<Optional<?>> findById;
+
+    private Supplier<Collection<?>> findAll;
+
+    private IntPredicate deleteById;
+
+    private final List<Integer> preloadedIds = new ArrayList<>();
+
+    private final Queue<Integer> savedIds = new ConcurrentLinkedQueue<>();
+
+    @Setup(Level.Trial)
+    public void setUp() throws SQLException {
+        if ("vacancy".equals(entity)) {
+            VacancyRepository repository = "memory".equals(storage)
+                    ? new MemoryVacancyRepository()
+                    : new Sql2oVacancyRepository(createDatabase("""
+                        CREATE TABLE vacancies (
+                            id serial primary key, title varchar not null,
+                            description varchar not null, creation_date timestamp,
+                            visible boolean not null, city_id int, file_id int)
+                        """));
+            save = () -> repository.save(new Vacancy(0, "Java Developer", "description",
+                    LocalDateTime.now(), true, 1, 1)).getId();
+            findById = repository::findById;
+            findAll = repository::findAll;
+            deleteById = repository::deleteById;
+        } else {
+            CandidateRepository repository = "memory".equals(storage)
+                    ? new MemoryCandidateRepository()
+                    : new Sql2oCandidateRepository(createDatabase("""
+                        CREATE TABLE candidates (
+                            id serial primary key, name varchar not null,
+                            description varchar not null, creation_date timestamp,
+                            city_id int, file_id int)
+                        """));
+            save = () -> repository.save(new Candidate(0, "Иван", "description",
+                    LocalDateTime.now(), 1, 1)).getId();
+            findById = repository::findById;
+            findAll = repository::findAll;
+            deleteById = repository::deleteById;
+        }
+        for (var i = 0; i < rows; i++) {
+            preloadedIds.add(save.get());
+        }
+    }
+
+    private Sql2o createDatabase(String ddl) throws SQLException {
+        execute(ddl);
+        var configuration = new DatasourceConfiguration(Duration.ofSeconds(5));
+        return new Sql2o(configuration.connectionPool(URL, "", ""), new LocalDateTimeQuirks());
+    }
+
+    private static void execute(String sql) throws SQLException {
+        try (var connection = DriverManager.getConnection(URL);
+             var statement = connection.createStatement()) {
+            statement.execute(sql);
+        }
+    }
+
+    @TearDown(Level.Iteration)
+    public void deleteSaved() {
+        Integer id;
+        while ((id = savedIds.poll()) != null) {
+            deleteById.test(id);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws SQLException {
+        if ("sql2o".equals(storage)) {
+            execute("SHUTDOWN");
+        }
+    }
+
+    @Benchmark
+    public int save() {
+        var id = save.get();
+        savedIds.add(id);
+        return id;
+    }
+
+    @Benchmark
+    public Optional<?> findById() {
+        return findById.apply(preloadedIds.get(ThreadLocalRandom.current().nextInt(rows)));
+    }
+
+    @Benchmark
+    public Collection<?> findAll() {
+        return findAll.get();
+    }
+}
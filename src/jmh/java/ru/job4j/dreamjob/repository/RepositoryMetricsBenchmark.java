@@ -0,0 +1,64 @@
+package ru.job4j.dreamjob.repository;
+
+import io.micrometer.prometheus.PrometheusConfig;
+import io.micrometer.prometheus.PrometheusMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.aop.aspectj.annotation.AspectJProxyFactory;
+import ru.job4j.dreamjob.model.City;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Накладные расходы RepositoryMetricsAspect: вызов метода репозитория
+ * напрямую и через прокси с аспектом. Репозиторий не обращается к БД,
+ * поэтому разница - это стоимость прокси, таймера с гистограммой и счетчика строк.
+ * Один поток: меряется цена вызова, а не конкуренция за метры.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(1)
+public class RepositoryMetricsBenchmark {
+    private Sql2oCityRepository direct;
+
+    private Sql2oCityRepository measured;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        direct = new InMemoryCityRepository();
+        var factory = new AspectJProxyFactory(new InMemoryCityRepository());
+        factory.setProxyTargetClass(true);
+        factory.addAspect(new RepositoryMetricsAspect(
+                new PrometheusMeterRegistry(PrometheusConfig.DEFAULT)));
+        measured = factory.getProxy();
+    }
+
+    @Benchmark
+    public Collection<City> direct() {
+        return direct.findAll();
+    }
+
+    @Benchmark
+    public Collection<City> measured() {
+        return measured.findAll();
+    }
+
+    /* Наследник Sql2o-репозитория, чтобы попасть под срез аспекта без БД */
+    public static class InMemoryCityRepository extends Sql2oCityRepository {
+        private static final List<City> CITIES = List.of(new City(1, "Москва"));
+
+        public InMemoryCityRepository() {
+            super(null);
+        }
+
+        @Override
+        public Collection<City> findAll() {
+            return CITIES;
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package ru.job4j.dreamjob.repository;
+
+import org.openjdk.jmh.annotations.*;
+import org.sql2o.Sql2o;
+import ru.job4j.dreamjob.configuration.DatasourceConfiguration;
+import ru.job4j.dreamjob.configuration.LocalDateTimeQuirks;
+import ru.job4j.dreamjob.model.Vacancy;
+
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Чтение списка вакансий: прежний способ Sql2o (SELECT *, карта колонок,
+ * заполнение через сеттеры по рефлексии и конвертер LocalDateTime через Timestamp)
+ * против RowMappers.VACANCY с чтением колонок по номерам.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(1)
+public class RowMapperBenchmark {
+    private static final String URL = "jdbc:h2:mem:row-mapper-benchmark;DB_CLOSE_DELAY=-1";
+
+    /* Карта колонок, которой репозиторий пользовался до перехода на RowMapper */
+    private static final Map<String, String> COLUMN_MAPPING = Map.of(
+            "id", "id",
+            "title", "title",
+            "description", "description",
+            "creation_date", "creationDate",
+            "visible", "visible",
+            "city_id", "cityId",
+            "file_id", "fileId"
+    );
+
+    @Param({"100", "1000", "10000"})
+    public int rows;
+
+    private Sql2o sql2o;
+
+    @Setup(Level.Trial)
+    public void setUp() throws SQLException {
+        execute("""
+                CREATE TABLE vacancies (
+                    id serial primary key, title varchar not null,
+                    description varchar not null, creation_date timestamp,
+                    visible boolean not null, city_id int, file_id int)
+                """);
+        var configuration = new DatasourceConfiguration(Duration.ofSeconds(5));
+        sql2o = new Sql2o(configuration.connectionPool(URL, "", ""), new LocalDateTimeQuirks());
+        var repository = new Sql2oVacancyRepository(sql2o);
+        for (var i = 0; i < rows; i++) {
+            repository.save(new Vacancy(0, "Java Developer " + i, "description " + i,
+                    LocalDateTime.now(), i % 2 == 0, 1, 1));
+        }
+    }
+
+    private static void execute(String sql) throws SQLException {
+        try (var connection = DriverManager.getConnection(URL);
+             var statement = connection.createStatement()) {
+            statement.execute(sql);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws SQLException {
+        execute("SHUTDOWN");
+    }
+
+    @Benchmark
+    public List<Vacancy> columnMapping() {
+        try (var connection = sql2o.open()) {
+            return connection.createQuery("SELECT * FROM vacancies")
+                    .setColumnMappings(COLUMN_MAPPING)
+                    .executeAndFetch(Vacancy.class);
+        }
+    }
+
+    @Benchmark
+    public List<Vacancy> rowMapper() {
+        try (var connection = sql2o.open()) {
+            return connection.createQuery(
+                    "SELECT " + RowMappers.VACANCY_COLUMNS + " FROM vacancies")
+                    .executeAndFetch(RowMappers.VACANCY);
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package ru.job4j.dreamjob.security;
+
+import org.openjdk.jmh.annotations.*;
+import ru.job4j.dreamjob.model.SessionPrincipal;
+
+import java.time.Duration;
+import java.util.Base64;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Стоимость проверки cookie входа на каждый запрос в режиме auth.mode=token:
+ * верный токен, токен с испорченной подписью и токен, подписанный старым ключом кольца.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TokenValidationBenchmark {
+    private TokenCodec codec;
+
+    private String valid;
+
+    private String tampered;
+
+    private String rotated;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        var user = new SessionPrincipal(42, "Иван Петров", Set.of(SessionPrincipal.ROLE_USER));
+        var oldKey = "k1:" + randomSecret();
+        codec = new TokenCodec("k2:" + randomSecret() + "," + oldKey, Duration.ofHours(8));
+        valid = codec.issue(user);
+        tampered = valid.substring(0, valid.length() - 2) + "AA";
+        rotated = new TokenCodec(oldKey, Duration.ofHours(8)).issue(user);
+    }
+
+    private static String randomSecret() {
+        var secret = new byte[32];
+        ThreadLocalRandom.current().nextBytes(secret);
+        return Base64.getEncoder().encodeToString(secret);
+    }
+
+    @Benchmark
+    public Optional<SessionPrincipal> verifyValid() {
+        return codec.verify(valid);
+    }
+
+    @Benchmark
+    public Optional<SessionPrincipal> verifyTampered() {
+        return codec.verify(tampered);
+    }
+
+    @Benchmark
+    public Optional<SessionPrincipal> verifyRotatedKey() {
+        return codec.verify(rotated);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public Optional<SessionPrincipal> verifyValidConcurrent() {
+        return codec.verify(valid);
+    }
+}
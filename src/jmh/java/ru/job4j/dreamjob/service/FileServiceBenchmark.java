@@ -0,0 +1,87 @@
+package ru.job4j.dreamjob.service;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import ru.job4j.dreamjob.model.File;
+import ru.job4j.dreamjob.repository.MemoryFileRepository;
+import ru.job4j.dreamjob.storage.LocalFileStorage;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Сохранение и чтение файла через SimpleFileService на локальном хранилище:
+ * сбор метаданных при записи и поток содержимого при чтении, от 10 КБ до 10 МБ.
+ * Содержимое случайное, поэтому сжатый вариант не создается.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class FileServiceBenchmark {
+    @Param({"10240", "1048576", "10485760"})
+    public int fileSize;
+
+    private Path directory;
+
+    private SimpleFileService fileService;
+
+    private byte[] content;
+
+    private File stored;
+
+    private final Queue<Integer> savedIds = new ConcurrentLinkedQueue<>();
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("file-service-benchmark");
+        fileService = new SimpleFileService(new MemoryFileRepository(),
+                new LocalFileStorage(directory.toString()));
+        content = new byte[fileSize];
+        ThreadLocalRandom.current().nextBytes(content);
+        stored = fileService.save("stored.bin", new ByteArrayInputStream(content));
+    }
+
+    @TearDown(Level.Iteration)
+    public void deleteSaved() {
+        Integer id;
+        while ((id = savedIds.poll()) != null) {
+            fileService.deleteById(id);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        try (var paths = Files.walk(directory)) {
+            paths.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+
+    @Benchmark
+    public File save() {
+        var file = fileService.save("file.bin", new ByteArrayInputStream(content));
+        savedIds.add(file.getId());
+        return file;
+    }
+
+    @Benchmark
+    public void read(Blackhole blackhole) throws IOException {
+        var buffer = new byte[64 * 1024];
+        try (var input = fileService.getContent(stored)) {
+            int read;
+            while ((read = input.read(buffer)) != -1) {
+                blackhole.consume(read);
+            }
+        }
+        blackhole.consume(buffer);
+    }
+}
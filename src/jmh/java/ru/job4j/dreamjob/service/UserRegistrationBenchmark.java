@@ -0,0 +1,92 @@
+package ru.job4j.dreamjob.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.sql2o.Sql2o;
+import ru.job4j.dreamjob.configuration.DatasourceConfiguration;
+import ru.job4j.dreamjob.configuration.LocalDateTimeQuirks;
+import ru.job4j.dreamjob.model.User;
+import ru.job4j.dreamjob.repository.Sql2oUserRepository;
+import ru.job4j.dreamjob.security.PasswordHasher;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Регистрация, когда большинство запросов приходит с уже занятой почтой
+ * (боты на /users/register): с кешем занятых почт и без него. БД - H2 в памяти.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(4)
+public class UserRegistrationBenchmark {
+    private static final int EXISTING_USERS = 100;
+
+    private static final AtomicLong DATABASE_NUMBER = new AtomicLong();
+
+    /* размер кеша занятых почт; 0 - кеш выключен */
+    @Param({"0", "10000"})
+    public int knownEmails;
+
+    /* доля регистраций с уже занятой почтой, проценты */
+    @Param({"90"})
+    public int duplicatePercent;
+
+    @Param({"1000"})
+    public int iterations;
+
+    private SimpleUserService userService;
+
+    private SimpleCredentialService credentialService;
+
+    private final AtomicLong newEmails = new AtomicLong();
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        var configuration = new DatasourceConfiguration(Duration.ofSeconds(5));
+        var dataSource = configuration.connectionPool("jdbc:h2:mem:registration"
+                + DATABASE_NUMBER.incrementAndGet() + ";MODE=PostgreSQL;DB_CLOSE_DELAY=-1",
+                "", "");
+        Sql2o sql2o = new Sql2o(dataSource, new LocalDateTimeQuirks());
+        try (var connection = sql2o.open()) {
+            connection.createQuery("""
+                    create table users (
+                        id serial primary key,
+                        email varchar unique not null,
+                        name varchar not null,
+                        password varchar not null
+                    )
+                    """).executeUpdate();
+        }
+        var userRepository = new Sql2oUserRepository(sql2o);
+        credentialService = new SimpleCredentialService(userRepository,
+                new PasswordHasher(iterations), 4, 1024, 4, 1024,
+                new SimpleMeterRegistry());
+        userService = new SimpleUserService(userRepository, credentialService,
+                knownEmails, Duration.ofMinutes(10));
+        for (var i = 0; i < EXISTING_USERS; i++) {
+            userService.save(new User(0, "user" + i + "@mail", "user", "password"));
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        credentialService.shutdown();
+    }
+
+    @Benchmark
+    public Optional<User> register() {
+        var random = ThreadLocalRandom.current();
+        var email = random.nextInt(100) < duplicatePercent
+                ? "user" + random.nextInt(EXISTING_USERS) + "@mail"
+                : "new" + newEmails.incrementAndGet() + "@mail";
+        return userService.save(new User(0, email, "user", "password"));
+    }
+}
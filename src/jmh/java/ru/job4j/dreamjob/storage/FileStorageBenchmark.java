@@ -0,0 +1,85 @@
+package ru.job4j.dreamjob.storage;
+
+import org.openjdk.jmh.annotations.*;
+import org.springframework.util.unit.DataSize;
+
+import java.io.ByteArrayInputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Сравнение записи и чтения небольших файлов:
+ * файл на загрузку (local) против сегментного хранилища с fsync и без.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class FileStorageBenchmark {
+    private static final int PRELOADED_FILES = 1000;
+
+    @Param({"local", "segment", "segment-fsync"})
+    public String storageType;
+
+    @Param({"1024", "16384"})
+    public int fileSize;
+
+    private Path directory;
+
+    private FileStorage storage;
+
+    private byte[] content;
+
+    private final List<String> locations = new ArrayList<>();
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("storage-benchmark");
+        storage = switch (storageType) {
+            case "local" -> new LocalFileStorage(directory.toString());
+            case "segment" -> new SegmentFileStorage(
+                    directory.toString(), DataSize.ofMegabytes(64), 0.5, 0, false);
+            default -> new SegmentFileStorage(
+                    directory.toString(), DataSize.ofMegabytes(64), 0.5, 0, true);
+        };
+        content = new byte[fileSize];
+        ThreadLocalRandom.current().nextBytes(content);
+        for (var i = 0; i < PRELOADED_FILES; i++) {
+            locations.add(storage.write("file" + i, new ByteArrayInputStream(content)));
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        if (storage instanceof Closeable closeable) {
+            closeable.close();
+        }
+        try (var paths = Files.walk(directory)) {
+            for (var path : paths.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(path);
+            }
+        }
+    }
+
+    @Benchmark
+    public String write() {
+        return storage.write("file", new ByteArrayInputStream(content));
+    }
+
+    @Benchmark
+    public byte[] read() throws IOException {
+        var location = locations.get(ThreadLocalRandom.current().nextInt(locations.size()));
+        try (var input = storage.read(location)) {
+            return input.readAllBytes();
+        }
+    }
+}
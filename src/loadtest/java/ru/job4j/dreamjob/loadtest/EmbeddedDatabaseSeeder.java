@@ -0,0 +1,122 @@
+package ru.job4j.dreamjob.loadtest;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+import ru.job4j.dreamjob.dto.FileDto;
+import ru.job4j.dreamjob.model.Candidate;
+import ru.job4j.dreamjob.model.User;
+import ru.job4j.dreamjob.model.Vacancy;
+import ru.job4j.dreamjob.service.CandidateService;
+import ru.job4j.dreamjob.service.UserService;
+import ru.job4j.dreamjob.service.VacancyService;
+
+import javax.imageio.ImageIO;
+import javax.sql.DataSource;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+
+/**
+ * Профиль embedded: создает схему скриптами Liquibase из db/scripts по порядку
+ * имен и заполняет базу вакансиями, резюме (у каждой записи своя картинка,
+ * чтобы загрузка новой не удаляла общую) и пользователями user{n}@loadtest.ru.
+ */
+@Component
+@Profile("embedded")
+public class EmbeddedDatabaseSeeder implements ApplicationRunner {
+    private static final Logger LOG = LoggerFactory.getLogger(EmbeddedDatabaseSeeder.class);
+
+    private static final int CITIES = 3;
+
+    private final DataSource dataSource;
+
+    private final VacancyService vacancyService;
+
+    private final CandidateService candidateService;
+
+    private final UserService userService;
+
+    private final Path schemaDirectory;
+
+    private final int vacancies;
+
+    private final int candidates;
+
+    private final int users;
+
+    private final String password;
+
+    public EmbeddedDatabaseSeeder(DataSource dataSource, VacancyService vacancyService,
+                                  CandidateService candidateService, UserService userService,
+                                  @Value("${embedded.schema-directory}") String schemaDirectory,
+                                  @Value("${embedded.seed.vacancies}") int vacancies,
+                                  @Value("${embedded.seed.candidates}") int candidates,
+                                  @Value("${embedded.seed.users}") int users,
+                                  @Value("${embedded.seed.password}") String password) {
+        this.dataSource = dataSource;
+        this.vacancyService = vacancyService;
+        this.candidateService = candidateService;
+        this.userService = userService;
+        this.schemaDirectory = Path.of(schemaDirectory);
+        this.vacancies = vacancies;
+        this.candidates = candidates;
+        this.users = users;
+        this.password = password;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) throws Exception {
+        createSchema();
+        var image = image();
+        for (var i = 1; i <= vacancies; i++) {
+            vacancyService.save(new Vacancy(0, "Java Developer " + i, "Описание вакансии " + i,
+                    LocalDateTime.now(), i % 2 == 0, i % CITIES + 1, 0),
+                    new FileDto("vacancy" + i + ".png", image));
+        }
+        for (var i = 1; i <= candidates; i++) {
+            candidateService.save(new Candidate(0, "Кандидат " + i, "Описание резюме " + i,
+                    LocalDateTime.now(), i % CITIES + 1, 0),
+                    new FileDto("candidate" + i + ".png", image));
+        }
+        for (var i = 1; i <= users; i++) {
+            userService.save(new User(0, "user" + i + "@loadtest.ru", "Пользователь " + i,
+                    password));
+        }
+        LOG.info("Seeded {} vacancies, {} candidates, {} users", vacancies, candidates, users);
+    }
+
+    private void createSchema() throws IOException, SQLException {
+        try (var scripts = Files.list(schemaDirectory);
+             var connection = dataSource.getConnection();
+             var statement = connection.createStatement()) {
+            for (var script : (Iterable<Path>) scripts.sorted()::iterator) {
+                for (var sql : Files.readString(script).split(";")) {
+                    if (!sql.isBlank()) {
+                        statement.execute(sql);
+                    }
+                }
+            }
+        }
+    }
+
+    private static byte[] image() throws IOException {
+        var image = new BufferedImage(64, 64, BufferedImage.TYPE_INT_RGB);
+        for (var x = 0; x < image.getWidth(); x++) {
+            for (var y = 0; y < image.getHeight(); y++) {
+                image.setRGB(x, y, x * 4 << 16 | y * 4 << 8);
+            }
+        }
+        var output = new ByteArrayOutputStream();
+        ImageIO.write(image, "png", output);
+        return output.toByteArray();
+    }
+}
@@ -0,0 +1,99 @@
+package ru.job4j.dreamjob.loadtest;
+
+import net.jcip.annotations.ThreadSafe;
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Итоги прогона по каждому действию: число запросов, ошибки, отказы
+ * перегруженного сервера (429/503) и перцентили задержки по HdrHistogram.
+ */
+@ThreadSafe
+public final class LoadReport {
+    private static final long MAX_LATENCY_MICROS = Duration.ofMinutes(1).toNanos() / 1000;
+
+    private final Map<Scenario.Action, Stats> stats = new EnumMap<>(Scenario.Action.class);
+
+    public LoadReport() {
+        for (var action : Scenario.Action.values()) {
+            stats.put(action, new Stats());
+        }
+    }
+
+    public void success(Scenario.Action action, long nanos) {
+        var actionStats = stats.get(action);
+        actionStats.latency.recordValue(Math.min(nanos / 1000, MAX_LATENCY_MICROS));
+    }
+
+    public void rejected(Scenario.Action action) {
+        stats.get(action).rejected.increment();
+    }
+
+    public void error(Scenario.Action action) {
+        stats.get(action).errors.increment();
+    }
+
+    /**
+     * Формирует отчет, печатает его и записывает в файл из сценария.
+     */
+    public String write(Scenario scenario, Duration elapsed) throws IOException {
+        var seconds = elapsed.toMillis() / 1000.0;
+        var text = new StringBuilder();
+        text.append(String.format("Scenario: %s, users: %d, duration: %.1f s%n",
+                scenario.getPath(), scenario.getUsers(), seconds));
+        text.append(String.format("%-13s %8s %7s %8s %9s %9s %9s %9s %9s %9s%n",
+                "action", "count", "errors", "rejected", "req/s",
+                "p50 ms", "p90 ms", "p99 ms", "p99.9 ms", "max ms"));
+        var total = new Histogram(MAX_LATENCY_MICROS, 3);
+        long totalErrors = 0;
+        long totalRejected = 0;
+        for (var entry : stats.entrySet()) {
+            var histogram = entry.getValue().latency.getIntervalHistogram();
+            var errors = entry.getValue().errors.sum();
+            var rejected = entry.getValue().rejected.sum();
+            if (histogram.getTotalCount() + errors + rejected == 0) {
+                continue;
+            }
+            total.add(histogram);
+            totalErrors += errors;
+            totalRejected += rejected;
+            line(text, entry.getKey().getName(), histogram, errors, rejected, seconds);
+        }
+        line(text, "total", total, totalErrors, totalRejected, seconds);
+        var report = text.toString();
+        System.out.print(report);
+        var parent = scenario.getReport().toAbsolutePath().getParent();
+        Files.createDirectories(parent);
+        Files.writeString(scenario.getReport(), report, StandardCharsets.UTF_8);
+        return report;
+    }
+
+    private static void line(StringBuilder text, String name, Histogram histogram,
+                             long errors, long rejected, double seconds) {
+        text.append(String.format("%-13s %8d %7d %8d %9.1f %9.2f %9.2f %9.2f %9.2f %9.2f%n",
+                name, histogram.getTotalCount(), errors, rejected,
+                histogram.getTotalCount() / seconds,
+                millis(histogram, 50), millis(histogram, 90), millis(histogram, 99),
+                millis(histogram, 99.9), histogram.getMaxValue() / 1000.0));
+    }
+
+    private static double millis(Histogram histogram, double percentile) {
+        return histogram.getValueAtPercentile(percentile) / 1000.0;
+    }
+
+    private static final class Stats {
+        private final Recorder latency = new Recorder(MAX_LATENCY_MICROS, 3);
+
+        private final LongAdder errors = new LongAdder();
+
+        private final LongAdder rejected = new LongAdder();
+    }
+}
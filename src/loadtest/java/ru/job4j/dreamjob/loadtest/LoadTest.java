@@ -0,0 +1,273 @@
+package ru.job4j.dreamjob.loadtest;
+
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import ru.job4j.dreamjob.Main;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.regex.Pattern;
+
+/**
+ * Нагрузочный прогон по сценарию: mvn -Ploadtest test-compile exec:exec
+ * [-Dloadtest.scenario=src/loadtest/resources/scenarios/browse.properties].
+ *
+ * Если в сценарии не задан base-url, приложение запускается в этом же процессе
+ * с профилем embedded на случайном порту. Каждый виртуальный пользователь - отдельный
+ * поток со своими cookie: входит под своей учетной записью и выполняет действия
+ * из смеси с паузой think-time, пока не истечет длительность прогона.
+ */
+public final class LoadTest {
+    private static final String DEFAULT_SCENARIO =
+            "src/loadtest/resources/scenarios/mixed.properties";
+
+    private static final Pattern UPLOAD_ID = Pattern.compile("\"id\"\\s*:\\s*\"([^\"]+)\"");
+
+    private final Scenario scenario;
+
+    private final String baseUrl;
+
+    private final HttpClient client;
+
+    private final LoadReport report = new LoadReport();
+
+    private volatile long deadline;
+
+    private LoadTest(Scenario scenario, String baseUrl) {
+        this.scenario = scenario;
+        this.baseUrl = baseUrl;
+        this.client = HttpClient.newBuilder()
+                .followRedirects(HttpClient.Redirect.NEVER)
+                .connectTimeout(scenario.getRequestTimeout())
+                .build();
+    }
+
+    public static void main(String[] args) throws Exception {
+        var scenario = Scenario.load(Path.of(args.length > 0 ? args[0] : DEFAULT_SCENARIO));
+        ConfigurableApplicationContext context = null;
+        var baseUrl = scenario.getBaseUrl();
+        if (baseUrl == null) {
+            /* devtools перезапускает приложение в другом загрузчике классов и теряет контекст */
+            System.setProperty("spring.devtools.restart.enabled", "false");
+            context = new SpringApplicationBuilder(Main.class)
+                    .profiles("embedded")
+                    .properties("server.port=0")
+                    .run();
+            var port = ((WebServerApplicationContext) context).getWebServer().getPort();
+            baseUrl = "http://localhost:" + port;
+        }
+        try {
+            new LoadTest(scenario, baseUrl).run();
+        } finally {
+            if (context != null) {
+                context.close();
+            }
+        }
+    }
+
+    private void run() throws InterruptedException, IOException {
+        var users = scenario.getUsers();
+        var threads = new Thread[users];
+        var start = System.nanoTime();
+        deadline = start + scenario.getDuration().toNanos();
+        for (var i = 0; i < users; i++) {
+            var delay = scenario.getRampUp().toNanos() * i / users;
+            var user = new VirtualUser(i % scenario.getAccounts() + 1, start + delay);
+            threads[i] = new Thread(user, "virtual-user-" + i);
+            threads[i].start();
+        }
+        for (var thread : threads) {
+            thread.join();
+        }
+        report.write(scenario, Duration.ofNanos(System.nanoTime() - start));
+    }
+
+    /**
+     * Результат действия: успех, отказ перегруженного сервера или ошибка.
+     */
+    private enum Outcome {
+        SUCCESS, REJECTED, ERROR
+    }
+
+    private final class VirtualUser implements Runnable {
+        private final int account;
+
+        private final long startAt;
+
+        private final Map<String, String> cookies = new HashMap<>();
+
+        private byte[] image;
+
+        private String imageHash;
+
+        private VirtualUser(int account, long startAt) {
+            this.account = account;
+            this.startAt = startAt;
+        }
+
+        @Override
+        public void run() {
+            try {
+                sleepNanos(startAt - System.nanoTime());
+                perform(Scenario.Action.LOGIN);
+                while (System.nanoTime() < deadline) {
+                    sleepNanos(scenario.getThinkTime().toNanos());
+                    perform(scenario.nextAction());
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        private void perform(Scenario.Action action) throws InterruptedException {
+            var start = System.nanoTime();
+            Outcome outcome;
+            try {
+                outcome = switch (action) {
+                    case BROWSE_LIST -> browseList();
+                    case OPEN_DETAIL -> openDetail();
+                    case LOGIN -> login();
+                    case UPLOAD_IMAGE -> uploadImage();
+                };
+            } catch (IOException e) {
+                outcome = Outcome.ERROR;
+            }
+            switch (outcome) {
+                case SUCCESS -> report.success(action, System.nanoTime() - start);
+                case REJECTED -> report.rejected(action);
+                default -> report.error(action);
+            }
+        }
+
+        private Outcome browseList() throws IOException, InterruptedException {
+            var path = ThreadLocalRandom.current().nextBoolean() ? "/vacancies" : "/candidates";
+            return expect(send(get(path)), 200);
+        }
+
+        private Outcome openDetail() throws IOException, InterruptedException {
+            var random = ThreadLocalRandom.current();
+            var path = random.nextBoolean()
+                    ? "/vacancies/" + (random.nextInt(scenario.getVacancies()) + 1)
+                    : "/candidates/" + (random.nextInt(scenario.getCandidates()) + 1);
+            return expect(send(get(path)), 200);
+        }
+
+        private Outcome login() throws IOException, InterruptedException {
+            var form = "email=" + encode(scenario.getEmail(account))
+                    + "&password=" + encode(scenario.getPassword());
+            var response = send(request("/users/login")
+                    .header("Content-Type", "application/x-www-form-urlencoded")
+                    .POST(HttpRequest.BodyPublishers.ofString(form)));
+            var outcome = expect(response, 302);
+            /* при первом входе Tomcat дописывает к адресу ;jsessionid= */
+            var location = response.headers().firstValue("Location").orElse("").split(";")[0];
+            return outcome == Outcome.SUCCESS && !location.endsWith("/vacancies")
+                    ? Outcome.ERROR : outcome;
+        }
+
+        /**
+         * Загрузка по частям целиком: начать, передать содержимое одной частью
+         * и привязать файл к случайной вакансии.
+         */
+        private Outcome uploadImage() throws IOException, InterruptedException {
+            if (image == null) {
+                image = new byte[scenario.getUploadSize()];
+                ThreadLocalRandom.current().nextBytes(image);
+                imageHash = sha256(image);
+            }
+            var init = send(request("/uploads?name=loadtest.png&size=" + image.length)
+                    .POST(HttpRequest.BodyPublishers.noBody()));
+            var outcome = expect(init, 201);
+            if (outcome != Outcome.SUCCESS) {
+                return outcome;
+            }
+            var matcher = UPLOAD_ID.matcher(init.body());
+            if (!matcher.find()) {
+                return Outcome.ERROR;
+            }
+            var id = matcher.group(1);
+            outcome = expect(send(request("/uploads/" + id + "?offset=0")
+                    .header("Content-Type", "application/octet-stream")
+                    .PUT(HttpRequest.BodyPublishers.ofByteArray(image))), 200);
+            if (outcome != Outcome.SUCCESS) {
+                return outcome;
+            }
+            var vacancy = ThreadLocalRandom.current().nextInt(scenario.getVacancies()) + 1;
+            return expect(send(request("/uploads/" + id + "/complete?sha256=" + imageHash
+                    + "&target=vacancy&targetId=" + vacancy)
+                    .POST(HttpRequest.BodyPublishers.noBody())), 200);
+        }
+
+        private HttpRequest.Builder get(String path) {
+            return request(path).GET();
+        }
+
+        private HttpRequest.Builder request(String path) {
+            var builder = HttpRequest.newBuilder(URI.create(baseUrl + path))
+                    .timeout(scenario.getRequestTimeout());
+            if (!cookies.isEmpty()) {
+                var header = new StringBuilder();
+                cookies.forEach((name, value) -> header.append(header.length() > 0 ? "; " : "")
+                        .append(name).append('=').append(value));
+                builder.header("Cookie", header.toString());
+            }
+            return builder;
+        }
+
+        private HttpResponse<String> send(HttpRequest.Builder builder)
+                throws IOException, InterruptedException {
+            var response = client.send(builder.build(), HttpResponse.BodyHandlers.ofString());
+            for (var setCookie : response.headers().allValues("Set-Cookie")) {
+                var pair = setCookie.split(";", 2)[0];
+                var separator = pair.indexOf('=');
+                if (separator > 0) {
+                    cookies.put(pair.substring(0, separator).trim(),
+                            pair.substring(separator + 1).trim());
+                }
+            }
+            return response;
+        }
+    }
+
+    private static Outcome expect(HttpResponse<?> response, int status) {
+        if (response.statusCode() == status) {
+            return Outcome.SUCCESS;
+        }
+        if (response.statusCode() == 429 || response.statusCode() == 503) {
+            return Outcome.REJECTED;
+        }
+        return Outcome.ERROR;
+    }
+
+    private static void sleepNanos(long nanos) throws InterruptedException {
+        if (nanos > 0) {
+            Thread.sleep(nanos / 1_000_000, (int) (nanos % 1_000_000));
+        }
+    }
+
+    private static String encode(String value) {
+        return URLEncoder.encode(value, StandardCharsets.UTF_8);
+    }
+
+    private static String sha256(byte[] content) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(content));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
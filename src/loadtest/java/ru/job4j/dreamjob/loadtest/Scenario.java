@@ -0,0 +1,194 @@
+package ru.job4j.dreamjob.loadtest;
+
+import org.springframework.boot.convert.DurationStyle;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Сценарий нагрузки из .properties-файла (примеры в src/loadtest/resources/scenarios):
+ * число виртуальных пользователей, разгон, длительность, пауза между действиями
+ * и доли действий в смеси.
+ */
+public final class Scenario {
+    public enum Action {
+        BROWSE_LIST("browse-list"),
+        OPEN_DETAIL("open-detail"),
+        LOGIN("login"),
+        UPLOAD_IMAGE("upload-image");
+
+        private final String name;
+
+        Action(String name) {
+            this.name = name;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        static Action byName(String name) {
+            for (var action : values()) {
+                if (action.name.equals(name)) {
+                    return action;
+                }
+            }
+            throw new IllegalArgumentException("Неизвестное действие: " + name);
+        }
+    }
+
+    private final Path path;
+
+    private final String baseUrl;
+
+    private final int users;
+
+    private final Duration rampUp;
+
+    private final Duration duration;
+
+    private final Duration thinkTime;
+
+    private final Duration requestTimeout;
+
+    private final List<Action> actions = new ArrayList<>();
+
+    private final int[] cumulativeWeights;
+
+    private final int vacancies;
+
+    private final int candidates;
+
+    private final int accounts;
+
+    private final String emailPattern;
+
+    private final String password;
+
+    private final int uploadSize;
+
+    private final Path report;
+
+    private Scenario(Path path, Properties properties) {
+        this.path = path;
+        this.baseUrl = properties.getProperty("base-url");
+        this.users = Integer.parseInt(properties.getProperty("users"));
+        this.rampUp = duration(properties, "ramp-up");
+        this.duration = duration(properties, "duration");
+        this.thinkTime = duration(properties, "think-time");
+        this.requestTimeout = duration(properties, "request-timeout");
+        var weights = new ArrayList<Integer>();
+        for (var entry : properties.getProperty("mix").split(",")) {
+            var parts = entry.trim().split(":");
+            actions.add(Action.byName(parts[0].trim()));
+            weights.add(Integer.parseInt(parts[1].trim()));
+        }
+        this.cumulativeWeights = new int[weights.size()];
+        var total = 0;
+        for (var i = 0; i < weights.size(); i++) {
+            total += weights.get(i);
+            cumulativeWeights[i] = total;
+        }
+        this.vacancies = Integer.parseInt(properties.getProperty("vacancies"));
+        this.candidates = Integer.parseInt(properties.getProperty("candidates"));
+        this.accounts = Integer.parseInt(properties.getProperty("accounts"));
+        this.emailPattern = properties.getProperty("email-pattern");
+        this.password = properties.getProperty("password");
+        this.uploadSize = (int) DataSize.parse(properties.getProperty("upload-size")).toBytes();
+        this.report = Path.of(properties.getProperty("report"));
+    }
+
+    private static Duration duration(Properties properties, String name) {
+        return DurationStyle.detectAndParse(properties.getProperty(name));
+    }
+
+    public static Scenario load(Path path) throws IOException {
+        var properties = new Properties();
+        try (Reader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+            properties.load(reader);
+        }
+        return new Scenario(path, properties);
+    }
+
+    /**
+     * Следующее действие виртуального пользователя с учетом долей в смеси.
+     */
+    public Action nextAction() {
+        var total = cumulativeWeights[cumulativeWeights.length - 1];
+        var point = ThreadLocalRandom.current().nextInt(total);
+        for (var i = 0; i < cumulativeWeights.length; i++) {
+            if (point < cumulativeWeights[i]) {
+                return actions.get(i);
+            }
+        }
+        throw new IllegalStateException();
+    }
+
+    public Path getPath() {
+        return path;
+    }
+
+    /**
+     * @return адрес приложения или null, если его нужно запустить в этом процессе
+     */
+    public String getBaseUrl() {
+        return baseUrl;
+    }
+
+    public int getUsers() {
+        return users;
+    }
+
+    public Duration getRampUp() {
+        return rampUp;
+    }
+
+    public Duration getDuration() {
+        return duration;
+    }
+
+    public Duration getThinkTime() {
+        return thinkTime;
+    }
+
+    public Duration getRequestTimeout() {
+        return requestTimeout;
+    }
+
+    public int getVacancies() {
+        return vacancies;
+    }
+
+    public int getCandidates() {
+        return candidates;
+    }
+
+    public String getEmail(int account) {
+        return String.format(emailPattern, account);
+    }
+
+    public int getAccounts() {
+        return accounts;
+    }
+
+    public String getPassword() {
+        return password;
+    }
+
+    public int getUploadSize() {
+        return uploadSize;
+    }
+
+    public Path getReport() {
+        return report;
+    }
+}
@@ -1,65 +1,48 @@
 package ru.job4j.dreamjob.configuration;
 
-import org.apache.commons.dbcp2.BasicDataSource;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.sql2o.Sql2o;
-import org.sql2o.converters.Converter;
-import org.sql2o.converters.ConverterException;
-import org.sql2o.quirks.NoQuirks;
-import org.sql2o.quirks.Quirks;
+import ru.job4j.dreamjob.monitoring.SlowQueryInterceptor;
 
 import javax.sql.DataSource;
-import java.sql.Timestamp;
-import java.time.LocalDateTime;
+import java.time.Duration;
 
 @Configuration
 public class DatasourceConfiguration {
+    private final Duration maxWait;
+
+    /**
+     * @param maxWait сколько запрос ждет свободное соединение, прежде чем получить ошибку;
+     *                без ограничения потоки Tomcat копятся в очереди пула при медленной БД
+     */
+    public DatasourceConfiguration(@Value("${datasource.max-wait}") Duration maxWait) {
+        this.maxWait = maxWait;
+    }
 
     @Bean
     public DataSource connectionPool(@Value("${datasource.url}") String url,
                                      @Value("${datasource.username}") String username,
                                      @Value("${datasource.password}") String password) {
-        return new BasicDataSource() {
+        return new MonitoredDataSource() {
             {
                 setUrl(url);
                 setUsername(username);
                 setPassword(password);
+                setMaxWaitMillis(maxWait.toMillis());
             }
         };
     }
 
+    /**
+     * Sql2o работает через DataSource, который записывает медленные запросы;
+     * остальные потребители пула (предохранитель, сброс нагрузки) видят пул напрямую.
+     */
     @Bean
-    public Sql2o databaseClient(DataSource dataSource) {
-        return new Sql2o(dataSource, createConverters());
-    }
-
-    private Quirks createConverters() {
-        return new NoQuirks() {
-            {
-                converters.put(LocalDateTime.class, new Converter<LocalDateTime>() {
-
-                    @Override
-                    public LocalDateTime convert(Object value) throws ConverterException {
-                        if (value == null) {
-                            return null;
-                        }
-                        if (!(value instanceof Timestamp)) {
-                            throw new ConverterException("Invalid value to convert");
-                        }
-                        return ((Timestamp) value).toLocalDateTime();
-                    }
-
-                    @Override
-                    public Object toDatabaseParam(LocalDateTime value) {
-                        return value == null ? null : Timestamp.valueOf(value);
-                    }
-
-                });
-            }
-        };
+    public Sql2o monitoredDatabaseClient(DataSource dataSource,
+                                         SlowQueryInterceptor slowQueryInterceptor) {
+        return new Sql2o(slowQueryInterceptor.wrap(dataSource), new LocalDateTimeQuirks());
     }
 
 }
-
@@ -0,0 +1,35 @@
+package ru.job4j.dreamjob.configuration;
+
+import org.sql2o.converters.Converter;
+import org.sql2o.converters.ConverterException;
+import org.sql2o.quirks.NoQuirks;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+
+/**
+ * Настройки Sql2o приложения: LocalDateTime читается и пишется через Timestamp.
+ */
+public class LocalDateTimeQuirks extends NoQuirks {
+    public LocalDateTimeQuirks() {
+        converters.put(LocalDateTime.class, new Converter<LocalDateTime>() {
+
+            @Override
+            public LocalDateTime convert(Object value) throws ConverterException {
+                if (value == null) {
+                    return null;
+                }
+                if (!(value instanceof Timestamp)) {
+                    throw new ConverterException("Invalid value to convert");
+                }
+                return ((Timestamp) value).toLocalDateTime();
+            }
+
+            @Override
+            public Object toDatabaseParam(LocalDateTime value) {
+                return value == null ? null : Timestamp.valueOf(value);
+            }
+
+        });
+    }
+}
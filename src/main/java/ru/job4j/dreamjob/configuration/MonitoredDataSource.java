@@ -0,0 +1,44 @@
+package ru.job4j.dreamjob.configuration;
+
+import net.jcip.annotations.ThreadSafe;
+import org.apache.commons.dbcp2.BasicDataSource;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Пул соединений, который считает, сколько запросы ждут соединение.
+ * Среднее - экспоненциальное скользящее (вес нового замера 1/8), чтобы
+ * быстро реагировать на рост ожидания и не дергаться от единичных выбросов.
+ */
+@ThreadSafe
+public class MonitoredDataSource extends BasicDataSource {
+    private static final int SMOOTHING = 8;
+
+    private final AtomicLong averageWaitNanos = new AtomicLong();
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        var start = System.nanoTime();
+        try {
+            return super.getConnection();
+        } finally {
+            var wait = System.nanoTime() - start;
+            averageWaitNanos.accumulateAndGet(wait,
+                    (average, sample) -> average + (sample - average) / SMOOTHING);
+        }
+    }
+
+    public long getAverageWaitNanos() {
+        return averageWaitNanos.get();
+    }
+
+    /**
+     * Сколько потоков прямо сейчас ждут свободное соединение.
+     */
+    public int getNumWaiters() {
+        var pool = getConnectionPool();
+        return pool == null ? 0 : pool.getNumWaiters();
+    }
+}
@@ -0,0 +1,18 @@
+package ru.job4j.dreamjob.configuration;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+import ru.job4j.dreamjob.controller.StalePageInterceptor;
+import ru.job4j.dreamjob.filter.HandlerCompletionInterceptor;
+import ru.job4j.dreamjob.monitoring.RenderTimingInterceptor;
+
+@Configuration
+public class WebConfiguration implements WebMvcConfigurer {
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(new HandlerCompletionInterceptor());
+        registry.addInterceptor(new RenderTimingInterceptor());
+        registry.addInterceptor(new StalePageInterceptor());
+    }
+}
@@ -4,27 +4,52 @@ import net.jcip.annotations.ThreadSafe;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.ServletWebRequest;
 import org.springframework.web.multipart.MultipartFile;
 import ru.job4j.dreamjob.dto.FileDto;
 import ru.job4j.dreamjob.model.Candidate;
 import ru.job4j.dreamjob.service.CandidateService;
 import ru.job4j.dreamjob.service.CityService;
 
+import java.util.Map;
+
 @ThreadSafe
 @Controller
 @RequestMapping("/candidates")
 public class CandidateController {
     private final CandidateService candidateService;
     private final CityService cityService;
+    private final RenderedFragmentCache fragmentCache;
+    private final PageETags pageETags;
+    private final ListStreaming listStreaming;
 
-    public CandidateController(CandidateService candidateService, CityService cityService) {
+    public CandidateController(CandidateService candidateService, CityService cityService,
+                               RenderedFragmentCache fragmentCache, PageETags pageETags,
+                               ListStreaming listStreaming) {
         this.candidateService = candidateService;
         this.cityService = cityService;
+        this.fragmentCache = fragmentCache;
+        this.pageETags = pageETags;
+        this.listStreaming = listStreaming;
     }
 
     @GetMapping()
-    public String getAll(Model model) {
-        model.addAttribute("candidates", candidateService.findAll());
+    public String getAll(Model model, ServletWebRequest request) {
+        /* версия читается до загрузки данных, иначе запись между ними попала бы в кеш */
+        var version = candidateService.getVersion();
+        if (pageETags.checkNotModified(request, "candidates", version)) {
+            return null;
+        }
+        /* большой список не кешируется, а отрисовывается по мере чтения из БД */
+        if (!fragmentCache.contains("candidates/table", version, request.getRequest())
+                && listStreaming.isLarge(candidateService.count())) {
+            model.addAttribute("candidates",
+                    listStreaming.iterate(candidateService.streamAll(), request));
+            return "candidates/list";
+        }
+        model.addAttribute("candidateTable", fragmentCache.render("candidates/table", version,
+                request.getRequest(), request.getResponse(),
+                () -> Map.of("candidates", candidateService.findAll())));
         return "candidates/list";
     }
 
@@ -48,7 +73,10 @@ public class CandidateController {
     }
 
     @GetMapping("/{id}")
-    public String getById(Model model, @PathVariable int id) {
+    public String getById(Model model, @PathVariable int id, ServletWebRequest request) {
+        if (pageETags.checkNotModified(request, "candidate-" + id, candidateService.getVersion())) {
+            return null;
+        }
         var candidateOptional = candidateService.findById(id);
         if (candidateOptional.isEmpty()) {
             model.addAttribute("message", "Резюме с указанным идентификатором не найдено");
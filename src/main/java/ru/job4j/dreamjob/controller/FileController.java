@@ -1,29 +1,201 @@
 package ru.job4j.dreamjob.controller;
 
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestMethod;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.context.request.async.WebAsyncTask;
+import ru.job4j.dreamjob.model.File;
+import ru.job4j.dreamjob.service.FileIoBulkhead;
 import ru.job4j.dreamjob.service.FileService;
 
+import javax.servlet.http.HttpServletResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.ZoneId;
+import java.util.List;
+
 @RestController
 @RequestMapping("/files")
 public class FileController {
 
+    private static final String GZIP = "gzip";
+
+    private static final String IDENTITY = "identity";
+
     private final FileService fileService;
 
-    public FileController(FileService fileService) {
+    private final FileIoBulkhead fileIoBulkhead;
+
+    private final DistributionSummary identityBytes;
+
+    private final DistributionSummary gzipBytes;
+
+    public FileController(FileService fileService, FileIoBulkhead fileIoBulkhead,
+                          MeterRegistry meterRegistry) {
         this.fileService = fileService;
+        this.fileIoBulkhead = fileIoBulkhead;
+        this.identityBytes = downloadBytes(meterRegistry, IDENTITY);
+        this.gzipBytes = downloadBytes(meterRegistry, GZIP);
+    }
+
+    private static DistributionSummary downloadBytes(MeterRegistry registry, String encoding) {
+        return DistributionSummary.builder("dreamjob.files.download")
+                .description("Bytes sent per file download")
+                .baseUnit("bytes")
+                .tag("encoding", encoding)
+                .register(registry);
     }
 
+    /**
+     * Метаданные и проверка ETag - в потоке запроса, чтение и передача содержимого -
+     * на пуле файлового I/O. Если очередь пула заполнена, сразу отвечаем 503.
+     *
+     * Задача явно ставится на пул FileIoBulkhead (WebAsyncTask со своим исполнителем):
+     * общий исполнитель асинхронных запросов MVC остается стандартным, и чужие
+     * асинхронные ответы не занимают места файловых передач. Заголовки и содержимое
+     * пишутся в ответ из задачи, поэтому при отказе пула ответ еще пуст.
+     *
+     * @return ResponseEntity (404, 304, 503) или WebAsyncTask с передачей файла
+     */
     @GetMapping("/{id}")
-    public ResponseEntity<?> getById(@PathVariable int id) {
-        var contentOptional = fileService.getFileById(id);
-        if (contentOptional.isEmpty()) {
+    public Object getById(@PathVariable int id, ServletWebRequest request) {
+        var fileOptional = fileService.findById(id);
+        if (fileOptional.isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+        var file = fileOptional.get();
+        var gzip = file.hasGzipVariant()
+                && acceptsGzip(request.getHeader(HttpHeaders.ACCEPT_ENCODING));
+        if (isNotModified(file, gzip, request)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                    .headers(headers(file, gzip)).build();
+        }
+        if (!fileIoBulkhead.tryAdmit()) {
+            return serviceUnavailable();
+        }
+        var headers = headers(file, gzip);
+        var length = gzip ? file.getGzipSize() : file.getSize();
+        /* у файлов, сохраненных до появления метаданных, размер неизвестен (0) */
+        if (length > 0) {
+            headers.setContentLength(length);
+        }
+        var response = request.getResponse();
+        return new WebAsyncTask<Void>(null, fileIoBulkhead.getTaskExecutor(), () -> {
+            headers.forEach((name, values) -> values.forEach(
+                    value -> response.addHeader(name, value)));
+            try (var content = gzip
+                    ? fileService.getGzipContent(file) : fileService.getContent(file)) {
+                (gzip ? gzipBytes : identityBytes).record(
+                        content.transferTo(response.getOutputStream()));
+            }
+            return null;
+        });
+    }
+
+    /* Пул заполнился между tryAdmit() и постановкой задачи: отказ, как и при проверке */
+    @ExceptionHandler(TaskRejectedException.class)
+    public <T> ResponseEntity<T> serviceUnavailable() {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER,
+                        String.valueOf(fileIoBulkhead.getRetryAfterSeconds()))
+                .build();
+    }
+
+    /**
+     * HEAD отвечает только по метаданным из БД, файл с диска не читается.
+     */
+    @RequestMapping(value = "/{id}", method = RequestMethod.HEAD)
+    public ResponseEntity<?> headById(@PathVariable int id, WebRequest request) {
+        var fileOptional = fileService.findById(id);
+        if (fileOptional.isEmpty()) {
             return ResponseEntity.notFound().build();
         }
-        return ResponseEntity.ok(contentOptional.get().getContent());
+        var file = fileOptional.get();
+        var gzip = file.hasGzipVariant()
+                && acceptsGzip(request.getHeader(HttpHeaders.ACCEPT_ENCODING));
+        return ResponseEntity.ok().headers(headers(file, gzip))
+                .contentLength(gzip ? file.getGzipSize() : file.getSize()).build();
+    }
+
+    /**
+     * Разбор Accept-Encoding с учетом q-значений: gzip;q=0 означает отказ,
+     * "*" разрешает gzip, если он не запрещен явно.
+     */
+    static boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+        Double gzipQuality = null;
+        Double anyQuality = null;
+        for (var part : acceptEncoding.split(",")) {
+            var tokens = part.trim().split(";");
+            var coding = tokens[0].trim().toLowerCase();
+            var quality = quality(tokens);
+            if (GZIP.equals(coding) || "x-gzip".equals(coding)) {
+                gzipQuality = quality;
+            } else if ("*".equals(coding)) {
+                anyQuality = quality;
+            }
+        }
+        if (gzipQuality != null) {
+            return gzipQuality > 0;
+        }
+        return anyQuality != null && anyQuality > 0;
+    }
+
+    private static double quality(String[] tokens) {
+        for (var i = 1; i < tokens.length; i++) {
+            var parameter = tokens[i].trim();
+            if (parameter.startsWith("q=")) {
+                try {
+                    return Double.parseDouble(parameter.substring(2));
+                } catch (NumberFormatException e) {
+                    return 0;
+                }
+            }
+        }
+        return 1;
+    }
+
+    private boolean isNotModified(File file, boolean gzip, WebRequest request) {
+        return file.getHash() != null && request.checkNotModified(eTag(file, gzip));
+    }
+
+    private HttpHeaders headers(File file, boolean gzip) {
+        var headers = new HttpHeaders();
+        headers.setContentType(MediaType.parseMediaType(file.getContentType()));
+        headers.setContentDisposition(ContentDisposition.inline()
+                .filename(file.getName(), StandardCharsets.UTF_8).build());
+        if (file.hasGzipVariant()) {
+            headers.setVary(List.of(HttpHeaders.ACCEPT_ENCODING));
+        }
+        if (gzip) {
+            headers.set(HttpHeaders.CONTENT_ENCODING, GZIP);
+        }
+        if (file.getHash() != null) {
+            headers.setETag(eTag(file, gzip));
+        }
+        if (file.getUploadDate() != null) {
+            headers.setLastModified(file.getUploadDate().atZone(ZoneId.systemDefault()));
+        }
+        return headers;
+    }
+
+    /* У сжатого варианта другие байты, поэтому и ETag должен отличаться */
+    private String eTag(File file, boolean gzip) {
+        return "\"" + file.getHash() + (gzip ? "-gzip" : "") + "\"";
     }
 
-}
\ No newline at end of file
+}
@@ -0,0 +1,114 @@
+package ru.job4j.dreamjob.controller;
+
+import net.jcip.annotations.ThreadSafe;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletWebRequest;
+import ru.job4j.dreamjob.filter.ServerTimingFilter;
+
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+/**
+ * Потоковая отрисовка больших списков.
+ *
+ * Список длиннее threshold строк не собирается ни в коллекцию, ни в строку кеша
+ * фрагментов: шаблон получает итератор по строкам из БД, а перед каждыми flush-rows
+ * строками уже отрисованная часть страницы отправляется клиенту (chunked).
+ * Браузер сразу получает шапку и первые строки, память на запрос не зависит от длины
+ * списка. Строки читаются порциями, каждая на своем соединении из пула, поэтому
+ * сброс ответа медленному клиенту не держит соединение. Поток строк закрывается,
+ * когда строки кончились, а если отрисовка прервалась - по завершении запроса.
+ *
+ * Ответ уходит до конца отрисовки, поэтому ошибка посреди списка обрывает страницу,
+ * а не показывает страницу ошибки.
+ */
+@ThreadSafe
+@Component
+public class ListStreaming {
+    private static final String CURSOR_CALLBACK = ListStreaming.class.getName() + ".cursor";
+
+    private final int threshold;
+
+    private final int flushRows;
+
+    public ListStreaming(@Value("${list-streaming.threshold}") int threshold,
+                         @Value("${list-streaming.flush-rows}") int flushRows) {
+        this.threshold = threshold;
+        this.flushRows = flushRows;
+    }
+
+    public boolean isLarge(int rows) {
+        return rows > threshold;
+    }
+
+    /**
+     * Строки rows для th:each. Вызывается в потоке запроса: закрытие курсора
+     * привязывается к завершению запроса.
+     */
+    public <T> Iterator<T> iterate(Stream<T> rows, ServletWebRequest request) {
+        RequestContextHolder.currentRequestAttributes().registerDestructionCallback(
+                CURSOR_CALLBACK, rows::close, RequestAttributes.SCOPE_REQUEST);
+        request.setAttribute(ServerTimingFilter.STREAMING_ATTRIBUTE, true,
+                RequestAttributes.SCOPE_REQUEST);
+        return new FlushingIterator<>(rows, request.getResponse(), flushRows);
+    }
+
+    private static final class FlushingIterator<T> implements Iterator<T> {
+        private final Stream<T> stream;
+
+        private final Iterator<T> rows;
+
+        private final HttpServletResponse response;
+
+        private final int flushRows;
+
+        private int count;
+
+        private boolean exhausted;
+
+        private FlushingIterator(Stream<T> stream, HttpServletResponse response,
+                                 int flushRows) {
+            this.stream = stream;
+            this.rows = stream.iterator();
+            this.response = response;
+            this.flushRows = flushRows;
+        }
+
+        /* Шаблон может спросить еще раз и после конца, а курсор к тому времени закрыт */
+        @Override
+        public boolean hasNext() {
+            if (exhausted) {
+                return false;
+            }
+            exhausted = !rows.hasNext();
+            if (exhausted) {
+                stream.close();
+            }
+            return !exhausted;
+        }
+
+        /* Первый сброс - перед первой строкой: уходят шапка страницы и заголовок таблицы */
+        @Override
+        public T next() {
+            if (count % flushRows == 0) {
+                flush();
+            }
+            count++;
+            return rows.next();
+        }
+
+        private void flush() {
+            try {
+                response.flushBuffer();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+}
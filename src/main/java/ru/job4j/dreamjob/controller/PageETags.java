@@ -0,0 +1,84 @@
+package ru.job4j.dreamjob.controller;
+
+import net.jcip.annotations.ThreadSafe;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.support.ResourcePatternResolver;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.ServletWebRequest;
+import ru.job4j.dreamjob.model.SessionPrincipal;
+import ru.job4j.dreamjob.repository.LastKnownGoodCache;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.TreeMap;
+import java.util.zip.CRC32;
+
+/**
+ * Условный GET для HTML-страниц: слабый ETag строится из версии данных сервиса
+ * и вошедшего пользователя (имя в навигации), поэтому проверка не требует
+ * чтения самих данных. Версия данных хранится в БД и общая для всех экземпляров
+ * приложения, так что ETag с одного узла подходит и для другого. Вместо метки
+ * запуска в ETag входит контрольная сумма шаблонов: она одинакова на узлах
+ * с одной сборкой и меняется, когда новая сборка меняет разметку.
+ *
+ * Cache-Control: private, no-cache - браузер хранит страницу, но каждый раз
+ * спрашивает сервер; страницы из сохраненной копии при недоступной БД
+ * не сохраняются вовсе (см. StalePageInterceptor) и 304 не получают.
+ */
+@ThreadSafe
+@Component
+public class PageETags {
+    private static final String TEMPLATES = "classpath*:templates/**/*.html";
+
+    private final String revision;
+
+    public PageETags(ResourcePatternResolver resourceResolver) {
+        this.revision = revision(resourceResolver);
+    }
+
+    /* Шаблоны перебираются по пути внутри templates/: порядок не зависит от места сборки */
+    private static String revision(ResourcePatternResolver resourceResolver) {
+        try {
+            var templates = new TreeMap<String, Resource>();
+            for (var template : resourceResolver.getResources(TEMPLATES)) {
+                var url = template.getURL().toString();
+                templates.put(url.substring(url.lastIndexOf("/templates/")), template);
+            }
+            var checksum = new CRC32();
+            for (var entry : templates.entrySet()) {
+                checksum.update(entry.getKey().getBytes(StandardCharsets.UTF_8));
+                try (var input = entry.getValue().getInputStream()) {
+                    checksum.update(input.readAllBytes());
+                }
+            }
+            return Long.toString(checksum.getValue(), Character.MAX_RADIX);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Не удалось прочитать шаблоны страниц", e);
+        }
+    }
+
+    /**
+     * Ставит ETag и Cache-Control и сверяет с If-None-Match.
+     *
+     * @return true, если ответ 304 уже сформирован и контроллер должен вернуть null
+     */
+    public boolean checkNotModified(ServletWebRequest request, String page, long version) {
+        var response = request.getResponse();
+        if (response != null) {
+            response.setHeader(HttpHeaders.CACHE_CONTROL, "private, no-cache");
+        }
+        /* версия прочитана из сохраненной копии: сверять не с чем */
+        if (request.getAttribute(LastKnownGoodCache.STALE_ATTRIBUTE,
+                RequestAttributes.SCOPE_REQUEST) != null) {
+            return false;
+        }
+        var user = request.getAttribute("user", RequestAttributes.SCOPE_REQUEST)
+                instanceof SessionPrincipal principal ? principal : SessionPrincipal.GUEST;
+        var eTag = "W/\"" + page + "-" + revision + "-" + version + "-"
+                + Integer.toHexString(user.encode().hashCode()) + "\"";
+        return request.checkNotModified(eTag);
+    }
+}
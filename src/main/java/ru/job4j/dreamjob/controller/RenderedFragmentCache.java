@@ -0,0 +1,178 @@
+package ru.job4j.dreamjob.controller;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import net.jcip.annotations.ThreadSafe;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.thymeleaf.ITemplateEngine;
+import org.thymeleaf.context.WebContext;
+import ru.job4j.dreamjob.repository.LastKnownGoodCache;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import javax.servlet.http.HttpServletResponseWrapper;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+/**
+ * Кеш отрисованных фрагментов страниц (таблиц списков) по версии данных.
+ *
+ * Ключ - шаблон фрагмента, версия данных сервиса и строка запроса (страница, фильтр).
+ * При попадании не выполняются ни загрузка данных, ни отрисовка; части страницы,
+ * зависящие от пользователя, остаются в основном шаблоне и рисуются каждый раз.
+ * Для каждого шаблона хранится только текущая версия: с появлением новой записи
+ * старой версии отбрасываются целиком. Фрагмент, построенный по сохраненной копии
+ * при недоступной БД, не кешируется. Ссылки во фрагменте не проходят через
+ * encodeURL: иначе ;jsessionid одного посетителя попал бы в HTML для всех.
+ *
+ * Метрики: dreamjob.fragment.cache.requests (result=hit|miss), доля попаданий
+ * dreamjob.fragment.cache.hit.ratio, время построения при промахе
+ * dreamjob.fragment.render и сэкономленное время dreamjob.fragment.cache.saved.
+ */
+@ThreadSafe
+@Component
+public class RenderedFragmentCache {
+    private final ITemplateEngine templateEngine;
+
+    private final MeterRegistry meterRegistry;
+
+    private final int capacity;
+
+    private final Map<String, FragmentState> fragments = new ConcurrentHashMap<>();
+
+    public RenderedFragmentCache(ITemplateEngine templateEngine, MeterRegistry meterRegistry,
+                                 @Value("${fragment-cache.capacity}") int capacity) {
+        this.templateEngine = templateEngine;
+        this.meterRegistry = meterRegistry;
+        this.capacity = capacity;
+    }
+
+    /**
+     * Возвращает HTML фрагмента template для версии данных version. При промахе
+     * переменные шаблона берутся из variables, и только тогда обращаются к данным.
+     */
+    public String render(String template, long version, HttpServletRequest request,
+                         HttpServletResponse response, Supplier<Map<String, Object>> variables) {
+        var state = fragments.computeIfAbsent(template, this::register);
+        var generation = state.generation(version);
+        var key = key(request);
+        var cached = generation == null ? null : generation.entries.get(key);
+        if (cached != null) {
+            state.hits.increment();
+            state.saved.increment(cached.costNanos / 1e9);
+            return cached.html;
+        }
+        state.misses.increment();
+        var start = System.nanoTime();
+        var context = new WebContext(request, new SharedUrls(response),
+                request.getServletContext(), request.getLocale(), variables.get());
+        var html = templateEngine.process(template, context);
+        var cost = System.nanoTime() - start;
+        state.render.record(cost, TimeUnit.NANOSECONDS);
+        if (request.getAttribute(LastKnownGoodCache.STALE_ATTRIBUTE) == null) {
+            state.store(version, key, new Fragment(html, cost), capacity);
+        }
+        return html;
+    }
+
+    /**
+     * Есть ли готовый фрагмент для версии version: без отрисовки и без учета в метриках.
+     */
+    public boolean contains(String template, long version, HttpServletRequest request) {
+        var state = fragments.get(template);
+        var generation = state == null ? null : state.generation(version);
+        return generation != null && generation.entries.containsKey(key(request));
+    }
+
+    private static String key(HttpServletRequest request) {
+        return Objects.requireNonNullElse(request.getQueryString(), "");
+    }
+
+    private FragmentState register(String template) {
+        var state = new FragmentState(
+                counter(template, "hit"),
+                counter(template, "miss"),
+                Counter.builder("dreamjob.fragment.cache.saved")
+                        .description("Render time saved by fragment cache hits")
+                        .baseUnit("seconds")
+                        .tag("fragment", template)
+                        .register(meterRegistry),
+                Timer.builder("dreamjob.fragment.render")
+                        .description("Data loading and rendering time on a fragment cache miss")
+                        .tag("fragment", template)
+                        .register(meterRegistry));
+        Gauge.builder("dreamjob.fragment.cache.hit.ratio", state, FragmentState::hitRatio)
+                .description("Fragment cache hit ratio")
+                .tag("fragment", template)
+                .register(meterRegistry);
+        return state;
+    }
+
+    private Counter counter(String template, String result) {
+        return Counter.builder("dreamjob.fragment.cache.requests")
+                .description("Fragment cache lookups")
+                .tag("fragment", template)
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+
+    /* Ответ, в котором ссылки не дополняются идентификатором сессии */
+    private static final class SharedUrls extends HttpServletResponseWrapper {
+        private SharedUrls(HttpServletResponse response) {
+            super(response);
+        }
+
+        @Override
+        public String encodeURL(String url) {
+            return url;
+        }
+
+        @Override
+        public String encodeRedirectURL(String url) {
+            return url;
+        }
+    }
+
+    private record Fragment(String html, long costNanos) {
+    }
+
+    /* Фрагменты одной версии данных по строке запроса */
+    private record Generation(long version, Map<String, Fragment> entries) {
+    }
+
+    private record FragmentState(Counter hits, Counter misses, Counter saved, Timer render,
+                                 AtomicReference<Generation> current) {
+        private FragmentState(Counter hits, Counter misses, Counter saved, Timer render) {
+            this(hits, misses, saved, render, new AtomicReference<>());
+        }
+
+        private Generation generation(long version) {
+            var generation = current.get();
+            return generation != null && generation.version == version ? generation : null;
+        }
+
+        /* Более старая версия не вытесняет новую: ее запрос начался до изменения данных */
+        private void store(long version, String key, Fragment fragment, int capacity) {
+            var generation = current.updateAndGet(existing ->
+                    existing == null || existing.version < version
+                            ? new Generation(version, new ConcurrentHashMap<>()) : existing);
+            if (generation.version == version
+                    && (generation.entries.size() < capacity
+                    || generation.entries.containsKey(key))) {
+                generation.entries.put(key, fragment);
+            }
+        }
+
+        private double hitRatio() {
+            var total = hits.count() + misses.count();
+            return total == 0 ? 0 : hits.count() / total;
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package ru.job4j.dreamjob.controller;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.ModelAndView;
+import ru.job4j.dreamjob.repository.LastKnownGoodCache;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+/**
+ * Страница, построенная по сохраненной копии при недоступной БД, не должна
+ * сохраниться в браузере: иначе после восстановления БД при той же версии данных
+ * ETag совпадет, и пользователь продолжит видеть предупреждение.
+ */
+public class StalePageInterceptor implements HandlerInterceptor {
+    @Override
+    public void postHandle(HttpServletRequest request, HttpServletResponse response,
+                           Object handler, ModelAndView modelAndView) {
+        if (request.getAttribute(LastKnownGoodCache.STALE_ATTRIBUTE) != null) {
+            response.setHeader(HttpHeaders.CACHE_CONTROL, "no-store");
+        }
+    }
+}
@@ -0,0 +1,121 @@
+package ru.job4j.dreamjob.controller;
+
+import net.jcip.annotations.ThreadSafe;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.async.DeferredResult;
+import ru.job4j.dreamjob.service.FileIoBulkhead;
+import ru.job4j.dreamjob.service.UploadService;
+
+import javax.servlet.http.HttpServletRequest;
+import java.io.IOException;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.function.Supplier;
+
+/**
+ * Протокол загрузки по частям:
+ * POST /uploads?name=&size= - начать, PUT /uploads/{id}?offset= - дописать часть (тело запроса),
+ * GET /uploads/{id} - узнать, с какого смещения продолжать,
+ * POST /uploads/{id}/complete?sha256=&target=vacancy|candidate&targetId= - завершить и привязать.
+ */
+@ThreadSafe
+@RestController
+@RequestMapping("/uploads")
+public class UploadController {
+    private final UploadService uploadService;
+
+    private final FileIoBulkhead fileIoBulkhead;
+
+    public UploadController(UploadService uploadService, FileIoBulkhead fileIoBulkhead) {
+        this.uploadService = uploadService;
+        this.fileIoBulkhead = fileIoBulkhead;
+    }
+
+    @PostMapping
+    public ResponseEntity<?> init(@RequestParam String name, @RequestParam long size) {
+        return ResponseEntity.status(HttpStatus.CREATED).body(uploadService.init(name, size));
+    }
+
+    @GetMapping("/{id}")
+    public ResponseEntity<?> getById(@PathVariable String id) {
+        var uploadOptional = uploadService.findById(id);
+        if (uploadOptional.isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok(uploadOptional.get());
+    }
+
+    /**
+     * Выполняет task на пуле файлового I/O, поток Tomcat освобождается сразу.
+     * Если пул заполнен - 503 с Retry-After.
+     */
+    private DeferredResult<ResponseEntity<?>> submit(Supplier<ResponseEntity<?>> task) {
+        var result = new DeferredResult<ResponseEntity<?>>();
+        var admitted = fileIoBulkhead.trySubmit(() -> {
+            try {
+                result.setResult(task.get());
+            } catch (RuntimeException e) {
+                result.setErrorResult(e);
+            }
+        });
+        if (!admitted) {
+            result.setResult(ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .header(HttpHeaders.RETRY_AFTER,
+                            String.valueOf(fileIoBulkhead.getRetryAfterSeconds()))
+                    .build());
+        }
+        return result;
+    }
+
+    @PutMapping("/{id}")
+    public DeferredResult<ResponseEntity<?>> append(@PathVariable String id,
+                                                    @RequestParam long offset,
+                                                    HttpServletRequest request)
+            throws IOException {
+        var input = request.getInputStream();
+        return submit(() -> ResponseEntity.ok(uploadService.append(id, offset, input)));
+    }
+
+    /**
+     * Проверка суммы и перенос файла читают его целиком, поэтому тоже идут на пул.
+     */
+    @PostMapping("/{id}/complete")
+    public DeferredResult<ResponseEntity<?>> complete(@PathVariable String id,
+                                                      @RequestParam String sha256,
+                                                      @RequestParam String target,
+                                                      @RequestParam int targetId) {
+        var uploadTarget = UploadService.UploadTarget.valueOf(target.toUpperCase());
+        return submit(() -> {
+            var file = uploadService.complete(id, sha256, uploadTarget, targetId);
+            return ResponseEntity.ok(Map.of("fileId", file.getId()));
+        });
+    }
+
+    @DeleteMapping("/{id}")
+    public ResponseEntity<?> abort(@PathVariable String id) {
+        return uploadService.abort(id)
+                ? ResponseEntity.noContent().build()
+                : ResponseEntity.notFound().build();
+    }
+
+    @ExceptionHandler(NoSuchElementException.class)
+    public ResponseEntity<?> handleNotFound(NoSuchElementException exception) {
+        return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                .body(Map.of("message", exception.getMessage()));
+    }
+
+    /* Несовпадение смещения: клиент запрашивает GET /uploads/{id} и продолжает */
+    @ExceptionHandler(IllegalStateException.class)
+    public ResponseEntity<?> handleConflict(IllegalStateException exception) {
+        return ResponseEntity.status(HttpStatus.CONFLICT)
+                .body(Map.of("message", exception.getMessage()));
+    }
+
+    @ExceptionHandler(IllegalArgumentException.class)
+    public ResponseEntity<?> handleBadRequest(IllegalArgumentException exception) {
+        return ResponseEntity.badRequest().body(Map.of("message", exception.getMessage()));
+    }
+}
@@ -1,15 +1,25 @@
 package ru.job4j.dreamjob.controller;
 
 import net.jcip.annotations.ThreadSafe;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Controller;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.ui.Model;
 
+import ru.job4j.dreamjob.model.SessionPrincipal;
 import ru.job4j.dreamjob.model.User;
+import ru.job4j.dreamjob.security.AuthenticationStore;
 import ru.job4j.dreamjob.service.UserService;
 
 import javax.servlet.http.HttpServletRequest;
-import javax.servlet.http.HttpSession;
+import javax.servlet.http.HttpServletResponse;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.stream.Collectors;
 
 @ThreadSafe
 @Controller
@@ -17,8 +27,19 @@ import javax.servlet.http.HttpSession;
 public class UserController {
     private final UserService userService;
 
-    public UserController(UserService userService) {
+    private final AuthenticationStore authenticationStore;
+
+    /* Почты, которым при входе выдается роль ADMIN, в нижнем регистре */
+    private final Set<String> adminEmails;
+
+    public UserController(UserService userService, AuthenticationStore authenticationStore,
+                          @Value("${admin.emails}") String adminEmails) {
         this.userService = userService;
+        this.authenticationStore = authenticationStore;
+        this.adminEmails = Arrays.stream(adminEmails.split(","))
+                .map(email -> email.trim().toLowerCase(Locale.ROOT))
+                .filter(email -> !email.isEmpty())
+                .collect(Collectors.toUnmodifiableSet());
     }
 
     @GetMapping({"/", "/register"})
@@ -42,21 +63,32 @@ public class UserController {
     }
 
     @PostMapping("/login")
-    public String loginUser(@ModelAttribute User user, Model model, HttpServletRequest request) {
+    public String loginUser(@ModelAttribute User user, Model model, HttpServletRequest request,
+                            HttpServletResponse response) {
         var userOptional = userService.findByEmailAndPassword(user.getEmail(), user.getPassword());
         if (userOptional.isEmpty()) {
             model.addAttribute("error", "Почта или пароль введены неверно");
             return "users/login";
         }
-        var session = request.getSession();
-        session.setAttribute("user", userOptional.get());
+        var loggedIn = userOptional.get();
+        var admin = adminEmails.contains(loggedIn.getEmail().toLowerCase(Locale.ROOT));
+        authenticationStore.login(request, response, SessionPrincipal.of(loggedIn, admin));
         return "redirect:/vacancies";
     }
 
     @GetMapping("/logout")
-    public String logout(HttpSession session) {
-        session.invalidate();
+    public String logout(HttpServletRequest request, HttpServletResponse response) {
+        authenticationStore.logout(request, response);
         return "redirect:/users/login";
     }
 
+    /* Очередь пула хеширования паролей заполнена */
+    @ExceptionHandler(RejectedExecutionException.class)
+    public String handleOverload(Model model, HttpServletResponse response) {
+        response.setStatus(HttpStatus.SERVICE_UNAVAILABLE.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, "1");
+        model.addAttribute("message", "Сервис перегружен, повторите попытку позже");
+        return "errors/404";
+    }
+
 }
@@ -4,12 +4,15 @@ import net.jcip.annotations.ThreadSafe;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.ServletWebRequest;
 import org.springframework.web.multipart.MultipartFile;
 import ru.job4j.dreamjob.dto.FileDto;
 import ru.job4j.dreamjob.model.Vacancy;
 import ru.job4j.dreamjob.service.CityService;
 import ru.job4j.dreamjob.service.VacancyService;
 
+import java.util.Map;
+
 @ThreadSafe
 @Controller
 @RequestMapping("/vacancies") /* Работать с кандидатами будем по URI /vacancies/** */
@@ -17,10 +20,18 @@ public class VacancyController {
 
     private final VacancyService vacancyService;
     private final CityService cityService;
+    private final RenderedFragmentCache fragmentCache;
+    private final PageETags pageETags;
+    private final ListStreaming listStreaming;
 
-    public VacancyController(VacancyService vacancyService, CityService cityService) {
+    public VacancyController(VacancyService vacancyService, CityService cityService,
+                             RenderedFragmentCache fragmentCache, PageETags pageETags,
+                             ListStreaming listStreaming) {
         this.vacancyService = vacancyService;
         this.cityService = cityService;
+        this.fragmentCache = fragmentCache;
+        this.pageETags = pageETags;
+        this.listStreaming = listStreaming;
     }
 
     @GetMapping({"/", "/create"})
@@ -30,8 +41,22 @@ public class VacancyController {
     }
 
     @GetMapping
-    public String getAll(Model model) {
-        model.addAttribute("vacancies", vacancyService.findAll());
+    public String getAll(Model model, ServletWebRequest request) {
+        /* версия читается до загрузки данных, иначе запись между ними попала бы в кеш */
+        var version = vacancyService.getVersion();
+        if (pageETags.checkNotModified(request, "vacancies", version)) {
+            return null;
+        }
+        /* большой список не кешируется, а отрисовывается по мере чтения из БД */
+        if (!fragmentCache.contains("vacancies/table", version, request.getRequest())
+                && listStreaming.isLarge(vacancyService.count())) {
+            model.addAttribute("vacancies",
+                    listStreaming.iterate(vacancyService.streamAll(), request));
+            return "vacancies/list";
+        }
+        model.addAttribute("vacancyTable", fragmentCache.render("vacancies/table", version,
+                request.getRequest(), request.getResponse(),
+                () -> Map.of("vacancies", vacancyService.findAll())));
         return "vacancies/list";
     }
 
@@ -48,7 +73,10 @@ public class VacancyController {
     }
 
     @GetMapping("/{id}")
-    public String getById(Model model, @PathVariable int id) {
+    public String getById(Model model, @PathVariable int id, ServletWebRequest request) {
+        if (pageETags.checkNotModified(request, "vacancy-" + id, vacancyService.getVersion())) {
+            return null;
+        }
         var vacancyOptional = vacancyService.findById(id);
         if (vacancyOptional.isEmpty()) {
             model.addAttribute("message", "Вакансия с указанным идентификатором не найдена");
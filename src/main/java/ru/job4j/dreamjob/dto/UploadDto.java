@@ -0,0 +1,50 @@
+package ru.job4j.dreamjob.dto;
+
+/**
+ * Состояние загрузки по частям: клиент продолжает с offset после обрыва связи.
+ */
+public class UploadDto {
+    private String id;
+    private String name;
+    private long size;
+    private long offset;
+
+    public UploadDto(String id, String name, long size, long offset) {
+        this.id = id;
+        this.name = name;
+        this.size = size;
+        this.offset = offset;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public long getSize() {
+        return size;
+    }
+
+    public void setSize(long size) {
+        this.size = size;
+    }
+
+    public long getOffset() {
+        return offset;
+    }
+
+    public void setOffset(long offset) {
+        this.offset = offset;
+    }
+}
@@ -0,0 +1,91 @@
+package ru.job4j.dreamjob.filter;
+
+import net.jcip.annotations.GuardedBy;
+import net.jcip.annotations.ThreadSafe;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Предел числа одновременных запросов по схеме AIMD: пока запросы укладываются
+ * в порог, предел растет на единицу за каждые limit завершенных запросов;
+ * при перегрузке (долгий ответ или ожидание соединения) - умножается на backoff.
+ * Уменьшение не чаще одного раза за время, равное порогу задержки: иначе одна
+ * волна медленных ответов обрушила бы предел до минимума.
+ *
+ * Анонимным запросам доступна только часть предела (anonymousShare),
+ * вошедшие пользователи могут занять его целиком.
+ */
+@ThreadSafe
+public class AdaptiveConcurrencyLimit {
+    private final int minLimit;
+
+    private final int maxLimit;
+
+    private final double backoff;
+
+    private final double anonymousShare;
+
+    private final long decreaseIntervalNanos;
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    @GuardedBy("this")
+    private double limit;
+
+    @GuardedBy("this")
+    private long lastDecrease;
+
+    public AdaptiveConcurrencyLimit(int initialLimit, int minLimit, int maxLimit,
+                                    double backoff, double anonymousShare,
+                                    long decreaseIntervalNanos) {
+        this.limit = initialLimit;
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.backoff = backoff;
+        this.anonymousShare = anonymousShare;
+        this.decreaseIntervalNanos = decreaseIntervalNanos;
+        this.lastDecrease = System.nanoTime() - decreaseIntervalNanos;
+    }
+
+    /**
+     * @return true, если запрос принят; тогда обязателен вызов release()
+     */
+    public boolean tryAcquire(boolean priority) {
+        var allowed = priority ? getLimit() : (int) Math.max(1, getLimit() * anonymousShare);
+        while (true) {
+            var current = inFlight.get();
+            if (current >= allowed) {
+                return false;
+            }
+            if (inFlight.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * @param overloaded запрос выполнялся дольше порога или ждал соединение с БД
+     */
+    public void release(boolean overloaded, long now) {
+        var current = inFlight.getAndDecrement();
+        synchronized (this) {
+            if (overloaded) {
+                if (now - lastDecrease >= decreaseIntervalNanos) {
+                    limit = Math.max(minLimit, limit * backoff);
+                    lastDecrease = now;
+                }
+            } else if (current >= limit / 2) {
+                /* увеличиваем, только если предел действительно использовался */
+                limit = Math.min(maxLimit, limit + 1 / limit);
+            }
+        }
+    }
+
+    public synchronized int getLimit() {
+        return (int) limit;
+    }
+
+    public int getInFlight() {
+        return inFlight.get();
+    }
+}
@@ -1,7 +1,12 @@
 package ru.job4j.dreamjob.filter;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpHeaders;
 import org.springframework.stereotype.Component;
+import ru.job4j.dreamjob.model.SessionPrincipal;
+import ru.job4j.dreamjob.monitoring.ServerTiming;
+import ru.job4j.dreamjob.security.AuthenticationStore;
 
 import javax.servlet.FilterChain;
 import javax.servlet.ServletException;
@@ -9,30 +14,76 @@ import javax.servlet.http.HttpFilter;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
 
 @Component
-@Order(1)
+@Order(2)
 public class AuthorizationFilter extends HttpFilter {
-    private boolean isAlwaysPermitted(String uri) {
-        return uri.startsWith("/users/register") || uri.startsWith("/users/login");
+    private static final String BEARER = "Bearer ";
+
+    private final AuthenticationStore authenticationStore;
+
+    private final RouteClassifier routeClassifier;
+
+    /* Пустой токен - сбор метрик только из-под входа с ролью ADMIN */
+    private final byte[] scrapeToken;
+
+    public AuthorizationFilter(AuthenticationStore authenticationStore,
+                               RouteClassifier routeClassifier,
+                               @Value("${metrics.scrape-token}") String scrapeToken) {
+        this.authenticationStore = authenticationStore;
+        this.routeClassifier = routeClassifier;
+        this.scrapeToken = scrapeToken.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private boolean isAlwaysPermitted(RouteType routeType) {
+        return routeType == RouteType.PUBLIC || routeType == RouteType.STATIC;
     }
 
+    /**
+     * Вход только проверяется: анонимный запрос не должен создавать сессию и cookie JSESSIONID.
+     * На служебные адреса без роли ADMIN - 403. Метрики отдаются по токену сборщика
+     * (Authorization: Bearer), неверный токен - 401, без токена - как служебный адрес.
+     */
     @Override
     protected void doFilter(HttpServletRequest request, HttpServletResponse response,
                             FilterChain chain) throws IOException, ServletException {
-        var uri = request.getRequestURI();
-        if (isAlwaysPermitted(uri)) {
+        var routeType = routeClassifier.classify(request);
+        if (isAlwaysPermitted(routeType)) {
             chain.doFilter(request, response);
             return;
         }
-        var userLoggedIn = request.getSession().getAttribute("user") != null;
-        if (!userLoggedIn) {
+        if (routeType == RouteType.METRICS) {
+            var authorization = request.getHeader(HttpHeaders.AUTHORIZATION);
+            if (authorization != null && authorization.startsWith(BEARER)) {
+                if (isScrapeToken(authorization.substring(BEARER.length()))) {
+                    chain.doFilter(request, response);
+                } else {
+                    response.sendError(HttpServletResponse.SC_UNAUTHORIZED);
+                }
+                return;
+            }
+        }
+        var start = System.nanoTime();
+        var principal = authenticationStore.find(request);
+        ServerTiming.record(ServerTiming.Phase.AUTHORIZATION, System.nanoTime() - start);
+        if (principal.isEmpty()) {
             var loginPageUrl = request.getContextPath() + "/users/login";
             response.sendRedirect(loginPageUrl);
             return;
         }
+        if ((routeType == RouteType.ADMIN || routeType == RouteType.METRICS)
+                && !principal.get().hasRole(SessionPrincipal.ROLE_ADMIN)) {
+            response.sendError(HttpServletResponse.SC_FORBIDDEN);
+            return;
+        }
         chain.doFilter(request, response);
     }
 
+    private boolean isScrapeToken(String token) {
+        return scrapeToken.length > 0
+                && MessageDigest.isEqual(scrapeToken, token.getBytes(StandardCharsets.UTF_8));
+    }
 
 }
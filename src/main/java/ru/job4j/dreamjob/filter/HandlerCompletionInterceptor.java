@@ -0,0 +1,32 @@
+package ru.job4j.dreamjob.filter;
+
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.ModelAndView;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+/**
+ * Отмечает в запросе момент, когда контроллер закончил работу (до отрисовки
+ * и отправки ответа). По нему LoadSheddingFilter меряет время обработки,
+ * не считая медленного клиента. Если контроллер выбросил исключение, postHandle()
+ * не вызывается, и момент отмечается в afterCompletion().
+ */
+public class HandlerCompletionInterceptor implements HandlerInterceptor {
+    public static final String COMPLETED_ATTRIBUTE =
+            HandlerCompletionInterceptor.class.getName() + ".completed";
+
+    @Override
+    public void postHandle(HttpServletRequest request, HttpServletResponse response,
+                           Object handler, ModelAndView modelAndView) {
+        request.setAttribute(COMPLETED_ATTRIBUTE, System.nanoTime());
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response,
+                                Object handler, Exception exception) {
+        if (request.getAttribute(COMPLETED_ATTRIBUTE) == null) {
+            request.setAttribute(COMPLETED_ATTRIBUTE, System.nanoTime());
+        }
+    }
+}
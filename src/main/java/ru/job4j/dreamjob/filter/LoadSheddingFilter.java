@@ -0,0 +1,148 @@
+package ru.job4j.dreamjob.filter;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import net.jcip.annotations.ThreadSafe;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import ru.job4j.dreamjob.configuration.MonitoredDataSource;
+import ru.job4j.dreamjob.repository.DatabaseCircuitBreaker;
+import ru.job4j.dreamjob.repository.DatabaseUnavailableException;
+import ru.job4j.dreamjob.security.AuthenticationStore;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpFilter;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Сброс нагрузки: когда БД замедляется, лишние запросы сразу получают 503,
+ * а не занимают потоки Tomcat в очереди пула соединений.
+ *
+ * Перегрузкой считается обработка дольше admission.latency-threshold или среднее
+ * ожидание соединения дольше admission.pool-wait-threshold, а также очередь
+ * за соединениями в момент завершения запроса. Время обработки меряется до конца
+ * работы контроллера (HandlerCompletionInterceptor), а не до отправки ответа:
+ * медленный клиент не снижает предел. Из исключений перегрузкой считаются только
+ * таймауты и сбои БД или пула соединений; ошибки запроса и данных предел не снижают.
+ * Статика не ограничивается, а у файловых маршрутов есть собственный FileIoBulkhead.
+ */
+@ThreadSafe
+@Component
+@Order(1)
+public class LoadSheddingFilter extends HttpFilter {
+    private final AdaptiveConcurrencyLimit concurrencyLimit;
+
+    private final AuthenticationStore authenticationStore;
+
+    private final RouteClassifier routeClassifier;
+
+    private final MonitoredDataSource monitoredDataSource;
+
+    private final long latencyThresholdNanos;
+
+    private final long poolWaitThresholdNanos;
+
+    private final Counter anonymousRejections;
+
+    private final Counter userRejections;
+
+    public LoadSheddingFilter(@Value("${admission.initial-limit}") int initialLimit,
+                              @Value("${admission.min-limit}") int minLimit,
+                              @Value("${admission.max-limit}") int maxLimit,
+                              @Value("${admission.backoff}") double backoff,
+                              @Value("${admission.anonymous-share}") double anonymousShare,
+                              @Value("${admission.latency-threshold}") Duration latencyThreshold,
+                              @Value("${admission.pool-wait-threshold}") Duration poolWaitThreshold,
+                              AuthenticationStore authenticationStore,
+                              RouteClassifier routeClassifier,
+                              DataSource dataSource,
+                              MeterRegistry meterRegistry) {
+        this.concurrencyLimit = new AdaptiveConcurrencyLimit(initialLimit, minLimit, maxLimit,
+                backoff, anonymousShare, latencyThreshold.toNanos());
+        this.authenticationStore = authenticationStore;
+        this.routeClassifier = routeClassifier;
+        this.monitoredDataSource = dataSource instanceof MonitoredDataSource monitored
+                ? monitored : null;
+        this.latencyThresholdNanos = latencyThreshold.toNanos();
+        this.poolWaitThresholdNanos = poolWaitThreshold.toNanos();
+        Gauge.builder("dreamjob.admission.limit", concurrencyLimit,
+                        AdaptiveConcurrencyLimit::getLimit)
+                .description("Current adaptive concurrency limit")
+                .register(meterRegistry);
+        Gauge.builder("dreamjob.admission.in-flight", concurrencyLimit,
+                        AdaptiveConcurrencyLimit::getInFlight)
+                .description("Requests currently admitted")
+                .register(meterRegistry);
+        this.anonymousRejections = rejections(meterRegistry, "anonymous");
+        this.userRejections = rejections(meterRegistry, "user");
+    }
+
+    private static Counter rejections(MeterRegistry registry, String priority) {
+        return Counter.builder("dreamjob.admission.rejected")
+                .description("Requests shed with 503")
+                .tag("priority", priority)
+                .register(registry);
+    }
+
+    @Override
+    protected void doFilter(HttpServletRequest request, HttpServletResponse response,
+                            FilterChain chain) throws IOException, ServletException {
+        var routeType = routeClassifier.classify(request);
+        /* метрики не ограничиваются, чтобы перегрузка была видна в мониторинге */
+        if (routeType == RouteType.STATIC || routeType == RouteType.FILE
+                || routeType == RouteType.METRICS) {
+            chain.doFilter(request, response);
+            return;
+        }
+        var loggedIn = authenticationStore.find(request).isPresent();
+        if (!concurrencyLimit.tryAcquire(loggedIn)) {
+            (loggedIn ? userRejections : anonymousRejections).increment();
+            response.setStatus(HttpStatus.SERVICE_UNAVAILABLE.value());
+            response.setHeader(HttpHeaders.RETRY_AFTER, "1");
+            return;
+        }
+        var start = System.nanoTime();
+        Exception failure = null;
+        try {
+            chain.doFilter(request, response);
+        } catch (IOException | ServletException | RuntimeException e) {
+            failure = e;
+            throw e;
+        } finally {
+            var end = System.nanoTime();
+            var handled = request.getAttribute(HandlerCompletionInterceptor.COMPLETED_ATTRIBUTE)
+                    instanceof Long completed ? completed : end;
+            var overloaded = handled - start > latencyThresholdNanos
+                    || isPoolSaturated()
+                    || failure != null && isOverload(failure);
+            concurrencyLimit.release(overloaded, end);
+        }
+    }
+
+    /* Таймаут или недоступность БД где-то в цепочке причин */
+    static boolean isOverload(Throwable exception) {
+        for (var cause = exception; cause != null; cause = cause.getCause()) {
+            if (cause instanceof TimeoutException
+                    || cause instanceof DatabaseUnavailableException) {
+                return true;
+            }
+        }
+        return DatabaseCircuitBreaker.isOutage(exception);
+    }
+
+    private boolean isPoolSaturated() {
+        return monitoredDataSource != null
+                && (monitoredDataSource.getAverageWaitNanos() > poolWaitThresholdNanos
+                || monitoredDataSource.getNumWaiters() > 0);
+    }
+}
@@ -0,0 +1,160 @@
+package ru.job4j.dreamjob.filter;
+
+import net.jcip.annotations.ThreadSafe;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.convert.DurationStyle;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.util.UrlPathHelper;
+import ru.job4j.dreamjob.security.AuthenticationStore;
+
+import javax.annotation.PreDestroy;
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpFilter;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Ограничение частоты запросов к дорогим адресам: вход, регистрация, создание
+ * и изменение с загрузкой файла. Ключ - id вошедшего пользователя или IP клиента.
+ * За балансировщиком IP клиента берется из X-Forwarded-For средствами Tomcat
+ * (server.forward-headers-strategy) и только от доверенных прокси
+ * (server.tomcat.remoteip.internal-proxies), иначе все анонимные клиенты делили бы
+ * один лимит на адрес балансировщика.
+ *
+ * Правила задаются свойством rate-limit.rules в виде
+ * "МЕТОД /путь=лимит/период" через запятую; путь с окончанием /** - префикс.
+ * Путь сравнивается так, как его видит Spring MVC: без context path и ;параметров,
+ * декодированный и без / в конце, иначе /users/login/ обходил бы лимит.
+ * При превышении отвечаем 429 с Retry-After.
+ */
+@ThreadSafe
+@Component
+@Order(0)
+public class RateLimitFilter extends HttpFilter {
+    private final List<Rule> rules;
+
+    private final AuthenticationStore authenticationStore;
+
+    private final ScheduledExecutorService evictor;
+
+    public RateLimitFilter(@Value("${rate-limit.rules}") String rules,
+                           @Value("${rate-limit.idle-eviction-interval}") Duration evictionInterval,
+                           AuthenticationStore authenticationStore) {
+        this.rules = parseRules(rules);
+        this.authenticationStore = authenticationStore;
+        this.evictor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            var thread = new Thread(runnable, "rate-limit-evictor");
+            thread.setDaemon(true);
+            return thread;
+        });
+        evictor.scheduleWithFixedDelay(this::evictIdle, evictionInterval.toMillis(),
+                evictionInterval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    static List<Rule> parseRules(String rules) {
+        var result = new ArrayList<Rule>();
+        for (var entry : rules.split(",")) {
+            if (entry.isBlank()) {
+                continue;
+            }
+            var equals = entry.indexOf('=');
+            var route = entry.substring(0, equals).trim().split("\\s+");
+            var rate = entry.substring(equals + 1).trim().split("/");
+            if (route.length != 2 || rate.length != 2) {
+                throw new IllegalArgumentException("Неверное правило: " + entry);
+            }
+            var path = route[1];
+            var prefix = path.endsWith("/**");
+            result.add(new Rule(route[0].toUpperCase(),
+                    prefix ? path.substring(0, path.length() - 2) : path, prefix,
+                    new RateLimiter(Integer.parseInt(rate[0]),
+                            DurationStyle.detectAndParse(rate[1]))));
+        }
+        return result;
+    }
+
+    @Override
+    protected void doFilter(HttpServletRequest request, HttpServletResponse response,
+                            FilterChain chain) throws IOException, ServletException {
+        var rule = findRule(request.getMethod(), path(request));
+        if (rule != null) {
+            var waitNanos = rule.limiter.tryAcquire(key(request), System.nanoTime());
+            if (waitNanos > 0) {
+                /* без страницы ошибки: под нагрузкой ответ должен быть дешевым */
+                var seconds = TimeUnit.NANOSECONDS.toSeconds(waitNanos + 999_999_999);
+                response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+                response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(seconds));
+                return;
+            }
+        }
+        chain.doFilter(request, response);
+    }
+
+    static String path(HttpServletRequest request) {
+        var path = UrlPathHelper.defaultInstance.getPathWithinApplication(request);
+        return path.length() > 1 && path.endsWith("/")
+                ? path.substring(0, path.length() - 1)
+                : path;
+    }
+
+    private Rule findRule(String method, String uri) {
+        for (var rule : rules) {
+            if (rule.matches(method, uri)) {
+                return rule;
+            }
+        }
+        return null;
+    }
+
+    private String key(HttpServletRequest request) {
+        var principal = authenticationStore.find(request);
+        return principal.isPresent()
+                ? "user:" + principal.get().getId()
+                : "ip:" + request.getRemoteAddr();
+    }
+
+    private void evictIdle() {
+        var now = System.nanoTime();
+        for (var rule : rules) {
+            rule.limiter.evictIdle(now);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        evictor.shutdownNow();
+    }
+
+    static final class Rule {
+        private final String method;
+
+        private final String path;
+
+        private final boolean prefix;
+
+        private final RateLimiter limiter;
+
+        private Rule(String method, String path, boolean prefix, RateLimiter limiter) {
+            this.method = method;
+            this.path = path;
+            this.prefix = prefix;
+            this.limiter = limiter;
+        }
+
+        private boolean matches(String method, String path) {
+            return this.method.equals(method)
+                    && (prefix ? path.startsWith(this.path) : path.equals(this.path));
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package ru.job4j.dreamjob.filter;
+
+import net.jcip.annotations.ThreadSafe;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Token bucket в форме GCRA: для каждого ключа хранится одно число -
+ * теоретическое время следующего запроса (TAT). Запрос пропускается, если TAT
+ * опережает текущее время не больше, чем на емкость корзины. Обновление - CAS
+ * без блокировок. Корзина, у которой TAT в прошлом, полна и может быть удалена.
+ */
+@ThreadSafe
+public class RateLimiter {
+    private final long intervalNanos;
+
+    private final long burstNanos;
+
+    private final Map<String, AtomicLong> buckets = new ConcurrentHashMap<>();
+
+    /**
+     * @param limit  сколько запросов допускается за period (это же емкость корзины)
+     * @param period за какое время корзина наполняется полностью
+     */
+    public RateLimiter(int limit, Duration period) {
+        if (limit <= 0) {
+            throw new IllegalArgumentException("Лимит должен быть больше нуля");
+        }
+        this.intervalNanos = period.toNanos() / limit;
+        this.burstNanos = intervalNanos * limit;
+    }
+
+    /**
+     * @param now System.nanoTime()
+     * @return 0, если запрос разрешен, иначе сколько наносекунд подождать
+     */
+    public long tryAcquire(String key, long now) {
+        var bucket = buckets.computeIfAbsent(key, k -> new AtomicLong(now));
+        while (true) {
+            var tat = bucket.get();
+            var start = tat - now > 0 ? tat : now;
+            var next = start + intervalNanos;
+            var excess = next - now - burstNanos;
+            if (excess > 0) {
+                return excess;
+            }
+            if (bucket.compareAndSet(tat, next)) {
+                return 0;
+            }
+        }
+    }
+
+    /**
+     * Удаляет полные корзины. Запрос, успевший обновить корзину в момент удаления,
+     * может быть не учтен - в худшую для лимита сторону это один запрос.
+     */
+    public void evictIdle(long now) {
+        buckets.values().removeIf(bucket -> bucket.get() - now <= 0);
+    }
+
+    public int size() {
+        return buckets.size();
+    }
+}
@@ -0,0 +1,127 @@
+package ru.job4j.dreamjob.filter;
+
+import net.jcip.annotations.ThreadSafe;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.servlet.http.HttpServletRequest;
+import java.util.Arrays;
+
+/**
+ * Определяет тип маршрута по адресу запроса один раз за запрос, результат
+ * сохраняется в атрибуте запроса и используется всеми фильтрами.
+ *
+ * Маршруты задаются свойствами routes.public, routes.static, routes.file, routes.admin
+ * и routes.metrics:
+ * "/путь" - ровно этот адрес, "/путь/**" - адрес и все, что под ним.
+ * Поиск идет по префиксному дереву символов за один проход по адресу, без
+ * выделения памяти; при нескольких совпадениях побеждает самое длинное.
+ */
+@ThreadSafe
+@Component
+public class RouteClassifier {
+    private static final String ATTRIBUTE = RouteClassifier.class.getName() + ".type";
+
+    private static final String ANY_SUFFIX = "/**";
+
+    private final Node root = new Node();
+
+    public RouteClassifier(@Value("${routes.public}") String publicRoutes,
+                           @Value("${routes.static}") String staticRoutes,
+                           @Value("${routes.file}") String fileRoutes,
+                           @Value("${routes.admin}") String adminRoutes,
+                           @Value("${routes.metrics}") String metricsRoutes) {
+        addAll(publicRoutes, RouteType.PUBLIC);
+        addAll(staticRoutes, RouteType.STATIC);
+        addAll(fileRoutes, RouteType.FILE);
+        addAll(adminRoutes, RouteType.ADMIN);
+        addAll(metricsRoutes, RouteType.METRICS);
+    }
+
+    private void addAll(String routes, RouteType type) {
+        for (var route : routes.split(",")) {
+            route = route.trim();
+            if (route.isEmpty()) {
+                continue;
+            }
+            if (!route.startsWith("/")) {
+                throw new IllegalArgumentException("Маршрут должен начинаться с /: " + route);
+            }
+            if (route.endsWith(ANY_SUFFIX)) {
+                node(route.substring(0, route.length() - ANY_SUFFIX.length())).subtree = type;
+            } else {
+                node(route).exact = type;
+            }
+        }
+    }
+
+    private Node node(String path) {
+        var node = root;
+        for (var i = 0; i < path.length(); i++) {
+            node = node.childOrCreate(path.charAt(i));
+        }
+        return node;
+    }
+
+    public RouteType classify(HttpServletRequest request) {
+        var type = (RouteType) request.getAttribute(ATTRIBUTE);
+        if (type == null) {
+            type = classify(request.getRequestURI(), request.getContextPath().length());
+            request.setAttribute(ATTRIBUTE, type);
+        }
+        return type;
+    }
+
+    RouteType classify(String uri, int start) {
+        var node = root;
+        RouteType match = null;
+        for (var i = start; i < uri.length(); i++) {
+            var c = uri.charAt(i);
+            if (node.subtree != null && c == '/') {
+                match = node.subtree;
+            }
+            node = node.child(c);
+            if (node == null) {
+                return match != null ? match : RouteType.AUTHENTICATED;
+            }
+        }
+        if (node.exact != null) {
+            return node.exact;
+        }
+        if (node.subtree != null) {
+            return node.subtree;
+        }
+        return match != null ? match : RouteType.AUTHENTICATED;
+    }
+
+    private static final class Node {
+        private char[] keys = new char[0];
+
+        private Node[] children = new Node[0];
+
+        private RouteType exact;
+
+        private RouteType subtree;
+
+        private Node child(char c) {
+            for (var i = 0; i < keys.length; i++) {
+                if (keys[i] == c) {
+                    return children[i];
+                }
+            }
+            return null;
+        }
+
+        private Node childOrCreate(char c) {
+            var child = child(c);
+            if (child == null) {
+                child = new Node();
+                keys = Arrays.copyOf(keys, keys.length + 1);
+                children = Arrays.copyOf(children, children.length + 1);
+                keys[keys.length - 1] = c;
+                children[children.length - 1] = child;
+            }
+            return child;
+        }
+    }
+}
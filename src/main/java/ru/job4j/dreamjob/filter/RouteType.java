@@ -0,0 +1,28 @@
+package ru.job4j.dreamjob.filter;
+
+public enum RouteType {
+    /**
+     * Страницы, доступные без входа (вход, регистрация).
+     */
+    PUBLIC,
+    /**
+     * Статика: не нужны ни вход, ни пользователь в модели.
+     */
+    STATIC,
+    /**
+     * Отдача и загрузка файлов: нужен вход, но не нужен пользователь в модели.
+     */
+    FILE,
+    /**
+     * Служебные адреса: нужен вход с ролью ADMIN.
+     */
+    ADMIN,
+    /**
+     * Метрики: токен сборщика (metrics.scrape-token) или вход с ролью ADMIN.
+     */
+    METRICS,
+    /**
+     * Все остальное, в том числе неизвестные адреса.
+     */
+    AUTHENTICATED
+}
@@ -0,0 +1,197 @@
+package ru.job4j.dreamjob.filter;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import ru.job4j.dreamjob.monitoring.ServerTiming;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.ServletOutputStream;
+import javax.servlet.WriteListener;
+import javax.servlet.http.HttpFilter;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import javax.servlet.http.HttpServletResponseWrapper;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Заголовок Server-Timing с разбивкой времени запроса по фазам (см. ServerTiming),
+ * те же данные пишутся в таймер dreamjob.request.phase с гистограммой.
+ *
+ * Заголовок нужно выставить до отправки ответа, а шаблон пишет в ответ сам.
+ * Поэтому пока запрос в цепочке фильтров, явные flush() откладываются, и
+ * окончательный заголовок выставляется после отрисовки. Если страница
+ * не поместилась в буфер ответа или тело пишется асинхронно (файлы),
+ * остается заголовок, выставленный при первом обращении к телу ответа,
+ * - с фазами, завершенными к этому моменту. Так же и для страниц, которые
+ * сами отправляют ответ частями (атрибут запроса STREAMING_ATTRIBUTE).
+ */
+@Component
+@Order(-1)
+public class ServerTimingFilter extends HttpFilter {
+    public static final String SERVER_TIMING = "Server-Timing";
+
+    /* Атрибут запроса: ответ отправляется частями, flush() не откладываются */
+    public static final String STREAMING_ATTRIBUTE =
+            ServerTimingFilter.class.getName() + ".streaming";
+
+    private final RouteClassifier routeClassifier;
+
+    private final Map<ServerTiming.Phase, Timer> phaseTimers =
+            new EnumMap<>(ServerTiming.Phase.class);
+
+    public ServerTimingFilter(RouteClassifier routeClassifier, MeterRegistry meterRegistry) {
+        this.routeClassifier = routeClassifier;
+        for (var phase : ServerTiming.Phase.values()) {
+            phaseTimers.put(phase, Timer.builder("dreamjob.request.phase")
+                    .description("Time spent per request phase")
+                    .tag("phase", phase.getMetricName())
+                    .publishPercentileHistogram()
+                    .register(meterRegistry));
+        }
+    }
+
+    @Override
+    protected void doFilter(HttpServletRequest request, HttpServletResponse response,
+                            FilterChain chain) throws IOException, ServletException {
+        if (routeClassifier.classify(request) == RouteType.STATIC) {
+            chain.doFilter(request, response);
+            return;
+        }
+        var timing = ServerTiming.begin();
+        var timingResponse = new TimingResponse(request, response, timing);
+        try {
+            chain.doFilter(request, timingResponse);
+        } finally {
+            timing.end();
+            timingResponse.complete(!request.isAsyncStarted());
+            record(timing);
+        }
+    }
+
+    private void record(ServerTiming timing) {
+        for (var entry : phaseTimers.entrySet()) {
+            if (timing.getCount(entry.getKey()) > 0) {
+                entry.getValue().record(timing.getNanos(entry.getKey()), TimeUnit.NANOSECONDS);
+            }
+        }
+    }
+
+    private static final class TimingResponse extends HttpServletResponseWrapper {
+        private final HttpServletRequest request;
+
+        private final ServerTiming timing;
+
+        private volatile boolean flushDeferred = true;
+
+        private PrintWriter writer;
+
+        private ServletOutputStream outputStream;
+
+        private TimingResponse(HttpServletRequest request, HttpServletResponse response,
+                               ServerTiming timing) {
+            super(response);
+            this.request = request;
+            this.timing = timing;
+        }
+
+        private boolean isFlushDeferred() {
+            return flushDeferred && request.getAttribute(STREAMING_ATTRIBUTE) == null;
+        }
+
+        private void writeHeader() {
+            if (!isCommitted()) {
+                setHeader(SERVER_TIMING, timing.toHeader());
+            }
+        }
+
+        /* асинхронное тело пишется в другом потоке - заголовок выставит он сам */
+        private void complete(boolean writeHeader) {
+            flushDeferred = false;
+            if (writeHeader) {
+                writeHeader();
+            }
+        }
+
+        @Override
+        public PrintWriter getWriter() throws IOException {
+            if (writer == null) {
+                writeHeader();
+                writer = new PrintWriter(super.getWriter()) {
+                    @Override
+                    public void flush() {
+                        if (!isFlushDeferred()) {
+                            super.flush();
+                        }
+                    }
+                };
+            }
+            return writer;
+        }
+
+        @Override
+        public ServletOutputStream getOutputStream() throws IOException {
+            if (outputStream == null) {
+                writeHeader();
+                outputStream = new DeferredFlushOutputStream(super.getOutputStream(), this);
+            }
+            return outputStream;
+        }
+
+        @Override
+        public void flushBuffer() throws IOException {
+            if (!isFlushDeferred()) {
+                super.flushBuffer();
+            }
+        }
+    }
+
+    private static final class DeferredFlushOutputStream extends ServletOutputStream {
+        private final ServletOutputStream delegate;
+
+        private final TimingResponse response;
+
+        private DeferredFlushOutputStream(ServletOutputStream delegate, TimingResponse response) {
+            this.delegate = delegate;
+            this.response = response;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            delegate.write(b);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            delegate.write(b, off, len);
+        }
+
+        @Override
+        public void flush() throws IOException {
+            if (!response.isFlushDeferred()) {
+                delegate.flush();
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            delegate.close();
+        }
+
+        @Override
+        public boolean isReady() {
+            return delegate.isReady();
+        }
+
+        @Override
+        public void setWriteListener(WriteListener writeListener) {
+            delegate.setWriteListener(writeListener);
+        }
+    }
+}
@@ -2,35 +2,50 @@ package ru.job4j.dreamjob.filter;
 
 import org.springframework.core.annotation.Order;
 import org.springframework.stereotype.Component;
-import ru.job4j.dreamjob.model.User;
+import ru.job4j.dreamjob.model.SessionPrincipal;
+import ru.job4j.dreamjob.monitoring.ServerTiming;
+import ru.job4j.dreamjob.security.AuthenticationStore;
 
 import javax.servlet.FilterChain;
 import javax.servlet.ServletException;
 import javax.servlet.http.HttpFilter;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
-import javax.servlet.http.HttpSession;
 import java.io.IOException;
 
 @Component
-@Order(2)
+@Order(3)
 public class SessionFilter extends HttpFilter {
 
+    private final AuthenticationStore authenticationStore;
+
+    private final RouteClassifier routeClassifier;
+
+    public SessionFilter(AuthenticationStore authenticationStore,
+                         RouteClassifier routeClassifier) {
+        this.authenticationStore = authenticationStore;
+        this.routeClassifier = routeClassifier;
+    }
+
     @Override
     protected void doFilter(HttpServletRequest request, HttpServletResponse response,
                             FilterChain chain) throws IOException, ServletException {
-        var session = request.getSession();
-        addUserToSession(session, request);
+        var routeType = routeClassifier.classify(request);
+        /* статика и файлы отдаются без шаблона - пользователь в модели им не нужен */
+        if (routeType != RouteType.PUBLIC && routeType != RouteType.AUTHENTICATED) {
+            chain.doFilter(request, response);
+            return;
+        }
+        var start = System.nanoTime();
+        addUserToRequest(request);
+        ServerTiming.record(ServerTiming.Phase.SESSION, System.nanoTime() - start);
         chain.doFilter(request, response);
+        authenticationStore.commit(request);
     }
 
-    private void addUserToSession(HttpSession session, HttpServletRequest request) {
-        var user = (User) session.getAttribute("user");
-        if (user == null) {
-            user = new User();
-            user.setName("Гость");
-        }
-        request.setAttribute("user", user);
+    private void addUserToRequest(HttpServletRequest request) {
+        request.setAttribute("user", authenticationStore.find(request)
+                .orElse(SessionPrincipal.GUEST));
     }
 
-}
\ No newline at end of file
+}
@@ -1,20 +1,10 @@
 package ru.job4j.dreamjob.model;
 
 import java.time.LocalDateTime;
-import java.util.Map;
 import java.util.Objects;
 
 public class Candidate {
 
-    public static final Map<String, String> COLUMN_MAPPING = Map.of(
-            "id", "id",
-            "name", "name",
-            "description", "description",
-            "creation_date", "creationDate",
-            "city_id", "cityId",
-            "file_id", "fileId"
-    );
-
     private int id;
     private String name;
     private String description;
@@ -1,5 +1,6 @@
 package ru.job4j.dreamjob.model;
 
+import java.time.LocalDateTime;
 import java.util.Objects;
 
 public class File {
@@ -10,11 +11,46 @@ public class File {
 
     private String path;
 
+    private long size;
+
+    private String contentType = "application/octet-stream";
+
+    /* SHA-256 содержимого в hex, используется как ETag */
+    private String hash;
+
+    private LocalDateTime uploadDate = LocalDateTime.now();
+
+    /* Размеры заполняются только для изображений */
+    private Integer width;
+
+    private Integer height;
+
+    /* Заранее сжатый вариант для Content-Encoding: gzip, если файл хорошо сжимается */
+    private String gzipPath;
+
+    private Long gzipSize;
+
+    public File() {
+
+    }
+
     public File(String name, String path) {
         this.name = name;
         this.path = path;
     }
 
+    public File(String name, String path, long size, String contentType, String hash,
+                LocalDateTime uploadDate, Integer width, Integer height) {
+        this.name = name;
+        this.path = path;
+        this.size = size;
+        this.contentType = contentType;
+        this.hash = hash;
+        this.uploadDate = uploadDate;
+        this.width = width;
+        this.height = height;
+    }
+
     public int getId() {
         return id;
     }
@@ -39,6 +75,74 @@ public class File {
         this.path = path;
     }
 
+    public long getSize() {
+        return size;
+    }
+
+    public void setSize(long size) {
+        this.size = size;
+    }
+
+    public String getContentType() {
+        return contentType;
+    }
+
+    public void setContentType(String contentType) {
+        this.contentType = contentType;
+    }
+
+    public String getHash() {
+        return hash;
+    }
+
+    public void setHash(String hash) {
+        this.hash = hash;
+    }
+
+    public LocalDateTime getUploadDate() {
+        return uploadDate;
+    }
+
+    public void setUploadDate(LocalDateTime uploadDate) {
+        this.uploadDate = uploadDate;
+    }
+
+    public Integer getWidth() {
+        return width;
+    }
+
+    public void setWidth(Integer width) {
+        this.width = width;
+    }
+
+    public Integer getHeight() {
+        return height;
+    }
+
+    public void setHeight(Integer height) {
+        this.height = height;
+    }
+
+    public String getGzipPath() {
+        return gzipPath;
+    }
+
+    public void setGzipPath(String gzipPath) {
+        this.gzipPath = gzipPath;
+    }
+
+    public Long getGzipSize() {
+        return gzipSize;
+    }
+
+    public void setGzipSize(Long gzipSize) {
+        this.gzipSize = gzipSize;
+    }
+
+    public boolean hasGzipVariant() {
+        return gzipPath != null;
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) {
@@ -56,4 +160,4 @@ public class File {
         return Objects.hash(id, path);
     }
 
-}
\ No newline at end of file
+}
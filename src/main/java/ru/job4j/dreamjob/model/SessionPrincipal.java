@@ -0,0 +1,134 @@
+package ru.job4j.dreamjob.model;
+
+import net.jcip.annotations.Immutable;
+
+import java.io.ObjectInputStream;
+import java.io.InvalidObjectException;
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * То, что о вошедшем пользователе хранится между запросами: id, имя и роли.
+ * Почта и пароль сюда не попадают. В шаблонах доступен как user.
+ *
+ * Сериализуется одной строкой id:роли:имя (encode/decode) - ее же используют
+ * хранилища входа в cookie и в БД.
+ */
+@Immutable
+public final class SessionPrincipal implements Serializable {
+    public static final String ROLE_USER = "USER";
+
+    /* Доступ к служебным адресам (routes.admin), выдается по списку admin.emails */
+    public static final String ROLE_ADMIN = "ADMIN";
+
+    public static final SessionPrincipal GUEST = new SessionPrincipal(0, "Гость", Set.of());
+
+    private static final long serialVersionUID = 1L;
+
+    private final int id;
+
+    private final String name;
+
+    private final Set<String> roles;
+
+    public SessionPrincipal(int id, String name, Set<String> roles) {
+        this.id = id;
+        this.name = Objects.requireNonNull(name);
+        this.roles = Set.copyOf(roles);
+    }
+
+    public static SessionPrincipal of(User user) {
+        return of(user, false);
+    }
+
+    public static SessionPrincipal of(User user, boolean admin) {
+        return new SessionPrincipal(user.getId(), user.getName(),
+                admin ? Set.of(ROLE_USER, ROLE_ADMIN) : Set.of(ROLE_USER));
+    }
+
+    public int getId() {
+        return id;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public Set<String> getRoles() {
+        return roles;
+    }
+
+    public boolean hasRole(String role) {
+        return roles.contains(role);
+    }
+
+    public boolean isGuest() {
+        return this == GUEST;
+    }
+
+    public String encode() {
+        return id + ":" + String.join(",", new TreeSet<>(roles)) + ":" + name;
+    }
+
+    /**
+     * @throws IllegalArgumentException если строка не в формате encode()
+     */
+    public static SessionPrincipal decode(String encoded) {
+        var parts = encoded.split(":", 3);
+        if (parts.length != 3) {
+            throw new IllegalArgumentException("Неверный формат: " + encoded);
+        }
+        var roles = parts[1].isEmpty() ? Set.<String>of() : Set.of(parts[1].split(","));
+        return new SessionPrincipal(Integer.parseInt(parts[0]), parts[2], roles);
+    }
+
+    /* В сессию контейнера пишется только строка encode(), а не поля класса */
+    private Object writeReplace() {
+        return new SerializedForm(encode());
+    }
+
+    private void readObject(ObjectInputStream stream) throws InvalidObjectException {
+        throw new InvalidObjectException("Нужна SerializedForm");
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        SessionPrincipal that = (SessionPrincipal) o;
+        return id == that.id && name.equals(that.name) && roles.equals(that.roles);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(id, name, roles);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("SessionPrincipal{id=%s, name=%s, roles=%s}",
+                id, name, Arrays.toString(roles.toArray()));
+    }
+
+    private static final class SerializedForm implements Serializable {
+        private static final long serialVersionUID = 1L;
+
+        private final String value;
+
+        private SerializedForm(String value) {
+            this.value = value;
+        }
+
+        private Object readResolve() {
+            var principal = decode(value);
+            return GUEST.equals(principal) ? GUEST : principal;
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package ru.job4j.dreamjob.model;
+
+import net.jcip.annotations.GuardedBy;
+import net.jcip.annotations.ThreadSafe;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Сессия, хранящаяся в БД. Запоминает, какие атрибуты изменились с последнего
+ * сохранения, чтобы в БД записывались только они (SessionRepository.saveAttributes).
+ */
+@ThreadSafe
+public class UserSession {
+    private final String id;
+
+    private final LocalDateTime creationDate;
+
+    @GuardedBy("this")
+    private LocalDateTime expiresAt;
+
+    @GuardedBy("this")
+    private final Map<String, String> attributes = new HashMap<>();
+
+    @GuardedBy("this")
+    private final Set<String> dirty = new HashSet<>();
+
+    public UserSession(String id, LocalDateTime creationDate, LocalDateTime expiresAt) {
+        this.id = id;
+        this.creationDate = creationDate;
+        this.expiresAt = expiresAt;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public LocalDateTime getCreationDate() {
+        return creationDate;
+    }
+
+    public synchronized LocalDateTime getExpiresAt() {
+        return expiresAt;
+    }
+
+    public synchronized void setExpiresAt(LocalDateTime expiresAt) {
+        this.expiresAt = expiresAt;
+    }
+
+    public synchronized Optional<String> getAttribute(String name) {
+        return Optional.ofNullable(attributes.get(name));
+    }
+
+    public synchronized void setAttribute(String name, String value) {
+        if (!value.equals(attributes.put(name, value))) {
+            dirty.add(name);
+        }
+    }
+
+    public synchronized void removeAttribute(String name) {
+        if (attributes.remove(name) != null) {
+            dirty.add(name);
+        }
+    }
+
+    /**
+     * Атрибуты, загруженные из БД: не считаются измененными.
+     */
+    public synchronized void loadAttribute(String name, String value) {
+        attributes.put(name, value);
+    }
+
+    /**
+     * Измененные атрибуты (null - удаленный); после вызова сессия считается сохраненной.
+     */
+    public synchronized Map<String, String> pollDirtyAttributes() {
+        var changes = new HashMap<String, String>();
+        for (var name : dirty) {
+            changes.put(name, attributes.get(name));
+        }
+        dirty.clear();
+        return changes;
+    }
+
+    /**
+     * Возвращает атрибуты в число измененных, если их запись в БД не удалась.
+     */
+    public synchronized void markDirty(Collection<String> names) {
+        dirty.addAll(names);
+    }
+}
@@ -0,0 +1,42 @@
+package ru.job4j.dreamjob.monitoring;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Событие JFR на каждый вызов метода Sql2o-репозитория.
+ * Запрос определяется как "Репозиторий.метод": SQL у метода всегда один и тот же.
+ */
+@Name(DatabaseCallEvent.NAME)
+@Label("Database Call")
+@Category({"Dreamjob", "Database"})
+@Description("Sql2o repository method execution")
+@StackTrace(false)
+public class DatabaseCallEvent extends Event {
+    public static final String NAME = "ru.job4j.dreamjob.DatabaseCall";
+
+    @Label("Query")
+    private String query;
+
+    @Label("Rows")
+    private int rows;
+
+    @Label("Failed")
+    private boolean failed;
+
+    public void setQuery(String query) {
+        this.query = query;
+    }
+
+    public void setRows(int rows) {
+        this.rows = rows;
+    }
+
+    public void setFailed(boolean failed) {
+        this.failed = failed;
+    }
+}
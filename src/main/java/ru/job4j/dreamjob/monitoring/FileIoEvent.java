@@ -0,0 +1,69 @@
+package ru.job4j.dreamjob.monitoring;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+import java.nio.file.Path;
+
+/**
+ * Событие JFR на запись, чтение и удаление содержимого файла.
+ * Для чтения длительность считается от открытия до закрытия потока,
+ * то есть включает передачу клиенту.
+ */
+@Name(FileIoEvent.NAME)
+@Label("File I/O")
+@Category({"Dreamjob", "File"})
+@Description("File content stored, read or deleted by FileService")
+@StackTrace(false)
+public class FileIoEvent extends Event {
+    public static final String NAME = "ru.job4j.dreamjob.FileIo";
+
+    private static final String SEGMENT_PREFIX = "segment:";
+
+    @Label("Operation")
+    private String operation;
+
+    @Label("Bytes")
+    @DataAmount
+    private long bytes;
+
+    @Label("Shard")
+    @Description("Storage directory or segment store")
+    private String shard;
+
+    @Label("Path")
+    private String path;
+
+    public void setOperation(String operation) {
+        this.operation = operation;
+    }
+
+    public void setBytes(long bytes) {
+        this.bytes = bytes;
+    }
+
+    /**
+     * Запоминает адрес в хранилище и вычисляет по нему шард: каталог
+     * для локального хранилища или "segment" для сегментного.
+     */
+    public void setPath(String path) {
+        this.path = path;
+        this.shard = shard(path);
+    }
+
+    static String shard(String path) {
+        if (path == null) {
+            return null;
+        }
+        if (path.startsWith(SEGMENT_PREFIX)) {
+            return "segment";
+        }
+        var parent = Path.of(path).getParent();
+        return parent == null ? "" : parent.toString();
+    }
+}
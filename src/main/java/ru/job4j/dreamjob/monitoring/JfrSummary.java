@@ -0,0 +1,149 @@
+package ru.job4j.dreamjob.monitoring;
+
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+/**
+ * Сводка по записи JFR: самые затратные запросы (по суммарному времени)
+ * и самые крупные передачи файлов.
+ *
+ * Непрерывная запись в продакшене:
+ * java -XX:StartFlightRecording=disk=true,maxage=6h,dumponexit=true,filename=dreamjob.jfr
+ * Сводка: java -cp dreamjob.jar ru.job4j.dreamjob.monitoring.JfrSummary dreamjob.jfr [top]
+ */
+public final class JfrSummary {
+    private static final int DEFAULT_TOP = 10;
+
+    private JfrSummary() {
+    }
+
+    public record QueryStats(String query, long count, Duration total, Duration max, long rows,
+                             long failures) {
+        public Duration average() {
+            return total.dividedBy(count);
+        }
+    }
+
+    public record FileTransfer(String operation, long bytes, String shard, String path,
+                               Duration duration) {
+    }
+
+    public record Summary(List<QueryStats> queries, List<FileTransfer> transfers) {
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length == 0) {
+            System.err.println("Usage: JfrSummary <recording.jfr> [top]");
+            System.exit(1);
+        }
+        var top = args.length > 1 ? Integer.parseInt(args[1]) : DEFAULT_TOP;
+        System.out.print(format(summarize(Path.of(args[0]), top)));
+    }
+
+    /**
+     * Читает запись одним проходом: по запросам копятся агрегаты,
+     * из передач файлов держится только top крупнейших.
+     */
+    public static Summary summarize(Path recording, int top) throws IOException {
+        var queries = new HashMap<String, MutableStats>();
+        var transfers = new PriorityQueue<FileTransfer>(
+                Comparator.comparingLong(FileTransfer::bytes));
+        try (var file = new RecordingFile(recording)) {
+            while (file.hasMoreEvents()) {
+                var event = file.readEvent();
+                var name = event.getEventType().getName();
+                if (DatabaseCallEvent.NAME.equals(name)) {
+                    queries.computeIfAbsent(event.getString("query"), key -> new MutableStats())
+                            .add(event);
+                } else if (FileIoEvent.NAME.equals(name)
+                        && !"delete".equals(event.getString("operation"))) {
+                    transfers.add(new FileTransfer(event.getString("operation"),
+                            event.getLong("bytes"), event.getString("shard"),
+                            event.getString("path"), event.getDuration()));
+                    if (transfers.size() > top) {
+                        transfers.poll();
+                    }
+                }
+            }
+        }
+        return new Summary(hottest(queries, top), largest(transfers));
+    }
+
+    private static List<QueryStats> hottest(Map<String, MutableStats> queries, int top) {
+        return queries.entrySet().stream()
+                .map(entry -> entry.getValue().toStats(entry.getKey()))
+                .sorted(Comparator.comparing(QueryStats::total).reversed())
+                .limit(top)
+                .toList();
+    }
+
+    private static List<FileTransfer> largest(PriorityQueue<FileTransfer> transfers) {
+        var result = new ArrayList<>(transfers);
+        result.sort(Comparator.comparingLong(FileTransfer::bytes).reversed());
+        return result;
+    }
+
+    public static String format(Summary summary) {
+        var text = new StringBuilder("Hottest queries\n");
+        text.append(String.format("%-48s %8s %10s %9s %9s %10s %8s%n",
+                "query", "count", "total ms", "avg ms", "max ms", "rows", "failed"));
+        for (var query : summary.queries()) {
+            text.append(String.format("%-48s %8d %10.1f %9.2f %9.2f %10d %8d%n",
+                    query.query(), query.count(), millis(query.total()),
+                    millis(query.average()), millis(query.max()), query.rows(),
+                    query.failures()));
+        }
+        text.append("\nLargest file transfers\n");
+        text.append(String.format("%-9s %12s %9s  %-16s %s%n",
+                "operation", "bytes", "ms", "shard", "path"));
+        for (var transfer : summary.transfers()) {
+            text.append(String.format("%-9s %12d %9.2f  %-16s %s%n",
+                    transfer.operation(), transfer.bytes(), millis(transfer.duration()),
+                    transfer.shard(), transfer.path()));
+        }
+        return text.toString();
+    }
+
+    private static double millis(Duration duration) {
+        return duration.toNanos() / 1_000_000.0;
+    }
+
+    private static final class MutableStats {
+        private long count;
+
+        private Duration total = Duration.ZERO;
+
+        private Duration max = Duration.ZERO;
+
+        private long rows;
+
+        private long failures;
+
+        private void add(RecordedEvent event) {
+            var duration = event.getDuration();
+            count++;
+            total = total.plus(duration);
+            if (duration.compareTo(max) > 0) {
+                max = duration;
+            }
+            rows += event.getInt("rows");
+            if (event.getBoolean("failed")) {
+                failures++;
+            }
+        }
+
+        private QueryStats toStats(String query) {
+            return new QueryStats(query, count, total, max, rows, failures);
+        }
+    }
+}
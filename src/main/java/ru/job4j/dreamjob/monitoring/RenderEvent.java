@@ -0,0 +1,34 @@
+package ru.job4j.dreamjob.monitoring;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Событие JFR на отрисовку представления после выполнения контроллера.
+ */
+@Name(RenderEvent.NAME)
+@Label("View Render")
+@Category({"Dreamjob", "Web"})
+@Description("Thymeleaf view rendering")
+@StackTrace(false)
+public class RenderEvent extends Event {
+    public static final String NAME = "ru.job4j.dreamjob.Render";
+
+    @Label("View")
+    private String view;
+
+    @Label("URI")
+    private String uri;
+
+    public void setView(String view) {
+        this.view = view;
+    }
+
+    public void setUri(String uri) {
+        this.uri = uri;
+    }
+}
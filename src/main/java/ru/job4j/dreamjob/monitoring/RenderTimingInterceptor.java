@@ -0,0 +1,42 @@
+package ru.job4j.dreamjob.monitoring;
+
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.ModelAndView;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+/**
+ * Время отрисовки шаблона: между postHandle() и afterCompletion()
+ * DispatcherServlet только выполняет представление. Помимо Server-Timing
+ * отрисовка пишется событием JFR RenderEvent.
+ */
+public class RenderTimingInterceptor implements HandlerInterceptor {
+    private static final String EVENT_ATTRIBUTE =
+            RenderTimingInterceptor.class.getName() + ".event";
+
+    @Override
+    public void postHandle(HttpServletRequest request, HttpServletResponse response,
+                           Object handler, ModelAndView modelAndView) {
+        if (modelAndView != null && modelAndView.hasView()) {
+            ServerTiming.start(ServerTiming.Phase.RENDER);
+            var event = new RenderEvent();
+            if (event.isEnabled()) {
+                event.setView(modelAndView.getViewName());
+                event.setUri(request.getRequestURI());
+                event.begin();
+                request.setAttribute(EVENT_ATTRIBUTE, event);
+            }
+        }
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response,
+                                Object handler, Exception exception) {
+        ServerTiming.stop(ServerTiming.Phase.RENDER);
+        if (request.getAttribute(EVENT_ATTRIBUTE) instanceof RenderEvent event) {
+            request.removeAttribute(EVENT_ATTRIBUTE);
+            event.commit();
+        }
+    }
+}
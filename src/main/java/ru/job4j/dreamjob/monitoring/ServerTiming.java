@@ -0,0 +1,130 @@
+package ru.job4j.dreamjob.monitoring;
+
+import net.jcip.annotations.NotThreadSafe;
+
+import java.util.Locale;
+
+/**
+ * Сборщик времени по фазам одного запроса для заголовка Server-Timing.
+ *
+ * Экземпляр создается фильтром на каждый запрос и привязывается к потоку
+ * запроса, поэтому код глубже по стеку (репозитории, файловый сервис)
+ * отмечает свое время статическими методами, не получая запрос. Вне запроса
+ * (фоновые потоки, тесты) отметки ничего не делают. Данные лежат в массивах
+ * по фазам: отметка не создает объектов.
+ */
+@NotThreadSafe
+public final class ServerTiming {
+    private static final ThreadLocal<ServerTiming> CURRENT = new ThreadLocal<>();
+
+    private static final Phase[] PHASES = Phase.values();
+
+    private final long startedAt = System.nanoTime();
+
+    private final long[] nanos = new long[PHASES.length];
+
+    private final int[] counts = new int[PHASES.length];
+
+    private final long[] phaseStartedAt = new long[PHASES.length];
+
+    public enum Phase {
+        AUTHORIZATION("auth"),
+        SESSION("session"),
+        DB("db"),
+        FILE("file"),
+        RENDER("render");
+
+        private final String metricName;
+
+        Phase(String metricName) {
+            this.metricName = metricName;
+        }
+
+        public String getMetricName() {
+            return metricName;
+        }
+    }
+
+    private ServerTiming() {
+    }
+
+    /**
+     * Начинает сбор для запроса в текущем потоке.
+     */
+    public static ServerTiming begin() {
+        var timing = new ServerTiming();
+        CURRENT.set(timing);
+        return timing;
+    }
+
+    /**
+     * Отвязывает сборщик от потока; сами данные остаются доступными.
+     */
+    public void end() {
+        CURRENT.remove();
+    }
+
+    public static void record(Phase phase, long durationNanos) {
+        var timing = CURRENT.get();
+        if (timing != null) {
+            timing.nanos[phase.ordinal()] += durationNanos;
+            timing.counts[phase.ordinal()]++;
+        }
+    }
+
+    /**
+     * Для фаз, которые начинаются и заканчиваются в разных местах (отрисовка шаблона).
+     */
+    public static void start(Phase phase) {
+        var timing = CURRENT.get();
+        if (timing != null) {
+            timing.phaseStartedAt[phase.ordinal()] = System.nanoTime();
+        }
+    }
+
+    public static void stop(Phase phase) {
+        var timing = CURRENT.get();
+        if (timing == null || timing.phaseStartedAt[phase.ordinal()] == 0) {
+            return;
+        }
+        record(phase, System.nanoTime() - timing.phaseStartedAt[phase.ordinal()]);
+        timing.phaseStartedAt[phase.ordinal()] = 0;
+    }
+
+    public long getNanos(Phase phase) {
+        return nanos[phase.ordinal()];
+    }
+
+    public int getCount(Phase phase) {
+        return counts[phase.ordinal()];
+    }
+
+    public long getElapsedNanos() {
+        return System.nanoTime() - startedAt;
+    }
+
+    /**
+     * Значение заголовка: фазы, в которых было время, и общее время запроса,
+     * например {@code auth;dur=0.12, db;dur=3.40;desc="2 calls", total;dur=5.01}.
+     */
+    public String toHeader() {
+        var header = new StringBuilder(128);
+        for (var phase : PHASES) {
+            var count = counts[phase.ordinal()];
+            if (count == 0) {
+                continue;
+            }
+            header.append(phase.metricName).append(";dur=")
+                    .append(millis(nanos[phase.ordinal()]));
+            if (count > 1) {
+                header.append(";desc=\"").append(count).append(" calls\"");
+            }
+            header.append(", ");
+        }
+        return header.append("total;dur=").append(millis(getElapsedNanos())).toString();
+    }
+
+    private static String millis(long nanos) {
+        return String.format(Locale.ROOT, "%.2f", nanos / 1_000_000.0);
+    }
+}
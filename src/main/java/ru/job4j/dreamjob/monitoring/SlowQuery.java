@@ -0,0 +1,15 @@
+package ru.job4j.dreamjob.monitoring;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Запись журнала медленных запросов.
+ *
+ * @param parameters значения параметров в порядке "?" в тексте запроса, видны только
+ *                   числа, даты и логические значения
+ * @param plan       план выполнения (EXPLAIN) или null, если его не удалось получить
+ */
+public record SlowQuery(Instant time, long durationMillis, String sql,
+                        List<String> parameters, String plan) {
+}
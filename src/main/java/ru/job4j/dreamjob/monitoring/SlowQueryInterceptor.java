@@ -0,0 +1,248 @@
+package ru.job4j.dreamjob.monitoring;
+
+import net.jcip.annotations.ThreadSafe;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Журнал медленных запросов на уровне JDBC: DataSource, Connection и
+ * PreparedStatement оборачиваются динамическими прокси, которые замеряют
+ * выполнение и запоминают параметры. Запрос дольше slow-query.threshold
+ * попадает в SlowQueryLog вместе с планом выполнения.
+ *
+ * Отслеживается только доля slow-query.sample-rate запросов, остальные
+ * выполняются без прокси. EXPLAIN выполняется в фоновом потоке на отдельном
+ * соединении и не чаще раза в slow-query.explain-interval для одного текста
+ * запроса; в остальное время к записи прикладывается последний полученный план.
+ */
+@ThreadSafe
+@Component
+public class SlowQueryInterceptor {
+    private static final Logger LOG = LoggerFactory.getLogger(SlowQueryInterceptor.class);
+
+    private static final Set<String> EXECUTE_METHODS = Set.of(
+            "execute", "executeQuery", "executeUpdate", "executeLargeUpdate", "executeBatch");
+
+    private static final Set<String> EXPLAINABLE = Set.of("select", "insert", "update", "delete");
+
+    private static final int MAX_PLANS = 1000;
+
+    private static final int EXPLAIN_QUEUE_CAPACITY = 16;
+
+    private final SlowQueryLog slowQueryLog;
+
+    private final long thresholdNanos;
+
+    private final double sampleRate;
+
+    private final long explainIntervalNanos;
+
+    private final ExecutorService explainExecutor;
+
+    private final Map<String, Plan> plans = new ConcurrentHashMap<>();
+
+    private volatile DataSource explainDataSource;
+
+    @Autowired
+    public SlowQueryInterceptor(SlowQueryLog slowQueryLog,
+                                @Value("${slow-query.threshold}") Duration threshold,
+                                @Value("${slow-query.sample-rate}") double sampleRate,
+                                @Value("${slow-query.explain-interval}") Duration explainInterval) {
+        this(slowQueryLog, threshold, sampleRate, explainInterval, new ThreadPoolExecutor(
+                1, 1, 0, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(EXPLAIN_QUEUE_CAPACITY),
+                task -> {
+                    var thread = new Thread(task, "slow-query-explain");
+                    thread.setDaemon(true);
+                    return thread;
+                }));
+    }
+
+    SlowQueryInterceptor(SlowQueryLog slowQueryLog, Duration threshold, double sampleRate,
+                         Duration explainInterval, ExecutorService explainExecutor) {
+        this.slowQueryLog = slowQueryLog;
+        this.thresholdNanos = threshold.toNanos();
+        this.sampleRate = sampleRate;
+        this.explainIntervalNanos = explainInterval.toNanos();
+        this.explainExecutor = explainExecutor;
+    }
+
+    /**
+     * @return DataSource, соединения которого отслеживают медленные запросы;
+     * EXPLAIN выполняется через исходный dataSource
+     */
+    public DataSource wrap(DataSource dataSource) {
+        explainDataSource = dataSource;
+        return proxy(DataSource.class, dataSource, (target, method, args) -> {
+            var result = invoke(target, method, args);
+            return result instanceof Connection connection ? wrap(connection) : result;
+        });
+    }
+
+    private Connection wrap(Connection connection) {
+        return proxy(Connection.class, connection, (target, method, args) -> {
+            var result = invoke(target, method, args);
+            if (result instanceof PreparedStatement statement
+                    && "prepareStatement".equals(method.getName()) && isSampled()) {
+                return wrap(statement, (String) args[0]);
+            }
+            return result;
+        });
+    }
+
+    private boolean isSampled() {
+        return sampleRate >= 1 || ThreadLocalRandom.current().nextDouble() < sampleRate;
+    }
+
+    private PreparedStatement wrap(PreparedStatement statement, String sql) {
+        var parameters = new Object[][] {new Object[0]};
+        return proxy(PreparedStatement.class, statement, (target, method, args) -> {
+            var name = method.getName();
+            if (name.startsWith("set") && args != null && args.length >= 2
+                    && args[0] instanceof Integer index) {
+                parameters[0] = bind(parameters[0], index, args[1]);
+            } else if ("clearParameters".equals(name)) {
+                parameters[0] = new Object[0];
+            } else if (EXECUTE_METHODS.contains(name) && (args == null || args.length == 0)) {
+                var start = System.nanoTime();
+                try {
+                    return invoke(target, method, args);
+                } finally {
+                    var duration = System.nanoTime() - start;
+                    if (duration >= thresholdNanos) {
+                        onSlowQuery(sql, parameters[0].clone(), duration);
+                    }
+                }
+            }
+            return invoke(target, method, args);
+        });
+    }
+
+    /* Индексы параметров JDBC начинаются с 1 */
+    private static Object[] bind(Object[] parameters, int index, Object value) {
+        var result = index > parameters.length ? Arrays.copyOf(parameters, index) : parameters;
+        result[index - 1] = value;
+        return result;
+    }
+
+    private void onSlowQuery(String sql, Object[] parameters, long durationNanos) {
+        var time = Instant.now();
+        var durationMillis = TimeUnit.NANOSECONDS.toMillis(durationNanos);
+        var redacted = SqlParameters.redact(parameters);
+        LOG.warn("Slow query {} ms: {} parameters={}", durationMillis, sql, redacted);
+        var now = System.nanoTime();
+        var plan = plans.get(sql);
+        var planText = plan == null ? null : plan.text();
+        var planIsFresh = plan != null && now - plan.capturedAt() < explainIntervalNanos;
+        if (planIsFresh || !isExplainable(sql)) {
+            slowQueryLog.add(new SlowQuery(time, durationMillis, sql, redacted, planText));
+            return;
+        }
+        if (plans.size() >= MAX_PLANS) {
+            plans.clear();
+        }
+        /* пока план считается, повторные медленные запросы его не заказывают */
+        plans.put(sql, new Plan(planText, now));
+        try {
+            explainExecutor.execute(() -> {
+                var text = explain(sql, parameters);
+                plans.put(sql, new Plan(text, System.nanoTime()));
+                slowQueryLog.add(new SlowQuery(time, durationMillis, sql, redacted, text));
+            });
+        } catch (RejectedExecutionException e) {
+            plans.remove(sql);
+            slowQueryLog.add(new SlowQuery(time, durationMillis, sql, redacted, planText));
+        }
+    }
+
+    private static boolean isExplainable(String sql) {
+        var trimmed = sql.stripLeading();
+        var end = 0;
+        while (end < trimmed.length() && Character.isLetter(trimmed.charAt(end))) {
+            end++;
+        }
+        return EXPLAINABLE.contains(trimmed.substring(0, end).toLowerCase(Locale.ROOT));
+    }
+
+    /**
+     * EXPLAIN без ANALYZE: запрос не выполняется повторно, изменяющие запросы безопасны.
+     */
+    private String explain(String sql, Object[] parameters) {
+        try (var connection = explainDataSource.getConnection()) {
+            var postgres = "PostgreSQL".equals(connection.getMetaData().getDatabaseProductName());
+            var explainSql = (postgres ? "EXPLAIN (ANALYZE off) " : "EXPLAIN ") + sql;
+            try (var statement = connection.prepareStatement(explainSql)) {
+                for (var i = 0; i < parameters.length; i++) {
+                    statement.setObject(i + 1, parameters[i]);
+                }
+                try (var resultSet = statement.executeQuery()) {
+                    var plan = new StringBuilder();
+                    while (resultSet.next()) {
+                        if (plan.length() > 0) {
+                            plan.append('\n');
+                        }
+                        plan.append(resultSet.getString(1));
+                    }
+                    return plan.toString();
+                }
+            }
+        } catch (SQLException e) {
+            LOG.debug("EXPLAIN failed for {}", sql, e);
+            return null;
+        }
+    }
+
+    private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T proxy(Class<T> type, T target, Handler handler) {
+        InvocationHandler invocationHandler = (proxy, method, args) ->
+                handler.handle(target, method, args);
+        return (T) Proxy.newProxyInstance(SlowQueryInterceptor.class.getClassLoader(),
+                new Class<?>[] {type}, invocationHandler);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        explainExecutor.shutdownNow();
+    }
+
+    @FunctionalInterface
+    private interface Handler {
+        Object handle(Object target, Method method, Object[] args) throws Throwable;
+    }
+
+    private record Plan(String text, long capturedAt) {
+    }
+}
@@ -0,0 +1,47 @@
+package ru.job4j.dreamjob.monitoring;
+
+import net.jcip.annotations.ThreadSafe;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Кольцевой буфер последних медленных запросов: память ограничена capacity
+ * записями, новые вытесняют самые старые.
+ */
+@ThreadSafe
+@Component
+public class SlowQueryLog {
+    private final AtomicReferenceArray<SlowQuery> entries;
+
+    private final AtomicLong next = new AtomicLong();
+
+    public SlowQueryLog(@Value("${slow-query.capacity}") int capacity) {
+        this.entries = new AtomicReferenceArray<>(capacity);
+    }
+
+    public void add(SlowQuery slowQuery) {
+        var index = next.getAndIncrement() % entries.length();
+        entries.set((int) index, slowQuery);
+    }
+
+    /**
+     * @return записи от новых к старым
+     */
+    public List<SlowQuery> findAll() {
+        var last = next.get();
+        var count = (int) Math.min(last, entries.length());
+        var result = new ArrayList<SlowQuery>(count);
+        for (var i = 1; i <= count; i++) {
+            var entry = entries.get((int) ((last - i) % entries.length()));
+            if (entry != null) {
+                result.add(entry);
+            }
+        }
+        return result;
+    }
+}
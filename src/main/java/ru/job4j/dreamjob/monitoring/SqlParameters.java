@@ -0,0 +1,39 @@
+package ru.job4j.dreamjob.monitoring;
+
+import java.time.temporal.Temporal;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Скрытие параметров запроса в журнале. Журнал читают администраторы, а в параметрах
+ * бывают пароли, почты, идентификаторы сессий и тексты пользователей, поэтому
+ * показываются только числа, даты и логические значения - их достаточно, чтобы
+ * понять селективность условия. Все остальное, в том числе любые строки, скрывается.
+ */
+final class SqlParameters {
+    static final String REDACTED = "***";
+
+    private SqlParameters() {
+    }
+
+    /**
+     * @param values значения параметров по порядку "?"
+     * @return строковые представления, в которых видны только безопасные значения
+     */
+    static List<String> redact(Object[] values) {
+        var result = new ArrayList<String>(values.length);
+        for (var value : values) {
+            result.add(isSafe(value) ? String.valueOf(value) : REDACTED);
+        }
+        return result;
+    }
+
+    private static boolean isSafe(Object value) {
+        return value == null
+                || value instanceof Number
+                || value instanceof Boolean
+                || value instanceof Temporal
+                || value instanceof Date;
+    }
+}
@@ -4,6 +4,7 @@ import ru.job4j.dreamjob.model.Candidate;
 
 import java.util.Collection;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 public interface CandidateRepository {
     Candidate save(Candidate candidate);
@@ -15,4 +16,17 @@ public interface CandidateRepository {
     Optional<Candidate> findById(int id);
 
     Collection<Candidate> findAll();
+
+    /**
+     * Все записи по мере чтения, без загрузки списка целиком.
+     * Поток может держать ресурсы (соединение с БД) и должен быть закрыт.
+     */
+    Stream<Candidate> streamAll();
+
+    int count();
+
+    /**
+     * Версия данных: растет с каждой записью и общая для всех экземпляров приложения.
+     */
+    long version();
 }
@@ -0,0 +1,35 @@
+package ru.job4j.dreamjob.repository;
+
+import org.sql2o.Connection;
+import org.sql2o.Sql2o;
+
+/**
+ * Версии данных таблиц в БД (таблица data_versions).
+ *
+ * Версия увеличивается в той же транзакции, что и запись в таблицу, поэтому
+ * она общая для всех экземпляров приложения и не расходится с данными:
+ * построенное по версии (отрисованные списки, ETag) можно переиспользовать
+ * на любом узле.
+ */
+final class DataVersions {
+    static final String VACANCIES = "vacancies";
+
+    static final String CANDIDATES = "candidates";
+
+    private DataVersions() {
+    }
+
+    static void increment(Connection connection, String name) {
+        connection.createQuery("UPDATE data_versions SET version = version + 1 WHERE name = :name")
+                .addParameter("name", name)
+                .executeUpdate();
+    }
+
+    static long find(Sql2o sql2o, String name) {
+        try (var connection = sql2o.open()) {
+            return connection.createQuery("SELECT version FROM data_versions WHERE name = :name")
+                    .addParameter("name", name)
+                    .executeScalar(Long.class);
+        }
+    }
+}
@@ -0,0 +1,165 @@
+package ru.job4j.dreamjob.repository;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import net.jcip.annotations.GuardedBy;
+import net.jcip.annotations.ThreadSafe;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import javax.sql.DataSource;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Предохранитель для обращений к БД. После failure-threshold подряд сбоев
+ * соединения он размыкается: запросы сразу получают DatabaseUnavailableException,
+ * а не ждут соединение из пула. Пока он разомкнут, фоновый поток раз в
+ * probe-interval проверяет соединение; при успехе предохранитель замыкается
+ * и вызываются слушатели восстановления (например, обновление кешей).
+ *
+ * Ошибки данных и SQL (нарушение ограничений, синтаксис) сбоями БД не считаются.
+ */
+@ThreadSafe
+@Component
+public class DatabaseCircuitBreaker {
+    private static final Logger LOG = LoggerFactory.getLogger(DatabaseCircuitBreaker.class);
+
+    /* Классы SQLState, которые говорят об ошибке запроса, а не о недоступности БД */
+    private static final Set<String> QUERY_ERROR_CLASSES = Set.of("22", "23", "40", "42", "44");
+
+    private static final int PROBE_TIMEOUT_SECONDS = 2;
+
+    private final DataSource dataSource;
+
+    private final int failureThreshold;
+
+    private final long probeIntervalMillis;
+
+    private final List<Runnable> recoveryListeners = new CopyOnWriteArrayList<>();
+
+    private final ScheduledExecutorService prober;
+
+    @GuardedBy("this")
+    private int consecutiveFailures;
+
+    private volatile boolean open;
+
+    public DatabaseCircuitBreaker(DataSource dataSource,
+                                  @Value("${db.circuit.failure-threshold}") int failureThreshold,
+                                  @Value("${db.circuit.probe-interval}") Duration probeInterval,
+                                  MeterRegistry meterRegistry) {
+        this.dataSource = dataSource;
+        this.failureThreshold = failureThreshold;
+        this.probeIntervalMillis = probeInterval.toMillis();
+        this.prober = Executors.newSingleThreadScheduledExecutor(task -> {
+            var thread = new Thread(task, "db-circuit-probe");
+            thread.setDaemon(true);
+            return thread;
+        });
+        Gauge.builder("dreamjob.db.circuit.open", this, breaker -> breaker.isOpen() ? 1 : 0)
+                .description("1 while database calls are short-circuited")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Выполняет обращение к БД, учитывая его результат.
+     *
+     * @throws DatabaseUnavailableException если предохранитель разомкнут
+     */
+    public <T> T execute(Supplier<T> call) {
+        if (open) {
+            throw new DatabaseUnavailableException("База данных временно недоступна");
+        }
+        T result;
+        try {
+            result = call.get();
+        } catch (RuntimeException e) {
+            if (isOutage(e)) {
+                onFailure();
+            }
+            throw e;
+        }
+        onSuccess();
+        return result;
+    }
+
+    public boolean isOpen() {
+        return open;
+    }
+
+    /**
+     * @param listener вызывается в фоновом потоке после восстановления БД
+     */
+    public void addRecoveryListener(Runnable listener) {
+        recoveryListeners.add(listener);
+    }
+
+    /**
+     * Исключение относится к недоступности БД, если в цепочке причин есть
+     * SQLException не из классов ошибок самого запроса.
+     */
+    public static boolean isOutage(Throwable exception) {
+        for (var cause = exception; cause != null; cause = cause.getCause()) {
+            if (cause instanceof SQLException sqlException) {
+                var state = sqlException.getSQLState();
+                return state == null || state.length() < 2
+                        || !QUERY_ERROR_CLASSES.contains(state.substring(0, 2));
+            }
+        }
+        return false;
+    }
+
+    private synchronized void onSuccess() {
+        consecutiveFailures = 0;
+    }
+
+    private synchronized void onFailure() {
+        consecutiveFailures++;
+        if (!open && consecutiveFailures >= failureThreshold) {
+            open = true;
+            LOG.warn("Database circuit opened after {} failures", consecutiveFailures);
+            prober.schedule(this::probe, probeIntervalMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private void probe() {
+        var available = false;
+        try (var connection = dataSource.getConnection()) {
+            available = connection.isValid(PROBE_TIMEOUT_SECONDS);
+        } catch (SQLException e) {
+            LOG.debug("Database probe failed", e);
+        }
+        if (!available) {
+            prober.schedule(this::probe, probeIntervalMillis, TimeUnit.MILLISECONDS);
+            return;
+        }
+        synchronized (this) {
+            consecutiveFailures = 0;
+            open = false;
+        }
+        LOG.info("Database circuit closed");
+        for (var listener : recoveryListeners) {
+            try {
+                listener.run();
+            } catch (RuntimeException e) {
+                LOG.warn("Recovery listener failed", e);
+            }
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        prober.shutdownNow();
+    }
+}
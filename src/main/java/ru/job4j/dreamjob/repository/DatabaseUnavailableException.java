@@ -0,0 +1,10 @@
+package ru.job4j.dreamjob.repository;
+
+/**
+ * БД недоступна: предохранитель разомкнут, запрос к ней не отправлялся.
+ */
+public class DatabaseUnavailableException extends RuntimeException {
+    public DatabaseUnavailableException(String message) {
+        super(message);
+    }
+}
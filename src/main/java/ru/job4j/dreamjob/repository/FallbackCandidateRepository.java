@@ -0,0 +1,77 @@
+package ru.job4j.dreamjob.repository;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import net.jcip.annotations.ThreadSafe;
+import org.springframework.stereotype.Repository;
+import ru.job4j.dreamjob.model.Candidate;
+
+import java.util.Collection;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+/**
+ * Резюме из БД через предохранитель: при недоступной БД чтения отдаются
+ * из последней успешной копии, записи сразу завершаются ошибкой.
+ */
+@ThreadSafe
+@Repository
+public class FallbackCandidateRepository implements CandidateRepository {
+    private final CandidateRepository candidateRepository;
+
+    private final DatabaseCircuitBreaker circuitBreaker;
+
+    private final LastKnownGoodCache<Candidate> cache;
+
+    public FallbackCandidateRepository(Sql2oCandidateRepository sql2oCandidateRepository,
+                                     DatabaseCircuitBreaker circuitBreaker,
+                                     MeterRegistry meterRegistry) {
+        this.candidateRepository = sql2oCandidateRepository;
+        this.circuitBreaker = circuitBreaker;
+        this.cache = new LastKnownGoodCache<>(circuitBreaker, "candidates", Candidate::getId,
+                candidateRepository::findAll, candidateRepository::findById, meterRegistry);
+    }
+
+    @Override
+    public Candidate save(Candidate candidate) {
+        return circuitBreaker.execute(() -> candidateRepository.save(candidate));
+    }
+
+    @Override
+    public boolean deleteById(int id) {
+        var isDeleted = circuitBreaker.execute(() -> candidateRepository.deleteById(id));
+        cache.evict(id);
+        return isDeleted;
+    }
+
+    @Override
+    public boolean update(Candidate candidate) {
+        var isUpdated = circuitBreaker.execute(() -> candidateRepository.update(candidate));
+        cache.evict(candidate.getId());
+        return isUpdated;
+    }
+
+    @Override
+    public Optional<Candidate> findById(int id) {
+        return cache.findById(id);
+    }
+
+    @Override
+    public Collection<Candidate> findAll() {
+        return cache.findAll();
+    }
+
+    @Override
+    public Stream<Candidate> streamAll() {
+        return cache.stream(candidateRepository::streamAll);
+    }
+
+    @Override
+    public int count() {
+        return cache.count(candidateRepository::count);
+    }
+
+    @Override
+    public long version() {
+        return cache.version(candidateRepository::version);
+    }
+}
@@ -0,0 +1,31 @@
+package ru.job4j.dreamjob.repository;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import net.jcip.annotations.ThreadSafe;
+import org.springframework.stereotype.Repository;
+import ru.job4j.dreamjob.model.City;
+
+import java.util.Collection;
+import java.util.Optional;
+
+/**
+ * Города нужны формам и карточкам вакансий и резюме, поэтому при недоступной
+ * БД они тоже отдаются из последней успешной копии.
+ */
+@ThreadSafe
+@Repository
+public class FallbackCityRepository implements CityRepository {
+    private final LastKnownGoodCache<City> cache;
+
+    public FallbackCityRepository(Sql2oCityRepository sql2oCityRepository,
+                                  DatabaseCircuitBreaker circuitBreaker,
+                                  MeterRegistry meterRegistry) {
+        this.cache = new LastKnownGoodCache<>(circuitBreaker, "cities", City::getId,
+                sql2oCityRepository::findAll, id -> Optional.empty(), meterRegistry);
+    }
+
+    @Override
+    public Collection<City> findAll() {
+        return cache.findAll();
+    }
+}
@@ -0,0 +1,77 @@
+package ru.job4j.dreamjob.repository;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import net.jcip.annotations.ThreadSafe;
+import org.springframework.stereotype.Repository;
+import ru.job4j.dreamjob.model.Vacancy;
+
+import java.util.Collection;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+/**
+ * Вакансии из БД через предохранитель: при недоступной БД чтения отдаются
+ * из последней успешной копии, записи сразу завершаются ошибкой.
+ */
+@ThreadSafe
+@Repository
+public class FallbackVacancyRepository implements VacancyRepository {
+    private final VacancyRepository vacancyRepository;
+
+    private final DatabaseCircuitBreaker circuitBreaker;
+
+    private final LastKnownGoodCache<Vacancy> cache;
+
+    public FallbackVacancyRepository(Sql2oVacancyRepository sql2oVacancyRepository,
+                                     DatabaseCircuitBreaker circuitBreaker,
+                                     MeterRegistry meterRegistry) {
+        this.vacancyRepository = sql2oVacancyRepository;
+        this.circuitBreaker = circuitBreaker;
+        this.cache = new LastKnownGoodCache<>(circuitBreaker, "vacancies", Vacancy::getId,
+                vacancyRepository::findAll, vacancyRepository::findById, meterRegistry);
+    }
+
+    @Override
+    public Vacancy save(Vacancy vacancy) {
+        return circuitBreaker.execute(() -> vacancyRepository.save(vacancy));
+    }
+
+    @Override
+    public boolean deleteById(int id) {
+        var isDeleted = circuitBreaker.execute(() -> vacancyRepository.deleteById(id));
+        cache.evict(id);
+        return isDeleted;
+    }
+
+    @Override
+    public boolean update(Vacancy vacancy) {
+        var isUpdated = circuitBreaker.execute(() -> vacancyRepository.update(vacancy));
+        cache.evict(vacancy.getId());
+        return isUpdated;
+    }
+
+    @Override
+    public Optional<Vacancy> findById(int id) {
+        return cache.findById(id);
+    }
+
+    @Override
+    public Collection<Vacancy> findAll() {
+        return cache.findAll();
+    }
+
+    @Override
+    public Stream<Vacancy> streamAll() {
+        return cache.stream(vacancyRepository::streamAll);
+    }
+
+    @Override
+    public int count() {
+        return cache.count(vacancyRepository::count);
+    }
+
+    @Override
+    public long version() {
+        return cache.version(vacancyRepository::version);
+    }
+}
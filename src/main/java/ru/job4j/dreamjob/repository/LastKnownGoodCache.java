@@ -0,0 +1,156 @@
+package ru.job4j.dreamjob.repository;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import net.jcip.annotations.ThreadSafe;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.IntFunction;
+import java.util.function.IntSupplier;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+import java.util.function.ToIntFunction;
+import java.util.stream.Stream;
+
+/**
+ * Последние успешно прочитанные из БД список и отдельные записи.
+ *
+ * Чтения идут в БД через предохранитель; если БД недоступна, отдается
+ * сохраненная копия, а в атрибуте запроса STALE_ATTRIBUTE отмечается, что
+ * данные могут быть устаревшими (шаблоны показывают предупреждение).
+ * Если копии нет, исключение пробрасывается дальше.
+ * После восстановления БД список перечитывается в фоне.
+ * Построчное чтение (stream) копию не обновляет, а при недоступной БД отдает ее же.
+ * Версия данных при недоступной БД - последняя прочитанная: пока БД недоступна,
+ * данные не меняются.
+ */
+@ThreadSafe
+public class LastKnownGoodCache<T> {
+    public static final String STALE_ATTRIBUTE = "stale";
+
+    private final DatabaseCircuitBreaker circuitBreaker;
+
+    private final ToIntFunction<T> idFunction;
+
+    private final Supplier<Collection<T>> allLoader;
+
+    private final IntFunction<Optional<T>> byIdLoader;
+
+    private final Counter staleReads;
+
+    private final Map<Integer, T> byId = new ConcurrentHashMap<>();
+
+    private volatile List<T> all;
+
+    private volatile long version = -1;
+
+    public LastKnownGoodCache(DatabaseCircuitBreaker circuitBreaker, String name,
+                              ToIntFunction<T> idFunction, Supplier<Collection<T>> allLoader,
+                              IntFunction<Optional<T>> byIdLoader, MeterRegistry meterRegistry) {
+        this.circuitBreaker = circuitBreaker;
+        this.idFunction = idFunction;
+        this.allLoader = allLoader;
+        this.byIdLoader = byIdLoader;
+        this.staleReads = Counter.builder("dreamjob.db.stale.reads")
+                .description("Reads served from the last-known-good copy")
+                .tag("repository", name)
+                .register(meterRegistry);
+        circuitBreaker.addRecoveryListener(this::findAll);
+    }
+
+    public Collection<T> findAll() {
+        try {
+            var loaded = List.copyOf(circuitBreaker.execute(allLoader));
+            all = loaded;
+            for (var item : loaded) {
+                byId.put(idFunction.applyAsInt(item), item);
+            }
+            return loaded;
+        } catch (RuntimeException e) {
+            return fallback(e);
+        }
+    }
+
+    public Optional<T> findById(int id) {
+        try {
+            var loaded = circuitBreaker.execute(() -> byIdLoader.apply(id));
+            loaded.ifPresentOrElse(item -> byId.put(id, item), () -> byId.remove(id));
+            return loaded;
+        } catch (RuntimeException e) {
+            var cached = byId.get(id);
+            if (cached == null || !isUnavailable(e)) {
+                throw e;
+            }
+            markStale();
+            return Optional.of(cached);
+        }
+    }
+
+    /*
+     * Отказ БД посреди чтения курсора сюда уже не попадет: строки читает
+     * вызывающий после возврата потока, исключение дойдет до него.
+     */
+    public Stream<T> stream(Supplier<Stream<T>> cursor) {
+        try {
+            return circuitBreaker.execute(cursor);
+        } catch (RuntimeException e) {
+            return fallback(e).stream();
+        }
+    }
+
+    public int count(IntSupplier counter) {
+        try {
+            return circuitBreaker.execute(counter::getAsInt);
+        } catch (RuntimeException e) {
+            return fallback(e).size();
+        }
+    }
+
+    public long version(LongSupplier loader) {
+        try {
+            var loaded = circuitBreaker.execute(loader::getAsLong);
+            version = loaded;
+            return loaded;
+        } catch (RuntimeException e) {
+            var cached = version;
+            if (cached < 0 || !isUnavailable(e)) {
+                throw e;
+            }
+            markStale();
+            return cached;
+        }
+    }
+
+    private List<T> fallback(RuntimeException exception) {
+        var cached = all;
+        if (cached == null || !isUnavailable(exception)) {
+            throw exception;
+        }
+        markStale();
+        return cached;
+    }
+
+    public void evict(int id) {
+        byId.remove(id);
+    }
+
+    private static boolean isUnavailable(RuntimeException exception) {
+        return exception instanceof DatabaseUnavailableException
+                || DatabaseCircuitBreaker.isOutage(exception);
+    }
+
+    /* Вне потока запроса (например, в пуле файлового I/O) отмечать некуда */
+    private void markStale() {
+        staleReads.increment();
+        var attributes = RequestContextHolder.getRequestAttributes();
+        if (attributes != null) {
+            attributes.setAttribute(STALE_ATTRIBUTE, true, RequestAttributes.SCOPE_REQUEST);
+        }
+    }
+}
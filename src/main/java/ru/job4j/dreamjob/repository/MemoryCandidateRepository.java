@@ -10,15 +10,19 @@ import java.util.Map;
 import java.util.Optional;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
 
 @ThreadSafe
 @Repository
 public class MemoryCandidateRepository implements CandidateRepository {
     private final AtomicInteger nextId = new AtomicInteger(1);
 
+    private final AtomicLong version = new AtomicLong();
+
     private final Map<Integer, Candidate> candidates = new ConcurrentHashMap<>();
 
-    private MemoryCandidateRepository() {
+    MemoryCandidateRepository() {
         save(new Candidate(0, "Ivan Ivanov", "description of Ivan Ivanov",
                 LocalDateTime.now(), 1, 0));
         save(new Candidate(0, "Dmitriy Alexeev", "description of Dmitriy Alexeev",
@@ -37,16 +41,19 @@ public class MemoryCandidateRepository implements CandidateRepository {
     public Candidate save(Candidate candidate) {
         candidate.setId(nextId.getAndIncrement());
         candidates.put(candidate.getId(), candidate);
+        version.incrementAndGet();
         return candidate;
     }
 
     @Override
     public boolean deleteById(int id) {
+        version.incrementAndGet();
         return candidates.remove(id) != null;
     }
 
     @Override
     public boolean update(Candidate candidate) {
+        version.incrementAndGet();
         return candidates.computeIfPresent(candidate.getId(),
                 (key, oldCandidate) -> new Candidate(
                         oldCandidate.getId(),
@@ -67,4 +74,19 @@ public class MemoryCandidateRepository implements CandidateRepository {
     public Collection<Candidate> findAll() {
         return candidates.values();
     }
-}
+
+    @Override
+    public Stream<Candidate> streamAll() {
+        return candidates.values().stream();
+    }
+
+    @Override
+    public int count() {
+        return candidates.size();
+    }
+
+    @Override
+    public long version() {
+        return version.get();
+    }
+}
\ No newline at end of file
@@ -10,15 +10,19 @@ import java.util.Map;
 import java.util.Optional;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
 
 @ThreadSafe
 @Repository
 public class MemoryVacancyRepository implements VacancyRepository {
     private final AtomicInteger nextId = new AtomicInteger(1);
 
+    private final AtomicLong version = new AtomicLong();
+
     private final Map<Integer, Vacancy> vacancies = new ConcurrentHashMap<>();
 
-    private MemoryVacancyRepository() {
+    MemoryVacancyRepository() {
         save(new Vacancy(0, "Intern Java Developer", "description of vacancy",
                 LocalDateTime.now(), false, 1, 0));
         save(new Vacancy(0, "Junior Java Developer", "description of vacancy",
@@ -37,16 +41,19 @@ public class MemoryVacancyRepository implements VacancyRepository {
     public Vacancy save(Vacancy vacancy) {
         vacancy.setId(nextId.getAndIncrement());
         vacancies.put(vacancy.getId(), vacancy);
+        version.incrementAndGet();
         return vacancy;
     }
 
     @Override
     public boolean deleteById(int id) {
+        version.incrementAndGet();
         return vacancies.remove(id) != null;
     }
 
     @Override
     public boolean update(Vacancy vacancy) {
+        version.incrementAndGet();
         return vacancies.computeIfPresent(
                 vacancy.getId(), (id, oldVacancy) -> new Vacancy(
                     oldVacancy.getId(),
@@ -69,4 +76,18 @@ public class MemoryVacancyRepository implements VacancyRepository {
         return vacancies.values();
     }
 
+    @Override
+    public Stream<Vacancy> streamAll() {
+        return vacancies.values().stream();
+    }
+
+    @Override
+    public int count() {
+        return vacancies.size();
+    }
+
+    @Override
+    public long version() {
+        return version.get();
+    }
 }
\ No newline at end of file
@@ -0,0 +1,120 @@
+package ru.job4j.dreamjob.repository;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import net.jcip.annotations.ThreadSafe;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.springframework.stereotype.Component;
+import ru.job4j.dreamjob.monitoring.DatabaseCallEvent;
+import ru.job4j.dreamjob.monitoring.ServerTiming;
+
+import java.lang.reflect.Method;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Время выполнения и число возвращенных строк для каждого метода Sql2o-репозиториев:
+ * таймер dreamjob.repository (теги repository, method, outcome) с гистограммой
+ * и распределение dreamjob.repository.rows для методов, возвращающих коллекцию
+ * или Optional. Время также попадает в фазу db заголовка Server-Timing, а при включенной
+ * записи JFR каждый вызов пишется событием DatabaseCallEvent.
+ *
+ * Метры создаются один раз на метод, при вызове - только поиск в карте и запись,
+ * чтобы накладные расходы оставались меньше микросекунды (см. RepositoryMetricsBenchmark).
+ */
+@ThreadSafe
+@Aspect
+@Component
+public class RepositoryMetricsAspect {
+    private final MeterRegistry meterRegistry;
+
+    private final Map<Method, MethodMeters> meters = new ConcurrentHashMap<>();
+
+    public RepositoryMetricsAspect(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Around("execution(public * ru.job4j.dreamjob.repository.Sql2o*Repository+.*(..))")
+    public Object measure(ProceedingJoinPoint joinPoint) throws Throwable {
+        var methodMeters = meters.computeIfAbsent(
+                ((MethodSignature) joinPoint.getSignature()).getMethod(), this::register);
+        var event = new DatabaseCallEvent();
+        event.begin();
+        var start = System.nanoTime();
+        Object result;
+        try {
+            result = joinPoint.proceed();
+        } catch (Throwable e) {
+            var duration = System.nanoTime() - start;
+            methodMeters.failure().record(duration, TimeUnit.NANOSECONDS);
+            ServerTiming.record(ServerTiming.Phase.DB, duration);
+            commit(event, methodMeters, 0, true);
+            throw e;
+        }
+        var duration = System.nanoTime() - start;
+        methodMeters.success().record(duration, TimeUnit.NANOSECONDS);
+        ServerTiming.record(ServerTiming.Phase.DB, duration);
+        var rows = 0;
+        if (methodMeters.rows() != null) {
+            rows = rows(result);
+            methodMeters.rows().record(rows);
+        }
+        commit(event, methodMeters, rows, false);
+        return result;
+    }
+
+    private static void commit(DatabaseCallEvent event, MethodMeters methodMeters,
+                               int rows, boolean failed) {
+        event.end();
+        if (event.shouldCommit()) {
+            event.setQuery(methodMeters.query());
+            event.setRows(rows);
+            event.setFailed(failed);
+            event.commit();
+        }
+    }
+
+    private static int rows(Object result) {
+        if (result instanceof Collection<?> collection) {
+            return collection.size();
+        }
+        return result instanceof Optional<?> optional && optional.isPresent() ? 1 : 0;
+    }
+
+    private MethodMeters register(Method method) {
+        var repository = method.getDeclaringClass().getSimpleName();
+        var name = method.getName();
+        var returnType = method.getReturnType();
+        var returnsRows = Collection.class.isAssignableFrom(returnType)
+                || Optional.class.equals(returnType);
+        return new MethodMeters(repository + "." + name,
+                timer(repository, name, "success"),
+                timer(repository, name, "failure"),
+                returnsRows ? DistributionSummary.builder("dreamjob.repository.rows")
+                        .description("Rows returned by a repository method")
+                        .tag("repository", repository)
+                        .tag("method", name)
+                        .register(meterRegistry) : null);
+    }
+
+    private Timer timer(String repository, String method, String outcome) {
+        return Timer.builder("dreamjob.repository")
+                .description("Repository method execution time")
+                .tag("repository", repository)
+                .tag("method", method)
+                .tag("outcome", outcome)
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+    }
+
+    private record MethodMeters(String query, Timer success, Timer failure,
+                                DistributionSummary rows) {
+    }
+}
@@ -0,0 +1,92 @@
+package ru.job4j.dreamjob.repository;
+
+import org.sql2o.Sql2o;
+
+import java.util.ArrayDeque;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+import java.util.function.ToIntFunction;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Постраничное чтение таблицы по ключу: строки читаются порциями PAGE_SIZE
+ * в порядке id (WHERE id > последний прочитанный), в памяти держится одна порция.
+ *
+ * Соединение берется из пула только на время запроса одной порции и сразу
+ * возвращается, поэтому медленный клиент, которому пишется уже прочитанная
+ * порция, не держит соединение. Порции читаются разными запросами: строка,
+ * добавленная или удаленная во время чтения, может попасть или не попасть в поток.
+ * Первая порция читается сразу, чтобы отказ БД дошел до вызывающего еще при открытии
+ * (предохранитель, кеш последних данных); время чтения остальных порций
+ * не попадает в метрики репозитория.
+ */
+final class RowCursor {
+    static final int PAGE_SIZE = 200;
+
+    private RowCursor() {
+    }
+
+    /**
+     * @param select запрос без WHERE и ORDER BY, условие по id добавляется к нему
+     * @param key    id прочитанной строки, с которого начинается следующая порция
+     */
+    static <T> Stream<T> stream(Sql2o sql2o, String select, RowMapper<T> mapper,
+                                ToIntFunction<T> key) {
+        var pages = new Pages<>(sql2o,
+                select + " WHERE id > :after ORDER BY id LIMIT " + PAGE_SIZE, mapper, key);
+        pages.read();
+        return StreamSupport.stream(pages, false);
+    }
+
+    private static final class Pages<T> extends Spliterators.AbstractSpliterator<T> {
+        private final Sql2o sql2o;
+
+        private final String sql;
+
+        private final RowMapper<T> mapper;
+
+        private final ToIntFunction<T> key;
+
+        private final ArrayDeque<T> page = new ArrayDeque<>(PAGE_SIZE);
+
+        private int after;
+
+        private boolean last;
+
+        private Pages(Sql2o sql2o, String sql, RowMapper<T> mapper, ToIntFunction<T> key) {
+            super(Long.MAX_VALUE, Spliterator.ORDERED | Spliterator.NONNULL);
+            this.sql2o = sql2o;
+            this.sql = sql;
+            this.mapper = mapper;
+            this.key = key;
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super T> action) {
+            if (page.isEmpty() && !last) {
+                read();
+            }
+            var row = page.poll();
+            if (row == null) {
+                return false;
+            }
+            action.accept(row);
+            return true;
+        }
+
+        private void read() {
+            try (var connection = sql2o.open()) {
+                var rows = connection.createQuery(sql)
+                        .addParameter("after", after)
+                        .executeAndFetch(mapper);
+                page.addAll(rows);
+                last = rows.size() < PAGE_SIZE;
+                if (!rows.isEmpty()) {
+                    after = key.applyAsInt(rows.get(rows.size() - 1));
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package ru.job4j.dreamjob.repository;
+
+import org.sql2o.ResultSetHandler;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * Явное преобразование текущей строки ResultSet в сущность.
+ *
+ * В отличие от executeAndFetch(Class) с картой колонок, маппер читает колонки
+ * по номерам в порядке из списка колонок запроса, без рефлексии и конвертеров Sql2o,
+ * поэтому запросы с маппером перечисляют колонки явно вместо SELECT *.
+ * Даты читаются через getObject(i, LocalDateTime.class) из JDBC 4.2.
+ */
+@FunctionalInterface
+public interface RowMapper<T> extends ResultSetHandler<T> {
+    T map(ResultSet resultSet) throws SQLException;
+
+    @Override
+    default T handle(ResultSet resultSet) throws SQLException {
+        return map(resultSet);
+    }
+}
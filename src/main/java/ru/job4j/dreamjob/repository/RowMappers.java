@@ -0,0 +1,74 @@
+package ru.job4j.dreamjob.repository;
+
+import ru.job4j.dreamjob.model.Candidate;
+import ru.job4j.dreamjob.model.City;
+import ru.job4j.dreamjob.model.File;
+import ru.job4j.dreamjob.model.User;
+import ru.job4j.dreamjob.model.Vacancy;
+
+import java.time.LocalDateTime;
+
+/**
+ * Мапперы сущностей и списки колонок к ним. Номера колонок в маппере
+ * соответствуют порядку в списке, поэтому менять их нужно вместе.
+ */
+final class RowMappers {
+    static final String VACANCY_COLUMNS =
+            "id, title, description, creation_date, visible, city_id, file_id";
+
+    static final RowMapper<Vacancy> VACANCY = resultSet -> new Vacancy(
+            resultSet.getInt(1),
+            resultSet.getString(2),
+            resultSet.getString(3),
+            resultSet.getObject(4, LocalDateTime.class),
+            resultSet.getBoolean(5),
+            resultSet.getInt(6),
+            resultSet.getInt(7));
+
+    static final String CANDIDATE_COLUMNS =
+            "id, name, description, creation_date, city_id, file_id";
+
+    static final RowMapper<Candidate> CANDIDATE = resultSet -> new Candidate(
+            resultSet.getInt(1),
+            resultSet.getString(2),
+            resultSet.getString(3),
+            resultSet.getObject(4, LocalDateTime.class),
+            resultSet.getInt(5),
+            resultSet.getInt(6));
+
+    static final String FILE_COLUMNS = "id, name, path, size, content_type, hash, "
+            + "upload_date, width, height, gzip_path, gzip_size";
+
+    static final RowMapper<File> FILE = resultSet -> {
+        var file = new File(
+                resultSet.getString(2),
+                resultSet.getString(3),
+                resultSet.getLong(4),
+                resultSet.getString(5),
+                resultSet.getString(6),
+                resultSet.getObject(7, LocalDateTime.class),
+                resultSet.getObject(8, Integer.class),
+                resultSet.getObject(9, Integer.class));
+        file.setId(resultSet.getInt(1));
+        file.setGzipPath(resultSet.getString(10));
+        file.setGzipSize(resultSet.getObject(11, Long.class));
+        return file;
+    };
+
+    static final String USER_COLUMNS = "id, email, name, password";
+
+    static final RowMapper<User> USER = resultSet -> new User(
+            resultSet.getInt(1),
+            resultSet.getString(2),
+            resultSet.getString(3),
+            resultSet.getString(4));
+
+    static final String CITY_COLUMNS = "id, name";
+
+    static final RowMapper<City> CITY = resultSet -> new City(
+            resultSet.getInt(1),
+            resultSet.getString(2));
+
+    private RowMappers() {
+    }
+}
@@ -0,0 +1,27 @@
+package ru.job4j.dreamjob.repository;
+
+import ru.job4j.dreamjob.model.UserSession;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+public interface SessionRepository {
+    void save(UserSession session);
+
+    Optional<UserSession> findById(String id);
+
+    /**
+     * Записывает только атрибуты, измененные с последнего сохранения.
+     * Если изменений нет, в БД не обращается.
+     */
+    void saveAttributes(UserSession session);
+
+    boolean updateExpiresAt(String id, LocalDateTime expiresAt);
+
+    boolean deleteById(String id);
+
+    /**
+     * Удаляет не больше limit истекших сессий, возвращает число удаленных.
+     */
+    int deleteExpired(LocalDateTime now, int limit);
+}
@@ -6,6 +6,7 @@ import ru.job4j.dreamjob.model.Candidate;
 
 import java.util.Collection;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
 public class Sql2oCandidateRepository implements CandidateRepository {
@@ -17,7 +18,7 @@ public class Sql2oCandidateRepository implements CandidateRepository {
 
     @Override
     public Candidate save(Candidate candidate) {
-        try (var connection = sql2o.open()) {
+        try (var connection = sql2o.beginTransaction()) {
             var sql = """
                       INSERT INTO candidates(name, description, creation_date, city_id, file_id)
                       VALUES (:name, :description, :creationDate, :cityId, :fileId)
@@ -30,23 +31,27 @@ public class Sql2oCandidateRepository implements CandidateRepository {
                     .addParameter("fileId", candidate.getFileId());
             int generatedId = query.executeUpdate().getKey(Integer.class);
             candidate.setId(generatedId);
+            DataVersions.increment(connection, DataVersions.CANDIDATES);
+            connection.commit();
             return candidate;
         }
     }
 
     @Override
     public boolean deleteById(int id) {
-        try (var connection = sql2o.open()) {
+        try (var connection = sql2o.beginTransaction()) {
             var query = connection.createQuery("DELETE FROM candidates WHERE id = :id");
             query.addParameter("id", id);
             var affectedRows = query.executeUpdate().getResult();
+            DataVersions.increment(connection, DataVersions.CANDIDATES);
+            connection.commit();
             return affectedRows > 0;
         }
     }
 
     @Override
     public boolean update(Candidate candidate) {
-        try (var connection = sql2o.open()) {
+        try (var connection = sql2o.beginTransaction()) {
             var sql = """
                     UPDATE candidates
                     SET name = :name, description = :description, creation_date = :creationDate,
@@ -61,6 +66,8 @@ public class Sql2oCandidateRepository implements CandidateRepository {
                     .addParameter("fileId", candidate.getFileId())
                     .addParameter("id", candidate.getId());
             var affectedRows = query.executeUpdate().getResult();
+            DataVersions.increment(connection, DataVersions.CANDIDATES);
+            connection.commit();
             return affectedRows > 0;
         }
     }
@@ -68,10 +75,10 @@ public class Sql2oCandidateRepository implements CandidateRepository {
     @Override
     public Optional<Candidate> findById(int id) {
         try (var connection = sql2o.open()) {
-            var query = connection.createQuery("SELECT * FROM candidates WHERE id = :id");
+            var query = connection.createQuery(
+                    "SELECT " + RowMappers.CANDIDATE_COLUMNS + " FROM candidates WHERE id = :id");
             query.addParameter("id", id);
-            var candidate = query.setColumnMappings(Candidate.COLUMN_MAPPING)
-                    .executeAndFetchFirst(Candidate.class);
+            var candidate = query.executeAndFetchFirst(RowMappers.CANDIDATE);
             return Optional.ofNullable(candidate);
         }
     }
@@ -79,9 +86,29 @@ public class Sql2oCandidateRepository implements CandidateRepository {
     @Override
     public Collection<Candidate> findAll() {
         try (var connection = sql2o.open()) {
-            var query = connection.createQuery("SELECT * FROM candidates");
-            return query.setColumnMappings(Candidate.COLUMN_MAPPING)
-                    .executeAndFetch(Candidate.class);
+            var query = connection.createQuery(
+                    "SELECT " + RowMappers.CANDIDATE_COLUMNS + " FROM candidates");
+            return query.executeAndFetch(RowMappers.CANDIDATE);
+        }
+    }
+
+    @Override
+    public Stream<Candidate> streamAll() {
+        return RowCursor.stream(sql2o,
+                "SELECT " + RowMappers.CANDIDATE_COLUMNS + " FROM candidates",
+                RowMappers.CANDIDATE, Candidate::getId);
+    }
+
+    @Override
+    public long version() {
+        return DataVersions.find(sql2o, DataVersions.CANDIDATES);
+    }
+
+    @Override
+    public int count() {
+        try (var connection = sql2o.open()) {
+            return connection.createQuery("SELECT COUNT(*) FROM candidates")
+                    .executeScalar(Integer.class);
         }
     }
 }
\ No newline at end of file
@@ -17,8 +17,9 @@ public class Sql2oCityRepository implements CityRepository {
     @Override
     public Collection<City> findAll() {
         try (var connection = sql2o.open()) {
-            var query = connection.createQuery("SELECT * FROM cities");
-            return query.executeAndFetch(City.class);
+            var query = connection.createQuery(
+                    "SELECT " + RowMappers.CITY_COLUMNS + " FROM cities");
+            return query.executeAndFetch(RowMappers.CITY);
         }
     }
 }
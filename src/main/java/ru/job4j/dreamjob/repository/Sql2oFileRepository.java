@@ -17,10 +17,23 @@ public class Sql2oFileRepository implements FileRepository {
     @Override
     public File save(File file) {
         try (var connection = sql2o.open()) {
-            var query = connection.createQuery(
-                    "INSERT INTO files (name, path) VALUES (:name, :path)", true)
+            var sql = """
+                    INSERT INTO files (name, path, size, content_type, hash, upload_date,
+                                       width, height, gzip_path, gzip_size)
+                    VALUES (:name, :path, :size, :contentType, :hash, :uploadDate,
+                            :width, :height, :gzipPath, :gzipSize)
+                    """;
+            var query = connection.createQuery(sql, true)
                     .addParameter("name", file.getName())
-                    .addParameter("path", file.getPath());
+                    .addParameter("path", file.getPath())
+                    .addParameter("size", file.getSize())
+                    .addParameter("contentType", file.getContentType())
+                    .addParameter("hash", file.getHash())
+                    .addParameter("uploadDate", file.getUploadDate())
+                    .addParameter("width", file.getWidth())
+                    .addParameter("height", file.getHeight())
+                    .addParameter("gzipPath", file.getGzipPath())
+                    .addParameter("gzipSize", file.getGzipSize());
             int generatedId = query.executeUpdate().getKey(Integer.class);
             file.setId(generatedId);
             return file;
@@ -30,8 +43,9 @@ public class Sql2oFileRepository implements FileRepository {
     @Override
     public Optional<File> findById(int id) {
         try (var connection = sql2o.open()) {
-            var query = connection.createQuery("SELECT * FROM files WHERE id = :id");
-            var file = query.addParameter("id", id).executeAndFetchFirst(File.class);
+            var query = connection.createQuery(
+                    "SELECT " + RowMappers.FILE_COLUMNS + " FROM files WHERE id = :id");
+            var file = query.addParameter("id", id).executeAndFetchFirst(RowMappers.FILE);
             return Optional.ofNullable(file);
         }
     }
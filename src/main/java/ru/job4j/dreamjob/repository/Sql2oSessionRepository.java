@@ -0,0 +1,152 @@
+package ru.job4j.dreamjob.repository;
+
+import org.springframework.stereotype.Repository;
+import org.sql2o.Connection;
+import org.sql2o.Sql2o;
+import ru.job4j.dreamjob.model.UserSession;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.Optional;
+
+@Repository
+public class Sql2oSessionRepository implements SessionRepository {
+    private static final RowMapper<SessionRow> SESSION_ROW = resultSet -> new SessionRow(
+            resultSet.getObject(1, LocalDateTime.class),
+            resultSet.getObject(2, LocalDateTime.class),
+            resultSet.getString(3),
+            resultSet.getString(4));
+
+    private final Sql2o sql2o;
+
+    public Sql2oSessionRepository(Sql2o sql2o) {
+        this.sql2o = sql2o;
+    }
+
+    @Override
+    public void save(UserSession session) {
+        try (var connection = sql2o.beginTransaction()) {
+            var sql = """
+                    INSERT INTO sessions (id, creation_date, expires_at)
+                    VALUES (:id, :creationDate, :expiresAt)
+                    """;
+            connection.createQuery(sql)
+                    .addParameter("id", session.getId())
+                    .addParameter("creationDate", session.getCreationDate())
+                    .addParameter("expiresAt", session.getExpiresAt())
+                    .executeUpdate();
+            writeAttributes(connection, session.getId(), session.pollDirtyAttributes());
+            connection.commit();
+        }
+    }
+
+    /**
+     * Сессия и ее атрибуты читаются одним запросом.
+     */
+    @Override
+    public Optional<UserSession> findById(String id) {
+        try (var connection = sql2o.open()) {
+            var sql = """
+                    SELECT s.creation_date, s.expires_at, a.name, a.content
+                    FROM sessions s LEFT JOIN session_attributes a ON a.session_id = s.id
+                    WHERE s.id = :id
+                    """;
+            var rows = connection.createQuery(sql).addParameter("id", id)
+                    .executeAndFetch(SESSION_ROW);
+            UserSession session = null;
+            for (var row : rows) {
+                if (session == null) {
+                    session = new UserSession(id, row.creationDate(), row.expiresAt());
+                }
+                if (row.name() != null) {
+                    session.loadAttribute(row.name(), row.content());
+                }
+            }
+            return Optional.ofNullable(session);
+        }
+    }
+
+    @Override
+    public void saveAttributes(UserSession session) {
+        var changes = session.pollDirtyAttributes();
+        if (changes.isEmpty()) {
+            return;
+        }
+        try (var connection = sql2o.beginTransaction()) {
+            writeAttributes(connection, session.getId(), changes);
+            connection.commit();
+        } catch (RuntimeException e) {
+            /* изменения не записаны - следующее сохранение попробует снова */
+            session.markDirty(changes.keySet());
+            throw e;
+        }
+    }
+
+    /* changes: имя -> новое значение, null - атрибут удален */
+    private void writeAttributes(Connection connection, String sessionId,
+                                 Map<String, String> changes) {
+        if (changes.isEmpty()) {
+            return;
+        }
+        var delete = connection.createQuery(
+                "DELETE FROM session_attributes WHERE session_id = :sessionId AND name = :name");
+        var insert = connection.createQuery("""
+                INSERT INTO session_attributes (session_id, name, content)
+                VALUES (:sessionId, :name, :content)
+                """);
+        for (var change : changes.entrySet()) {
+            delete.addParameter("sessionId", sessionId)
+                    .addParameter("name", change.getKey())
+                    .addToBatch();
+            if (change.getValue() != null) {
+                insert.addParameter("sessionId", sessionId)
+                        .addParameter("name", change.getKey())
+                        .addParameter("content", change.getValue())
+                        .addToBatch();
+            }
+        }
+        delete.executeBatch();
+        insert.executeBatch();
+    }
+
+    @Override
+    public boolean updateExpiresAt(String id, LocalDateTime expiresAt) {
+        try (var connection = sql2o.open()) {
+            var query = connection.createQuery(
+                    "UPDATE sessions SET expires_at = :expiresAt WHERE id = :id");
+            var affectedRows = query.addParameter("expiresAt", expiresAt)
+                    .addParameter("id", id)
+                    .executeUpdate().getResult();
+            return affectedRows > 0;
+        }
+    }
+
+    @Override
+    public boolean deleteById(String id) {
+        try (var connection = sql2o.open()) {
+            var query = connection.createQuery("DELETE FROM sessions WHERE id = :id");
+            var affectedRows = query.addParameter("id", id).executeUpdate().getResult();
+            return affectedRows > 0;
+        }
+    }
+
+    @Override
+    public int deleteExpired(LocalDateTime now, int limit) {
+        try (var connection = sql2o.open()) {
+            var sql = """
+                    DELETE FROM sessions WHERE id IN (
+                        SELECT id FROM sessions WHERE expires_at < :now LIMIT :limit
+                    )
+                    """;
+            return connection.createQuery(sql)
+                    .addParameter("now", now)
+                    .addParameter("limit", limit)
+                    .executeUpdate().getResult();
+        }
+    }
+
+    /* Строка соединения сессии с атрибутом: у сессии без атрибутов name и content пустые */
+    private record SessionRow(LocalDateTime creationDate, LocalDateTime expiresAt,
+                              String name, String content) {
+    }
+}
@@ -1,62 +1,121 @@
 package ru.job4j.dreamjob.repository;
 
 import org.springframework.stereotype.Repository;
+import org.sql2o.Connection;
 import org.sql2o.Sql2o;
+import org.sql2o.Sql2oException;
 import ru.job4j.dreamjob.model.User;
 
+import java.sql.SQLException;
 import java.util.Collection;
 import java.util.Optional;
 
 @Repository
 public class Sql2oUserRepository implements UserRepository {
+    /* SQLSTATE нарушения уникальности */
+    private static final String UNIQUE_VIOLATION = "23505";
+
     private final Sql2o sql2o;
 
+    /* Диалект определяется при первой записи по ее же соединению: при создании бина БД не нужна */
+    private volatile Boolean postgres;
+
     public Sql2oUserRepository(Sql2o sql2o) {
         this.sql2o = sql2o;
     }
 
+    private boolean isPostgres(Connection connection) {
+        var detected = postgres;
+        if (detected == null) {
+            try {
+                detected = "PostgreSQL".equals(
+                        connection.getJdbcConnection().getMetaData().getDatabaseProductName());
+            } catch (SQLException e) {
+                throw new Sql2oException("Не удалось определить СУБД", e);
+            }
+            postgres = detected;
+        }
+        return detected;
+    }
+
+    /**
+     * Занятая почта - обычный результат (пустой Optional), а не исключение:
+     * на PostgreSQL ON CONFLICT DO NOTHING, на H2 - MERGE ... WHEN NOT MATCHED.
+     */
     @Override
     public Optional<User> save(User user) {
-
         try (var connection = sql2o.open()) {
-            var sql =
-            """
-            INSERT INTO users(email, name, password)
-            VALUES (:email, :name, :password)
-            """;
-            var query = connection.createQuery(sql, true)
-                    .addParameter("email", user.getEmail())
-                    .addParameter("name", user.getName())
-                    .addParameter("password", user.getPassword());
-            int generatedId = query.executeUpdate().getKey(Integer.class);
+            Integer generatedId;
+            if (isPostgres(connection)) {
+                var sql = """
+                        INSERT INTO users(email, name, password)
+                        VALUES (:email, :name, :password)
+                        ON CONFLICT (email) DO NOTHING
+                        RETURNING id
+                        """;
+                generatedId = connection.createQuery(sql)
+                        .addParameter("email", user.getEmail())
+                        .addParameter("name", user.getName())
+                        .addParameter("password", user.getPassword())
+                        .executeScalar(Integer.class);
+            } else {
+                var sql = """
+                        MERGE INTO users u
+                        USING (VALUES (:email, :name, :password)) s(email, name, password)
+                        ON u.email = s.email
+                        WHEN NOT MATCHED THEN
+                            INSERT (email, name, password) VALUES (s.email, s.name, s.password)
+                        """;
+                var query = connection.createQuery(sql, true)
+                        .addParameter("email", user.getEmail())
+                        .addParameter("name", user.getName())
+                        .addParameter("password", user.getPassword())
+                        .executeUpdate();
+                generatedId = query.getResult() > 0 ? query.getKey(Integer.class) : null;
+            }
+            if (generatedId == null) {
+                return Optional.empty();
+            }
             user.setId(generatedId);
             return Optional.of(user);
-        } catch (Exception exception) {
-            return Optional.empty();
+        } catch (Sql2oException exception) {
+            /* MERGE на H2 не защищен от гонки двух одновременных вставок */
+            if (exception.getCause() instanceof SQLException sqlException
+                    && UNIQUE_VIOLATION.equals(sqlException.getSQLState())) {
+                return Optional.empty();
+            }
+            throw exception;
         }
-
     }
 
     @Override
-    public Optional<User> findByEmailAndPassword(String email, String password) {
+    public Optional<User> findByEmail(String email) {
         try (var connection = sql2o.open()) {
-            var sql = """
-                    SELECT * FROM users
-                    WHERE email = :email AND password = :password
-                    """;
-            var query = connection.createQuery(sql, true)
-                    .addParameter("email", email)
-                    .addParameter("password", password);
-            User user = query.executeAndFetchFirst(User.class);
+            var query = connection.createQuery(
+                    "SELECT " + RowMappers.USER_COLUMNS + " FROM users WHERE email = :email")
+                    .addParameter("email", email);
+            var user = query.executeAndFetchFirst(RowMappers.USER);
             return Optional.ofNullable(user);
         }
     }
 
+    @Override
+    public boolean updatePassword(int id, String password) {
+        try (var connection = sql2o.open()) {
+            var sql = "UPDATE users SET password = :password WHERE id = :id";
+            var query = connection.createQuery(sql)
+                    .addParameter("password", password)
+                    .addParameter("id", id);
+            var affectedRows = query.executeUpdate().getResult();
+            return affectedRows > 0;
+        }
+    }
+
     @Override
     public Collection<User> findAll() {
         try (var connection = sql2o.open()) {
-            var query = connection.createQuery("SELECT * FROM users");
-            return query.executeAndFetch(User.class);
+            var query = connection.createQuery("SELECT " + RowMappers.USER_COLUMNS + " FROM users");
+            return query.executeAndFetch(RowMappers.USER);
         }
     }
 
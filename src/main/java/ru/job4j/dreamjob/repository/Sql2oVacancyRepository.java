@@ -6,6 +6,7 @@ import ru.job4j.dreamjob.model.Vacancy;
 
 import java.util.Collection;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
 public class Sql2oVacancyRepository implements VacancyRepository {
@@ -17,7 +18,7 @@ public class Sql2oVacancyRepository implements VacancyRepository {
 
     @Override
     public Vacancy save(Vacancy vacancy) {
-        try (var connection = sql2o.open()) {
+        try (var connection = sql2o.beginTransaction()) {
             var sql =
             """
             INSERT INTO vacancies(title, description, creation_date, visible, city_id, file_id)
@@ -32,23 +33,27 @@ public class Sql2oVacancyRepository implements VacancyRepository {
                     .addParameter("fileId", vacancy.getFileId());
             int generatedId = query.executeUpdate().getKey(Integer.class);
             vacancy.setId(generatedId);
+            DataVersions.increment(connection, DataVersions.VACANCIES);
+            connection.commit();
             return vacancy;
         }
     }
 
     @Override
     public boolean deleteById(int id) {
-        try (var connection = sql2o.open()) {
+        try (var connection = sql2o.beginTransaction()) {
             var query = connection.createQuery("DELETE FROM vacancies WHERE id = :id");
             query.addParameter("id", id);
             var affectedRows = query.executeUpdate().getResult();
+            DataVersions.increment(connection, DataVersions.VACANCIES);
+            connection.commit();
             return affectedRows > 0;
         }
     }
 
     @Override
     public boolean update(Vacancy vacancy) {
-        try (var connection = sql2o.open()) {
+        try (var connection = sql2o.beginTransaction()) {
             var sql = """
                     UPDATE vacancies
                     SET title = :title, description = :description, creation_date = :creationDate,
@@ -64,6 +69,8 @@ public class Sql2oVacancyRepository implements VacancyRepository {
                     .addParameter("fileId", vacancy.getFileId())
                     .addParameter("id", vacancy.getId());
             var affectedRows = query.executeUpdate().getResult();
+            DataVersions.increment(connection, DataVersions.VACANCIES);
+            connection.commit();
             return affectedRows > 0;
         }
     }
@@ -71,10 +78,10 @@ public class Sql2oVacancyRepository implements VacancyRepository {
     @Override
     public Optional<Vacancy> findById(int id) {
         try (var connection = sql2o.open()) {
-            var query = connection.createQuery("SELECT * FROM vacancies WHERE id = :id");
+            var query = connection.createQuery(
+                    "SELECT " + RowMappers.VACANCY_COLUMNS + " FROM vacancies WHERE id = :id");
             query.addParameter("id", id);
-            var vacancy = query.setColumnMappings(Vacancy.COLUMN_MAPPING)
-                    .executeAndFetchFirst(Vacancy.class);
+            var vacancy = query.executeAndFetchFirst(RowMappers.VACANCY);
             return Optional.ofNullable(vacancy);
         }
     }
@@ -82,8 +89,29 @@ public class Sql2oVacancyRepository implements VacancyRepository {
     @Override
     public Collection<Vacancy> findAll() {
         try (var connection = sql2o.open()) {
-            var query = connection.createQuery("SELECT * FROM vacancies");
-            return query.setColumnMappings(Vacancy.COLUMN_MAPPING).executeAndFetch(Vacancy.class);
+            var query = connection.createQuery(
+                    "SELECT " + RowMappers.VACANCY_COLUMNS + " FROM vacancies");
+            return query.executeAndFetch(RowMappers.VACANCY);
+        }
+    }
+
+    @Override
+    public Stream<Vacancy> streamAll() {
+        return RowCursor.stream(sql2o,
+                "SELECT " + RowMappers.VACANCY_COLUMNS + " FROM vacancies", RowMappers.VACANCY,
+                Vacancy::getId);
+    }
+
+    @Override
+    public long version() {
+        return DataVersions.find(sql2o, DataVersions.VACANCIES);
+    }
+
+    @Override
+    public int count() {
+        try (var connection = sql2o.open()) {
+            return connection.createQuery("SELECT COUNT(*) FROM vacancies")
+                    .executeScalar(Integer.class);
         }
     }
 }
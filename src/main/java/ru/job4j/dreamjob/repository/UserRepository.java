@@ -8,7 +8,9 @@ import java.util.Optional;
 public interface UserRepository {
     Optional<User> save(User user);
 
-    Optional<User> findByEmailAndPassword(String email, String password);
+    Optional<User> findByEmail(String email);
+
+    boolean updatePassword(int id, String password);
 
     Collection<User> findAll();
 
@@ -4,6 +4,7 @@ import ru.job4j.dreamjob.model.Vacancy;
 
 import java.util.Collection;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 public interface VacancyRepository {
 
@@ -17,4 +18,17 @@ public interface VacancyRepository {
 
     Collection<Vacancy> findAll();
 
+    /**
+     * Все записи по мере чтения, без загрузки списка целиком.
+     * Поток может держать ресурсы (соединение с БД) и должен быть закрыт.
+     */
+    Stream<Vacancy> streamAll();
+
+    int count();
+
+    /**
+     * Версия данных: растет с каждой записью и общая для всех экземпляров приложения.
+     */
+    long version();
+
 }
\ No newline at end of file
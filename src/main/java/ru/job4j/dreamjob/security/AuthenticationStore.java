@@ -0,0 +1,31 @@
+package ru.job4j.dreamjob.security;
+
+import ru.job4j.dreamjob.model.SessionPrincipal;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.util.Optional;
+
+/**
+ * Где хранится факт входа пользователя между запросами.
+ * Реализация выбирается свойством auth.mode.
+ */
+public interface AuthenticationStore {
+    /**
+     * Вошедший пользователь или пустой Optional. Не должен создавать состояние
+     * для анонимного запроса.
+     */
+    Optional<SessionPrincipal> find(HttpServletRequest request);
+
+    void login(HttpServletRequest request, HttpServletResponse response,
+               SessionPrincipal principal);
+
+    void logout(HttpServletRequest request, HttpServletResponse response);
+
+    /**
+     * Вызывается после успешной обработки запроса: сохраняет изменения состояния
+     * входа, сделанные за время запроса.
+     */
+    default void commit(HttpServletRequest request) {
+    }
+}
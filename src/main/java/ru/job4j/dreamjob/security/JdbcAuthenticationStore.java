@@ -0,0 +1,252 @@
+package ru.job4j.dreamjob.security;
+
+import net.jcip.annotations.ThreadSafe;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseCookie;
+import org.springframework.stereotype.Component;
+import ru.job4j.dreamjob.model.SessionPrincipal;
+import ru.job4j.dreamjob.model.UserSession;
+import ru.job4j.dreamjob.repository.SessionRepository;
+
+import javax.annotation.PreDestroy;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Сессии хранятся в БД (таблицы sessions и session_attributes), поэтому переживают
+ * перезапуск узла и не требуют sticky-сессий на балансировщике.
+ *
+ * Чтобы не ходить в БД на каждый запрос, прочитанная сессия держится в локальном
+ * кеше near-cache-ttl, а срок жизни продлевается в БД не чаще touch-interval.
+ * Плата за это: выход на одном узле другие узлы увидят не позже чем через near-cache-ttl.
+ * Атрибуты, измененные за время запроса, записываются в БД в commit() после его обработки;
+ * другие узлы увидят их так же, не позже чем через near-cache-ttl.
+ * Истекшие сессии удаляются в фоне пачками по cleanup-batch-size.
+ */
+@ThreadSafe
+@Component
+@ConditionalOnProperty(name = "auth.mode", havingValue = "jdbc")
+public class JdbcAuthenticationStore implements AuthenticationStore {
+    private static final Logger LOG = LoggerFactory.getLogger(JdbcAuthenticationStore.class);
+
+    private static final String RESOLVED = JdbcAuthenticationStore.class.getName() + ".user";
+
+    private static final String SESSION = JdbcAuthenticationStore.class.getName() + ".session";
+
+    private static final String PRINCIPAL = "principal";
+
+    private static final SecureRandom RANDOM = new SecureRandom();
+
+    private final SessionRepository sessionRepository;
+
+    private final String cookieName;
+
+    private final boolean secure;
+
+    private final Duration timeout;
+
+    private final long nearCacheTtlNanos;
+
+    private final Duration touchInterval;
+
+    private final int cleanupBatchSize;
+
+    private final Map<String, CachedSession> nearCache = new ConcurrentHashMap<>();
+
+    private final ScheduledExecutorService cleaner;
+
+    public JdbcAuthenticationStore(SessionRepository sql2oSessionRepository,
+                                   @Value("${auth.session.cookie-name}") String cookieName,
+                                   @Value("${auth.session.secure}") boolean secure,
+                                   @Value("${auth.session.timeout}") Duration timeout,
+                                   @Value("${auth.session.near-cache-ttl}") Duration nearCacheTtl,
+                                   @Value("${auth.session.touch-interval}") Duration touchInterval,
+                                   @Value("${auth.session.cleanup-interval}")
+                                   Duration cleanupInterval,
+                                   @Value("${auth.session.cleanup-batch-size}")
+                                   int cleanupBatchSize) {
+        this.sessionRepository = sql2oSessionRepository;
+        this.cookieName = cookieName;
+        this.secure = secure;
+        this.timeout = timeout;
+        this.nearCacheTtlNanos = nearCacheTtl.toNanos();
+        this.touchInterval = touchInterval;
+        this.cleanupBatchSize = cleanupBatchSize;
+        this.cleaner = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            var thread = new Thread(runnable, "session-cleaner");
+            thread.setDaemon(true);
+            return thread;
+        });
+        cleaner.scheduleWithFixedDelay(this::evictNearCache,
+                nearCacheTtl.toMillis(), nearCacheTtl.toMillis(), TimeUnit.MILLISECONDS);
+        cleaner.scheduleWithFixedDelay(this::deleteExpired,
+                cleanupInterval.toMillis(), cleanupInterval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public Optional<SessionPrincipal> find(HttpServletRequest request) {
+        var resolved = request.getAttribute(RESOLVED);
+        if (resolved != null) {
+            return ((Optional<?>) resolved).map(SessionPrincipal.class::cast);
+        }
+        var session = sessionId(request).flatMap(this::findSession);
+        session.ifPresent(value -> request.setAttribute(SESSION, value));
+        var principal = session.flatMap(value -> value.getAttribute(PRINCIPAL))
+                .map(SessionPrincipal::decode);
+        request.setAttribute(RESOLVED, principal);
+        return principal;
+    }
+
+    /**
+     * Атрибуты, измененные за время запроса, пишутся в БД сразу, чтобы их увидели
+     * другие узлы; без изменений обращения к БД нет.
+     */
+    @Override
+    public void commit(HttpServletRequest request) {
+        if (request.getAttribute(SESSION) instanceof UserSession session) {
+            sessionRepository.saveAttributes(session);
+        }
+    }
+
+    private Optional<String> sessionId(HttpServletRequest request) {
+        var cookies = request.getCookies();
+        if (cookies != null) {
+            for (var cookie : cookies) {
+                if (cookieName.equals(cookie.getName())) {
+                    return Optional.of(cookie.getValue());
+                }
+            }
+        }
+        return Optional.empty();
+    }
+
+    private Optional<UserSession> findSession(String id) {
+        var now = System.nanoTime();
+        var cached = nearCache.get(id);
+        UserSession session;
+        if (cached != null && now - cached.loadedAt < nearCacheTtlNanos) {
+            session = cached.session;
+        } else {
+            session = sessionRepository.findById(id).orElse(null);
+            if (session == null) {
+                nearCache.remove(id);
+                return Optional.empty();
+            }
+            nearCache.put(id, new CachedSession(session, now));
+        }
+        var currentTime = LocalDateTime.now();
+        if (!session.getExpiresAt().isAfter(currentTime)) {
+            nearCache.remove(id);
+            return Optional.empty();
+        }
+        touch(session, currentTime);
+        return Optional.of(session);
+    }
+
+    /* Скользящий срок жизни: в БД пишем, только если он заметно сдвинулся */
+    private void touch(UserSession session, LocalDateTime now) {
+        var expiresAt = now.plus(timeout);
+        if (expiresAt.isAfter(session.getExpiresAt().plus(touchInterval))) {
+            session.setExpiresAt(expiresAt);
+            sessionRepository.updateExpiresAt(session.getId(), expiresAt);
+        }
+    }
+
+    /**
+     * При входе всегда создается новая сессия с новым идентификатором,
+     * старая (если была) удаляется.
+     */
+    @Override
+    public void login(HttpServletRequest request, HttpServletResponse response,
+                      SessionPrincipal principal) {
+        sessionId(request).ifPresent(this::delete);
+        request.removeAttribute(RESOLVED);
+        request.removeAttribute(SESSION);
+        var idBytes = new byte[32];
+        RANDOM.nextBytes(idBytes);
+        var now = LocalDateTime.now();
+        var session = new UserSession(Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(idBytes), now, now.plus(timeout));
+        session.setAttribute(PRINCIPAL, principal.encode());
+        sessionRepository.save(session);
+        nearCache.put(session.getId(), new CachedSession(session, System.nanoTime()));
+        addCookie(response, session.getId(), null);
+    }
+
+    @Override
+    public void logout(HttpServletRequest request, HttpServletResponse response) {
+        sessionId(request).ifPresent(this::delete);
+        request.removeAttribute(RESOLVED);
+        request.removeAttribute(SESSION);
+        addCookie(response, "", Duration.ZERO);
+    }
+
+    private void delete(String id) {
+        nearCache.remove(id);
+        sessionRepository.deleteById(id);
+    }
+
+    /* maxAge == null - cookie живет до закрытия браузера, срок сессии задает сервер */
+    private void addCookie(HttpServletResponse response, String value, Duration maxAge) {
+        var builder = ResponseCookie.from(cookieName, value)
+                .path("/")
+                .httpOnly(true)
+                .secure(secure)
+                .sameSite("Lax");
+        if (maxAge != null) {
+            builder.maxAge(maxAge);
+        }
+        response.addHeader(HttpHeaders.SET_COOKIE, builder.build().toString());
+    }
+
+    private void evictNearCache() {
+        var now = System.nanoTime();
+        nearCache.values().removeIf(cached -> now - cached.loadedAt >= nearCacheTtlNanos);
+    }
+
+    /**
+     * Удаляет истекшие сессии пачками, чтобы не держать долгую блокировку таблицы.
+     */
+    void deleteExpired() {
+        try {
+            var now = LocalDateTime.now();
+            int deleted;
+            do {
+                deleted = sessionRepository.deleteExpired(now, cleanupBatchSize);
+            } while (deleted == cleanupBatchSize);
+        } catch (RuntimeException e) {
+            /* БД может быть временно недоступна - попробуем в следующий раз */
+            LOG.warn("Expired session cleanup failed, will retry", e);
+        }
+    }
+
+    @PreDestroy
+    public void close() {
+        cleaner.shutdownNow();
+    }
+
+    private static final class CachedSession {
+        private final UserSession session;
+
+        private final long loadedAt;
+
+        private CachedSession(UserSession session, long loadedAt) {
+            this.session = session;
+            this.loadedAt = loadedAt;
+        }
+    }
+}
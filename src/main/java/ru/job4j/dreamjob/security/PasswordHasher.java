@@ -0,0 +1,95 @@
+package ru.job4j.dreamjob.security;
+
+import net.jcip.annotations.ThreadSafe;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.SecretKeyFactory;
+import javax.crypto.spec.PBEKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.Base64;
+
+/**
+ * Хеш пароля PBKDF2-HMAC-SHA256 с солью в формате
+ * pbkdf2-sha256$итерации$соль$хеш (соль и хеш в base64).
+ *
+ * Число итераций хранится в каждом хеше, поэтому после изменения password.iterations
+ * старые хеши продолжают проверяться, а needsRehash() подсказывает, что их пора обновить.
+ */
+@ThreadSafe
+@Component
+public class PasswordHasher {
+    private static final String PREFIX = "pbkdf2-sha256";
+
+    private static final String ALGORITHM = "PBKDF2WithHmacSHA256";
+
+    private static final int SALT_LENGTH = 16;
+
+    private static final int HASH_BITS = 256;
+
+    private static final SecureRandom RANDOM = new SecureRandom();
+
+    private final int iterations;
+
+    public PasswordHasher(@Value("${password.iterations}") int iterations) {
+        this.iterations = iterations;
+    }
+
+    public String hash(String password) {
+        var salt = new byte[SALT_LENGTH];
+        RANDOM.nextBytes(salt);
+        var encoder = Base64.getEncoder().withoutPadding();
+        return PREFIX + "$" + iterations + "$" + encoder.encodeToString(salt)
+                + "$" + encoder.encodeToString(pbkdf2(password, salt, iterations));
+    }
+
+    /**
+     * Сравнение за постоянное время. Строка не в формате хеша считается
+     * паролем, сохраненным до перехода на хеши; поврежденный хеш (число итераций,
+     * base64) не подходит ни к какому паролю.
+     */
+    public boolean matches(String password, String stored) {
+        if (!isHash(stored)) {
+            return MessageDigest.isEqual(password.getBytes(StandardCharsets.UTF_8),
+                    stored.getBytes(StandardCharsets.UTF_8));
+        }
+        var parts = stored.split("\\$");
+        try {
+            var decoder = Base64.getDecoder();
+            var expected = decoder.decode(parts[3]);
+            var actual = pbkdf2(password, decoder.decode(parts[2]), Integer.parseInt(parts[1]));
+            return MessageDigest.isEqual(expected, actual);
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
+
+    public boolean needsRehash(String stored) {
+        if (!isHash(stored)) {
+            return true;
+        }
+        try {
+            return Integer.parseInt(stored.split("\\$")[1]) != iterations;
+        } catch (NumberFormatException e) {
+            return true;
+        }
+    }
+
+    private static boolean isHash(String stored) {
+        return stored.startsWith(PREFIX + "$") && stored.split("\\$").length == 4;
+    }
+
+    private static byte[] pbkdf2(String password, byte[] salt, int iterations) {
+        var spec = new PBEKeySpec(password.toCharArray(), salt, iterations, HASH_BITS);
+        try {
+            return SecretKeyFactory.getInstance(ALGORITHM).generateSecret(spec).getEncoded();
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(e);
+        } finally {
+            spec.clearPassword();
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package ru.job4j.dreamjob.security;
+
+import net.jcip.annotations.ThreadSafe;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import ru.job4j.dreamjob.model.SessionPrincipal;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.util.Optional;
+
+/**
+ * SessionPrincipal хранится в HttpSession контейнера (режим по умолчанию).
+ */
+@ThreadSafe
+@Component
+@ConditionalOnProperty(name = "auth.mode", havingValue = "session", matchIfMissing = true)
+public class SessionAuthenticationStore implements AuthenticationStore {
+    private static final String USER = "user";
+
+    @Override
+    public Optional<SessionPrincipal> find(HttpServletRequest request) {
+        var session = request.getSession(false);
+        return session == null
+                ? Optional.empty()
+                : Optional.ofNullable((SessionPrincipal) session.getAttribute(USER));
+    }
+
+    @Override
+    public void login(HttpServletRequest request, HttpServletResponse response,
+                      SessionPrincipal principal) {
+        request.getSession().setAttribute(USER, principal);
+    }
+
+    @Override
+    public void logout(HttpServletRequest request, HttpServletResponse response) {
+        var session = request.getSession(false);
+        if (session != null) {
+            session.invalidate();
+        }
+    }
+}
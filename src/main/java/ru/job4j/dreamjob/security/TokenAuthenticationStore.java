@@ -0,0 +1,88 @@
+package ru.job4j.dreamjob.security;
+
+import net.jcip.annotations.ThreadSafe;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseCookie;
+import org.springframework.stereotype.Component;
+import ru.job4j.dreamjob.model.SessionPrincipal;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.time.Duration;
+import java.util.Optional;
+
+/**
+ * Вход хранится только в подписанной cookie, на сервере нет никакого состояния,
+ * поэтому запрос может обработать любой узел без привязки сессий.
+ */
+@ThreadSafe
+@Component
+@ConditionalOnProperty(name = "auth.mode", havingValue = "token")
+public class TokenAuthenticationStore implements AuthenticationStore {
+    /* Результат проверки кешируется в запросе: его читают оба фильтра */
+    private static final String RESOLVED = TokenAuthenticationStore.class.getName() + ".user";
+
+    private final TokenCodec tokenCodec;
+
+    private final String cookieName;
+
+    private final boolean secure;
+
+    public TokenAuthenticationStore(@Value("${auth.token.keys}") String keyRing,
+                                    @Value("${auth.token.ttl}") Duration ttl,
+                                    @Value("${auth.token.cookie-name}") String cookieName,
+                                    @Value("${auth.token.secure}") boolean secure) {
+        if (keyRing.isBlank()) {
+            throw new IllegalStateException("Для auth.mode=token нужно задать auth.token.keys");
+        }
+        this.tokenCodec = new TokenCodec(keyRing, ttl);
+        this.cookieName = cookieName;
+        this.secure = secure;
+    }
+
+    @Override
+    public Optional<SessionPrincipal> find(HttpServletRequest request) {
+        var resolved = request.getAttribute(RESOLVED);
+        if (resolved != null) {
+            return ((Optional<?>) resolved).map(SessionPrincipal.class::cast);
+        }
+        var principal = Optional.<SessionPrincipal>empty();
+        var cookies = request.getCookies();
+        if (cookies != null) {
+            for (var cookie : cookies) {
+                if (cookieName.equals(cookie.getName())) {
+                    principal = tokenCodec.verify(cookie.getValue());
+                    break;
+                }
+            }
+        }
+        request.setAttribute(RESOLVED, principal);
+        return principal;
+    }
+
+    @Override
+    public void login(HttpServletRequest request, HttpServletResponse response,
+                      SessionPrincipal principal) {
+        request.removeAttribute(RESOLVED);
+        addCookie(response, tokenCodec.issue(principal), tokenCodec.getTtl());
+    }
+
+    @Override
+    public void logout(HttpServletRequest request, HttpServletResponse response) {
+        request.removeAttribute(RESOLVED);
+        addCookie(response, "", Duration.ZERO);
+    }
+
+    private void addCookie(HttpServletResponse response, String value, Duration maxAge) {
+        var cookie = ResponseCookie.from(cookieName, value)
+                .path("/")
+                .httpOnly(true)
+                .secure(secure)
+                .sameSite("Lax")
+                .maxAge(maxAge)
+                .build();
+        response.addHeader(HttpHeaders.SET_COOKIE, cookie.toString());
+    }
+}
@@ -0,0 +1,141 @@
+package ru.job4j.dreamjob.security;
+
+import net.jcip.annotations.ThreadSafe;
+import ru.job4j.dreamjob.model.SessionPrincipal;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.Key;
+import java.security.MessageDigest;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Подписанный токен входа: kid.expires.principal.signature
+ *
+ * kid - идентификатор ключа, expires - секунды эпохи,
+ * principal - SessionPrincipal.encode() в base64url,
+ * signature - HMAC-SHA256 от всего, что стоит до нее. Подписывается первым ключом
+ * из кольца, проверяется любым: чтобы сменить ключ, новый ставится первым,
+ * а старый остается в списке, пока не истекут выданные им токены.
+ */
+@ThreadSafe
+public class TokenCodec {
+    private static final String ALGORITHM = "HmacSHA256";
+
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+
+    private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+
+    private static final ThreadLocal<Mac> MAC = ThreadLocal.withInitial(() -> {
+        try {
+            return Mac.getInstance(ALGORITHM);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(e);
+        }
+    });
+
+    private final Map<String, Key> keys;
+
+    private final String activeKid;
+
+    private final Duration ttl;
+
+    private final Clock clock;
+
+    public TokenCodec(String keyRing, Duration ttl) {
+        this(keyRing, ttl, Clock.systemUTC());
+    }
+
+    TokenCodec(String keyRing, Duration ttl, Clock clock) {
+        this.keys = parseKeyRing(keyRing);
+        this.activeKid = keys.keySet().iterator().next();
+        this.ttl = ttl;
+        this.clock = clock;
+    }
+
+    /**
+     * Формат кольца: kid:секрет-в-base64,kid:секрет-в-base64. Первый ключ - текущий.
+     */
+    private static Map<String, Key> parseKeyRing(String keyRing) {
+        var keys = new LinkedHashMap<String, Key>();
+        for (var entry : keyRing.split(",")) {
+            var parts = entry.trim().split(":", 2);
+            if (parts.length != 2 || parts[0].isBlank() || parts[0].contains(".")) {
+                throw new IllegalArgumentException("Неверная запись в кольце ключей: " + entry);
+            }
+            var secret = Base64.getDecoder().decode(parts[1].trim());
+            if (secret.length < 32) {
+                throw new IllegalArgumentException("Ключ " + parts[0] + " короче 256 бит");
+            }
+            keys.put(parts[0].trim(), new SecretKeySpec(secret, ALGORITHM));
+        }
+        if (keys.isEmpty()) {
+            throw new IllegalArgumentException("Кольцо ключей пустое");
+        }
+        return keys;
+    }
+
+    public Duration getTtl() {
+        return ttl;
+    }
+
+    public String issue(SessionPrincipal principal) {
+        var expires = clock.instant().plus(ttl).getEpochSecond();
+        var encoded = ENCODER.encodeToString(
+                principal.encode().getBytes(StandardCharsets.UTF_8));
+        var payload = activeKid + "." + expires + "." + encoded;
+        return payload + "." + ENCODER.encodeToString(sign(keys.get(activeKid), payload));
+    }
+
+    /**
+     * Пользователь из токена, если подпись верна и срок не истек.
+     */
+    public Optional<SessionPrincipal> verify(String token) {
+        var signatureStart = token.lastIndexOf('.');
+        var kidEnd = token.indexOf('.');
+        if (signatureStart <= 0 || kidEnd == signatureStart) {
+            return Optional.empty();
+        }
+        var key = keys.get(token.substring(0, kidEnd));
+        if (key == null) {
+            return Optional.empty();
+        }
+        var payload = token.substring(0, signatureStart);
+        /* сравниваем закодированные строки: декодер base64 прощает лишние биты в конце */
+        var expected = ENCODER.encode(sign(key, payload));
+        var actual = token.substring(signatureStart + 1).getBytes(StandardCharsets.US_ASCII);
+        if (!MessageDigest.isEqual(expected, actual)) {
+            return Optional.empty();
+        }
+        var parts = payload.split("\\.");
+        if (parts.length != 3) {
+            return Optional.empty();
+        }
+        try {
+            if (Long.parseLong(parts[1]) <= clock.instant().getEpochSecond()) {
+                return Optional.empty();
+            }
+            var encoded = new String(DECODER.decode(parts[2]), StandardCharsets.UTF_8);
+            return Optional.of(SessionPrincipal.decode(encoded));
+        } catch (IllegalArgumentException e) {
+            return Optional.empty();
+        }
+    }
+
+    private static byte[] sign(Key key, String payload) {
+        var mac = MAC.get();
+        try {
+            mac.init(key);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(e);
+        }
+        return mac.doFinal(payload.getBytes(StandardCharsets.US_ASCII));
+    }
+}
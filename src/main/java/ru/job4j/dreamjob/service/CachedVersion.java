@@ -0,0 +1,45 @@
+package ru.job4j.dreamjob.service;
+
+import net.jcip.annotations.ThreadSafe;
+
+import java.time.Duration;
+import java.util.function.LongSupplier;
+
+/**
+ * Версия данных из репозитория, перечитываемая не чаще раза в ttl.
+ *
+ * Сама версия хранится в БД и общая для всех экземпляров приложения; копия
+ * избавляет от запроса к БД на каждую страницу. Своя запись сбрасывает копию
+ * сразу, запись на другом узле становится видна не позже чем через ttl.
+ */
+@ThreadSafe
+final class CachedVersion {
+    private final LongSupplier loader;
+
+    private final long ttlNanos;
+
+    private volatile Snapshot snapshot;
+
+    CachedVersion(LongSupplier loader, Duration ttl) {
+        this.loader = loader;
+        this.ttlNanos = ttl.toNanos();
+    }
+
+    long get() {
+        var current = snapshot;
+        var now = System.nanoTime();
+        if (current != null && now - current.readAt < ttlNanos) {
+            return current.version;
+        }
+        var version = loader.getAsLong();
+        snapshot = new Snapshot(version, now);
+        return version;
+    }
+
+    void invalidate() {
+        snapshot = null;
+    }
+
+    private record Snapshot(long version, long readAt) {
+    }
+}
@@ -5,6 +5,7 @@ import ru.job4j.dreamjob.model.Candidate;
 
 import java.util.Collection;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 public interface CandidateService {
     Candidate save(Candidate candidate, FileDto image);
@@ -13,7 +14,23 @@ public interface CandidateService {
 
     boolean update(Candidate candidate, FileDto image);
 
+    boolean replaceFile(int id, int fileId);
+
     Optional<Candidate> findById(int id);
 
     Collection<Candidate> findAll();
+
+    /**
+     * Все записи по мере чтения из БД, для больших списков. Поток нужно закрыть.
+     */
+    Stream<Candidate> streamAll();
+
+    int count();
+
+    /**
+     * Версия данных: меняется после каждого изменения, поэтому все, что построено
+     * по данным той же версии, можно переиспользовать. Общая для всех экземпляров
+     * приложения, изменение с другого узла видно не позже data-version.ttl.
+     */
+    long getVersion();
 }
@@ -0,0 +1,15 @@
+package ru.job4j.dreamjob.service;
+
+import ru.job4j.dreamjob.model.User;
+
+import java.util.Optional;
+
+/**
+ * Хеширование и проверка паролей.
+ * При перегрузке методы бросают RejectedExecutionException.
+ */
+public interface CredentialService {
+    String hash(String password);
+
+    Optional<User> authenticate(String email, String password);
+}
@@ -0,0 +1,89 @@
+package ru.job4j.dreamjob.service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Optional;
+import java.util.Set;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Подготовка gzip-варианта файла при загрузке.
+ * Сжимаем только текстоподобные типы, и только если пробное сжатие
+ * начала файла показывает заметный выигрыш: уже сжатые PDF и т.п. пропускаем.
+ */
+final class FileCompressor {
+    private static final Set<String> COMPRESSIBLE_TYPES = Set.of(
+            "application/pdf",
+            "application/json",
+            "application/xml",
+            "application/javascript",
+            "image/svg+xml",
+            "image/bmp"
+    );
+
+    /* Меньше этого размера выигрыш от сжатия съедают заголовки gzip */
+    private static final int MIN_SIZE = 1024;
+
+    /* Сжатое начало файла должно быть не больше 90% от исходного */
+    private static final double MAX_PROBE_RATIO = 0.9;
+
+    /* Итоговый вариант храним, только если он экономит хотя бы 5% */
+    private static final double MAX_RESULT_RATIO = 0.95;
+
+    private FileCompressor() {
+
+    }
+
+    static boolean isCompressible(String contentType, long size, byte[] header) {
+        if (size < MIN_SIZE) {
+            return false;
+        }
+        var type = contentType.toLowerCase();
+        if (!type.startsWith("text/") && !COMPRESSIBLE_TYPES.contains(type)) {
+            return false;
+        }
+        return probeRatio(header) <= MAX_PROBE_RATIO;
+    }
+
+    static double probeRatio(byte[] sample) {
+        if (sample.length == 0) {
+            return 1;
+        }
+        var deflater = new Deflater(Deflater.BEST_SPEED);
+        try {
+            deflater.setInput(sample);
+            deflater.finish();
+            var buffer = new byte[8192];
+            long compressed = 0;
+            while (!deflater.finished()) {
+                compressed += deflater.deflate(buffer);
+            }
+            return (double) compressed / sample.length;
+        } finally {
+            deflater.end();
+        }
+    }
+
+    /**
+     * Сжимает содержимое во временный файл, чтобы затем записать его в хранилище.
+     * @return временный файл или пустой Optional, если сжатие не окупилось
+     */
+    static Optional<Path> gzip(InputStream source, long sourceSize) {
+        try {
+            var target = Files.createTempFile("dreamjob-", ".gz");
+            try (source; var output = new GZIPOutputStream(Files.newOutputStream(target), 8192)) {
+                source.transferTo(output);
+            }
+            if (Files.size(target) > sourceSize * MAX_RESULT_RATIO) {
+                Files.deleteIfExists(target);
+                return Optional.empty();
+            }
+            return Optional.of(target);
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+}
@@ -0,0 +1,131 @@
+package ru.job4j.dreamjob.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import net.jcip.annotations.ThreadSafe;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.core.task.support.TaskExecutorAdapter;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Отдельный ограниченный пул для чтения и записи файлов.
+ *
+ * Файловые контроллеры явно ставят передачу файлов на этот пул (WebAsyncTask, DeferredResult),
+ * а не выполняют ее на потоках Tomcat, поэтому всплеск больших загрузок не занимает
+ * все потоки и не мешает обычным страницам. Общим исполнителем асинхронных запросов MVC
+ * пул не назначается: остальные асинхронные ответы не расходуют его места.
+ * Если очередь заполнена, контроллер сразу отвечает 503.
+ *
+ * Число принятых задач (выполняемых и ждущих) ограничено семафором на threads + queue-capacity
+ * разрешений: разрешение берется без ожидания при постановке задачи и возвращается после
+ * ее выполнения, даже если задача отменена, не начавшись. Задача сверх лимита отклоняется
+ * (TaskRejectedException), а не выполняется в вызывающем потоке Tomcat.
+ */
+@ThreadSafe
+@Component
+public class FileIoBulkhead {
+    private final ThreadPoolExecutor executor;
+
+    private final Semaphore permits;
+
+    private final AsyncTaskExecutor taskExecutor;
+
+    private final int retryAfterSeconds;
+
+    private final Counter rejections;
+
+    public FileIoBulkhead(@Value("${file.io.threads}") int threads,
+                          @Value("${file.io.queue-capacity}") int queueCapacity,
+                          @Value("${file.io.retry-after-seconds}") int retryAfterSeconds,
+                          MeterRegistry meterRegistry) {
+        var threadNumber = new AtomicInteger();
+        /* очередь не переполняется: задач в ней не больше, чем разрешений семафора */
+        this.executor = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(), runnable -> {
+                    var thread = new Thread(runnable, "file-io-" + threadNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        this.permits = new Semaphore(threads + queueCapacity);
+        this.taskExecutor = new TaskExecutorAdapter(this::admit);
+        this.retryAfterSeconds = retryAfterSeconds;
+        this.rejections = Counter.builder("dreamjob.file.io.rejected")
+                .description("File I/O requests rejected because the queue was full")
+                .register(meterRegistry);
+        Gauge.builder("dreamjob.file.io.queue", executor, pool -> pool.getQueue().size())
+                .description("File I/O tasks waiting for a thread")
+                .register(meterRegistry);
+        Gauge.builder("dreamjob.file.io.active", executor, ThreadPoolExecutor::getActiveCount)
+                .description("File I/O tasks running")
+                .register(meterRegistry);
+    }
+
+    /* Постановка задачи: без ожидания, при исчерпании лимита - отказ */
+    private void admit(Runnable task) {
+        if (!permits.tryAcquire()) {
+            rejections.increment();
+            throw new TaskRejectedException("Очередь файлового I/O заполнена");
+        }
+        try {
+            executor.execute(() -> {
+                try {
+                    task.run();
+                } finally {
+                    permits.release();
+                }
+            });
+        } catch (RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    /**
+     * Проверка перед тем, как начать ответ, который выполнит пул (WebAsyncTask):
+     * есть ли свободное место. Окончательно место занимается при постановке задачи.
+     */
+    public boolean tryAdmit() {
+        if (permits.availablePermits() > 0) {
+            return true;
+        }
+        rejections.increment();
+        return false;
+    }
+
+    /**
+     * Ставит задачу на пул.
+     *
+     * @return false, если лимит исчерпан: задача не выполнена и выполнена не будет
+     */
+    public boolean trySubmit(Runnable task) {
+        try {
+            taskExecutor.execute(task);
+            return true;
+        } catch (TaskRejectedException e) {
+            return false;
+        }
+    }
+
+    public AsyncTaskExecutor getTaskExecutor() {
+        return taskExecutor;
+    }
+
+    public int getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+}
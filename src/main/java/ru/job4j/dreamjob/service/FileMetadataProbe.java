@@ -0,0 +1,55 @@
+package ru.job4j.dreamjob.service;
+
+import javax.imageio.ImageIO;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.net.URLConnection;
+import java.util.Optional;
+
+/**
+ * Определение MIME-типа и размеров изображения по началу файла.
+ * Изображение целиком не декодируется: ImageReader читает только заголовок.
+ */
+final class FileMetadataProbe {
+    static final String DEFAULT_CONTENT_TYPE = "application/octet-stream";
+
+    private FileMetadataProbe() {
+
+    }
+
+    static String contentType(String name, byte[] header) {
+        String contentType = null;
+        try {
+            contentType = URLConnection.guessContentTypeFromStream(
+                    new ByteArrayInputStream(header));
+        } catch (IOException ignored) {
+            /* по содержимому не определили, пробуем по имени */
+        }
+        if (contentType == null && name != null) {
+            contentType = URLConnection.guessContentTypeFromName(name.toLowerCase());
+        }
+        return contentType == null ? DEFAULT_CONTENT_TYPE : contentType;
+    }
+
+    static Optional<int[]> dimensions(String contentType, byte[] header) {
+        if (!contentType.startsWith("image/")) {
+            return Optional.empty();
+        }
+        try (var input = ImageIO.createImageInputStream(new ByteArrayInputStream(header))) {
+            var readers = ImageIO.getImageReaders(input);
+            if (!readers.hasNext()) {
+                return Optional.empty();
+            }
+            var reader = readers.next();
+            try {
+                reader.setInput(input, true, true);
+                return Optional.of(new int[] {reader.getWidth(0), reader.getHeight(0)});
+            } finally {
+                reader.dispose();
+            }
+        } catch (IOException | RuntimeException e) {
+            /* заголовок не поместился в прочитанное начало или формат битый */
+            return Optional.empty();
+        }
+    }
+}
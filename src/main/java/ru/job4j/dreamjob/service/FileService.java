@@ -3,12 +3,22 @@ package ru.job4j.dreamjob.service;
 import ru.job4j.dreamjob.dto.FileDto;
 import ru.job4j.dreamjob.model.File;
 
+import java.io.InputStream;
 import java.util.Optional;
 
 public interface FileService {
     File save(FileDto fileDto);
 
-    Optional<FileDto> getFileById(int id);
+    File save(String name, InputStream content);
+
+    Optional<File> findById(int id);
+
+    /**
+     * Поток для чтения содержимого; закрывает вызывающий.
+     */
+    InputStream getContent(File file);
+
+    InputStream getGzipContent(File file);
 
     boolean deleteById(int id);
 }
@@ -0,0 +1,110 @@
+package ru.job4j.dreamjob.service;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.HexFormat;
+
+/**
+ * Поток, который за один проход во время записи файла на диск
+ * считает размер, SHA-256 и запоминает начало содержимого
+ * (его достаточно, чтобы определить MIME-тип и размеры изображения).
+ */
+class MetadataInputStream extends FilterInputStream {
+    private static final int HEADER_LIMIT = 64 * 1024;
+
+    private static final int SKIP_BUFFER_SIZE = 8 * 1024;
+
+    private final MessageDigest digest;
+
+    private final byte[] header = new byte[HEADER_LIMIT];
+
+    private int headerLength;
+
+    private long size;
+
+    MetadataInputStream(InputStream in) {
+        super(in);
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    @Override
+    public int read() throws IOException {
+        var value = super.read();
+        if (value != -1) {
+            update(new byte[] {(byte) value}, 0, 1);
+        }
+        return value;
+    }
+
+    @Override
+    public int read(byte[] buffer, int offset, int length) throws IOException {
+        var count = super.read(buffer, offset, length);
+        if (count > 0) {
+            update(buffer, offset, count);
+        }
+        return count;
+    }
+
+    private void update(byte[] buffer, int offset, int count) {
+        digest.update(buffer, offset, count);
+        size += count;
+        var toHeader = Math.min(count, HEADER_LIMIT - headerLength);
+        if (toHeader > 0) {
+            System.arraycopy(buffer, offset, header, headerLength, toHeader);
+            headerLength += toHeader;
+        }
+    }
+
+    /* Пропущенные байты - тоже содержимое: читаем их, чтобы они попали в размер и хеш */
+    @Override
+    public long skip(long n) throws IOException {
+        if (n <= 0) {
+            return 0;
+        }
+        var buffer = new byte[(int) Math.min(n, SKIP_BUFFER_SIZE)];
+        var remaining = n;
+        while (remaining > 0) {
+            var count = read(buffer, 0, (int) Math.min(remaining, buffer.length));
+            if (count < 0) {
+                break;
+            }
+            remaining -= count;
+        }
+        return n - remaining;
+    }
+
+    /* Повторно прочитанные после reset() байты дважды попали бы в хеш */
+    @Override
+    public boolean markSupported() {
+        return false;
+    }
+
+    @Override
+    public synchronized void mark(int readLimit) {
+    }
+
+    @Override
+    public synchronized void reset() throws IOException {
+        throw new IOException("mark/reset not supported");
+    }
+
+    long getSize() {
+        return size;
+    }
+
+    String getHash() {
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    byte[] getHeader() {
+        return Arrays.copyOf(header, headerLength);
+    }
+}
@@ -1,13 +1,16 @@
 package ru.job4j.dreamjob.service;
 
 import net.jcip.annotations.ThreadSafe;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import ru.job4j.dreamjob.dto.FileDto;
 import ru.job4j.dreamjob.model.Candidate;
 import ru.job4j.dreamjob.repository.CandidateRepository;
 
+import java.time.Duration;
 import java.util.Collection;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 @ThreadSafe
 @Service
@@ -15,10 +18,15 @@ public class SimpleCandidateService implements CandidateService {
     private final CandidateRepository candidateRepository;
     private final FileService fileService;
 
-    public SimpleCandidateService(CandidateRepository sql2oCandidateRepository,
-                                  FileService fileService) {
-        this.candidateRepository = sql2oCandidateRepository;
+    /* Версия из БД, по ней кешируются отрисованные списки и строятся ETag */
+    private final CachedVersion version;
+
+    public SimpleCandidateService(CandidateRepository fallbackCandidateRepository,
+                                  FileService fileService,
+                                  @Value("${data-version.ttl}") Duration versionTtl) {
+        this.candidateRepository = fallbackCandidateRepository;
         this.fileService = fileService;
+        this.version = new CachedVersion(candidateRepository::version, versionTtl);
     }
 
     private void saveNewFile(Candidate candidate, FileDto image) {
@@ -28,33 +36,69 @@ public class SimpleCandidateService implements CandidateService {
 
     @Override
     public Candidate save(Candidate candidate, FileDto image) {
-        saveNewFile(candidate, image);
-        return candidateRepository.save(candidate);
+        try {
+            saveNewFile(candidate, image);
+            return candidateRepository.save(candidate);
+        } finally {
+            version.invalidate();
+        }
     }
 
     @Override
     public boolean deleteById(int id) {
-        var fileOptional = findById(id);
-        if (fileOptional.isEmpty()) {
-            return false;
+        try {
+            var fileOptional = findById(id);
+            if (fileOptional.isEmpty()) {
+                return false;
+            }
+            var isDeleted = candidateRepository.deleteById(id);
+            fileService.deleteById(fileOptional.get().getFileId());
+            return isDeleted;
+        } finally {
+            version.invalidate();
         }
-        var isDeleted = candidateRepository.deleteById(id);
-        fileService.deleteById(fileOptional.get().getFileId());
-        return isDeleted;
     }
 
     @Override
     public boolean update(Candidate candidate, FileDto image) {
-        var isNewFileEmpty = image.getContent().length == 0;
-        if (isNewFileEmpty) {
-            return candidateRepository.update(candidate);
+        try {
+            var isNewFileEmpty = image.getContent().length == 0;
+            if (isNewFileEmpty) {
+                return candidateRepository.update(candidate);
+            }
+            /* если передан новый не пустой файл, то старый удаляем, а новый сохраняем */
+            var oldFileId = candidate.getFileId();
+            saveNewFile(candidate, image);
+            var isUpdated = candidateRepository.update(candidate);
+            fileService.deleteById(oldFileId);
+            return isUpdated;
+        } finally {
+            version.invalidate();
+        }
+    }
+
+    /**
+     * Привязывает уже сохраненный файл (например, загруженный по частям)
+     * вместо текущего, старый файл удаляется.
+     */
+    @Override
+    public boolean replaceFile(int id, int fileId) {
+        try {
+            var candidateOptional = findById(id);
+            if (candidateOptional.isEmpty()) {
+                return false;
+            }
+            var candidate = candidateOptional.get();
+            var oldFileId = candidate.getFileId();
+            candidate.setFileId(fileId);
+            var isUpdated = candidateRepository.update(candidate);
+            if (isUpdated && oldFileId != fileId) {
+                fileService.deleteById(oldFileId);
+            }
+            return isUpdated;
+        } finally {
+            version.invalidate();
         }
-        /* если передан новый не пустой файл, то старый удаляем, а новый сохраняем */
-        var oldFileId = candidate.getFileId();
-        saveNewFile(candidate, image);
-        var isUpdated = candidateRepository.update(candidate);
-        fileService.deleteById(oldFileId);
-        return isUpdated;
     }
 
     @Override
@@ -62,8 +106,23 @@ public class SimpleCandidateService implements CandidateService {
         return candidateRepository.findById(id);
     }
 
+    @Override
+    public long getVersion() {
+        return version.get();
+    }
+
     @Override
     public Collection<Candidate> findAll() {
         return candidateRepository.findAll();
     }
+
+    @Override
+    public Stream<Candidate> streamAll() {
+        return candidateRepository.streamAll();
+    }
+
+    @Override
+    public int count() {
+        return candidateRepository.count();
+    }
 }
\ No newline at end of file
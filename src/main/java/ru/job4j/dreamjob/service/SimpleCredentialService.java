@@ -0,0 +1,135 @@
+package ru.job4j.dreamjob.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import net.jcip.annotations.ThreadSafe;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import ru.job4j.dreamjob.model.User;
+import ru.job4j.dreamjob.repository.UserRepository;
+import ru.job4j.dreamjob.security.PasswordHasher;
+
+import javax.annotation.PreDestroy;
+import java.util.Optional;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Хеширование занимает миллисекунды процессора, поэтому выполняется на отдельном
+ * пуле фиксированного размера с ограниченной очередью: всплеск входов не займет
+ * все потоки Tomcat, а при переполнении очереди запрос сразу получает отказ.
+ * Проверка паролей при входе и хеширование при регистрации идут на разных пулах:
+ * поток регистраций не вытесняет входы.
+ *
+ * При успешном входе хеш пересчитывается, если он сохранен открытым текстом
+ * или с другим числом итераций. Для неизвестной почты пароль сверяется с заранее
+ * посчитанным хешем, чтобы по времени ответа нельзя было узнать, есть ли такой пользователь.
+ */
+@ThreadSafe
+@Service
+public class SimpleCredentialService implements CredentialService {
+    private final UserRepository userRepository;
+
+    private final PasswordHasher passwordHasher;
+
+    private final ThreadPoolExecutor verifyExecutor;
+
+    private final ThreadPoolExecutor hashExecutor;
+
+    private final Timer verifyTimer;
+
+    private final Timer hashTimer;
+
+    private final String dummyHash;
+
+    public SimpleCredentialService(UserRepository sql2oUserRepository,
+                                   PasswordHasher passwordHasher,
+                                   @Value("${password.threads}") int threads,
+                                   @Value("${password.queue-capacity}") int queueCapacity,
+                                   @Value("${password.hash-threads}") int hashThreads,
+                                   @Value("${password.hash-queue-capacity}")
+                                   int hashQueueCapacity,
+                                   MeterRegistry meterRegistry) {
+        this.userRepository = sql2oUserRepository;
+        this.passwordHasher = passwordHasher;
+        this.verifyExecutor = executor("password-verifier-", threads, queueCapacity);
+        this.hashExecutor = executor("password-hasher-", hashThreads, hashQueueCapacity);
+        this.verifyTimer = passwordTimer(meterRegistry, "verify");
+        this.hashTimer = passwordTimer(meterRegistry, "hash");
+        this.dummyHash = passwordHasher.hash("dummy-password");
+    }
+
+    private static ThreadPoolExecutor executor(String namePrefix, int threads,
+                                               int queueCapacity) {
+        var threadNumber = new AtomicInteger();
+        return new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), runnable -> {
+                    var thread = new Thread(runnable,
+                            namePrefix + threadNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                }, new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    private static Timer passwordTimer(MeterRegistry registry, String operation) {
+        return Timer.builder("dreamjob.password")
+                .description("Password hashing time including the wait in the queue")
+                .tag("operation", operation)
+                .publishPercentiles(0.5, 0.95, 0.99)
+                .register(registry);
+    }
+
+    @Override
+    public String hash(String password) {
+        return run(hashExecutor, hashTimer, () -> passwordHasher.hash(password));
+    }
+
+    @Override
+    public Optional<User> authenticate(String email, String password) {
+        var userOptional = userRepository.findByEmail(email);
+        if (userOptional.isEmpty()) {
+            return run(verifyExecutor, verifyTimer, () -> {
+                passwordHasher.matches(password, dummyHash);
+                return Optional.empty();
+            });
+        }
+        var user = userOptional.get();
+        return run(verifyExecutor, verifyTimer, () -> {
+            if (!passwordHasher.matches(password, user.getPassword())) {
+                return Optional.empty();
+            }
+            if (passwordHasher.needsRehash(user.getPassword())) {
+                user.setPassword(passwordHasher.hash(password));
+                userRepository.updatePassword(user.getId(), user.getPassword());
+            }
+            return Optional.of(user);
+        });
+    }
+
+    private static <T> T run(ThreadPoolExecutor executor, Timer timer, Callable<T> task) {
+        var start = System.nanoTime();
+        try {
+            return executor.submit(task).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new IllegalStateException(e.getCause());
+        } finally {
+            timer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        verifyExecutor.shutdown();
+        hashExecutor.shutdown();
+    }
+}
@@ -1,73 +1,127 @@
 package ru.job4j.dreamjob.service;
 
-import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import ru.job4j.dreamjob.dto.FileDto;
 import ru.job4j.dreamjob.model.File;
+import ru.job4j.dreamjob.monitoring.FileIoEvent;
+import ru.job4j.dreamjob.monitoring.ServerTiming;
 import ru.job4j.dreamjob.repository.FileRepository;
+import ru.job4j.dreamjob.storage.FileStorage;
 
+import java.io.ByteArrayInputStream;
+import java.io.FilterInputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.time.LocalDateTime;
 import java.util.Optional;
-import java.util.UUID;
 
 @Service
 public class SimpleFileService implements FileService {
 
     private final FileRepository fileRepository;
 
-    private final String storageDirectory;
+    private final FileStorage fileStorage;
 
-    public SimpleFileService(FileRepository sql2oFileRepository,
-                             @Value("${file.directory}") String storageDirectory) {
+    public SimpleFileService(FileRepository sql2oFileRepository, FileStorage fileStorage) {
         this.fileRepository = sql2oFileRepository;
-        this.storageDirectory = storageDirectory;
-        createStorageDirectory(storageDirectory);
+        this.fileStorage = fileStorage;
     }
 
-    private void createStorageDirectory(String path) {
-        try {
-            Files.createDirectories(Path.of(path));
-        } catch (IOException e) {
-            throw new RuntimeException(e);
-        }
+    @Override
+    public File save(FileDto fileDto) {
+        return save(fileDto.getName(), new ByteArrayInputStream(fileDto.getContent()));
     }
 
+    /**
+     * Записывает содержимое в хранилище и за тот же проход собирает метаданные,
+     * чтобы при отдаче файла не читать и не анализировать его повторно.
+     */
     @Override
-    public File save(FileDto fileDto) {
-        var path = getNewFilePath(fileDto.getName());
-        writeFileBytes(path, fileDto.getContent());
-        return fileRepository.save(new File(fileDto.getName(), path));
+    public File save(String name, InputStream content) {
+        var event = new FileIoEvent();
+        event.begin();
+        var start = System.nanoTime();
+        var metadataStream = new MetadataInputStream(content);
+        var path = fileStorage.write(name, metadataStream);
+        var header = metadataStream.getHeader();
+        var contentType = FileMetadataProbe.contentType(name, header);
+        var dimensions = FileMetadataProbe.dimensions(contentType, header);
+        var file = new File(name, path, metadataStream.getSize(), contentType,
+                metadataStream.getHash(), LocalDateTime.now(),
+                dimensions.map(size -> size[0]).orElse(null),
+                dimensions.map(size -> size[1]).orElse(null));
+        if (FileCompressor.isCompressible(contentType, file.getSize(), header)) {
+            saveGzipVariant(file);
+        }
+        ServerTiming.record(ServerTiming.Phase.FILE, System.nanoTime() - start);
+        commit(event, "write", file.getSize(), path);
+        return fileRepository.save(file);
     }
 
-    private String getNewFilePath(String sourceName) {
-        return storageDirectory + java.io.File.separator + UUID.randomUUID() + sourceName;
+    private void saveGzipVariant(File file) {
+        var gzipOptional = FileCompressor.gzip(fileStorage.read(file.getPath()), file.getSize());
+        if (gzipOptional.isEmpty()) {
+            return;
+        }
+        var gzip = gzipOptional.get();
+        try {
+            file.setGzipSize(Files.size(gzip));
+            file.setGzipPath(fileStorage.write(file.getName() + ".gz", Files.newInputStream(gzip)));
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        } finally {
+            deleteTemporary(gzip);
+        }
     }
 
-    private void writeFileBytes(String path, byte[] content) {
+    private void deleteTemporary(Path path) {
         try {
-            Files.write(Path.of(path), content);
+            Files.deleteIfExists(path);
         } catch (IOException e) {
             throw new RuntimeException(e);
         }
     }
 
     @Override
-    public Optional<FileDto> getFileById(int id) {
-        var fileOptional = fileRepository.findById(id);
-        if (fileOptional.isEmpty()) {
-            return Optional.empty();
-        }
-        var content = readFileAsBytes(fileOptional.get().getPath());
-        return Optional.of(new FileDto(fileOptional.get().getName(), content));
+    public Optional<File> findById(int id) {
+        return fileRepository.findById(id);
     }
 
-    private byte[] readFileAsBytes(String path) {
+    @Override
+    public InputStream getContent(File file) {
+        return read(file.getPath());
+    }
+
+    @Override
+    public InputStream getGzipContent(File file) {
+        return read(file.getGzipPath());
+    }
+
+    /*
+     * В Server-Timing учитывается только открытие: содержимое передается уже после
+     * заголовков ответа. Событие JFR фиксируется при закрытии потока вместе с объемом.
+     */
+    private InputStream read(String path) {
+        var event = new FileIoEvent();
+        event.begin();
+        var start = System.nanoTime();
         try {
-            return Files.readAllBytes(Path.of(path));
-        } catch (IOException e) {
-            throw new RuntimeException(e);
+            return new RecordingInputStream(fileStorage.read(path), event, path);
+        } finally {
+            ServerTiming.record(ServerTiming.Phase.FILE, System.nanoTime() - start);
+        }
+    }
+
+    private static void commit(FileIoEvent event, String operation, long bytes, String path) {
+        event.end();
+        if (event.shouldCommit()) {
+            event.setOperation(operation);
+            event.setBytes(bytes);
+            event.setPath(path);
+            event.commit();
         }
     }
 
@@ -77,15 +131,72 @@ public class SimpleFileService implements FileService {
         if (fileOptional.isEmpty()) {
             return false;
         }
-        deleteFile(fileOptional.get().getPath());
+        var file = fileOptional.get();
+        var event = new FileIoEvent();
+        event.begin();
+        fileStorage.delete(file.getPath());
+        if (file.hasGzipVariant()) {
+            fileStorage.delete(file.getGzipPath());
+        }
+        commit(event, "delete", file.getSize(), file.getPath());
         return fileRepository.deleteById(id);
     }
 
-    private void deleteFile(String path) {
-        try {
-            Files.deleteIfExists(Path.of(path));
-        } catch (IOException e) {
-            throw new RuntimeException(e);
+    private static final class RecordingInputStream extends FilterInputStream {
+        private final FileIoEvent event;
+
+        private final String path;
+
+        private long bytes;
+
+        private boolean closed;
+
+        private RecordingInputStream(InputStream in, FileIoEvent event, String path) {
+            super(in);
+            this.event = event;
+            this.path = path;
+        }
+
+        @Override
+        public int read() throws IOException {
+            var value = super.read();
+            if (value != -1) {
+                bytes++;
+            }
+            return value;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            var read = super.read(buffer, offset, length);
+            if (read > 0) {
+                bytes += read;
+            }
+            return read;
+        }
+
+        /* Делегируем, чтобы не потерять быструю передачу у потоков хранилища */
+        @Override
+        public long transferTo(OutputStream out) throws IOException {
+            var transferred = in.transferTo(out);
+            bytes += transferred;
+            return transferred;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            var skipped = super.skip(n);
+            bytes += skipped;
+            return skipped;
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (!closed) {
+                closed = true;
+                commit(event, "read", bytes, path);
+            }
+            super.close();
         }
     }
 
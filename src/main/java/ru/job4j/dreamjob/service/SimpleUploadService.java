@@ -0,0 +1,276 @@
+package ru.job4j.dreamjob.service;
+
+import net.jcip.annotations.GuardedBy;
+import net.jcip.annotations.ThreadSafe;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.util.unit.DataSize;
+import ru.job4j.dreamjob.dto.UploadDto;
+import ru.job4j.dreamjob.model.File;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Загрузка больших файлов по частям с возможностью продолжить после обрыва.
+ *
+ * Части пишутся сразу во временный файл, в памяти держится только смещение
+ * и состояние SHA-256, поэтому размер файла не влияет на расход памяти.
+ * После проверки контрольной суммы файл сохраняется через FileService
+ * и привязывается к вакансии или резюме.
+ */
+@ThreadSafe
+@Service
+public class SimpleUploadService implements UploadService {
+    private static final String PART_SUFFIX = ".part";
+
+    private final FileService fileService;
+
+    private final VacancyService vacancyService;
+
+    private final CandidateService candidateService;
+
+    private final Path directory;
+
+    private final long maxFileSize;
+
+    private final long maxChunkSize;
+
+    private final Duration expiration;
+
+    private final Map<String, Upload> uploads = new ConcurrentHashMap<>();
+
+    public SimpleUploadService(FileService fileService, VacancyService vacancyService,
+                               CandidateService candidateService,
+                               @Value("${upload.directory}") String directory,
+                               @Value("${upload.max-file-size}") DataSize maxFileSize,
+                               @Value("${upload.max-chunk-size}") DataSize maxChunkSize,
+                               @Value("${upload.expiration}") Duration expiration) {
+        this.fileService = fileService;
+        this.vacancyService = vacancyService;
+        this.candidateService = candidateService;
+        this.directory = Path.of(directory);
+        this.maxFileSize = maxFileSize.toBytes();
+        this.maxChunkSize = maxChunkSize.toBytes();
+        this.expiration = expiration;
+        prepareDirectory();
+    }
+
+    /* Состояние загрузок хранится в памяти, поэтому части от прошлого запуска не нужны */
+    private void prepareDirectory() {
+        try {
+            Files.createDirectories(directory);
+            try (var files = Files.list(directory)) {
+                for (var path : (Iterable<Path>) files::iterator) {
+                    if (path.toString().endsWith(PART_SUFFIX)) {
+                        Files.deleteIfExists(path);
+                    }
+                }
+            }
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    @Override
+    public UploadDto init(String name, long size) {
+        if (name == null || name.isBlank()) {
+            throw new IllegalArgumentException("Не указано имя файла");
+        }
+        if (size <= 0 || size > maxFileSize) {
+            throw new IllegalArgumentException(
+                    "Размер файла должен быть от 1 до " + maxFileSize + " байт");
+        }
+        removeExpired();
+        var id = UUID.randomUUID().toString();
+        var upload = new Upload(id, name, size, directory.resolve(id + PART_SUFFIX));
+        try {
+            Files.createFile(upload.path);
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+        uploads.put(id, upload);
+        return upload.toDto();
+    }
+
+    private void removeExpired() {
+        var deadline = Instant.now().minus(expiration);
+        for (var upload : uploads.values()) {
+            if (upload.lastAccess.isBefore(deadline)) {
+                abort(upload.id);
+            }
+        }
+    }
+
+    @Override
+    public Optional<UploadDto> findById(String id) {
+        var upload = uploads.get(id);
+        if (upload == null) {
+            return Optional.empty();
+        }
+        synchronized (upload) {
+            return Optional.of(upload.toDto());
+        }
+    }
+
+    /**
+     * Дописывает часть, начинающуюся с offset. Смещение должно совпадать с уже
+     * загруженным объемом: так повтор оборвавшейся части не испортит файл.
+     */
+    @Override
+    public UploadDto append(String id, long offset, InputStream chunk) {
+        var upload = get(id);
+        synchronized (upload) {
+            if (offset != upload.offset) {
+                throw new IllegalStateException(
+                        "Ожидается часть со смещением " + upload.offset);
+            }
+            try (chunk; var channel = FileChannel.open(upload.path, StandardOpenOption.WRITE)) {
+                var buffer = new byte[64 * 1024];
+                long written = 0;
+                int read;
+                while ((read = chunk.read(buffer)) != -1) {
+                    written += read;
+                    if (written > maxChunkSize || upload.offset + read > upload.size) {
+                        throw new IllegalArgumentException(
+                                "Часть больше допустимого или заявленного размера");
+                    }
+                    var bytes = ByteBuffer.wrap(buffer, 0, read);
+                    while (bytes.hasRemaining()) {
+                        channel.write(bytes, upload.offset + bytes.position());
+                    }
+                    upload.digest.update(buffer, 0, read);
+                    upload.offset += read;
+                }
+            } catch (IOException e) {
+                throw new RuntimeException(e);
+            } finally {
+                upload.lastAccess = Instant.now();
+            }
+            return upload.toDto();
+        }
+    }
+
+    @Override
+    public File complete(String id, String sha256, UploadTarget target, int targetId) {
+        var upload = get(id);
+        synchronized (upload) {
+            if (upload.offset != upload.size) {
+                throw new IllegalStateException(
+                        "Загружено " + upload.offset + " из " + upload.size + " байт");
+            }
+            if (!upload.hash().equalsIgnoreCase(sha256)) {
+                throw new IllegalArgumentException("Контрольная сумма не совпадает");
+            }
+            if (!targetExists(target, targetId)) {
+                throw new NoSuchElementException("Объект для привязки файла не найден");
+            }
+            File file;
+            try {
+                file = fileService.save(upload.name, Files.newInputStream(upload.path));
+            } catch (IOException e) {
+                throw new RuntimeException(e);
+            }
+            if (!attach(target, targetId, file.getId())) {
+                fileService.deleteById(file.getId());
+                throw new NoSuchElementException("Объект для привязки файла не найден");
+            }
+            abort(id);
+            return file;
+        }
+    }
+
+    private boolean targetExists(UploadTarget target, int targetId) {
+        return switch (target) {
+            case VACANCY -> vacancyService.findById(targetId).isPresent();
+            case CANDIDATE -> candidateService.findById(targetId).isPresent();
+        };
+    }
+
+    private boolean attach(UploadTarget target, int targetId, int fileId) {
+        return switch (target) {
+            case VACANCY -> vacancyService.replaceFile(targetId, fileId);
+            case CANDIDATE -> candidateService.replaceFile(targetId, fileId);
+        };
+    }
+
+    @Override
+    public boolean abort(String id) {
+        var upload = uploads.remove(id);
+        if (upload == null) {
+            return false;
+        }
+        try {
+            Files.deleteIfExists(upload.path);
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+        return true;
+    }
+
+    private Upload get(String id) {
+        var upload = uploads.get(id);
+        if (upload == null) {
+            throw new NoSuchElementException("Загрузка не найдена");
+        }
+        return upload;
+    }
+
+    private static final class Upload {
+        private final String id;
+
+        private final String name;
+
+        private final long size;
+
+        private final Path path;
+
+        @GuardedBy("this")
+        private final MessageDigest digest;
+
+        @GuardedBy("this")
+        private long offset;
+
+        private volatile Instant lastAccess = Instant.now();
+
+        private Upload(String id, String name, long size, Path path) {
+            this.id = id;
+            this.name = name;
+            this.size = size;
+            this.path = path;
+            try {
+                this.digest = MessageDigest.getInstance("SHA-256");
+            } catch (NoSuchAlgorithmException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+
+        /* digest() сбрасывает состояние, поэтому считаем по копии */
+        private String hash() {
+            try {
+                return HexFormat.of().formatHex(((MessageDigest) digest.clone()).digest());
+            } catch (CloneNotSupportedException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+
+        private UploadDto toDto() {
+            return new UploadDto(id, name, size, offset);
+        }
+    }
+}
@@ -1,26 +1,100 @@
 package ru.job4j.dreamjob.service;
 
+import net.jcip.annotations.GuardedBy;
+import net.jcip.annotations.ThreadSafe;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import ru.job4j.dreamjob.model.User;
 import ru.job4j.dreamjob.repository.UserRepository;
 
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
 import java.util.Optional;
 
+@ThreadSafe
 @Service
 public class SimpleUserService implements UserService {
     private final UserRepository userRepository;
 
-    public SimpleUserService(UserRepository userRepository) {
+    private final CredentialService credentialService;
+
+    private final int knownEmailsMaxSize;
+
+    private final long knownEmailsTtlNanos;
+
+    /**
+     * Почты, которые точно заняты: недавно зарегистрированные и уже приходившие
+     * повторно. Повторная регистрация с такой почтой отклоняется без хеширования
+     * пароля и без обращения к БД. Кеш свой на каждом узле, поэтому почта, которой
+     * в нем нет, проверяется запросом к БД - тоже до хеширования.
+     * Время - System.nanoTime() добавления.
+     */
+    @GuardedBy("knownEmails")
+    private final Map<String, Long> knownEmails = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Long> eldest) {
+            return size() > knownEmailsMaxSize;
+        }
+    };
+
+    public SimpleUserService(UserRepository userRepository, CredentialService credentialService,
+                             @Value("${user.known-emails.max-size}") int knownEmailsMaxSize,
+                             @Value("${user.known-emails.ttl}") Duration knownEmailsTtl) {
         this.userRepository = userRepository;
+        this.credentialService = credentialService;
+        this.knownEmailsMaxSize = knownEmailsMaxSize;
+        this.knownEmailsTtlNanos = knownEmailsTtl.toNanos();
     }
 
     @Override
     public Optional<User> save(User user) {
-        return userRepository.save(user);
+        if (isKnownEmail(user.getEmail())) {
+            return Optional.empty();
+        }
+        if (userRepository.findByEmail(user.getEmail()).isPresent()) {
+            rememberEmail(user.getEmail());
+            return Optional.empty();
+        }
+        user.setPassword(credentialService.hash(user.getPassword()));
+        var savedUser = userRepository.save(user);
+        rememberEmail(user.getEmail());
+        return savedUser;
+    }
+
+    @Override
+    public boolean deleteByEmail(String email) {
+        var deleted = userRepository.deleteByEmail(email);
+        synchronized (knownEmails) {
+            knownEmails.remove(email);
+        }
+        return deleted;
+    }
+
+    private boolean isKnownEmail(String email) {
+        synchronized (knownEmails) {
+            var addedAt = knownEmails.get(email);
+            if (addedAt == null) {
+                return false;
+            }
+            if (System.nanoTime() - addedAt > knownEmailsTtlNanos) {
+                knownEmails.remove(email);
+                return false;
+            }
+            return true;
+        }
+    }
+
+    private void rememberEmail(String email) {
+        if (knownEmailsMaxSize > 0) {
+            synchronized (knownEmails) {
+                knownEmails.put(email, System.nanoTime());
+            }
+        }
     }
 
     @Override
     public Optional<User> findByEmailAndPassword(String email, String password) {
-        return userRepository.findByEmailAndPassword(email, password);
+        return credentialService.authenticate(email, password);
     }
 }
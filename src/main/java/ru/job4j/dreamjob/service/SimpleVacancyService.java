@@ -1,13 +1,16 @@
 package ru.job4j.dreamjob.service;
 
 import net.jcip.annotations.ThreadSafe;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import ru.job4j.dreamjob.dto.FileDto;
 import ru.job4j.dreamjob.model.Vacancy;
 import ru.job4j.dreamjob.repository.VacancyRepository;
 
+import java.time.Duration;
 import java.util.Collection;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 @ThreadSafe
 @Service
@@ -15,9 +18,15 @@ public class SimpleVacancyService implements VacancyService {
     private final VacancyRepository vacancyRepository;
     private final FileService fileService;
 
-    public SimpleVacancyService(VacancyRepository sql2oVacancyRepository, FileService fileService) {
-        this.vacancyRepository = sql2oVacancyRepository;
+    /* Версия из БД, по ней кешируются отрисованные списки и строятся ETag */
+    private final CachedVersion version;
+
+    public SimpleVacancyService(VacancyRepository fallbackVacancyRepository,
+                                FileService fileService,
+                                @Value("${data-version.ttl}") Duration versionTtl) {
+        this.vacancyRepository = fallbackVacancyRepository;
         this.fileService = fileService;
+        this.version = new CachedVersion(vacancyRepository::version, versionTtl);
     }
 
     private void saveNewFile(Vacancy vacancy, FileDto image) {
@@ -27,33 +36,69 @@ public class SimpleVacancyService implements VacancyService {
 
     @Override
     public Vacancy save(Vacancy vacancy, FileDto image) {
-        saveNewFile(vacancy, image);
-        return vacancyRepository.save(vacancy);
+        try {
+            saveNewFile(vacancy, image);
+            return vacancyRepository.save(vacancy);
+        } finally {
+            version.invalidate();
+        }
     }
 
     @Override
     public boolean deleteById(int id) {
-        var fileOptional = findById(id);
-        if (fileOptional.isEmpty()) {
-            return false;
+        try {
+            var fileOptional = findById(id);
+            if (fileOptional.isEmpty()) {
+                return false;
+            }
+            var isDeleted = vacancyRepository.deleteById(id);
+            fileService.deleteById(fileOptional.get().getFileId());
+            return isDeleted;
+        } finally {
+            version.invalidate();
         }
-        var isDeleted = vacancyRepository.deleteById(id);
-        fileService.deleteById(fileOptional.get().getFileId());
-        return isDeleted;
     }
 
     @Override
     public boolean update(Vacancy vacancy, FileDto image) {
-        var isNewFileEmpty = image.getContent().length == 0;
-        if (isNewFileEmpty) {
-            return vacancyRepository.update(vacancy);
+        try {
+            var isNewFileEmpty = image.getContent().length == 0;
+            if (isNewFileEmpty) {
+                return vacancyRepository.update(vacancy);
+            }
+            /* если передан новый не пустой файл, то старый удаляем, а новый сохраняем */
+            var oldFileId = vacancy.getFileId();
+            saveNewFile(vacancy, image);
+            var isUpdated = vacancyRepository.update(vacancy);
+            fileService.deleteById(oldFileId);
+            return isUpdated;
+        } finally {
+            version.invalidate();
+        }
+    }
+
+    /**
+     * Привязывает уже сохраненный файл (например, загруженный по частям)
+     * вместо текущего, старый файл удаляется.
+     */
+    @Override
+    public boolean replaceFile(int id, int fileId) {
+        try {
+            var vacancyOptional = findById(id);
+            if (vacancyOptional.isEmpty()) {
+                return false;
+            }
+            var vacancy = vacancyOptional.get();
+            var oldFileId = vacancy.getFileId();
+            vacancy.setFileId(fileId);
+            var isUpdated = vacancyRepository.update(vacancy);
+            if (isUpdated && oldFileId != fileId) {
+                fileService.deleteById(oldFileId);
+            }
+            return isUpdated;
+        } finally {
+            version.invalidate();
         }
-        /* если передан новый не пустой файл, то старый удаляем, а новый сохраняем */
-        var oldFileId = vacancy.getFileId();
-        saveNewFile(vacancy, image);
-        var isUpdated = vacancyRepository.update(vacancy);
-        fileService.deleteById(oldFileId);
-        return isUpdated;
     }
 
     @Override
@@ -61,9 +106,24 @@ public class SimpleVacancyService implements VacancyService {
         return vacancyRepository.findById(id);
     }
 
+    @Override
+    public long getVersion() {
+        return version.get();
+    }
+
     @Override
     public Collection<Vacancy> findAll() {
         return vacancyRepository.findAll();
     }
 
+    @Override
+    public Stream<Vacancy> streamAll() {
+        return vacancyRepository.streamAll();
+    }
+
+    @Override
+    public int count() {
+        return vacancyRepository.count();
+    }
+
 }
@@ -0,0 +1,23 @@
+package ru.job4j.dreamjob.service;
+
+import ru.job4j.dreamjob.dto.UploadDto;
+import ru.job4j.dreamjob.model.File;
+
+import java.io.InputStream;
+import java.util.Optional;
+
+public interface UploadService {
+    UploadDto init(String name, long size);
+
+    Optional<UploadDto> findById(String id);
+
+    UploadDto append(String id, long offset, InputStream chunk);
+
+    File complete(String id, String sha256, UploadTarget target, int targetId);
+
+    boolean abort(String id);
+
+    enum UploadTarget {
+        VACANCY, CANDIDATE
+    }
+}
@@ -8,4 +8,6 @@ public interface UserService {
     Optional<User> save(User user);
 
     Optional<User> findByEmailAndPassword(String email, String password);
+
+    boolean deleteByEmail(String email);
 }
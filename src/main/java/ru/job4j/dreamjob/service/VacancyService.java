@@ -5,6 +5,7 @@ import ru.job4j.dreamjob.model.Vacancy;
 
 import java.util.Collection;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 public interface VacancyService {
     Vacancy save(Vacancy vacancy, FileDto image);
@@ -13,7 +14,23 @@ public interface VacancyService {
 
     boolean update(Vacancy vacancy, FileDto image);
 
+    boolean replaceFile(int id, int fileId);
+
     Optional<Vacancy> findById(int id);
 
     Collection<Vacancy> findAll();
+
+    /**
+     * Все записи по мере чтения из БД, для больших списков. Поток нужно закрыть.
+     */
+    Stream<Vacancy> streamAll();
+
+    int count();
+
+    /**
+     * Версия данных: меняется после каждого изменения, поэтому все, что построено
+     * по данным той же версии, можно переиспользовать. Общая для всех экземпляров
+     * приложения, изменение с другого узла видно не позже data-version.ttl.
+     */
+    long getVersion();
 }
\ No newline at end of file
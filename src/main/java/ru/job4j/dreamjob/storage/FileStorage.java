@@ -0,0 +1,16 @@
+package ru.job4j.dreamjob.storage;
+
+import java.io.InputStream;
+
+/**
+ * Место хранения содержимого файлов.
+ * Метаданные живут в таблице files, а здесь только байты по "адресу" (location),
+ * который хранилище выдает при записи и который сохраняется в files.path.
+ */
+public interface FileStorage {
+    String write(String name, InputStream content);
+
+    InputStream read(String location);
+
+    boolean delete(String location);
+}
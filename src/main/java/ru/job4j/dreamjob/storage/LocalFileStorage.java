@@ -0,0 +1,66 @@
+package ru.job4j.dreamjob.storage;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.UUID;
+
+/**
+ * Хранилище по умолчанию: каждый файл - отдельный файл в каталоге file.directory.
+ */
+@Component
+@ConditionalOnProperty(name = "file.storage", havingValue = "local", matchIfMissing = true)
+public class LocalFileStorage implements FileStorage {
+    private final String storageDirectory;
+
+    public LocalFileStorage(@Value("${file.directory}") String storageDirectory) {
+        this.storageDirectory = storageDirectory;
+        createStorageDirectory(storageDirectory);
+    }
+
+    private void createStorageDirectory(String path) {
+        try {
+            Files.createDirectories(Path.of(path));
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    @Override
+    public String write(String name, InputStream content) {
+        var path = getNewFilePath(name);
+        try (content) {
+            Files.copy(content, Path.of(path));
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+        return path;
+    }
+
+    private String getNewFilePath(String sourceName) {
+        return storageDirectory + java.io.File.separator + UUID.randomUUID() + sourceName;
+    }
+
+    @Override
+    public InputStream read(String location) {
+        try {
+            return Files.newInputStream(Path.of(location));
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    @Override
+    public boolean delete(String location) {
+        try {
+            return Files.deleteIfExists(Path.of(location));
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+}
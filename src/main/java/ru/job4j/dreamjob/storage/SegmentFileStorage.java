@@ -0,0 +1,506 @@
+package ru.job4j.dreamjob.storage;
+
+import net.jcip.annotations.GuardedBy;
+import net.jcip.annotations.ThreadSafe;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import javax.annotation.PreDestroy;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Хранилище в виде больших сегментных файлов (pack-файлов).
+ *
+ * Каждый файл дописывается в конец текущего сегмента как запись
+ * [id blob'а, длина, данные]. Расположение записей хранится в памяти и
+ * в журнале index.log (строки "P id сегмент смещение длина" и "D id"),
+ * по которому индекс восстанавливается при старте. Чтение идет через
+ * отображение записи в память (FileChannel.map), без копирования; отображается
+ * только сама запись, поэтому смещение в сегменте не ограничено 2 ГБ.
+ *
+ * Удаление только помечает запись удаленной. Фоновое уплотнение переносит
+ * живые записи из сегментов, где удаленных данных больше порога, в текущий
+ * сегмент, удаляет старый сегмент и переписывает журнал индекса. Пока открыт
+ * поток чтения из сегмента, файл сегмента не закрывается и не удаляется.
+ */
+@ThreadSafe
+@Component
+@ConditionalOnProperty(name = "file.storage", havingValue = "segment")
+public class SegmentFileStorage implements FileStorage, Closeable {
+    private static final Logger LOG = LoggerFactory.getLogger(SegmentFileStorage.class);
+
+    static final String LOCATION_PREFIX = "segment:";
+
+    /* id blob'а и длина данных */
+    private static final int RECORD_HEADER_SIZE = Long.BYTES * 2;
+
+    private static final String INDEX_FILE = "index.log";
+
+    private static final String PUT = "P";
+
+    private static final String DELETE = "D";
+
+    private final Path directory;
+
+    private final long segmentSize;
+
+    private final double compactionThreshold;
+
+    private final boolean fsync;
+
+    private final Map<Long, Entry> index = new ConcurrentHashMap<>();
+
+    private final Map<Integer, Segment> segments = new ConcurrentHashMap<>();
+
+    /* Чтение держит read-lock, пока закрепляет сегмент; удаление сегмента - write-lock */
+    private final ReadWriteLock layoutLock = new ReentrantReadWriteLock();
+
+    private final Object writeLock = new Object();
+
+    private final AtomicLong nextBlobId = new AtomicLong(1);
+
+    @GuardedBy("writeLock")
+    private final byte[] copyBuffer = new byte[64 * 1024];
+
+    @GuardedBy("writeLock")
+    private Segment active;
+
+    @GuardedBy("writeLock")
+    private FileChannel indexLog;
+
+    private final ScheduledExecutorService compactor;
+
+    public SegmentFileStorage(
+            @Value("${file.segment.directory:files/segments}") String directory,
+            @Value("${file.segment.size:64MB}") DataSize segmentSize,
+            @Value("${file.segment.compaction-threshold:0.5}") double compactionThreshold,
+            @Value("${file.segment.compaction-interval-seconds:60}") long compactionInterval,
+            @Value("${file.segment.fsync:true}") boolean fsync) {
+        this.directory = Path.of(directory);
+        this.segmentSize = segmentSize.toBytes();
+        this.compactionThreshold = compactionThreshold;
+        this.fsync = fsync;
+        open();
+        this.compactor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            var thread = new Thread(runnable, "segment-compactor");
+            thread.setDaemon(true);
+            return thread;
+        });
+        if (compactionInterval > 0) {
+            compactor.scheduleWithFixedDelay(this::compactInBackground,
+                    compactionInterval, compactionInterval, TimeUnit.SECONDS);
+        }
+    }
+
+    private void open() {
+        try {
+            Files.createDirectories(directory);
+            try (var files = Files.list(directory)) {
+                for (var path : (Iterable<Path>) files::iterator) {
+                    var fileName = path.getFileName().toString();
+                    if (fileName.startsWith("segment-") && fileName.endsWith(".dat")) {
+                        var id = Integer.parseInt(fileName.substring(8, fileName.length() - 4));
+                        segments.put(id, Segment.open(id, path));
+                    }
+                }
+            }
+            replayIndex();
+            /* после рестарта дописываем в последний сегмент, его уплотнение не касается */
+            active = segments.values().stream()
+                    .max(Comparator.comparingInt(segment -> segment.id))
+                    .orElse(null);
+            indexLog = FileChannel.open(directory.resolve(INDEX_FILE), StandardOpenOption.CREATE,
+                    StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void replayIndex() throws IOException {
+        var indexFile = directory.resolve(INDEX_FILE);
+        if (Files.exists(indexFile)) {
+            for (var line : Files.readAllLines(indexFile, StandardCharsets.US_ASCII)) {
+                replayLine(line);
+            }
+        }
+        for (var entry : index.values()) {
+            segments.get(entry.segmentId()).live += entry.recordSize();
+        }
+        var maxId = index.keySet().stream().mapToLong(Long::longValue).max().orElse(0);
+        nextBlobId.set(maxId + 1);
+    }
+
+    private void replayLine(String line) {
+        var parts = line.trim().split(" ");
+        /* недописанная при сбое последняя строка просто пропускается */
+        if (PUT.equals(parts[0]) && parts.length == 5) {
+            var entry = new Entry(Integer.parseInt(parts[2]),
+                    Long.parseLong(parts[3]), Long.parseLong(parts[4]));
+            var segment = segments.get(entry.segmentId());
+            if (segment != null) {
+                index.put(Long.parseLong(parts[1]), entry);
+                segment.tail = Math.max(segment.tail, entry.offset() + entry.length());
+            }
+        } else if (DELETE.equals(parts[0]) && parts.length == 2) {
+            index.remove(Long.parseLong(parts[1]));
+        }
+    }
+
+    @Override
+    public String write(String name, InputStream content) {
+        try (content) {
+            synchronized (writeLock) {
+                var id = nextBlobId.getAndIncrement();
+                put(id, append(id, content));
+                return LOCATION_PREFIX + id;
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @GuardedBy("writeLock")
+    private void put(long id, Entry entry) throws IOException {
+        appendIndex(PUT + " " + id + " " + entry.segmentId() + " "
+                + entry.offset() + " " + entry.length());
+        var previous = index.put(id, entry);
+        segments.get(entry.segmentId()).live += entry.recordSize();
+        if (previous != null) {
+            segments.get(previous.segmentId()).live -= previous.recordSize();
+        }
+    }
+
+    @GuardedBy("writeLock")
+    private Entry append(long id, InputStream content) throws IOException {
+        var segment = activeSegment();
+        var headerPosition = segment.tail;
+        var dataPosition = headerPosition + RECORD_HEADER_SIZE;
+        long length = 0;
+        int read;
+        while ((read = content.read(copyBuffer)) != -1) {
+            var chunk = ByteBuffer.wrap(copyBuffer, 0, read);
+            writeFully(segment.channel, chunk, dataPosition + length);
+            length += read;
+        }
+        var header = ByteBuffer.allocate(RECORD_HEADER_SIZE).putLong(id).putLong(length).flip();
+        writeFully(segment.channel, header, headerPosition);
+        if (fsync) {
+            segment.channel.force(false);
+        }
+        segment.tail = dataPosition + length;
+        return new Entry(segment.id, dataPosition, length);
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer, long position)
+            throws IOException {
+        var offset = position;
+        while (buffer.hasRemaining()) {
+            offset += channel.write(buffer, offset);
+        }
+    }
+
+    /**
+     * Сегмент заполнен, если дописывание перешло размер предвыделения:
+     * последний файл может выйти за границу, следующий пойдет в новый сегмент.
+     */
+    @GuardedBy("writeLock")
+    private Segment activeSegment() throws IOException {
+        if (active == null || active.tail >= segmentSize) {
+            var id = active == null ? 1 : active.id + 1;
+            active = Segment.create(id, directory.resolve(segmentFileName(id)), segmentSize);
+            segments.put(id, active);
+        }
+        return active;
+    }
+
+    private static String segmentFileName(int id) {
+        return String.format("segment-%06d.dat", id);
+    }
+
+    @GuardedBy("writeLock")
+    private void appendIndex(String line) throws IOException {
+        writeFully(indexLog,
+                ByteBuffer.wrap((line + "\n").getBytes(StandardCharsets.US_ASCII)),
+                indexLog.size());
+        if (fsync) {
+            indexLog.force(false);
+        }
+    }
+
+    @Override
+    public InputStream read(String location) {
+        var id = parseLocation(location);
+        layoutLock.readLock().lock();
+        try {
+            var entry = index.get(id);
+            if (entry == null) {
+                throw new IllegalArgumentException("Файл не найден в хранилище: " + location);
+            }
+            var segment = segments.get(entry.segmentId());
+            segment.retain();
+            try {
+                return new PinnedInputStream(segment.map(entry), segment);
+            } catch (RuntimeException e) {
+                segment.release();
+                throw e;
+            }
+        } finally {
+            layoutLock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public boolean delete(String location) {
+        var id = parseLocation(location);
+        synchronized (writeLock) {
+            var entry = index.remove(id);
+            if (entry == null) {
+                return false;
+            }
+            try {
+                appendIndex(DELETE + " " + id);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            segments.get(entry.segmentId()).live -= entry.recordSize();
+            return true;
+        }
+    }
+
+    private static long parseLocation(String location) {
+        if (!location.startsWith(LOCATION_PREFIX)) {
+            throw new IllegalArgumentException("Не сегментный адрес файла: " + location);
+        }
+        return Long.parseLong(location.substring(LOCATION_PREFIX.length()));
+    }
+
+    /**
+     * Уплотняет сегменты, в которых доля удаленных данных не меньше порога.
+     * Текущий (дописываемый) сегмент не трогаем. Ошибка ввода-вывода
+     * пробрасывается вызывающему как UncheckedIOException.
+     */
+    public void compact() {
+        synchronized (writeLock) {
+            try {
+                var compacted = false;
+                for (var segment : new ArrayList<>(segments.values())) {
+                    /* active перечитывается: перенос записей мог начать новый сегмент */
+                    if (segment != active && segment.deadRatio() >= compactionThreshold) {
+                        compactSegment(segment);
+                        compacted = true;
+                    }
+                }
+                if (compacted) {
+                    rewriteIndex();
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    /*
+     * Исключение из задачи scheduleWithFixedDelay отменило бы все следующие запуски,
+     * поэтому ошибка только записывается в журнал: уплотнение повторится через интервал.
+     */
+    private void compactInBackground() {
+        try {
+            compact();
+        } catch (RuntimeException e) {
+            LOG.warn("Segment compaction failed, will retry", e);
+        }
+    }
+
+    @GuardedBy("writeLock")
+    private void compactSegment(Segment segment) throws IOException {
+        for (var blob : new ArrayList<>(index.entrySet())) {
+            var entry = blob.getValue();
+            if (entry.segmentId() == segment.id) {
+                put(blob.getKey(), append(blob.getKey(),
+                        new ByteBufferInputStream(segment.map(entry))));
+            }
+        }
+        layoutLock.writeLock().lock();
+        try {
+            segments.remove(segment.id);
+        } finally {
+            layoutLock.writeLock().unlock();
+        }
+        segment.retire();
+    }
+
+    @GuardedBy("writeLock")
+    private void rewriteIndex() throws IOException {
+        var temporary = directory.resolve(INDEX_FILE + ".tmp");
+        var lines = new StringBuilder();
+        for (var blob : index.entrySet()) {
+            var entry = blob.getValue();
+            lines.append(PUT).append(' ').append(blob.getKey()).append(' ')
+                    .append(entry.segmentId()).append(' ').append(entry.offset()).append(' ')
+                    .append(entry.length()).append('\n');
+        }
+        Files.writeString(temporary, lines, StandardCharsets.US_ASCII);
+        indexLog.close();
+        try {
+            Files.move(temporary, directory.resolve(INDEX_FILE),
+                    StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            /* при неудачном переносе дописываем в старый журнал, он по-прежнему верен */
+            indexLog = FileChannel.open(directory.resolve(INDEX_FILE),
+                    StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        }
+    }
+
+    @PreDestroy
+    @Override
+    public void close() {
+        compactor.shutdownNow();
+        synchronized (writeLock) {
+            try {
+                indexLog.close();
+                for (var segment : segments.values()) {
+                    segment.channel.close();
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    private record Entry(int segmentId, long offset, long length) {
+        long recordSize() {
+            return RECORD_HEADER_SIZE + length;
+        }
+    }
+
+    /* Освобождает сегмент при закрытии; повторный close() ничего не делает */
+    private static final class PinnedInputStream extends ByteBufferInputStream {
+        private final Segment segment;
+
+        private final AtomicBoolean closed = new AtomicBoolean();
+
+        private PinnedInputStream(ByteBuffer buffer, Segment segment) {
+            super(buffer);
+            this.segment = segment;
+        }
+
+        @Override
+        public void close() {
+            if (closed.compareAndSet(false, true)) {
+                segment.release();
+            }
+        }
+    }
+
+    private static final class Segment {
+        private final int id;
+
+        private final Path path;
+
+        private final FileChannel channel;
+
+        /* Открытые потоки чтения: удаление откладывается, пока они не закрыты */
+        private final AtomicInteger readers = new AtomicInteger();
+
+        private final AtomicBoolean deleted = new AtomicBoolean();
+
+        /* Сегмент убран из индекса уплотнением и будет удален после последнего чтения */
+        private volatile boolean retired;
+
+        @GuardedBy("writeLock")
+        private long tail;
+
+        /* Байты живых записей вместе с заголовками */
+        @GuardedBy("writeLock")
+        private long live;
+
+        private Segment(int id, Path path, FileChannel channel) {
+            this.id = id;
+            this.path = path;
+            this.channel = channel;
+        }
+
+        static Segment open(int id, Path path) throws IOException {
+            return new Segment(id, path, FileChannel.open(path,
+                    StandardOpenOption.READ, StandardOpenOption.WRITE));
+        }
+
+        static Segment create(int id, Path path, long size) throws IOException {
+            var channel = FileChannel.open(path, StandardOpenOption.CREATE_NEW,
+                    StandardOpenOption.READ, StandardOpenOption.WRITE);
+            var segment = new Segment(id, path, channel);
+            /* предвыделяем место, чтобы файл не рос маленькими шагами */
+            segment.channel.write(ByteBuffer.wrap(new byte[1]), size - 1);
+            return segment;
+        }
+
+        /* Вызывается под read-lock, пока сегмент есть в карте, то есть еще не retired */
+        void retain() {
+            readers.incrementAndGet();
+        }
+
+        void release() {
+            if (readers.decrementAndGet() == 0 && retired) {
+                delete();
+            }
+        }
+
+        void retire() {
+            retired = true;
+            if (readers.get() == 0) {
+                delete();
+            }
+        }
+
+        private void delete() {
+            if (!deleted.compareAndSet(false, true)) {
+                return;
+            }
+            try {
+                channel.close();
+                Files.deleteIfExists(path);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        double deadRatio() {
+            return tail == 0 ? 1 : (double) (tail - live) / tail;
+        }
+
+        /* Отображение одной записи: смещение long, ограничена 2 ГБ только длина записи */
+        ByteBuffer map(Entry entry) {
+            try {
+                return channel.map(FileChannel.MapMode.READ_ONLY, entry.offset(), entry.length());
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+}
@@ -3,8 +3,11 @@ package ru.job4j.dreamjob.controller;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.ArgumentCaptor;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
 import org.springframework.mock.web.MockMultipartFile;
 import org.springframework.ui.ConcurrentModel;
+import org.springframework.web.context.request.ServletWebRequest;
 import org.springframework.web.multipart.MultipartFile;
 import ru.job4j.dreamjob.dto.FileDto;
 import ru.job4j.dreamjob.model.Candidate;
@@ -13,12 +16,19 @@ import ru.job4j.dreamjob.service.CandidateService;
 import ru.job4j.dreamjob.service.CityService;
 
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
 
 import static java.time.LocalDateTime.now;
 import static org.assertj.core.api.AssertionsForClassTypes.assertThat;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 class CandidateControllerTest {
@@ -26,6 +36,12 @@ class CandidateControllerTest {
 
     private CityService cityService;
 
+    private RenderedFragmentCache fragmentCache;
+
+    private PageETags pageETags;
+
+    private ListStreaming listStreaming;
+
     private CandidateController candidateController;
 
     private MultipartFile testFile;
@@ -34,10 +50,18 @@ class CandidateControllerTest {
     public void initServices() {
         candidateService = mock(CandidateService.class);
         cityService = mock(CityService.class);
-        candidateController = new CandidateController(candidateService, cityService);
+        fragmentCache = mock(RenderedFragmentCache.class);
+        pageETags = mock(PageETags.class);
+        listStreaming = mock(ListStreaming.class);
+        candidateController = new CandidateController(candidateService, cityService, fragmentCache,
+                pageETags, listStreaming);
         testFile = new MockMultipartFile("testFile.img", new byte[] {1, 2, 3});
     }
 
+    private static ServletWebRequest webRequest() {
+        return new ServletWebRequest(new MockHttpServletRequest(), new MockHttpServletResponse());
+    }
+
     /**
      * Тест на метод getAll().
      * Возвращаем список кандидатов сохраненных в БД.
@@ -48,13 +72,58 @@ class CandidateControllerTest {
         var candidate2 = new Candidate(2, "candidate2", "desc2", now(), 2, 2);
         var expectedCandidates = List.of(candidate1, candidate2);
         when(candidateService.findAll()).thenReturn(expectedCandidates);
+        when(candidateService.getVersion()).thenReturn(7L);
+        var variablesCaptor = ArgumentCaptor.forClass(Supplier.class);
+        when(fragmentCache.render(eq("candidates/table"), eq(7L), any(), any(),
+                variablesCaptor.capture())).thenReturn("<table></table>");
+
+        var model = new ConcurrentModel();
+        var view = candidateController.getAll(model, webRequest());
+        var actualCandidate = variablesCaptor.getValue().get();
+
+        assertThat(view).isEqualTo("candidates/list");
+        assertThat(model.getAttribute("candidateTable")).isEqualTo("<table></table>");
+        assertThat(actualCandidate).isEqualTo(Map.of("candidates", expectedCandidates));
+    }
+
+    /**
+     * Тест на метод getAll() с условным запросом: версия и пользователь не изменились,
+     * ответ 304 формируется без обращения к данным и отрисовки.
+     */
+    @Test
+    public void whenListNotModifiedThenNoDataAccess() {
+        when(candidateService.getVersion()).thenReturn(7L);
+        var request = webRequest();
+        when(pageETags.checkNotModified(request, "candidates", 7L)).thenReturn(true);
+
+        var view = candidateController.getAll(new ConcurrentModel(), request);
+
+        assertThat(view).isNull();
+        verify(candidateService, never()).findAll();
+        verify(fragmentCache, never()).render(any(), anyLong(), any(), any(), any());
+    }
+
+    /**
+     * Тест на метод getAll() с большим списком: строки отдаются итератором
+     * по курсору, список целиком не загружается и в кеш фрагментов не попадает.
+     */
+    @Test
+    public void whenListLargeThenRowsStreamedBypassingCache() {
+        var rows = Stream.<Candidate>empty();
+        var iterator = List.<Candidate>of().iterator();
+        var request = webRequest();
+        when(candidateService.count()).thenReturn(5000);
+        when(candidateService.streamAll()).thenReturn(rows);
+        when(listStreaming.isLarge(5000)).thenReturn(true);
+        when(listStreaming.iterate(rows, request)).thenReturn(iterator);
 
         var model = new ConcurrentModel();
-        var view = candidateController.getAll(model);
-        var actualCandidate = model.getAttribute("candidates");
+        var view = candidateController.getAll(model, request);
 
         assertThat(view).isEqualTo("candidates/list");
-        assertThat(actualCandidate).isEqualTo(expectedCandidates);
+        assertThat(model.getAttribute("candidates")).isEqualTo(iterator);
+        verify(candidateService, never()).findAll();
+        verify(fragmentCache, never()).render(any(), anyLong(), any(), any(), any());
     }
 
     /**
@@ -128,7 +197,7 @@ class CandidateControllerTest {
         when(candidateService.findById(1)).thenReturn(expectedCandidate);
 
         var model = new ConcurrentModel();
-        var view = candidateController.getById(model, candidate.getId());
+        var view = candidateController.getById(model, candidate.getId(), webRequest());
         var actualCandidate = model.getAttribute("candidate");
 
         assertThat(view).isEqualTo("candidates/one");
@@ -147,7 +216,7 @@ class CandidateControllerTest {
         when(candidateService.findById(0)).thenReturn(Optional.empty());
 
         var model = new ConcurrentModel();
-        var view = candidateController.getById(model, 0);
+        var view = candidateController.getById(model, 0, webRequest());
         var actualExceptionMessage = model.getAttribute("message");
 
         assertThat(view).isEqualTo("errors/404");
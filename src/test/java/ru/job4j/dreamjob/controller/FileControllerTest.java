@@ -0,0 +1,211 @@
+package ru.job4j.dreamjob.controller;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.context.request.async.WebAsyncTask;
+import ru.job4j.dreamjob.model.File;
+import ru.job4j.dreamjob.service.FileIoBulkhead;
+import ru.job4j.dreamjob.service.FileService;
+
+import java.io.ByteArrayInputStream;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+
+import static java.time.LocalDateTime.now;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class FileControllerTest {
+    private FileService fileService;
+
+    private FileController fileController;
+
+    private SimpleMeterRegistry meterRegistry;
+
+    private File file;
+
+    @BeforeEach
+    public void initServices() {
+        fileService = mock(FileService.class);
+        meterRegistry = new SimpleMeterRegistry();
+        fileController = new FileController(fileService,
+                new FileIoBulkhead(1, 1, 7, meterRegistry), meterRegistry);
+        file = new File("logo.png", "files/logo.png", 3, "image/png", "abc", now(), 1, 1);
+        file.setId(1);
+    }
+
+    /* Выполняет задачу передачи файла так, как ее выполнил бы пул файлового I/O */
+    private static MockHttpServletResponse download(Object result, ServletWebRequest request)
+            throws Exception {
+        ((WebAsyncTask<?>) result).getCallable().call();
+        return (MockHttpServletResponse) request.getResponse();
+    }
+
+    /**
+     * Тест на метод getById().
+     * Заголовки берутся из метаданных, тело - содержимое файла; передача
+     * выполняется задачей на пуле файлового I/O, а не на общем исполнителе MVC.
+     */
+    @Test
+    public void whenRequestFileThenGetContentWithHeaders() throws Exception {
+        var bulkhead = new FileIoBulkhead(1, 1, 7, meterRegistry);
+        fileController = new FileController(fileService, bulkhead, meterRegistry);
+        when(fileService.findById(1)).thenReturn(Optional.of(file));
+        when(fileService.getContent(file))
+                .thenReturn(new ByteArrayInputStream(new byte[] {1, 2, 3}));
+
+        var request = new ServletWebRequest(new MockHttpServletRequest("GET", "/files/1"),
+                new MockHttpServletResponse());
+        var result = fileController.getById(1, request);
+
+        assertThat(((WebAsyncTask<?>) result).getExecutor())
+                .isSameAs(bulkhead.getTaskExecutor());
+        var response = download(result, request);
+        assertThat(response.getStatus()).isEqualTo(HttpStatus.OK.value());
+        assertThat(response.getContentAsByteArray()).isEqualTo(new byte[] {1, 2, 3});
+        assertThat(response.getContentType()).isEqualTo("image/png");
+        assertThat(response.getContentLengthLong()).isEqualTo(3);
+        assertThat(response.getHeader("ETag")).isEqualTo("\"abc\"");
+        bulkhead.shutdown();
+    }
+
+    /**
+     * Тест на метод getById().
+     * При совпадении If-None-Match содержимое файла не читается.
+     */
+    @Test
+    public void whenETagMatchesThenNotModifiedWithoutReadingContent() {
+        when(fileService.findById(1)).thenReturn(Optional.of(file));
+
+        var servletRequest = new MockHttpServletRequest("GET", "/files/1");
+        servletRequest.addHeader("If-None-Match", "\"abc\"");
+        var request = new ServletWebRequest(servletRequest, new MockHttpServletResponse());
+        var response = (ResponseEntity<?>) fileController.getById(1, request);
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.NOT_MODIFIED);
+        verify(fileService, never()).getContent(any());
+    }
+
+    /**
+     * Тест на метод headById().
+     * HEAD отвечает по метаданным и не читает файл.
+     */
+    @Test
+    public void whenHeadFileThenGetHeadersWithoutContent() {
+        when(fileService.findById(1)).thenReturn(Optional.of(file));
+
+        var request = new ServletWebRequest(new MockHttpServletRequest("HEAD", "/files/1"),
+                new MockHttpServletResponse());
+        var response = fileController.headById(1, request);
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(response.getHeaders().getContentLength()).isEqualTo(3);
+        assertThat(response.getBody()).isNull();
+        verify(fileService, never()).getContent(any());
+    }
+
+    /**
+     * Тест на метод getById().
+     * Клиент принимает gzip и есть сжатый вариант - отдаем его с Content-Encoding и Vary.
+     */
+    @Test
+    public void whenClientAcceptsGzipThenGetGzipVariant() throws Exception {
+        file.setGzipPath("files/logo.png.gz");
+        file.setGzipSize(2L);
+        when(fileService.findById(1)).thenReturn(Optional.of(file));
+        when(fileService.getGzipContent(file))
+                .thenReturn(new ByteArrayInputStream(new byte[] {9, 9}));
+
+        var servletRequest = new MockHttpServletRequest("GET", "/files/1");
+        servletRequest.addHeader("Accept-Encoding", "br;q=1.0, gzip;q=0.8, *;q=0.1");
+        var request = new ServletWebRequest(servletRequest, new MockHttpServletResponse());
+        var response = download(fileController.getById(1, request), request);
+
+        assertThat(response.getContentAsByteArray()).isEqualTo(new byte[] {9, 9});
+        assertThat(response.getHeader("Content-Encoding")).isEqualTo("gzip");
+        assertThat(response.getHeaders("Vary")).containsExactly("Accept-Encoding");
+        assertThat(response.getHeader("ETag")).isEqualTo("\"abc-gzip\"");
+        assertThat(meterRegistry.get("dreamjob.files.download").tag("encoding", "gzip")
+                .summary().totalAmount()).isEqualTo(2);
+        verify(fileService, never()).getContent(any());
+    }
+
+    /**
+     * Тест на метод getById().
+     * gzip;q=0 - явный отказ от сжатия, отдаем исходный файл.
+     */
+    @Test
+    public void whenClientRefusesGzipThenGetIdentity() throws Exception {
+        file.setGzipPath("files/logo.png.gz");
+        file.setGzipSize(2L);
+        when(fileService.findById(1)).thenReturn(Optional.of(file));
+        when(fileService.getContent(file))
+                .thenReturn(new ByteArrayInputStream(new byte[] {1, 2, 3}));
+
+        var servletRequest = new MockHttpServletRequest("GET", "/files/1");
+        servletRequest.addHeader("Accept-Encoding", "gzip;q=0, *");
+        var request = new ServletWebRequest(servletRequest, new MockHttpServletResponse());
+        var response = download(fileController.getById(1, request), request);
+
+        assertThat(response.getContentAsByteArray()).isEqualTo(new byte[] {1, 2, 3});
+        assertThat(response.getHeader("Content-Encoding")).isNull();
+        assertThat(response.getHeaders("Vary")).containsExactly("Accept-Encoding");
+    }
+
+    /**
+     * Тест на метод getById() для несуществующего файла.
+     */
+    @Test
+    public void whenRequestNotExistingFileThenNotFound() {
+        when(fileService.findById(1)).thenReturn(Optional.empty());
+
+        var request = new ServletWebRequest(new MockHttpServletRequest("GET", "/files/1"),
+                new MockHttpServletResponse());
+
+        assertThat(((ResponseEntity<?>) fileController.getById(1, request)).getStatusCode())
+                .isEqualTo(HttpStatus.NOT_FOUND);
+    }
+
+    /**
+     * Тест на метод getById().
+     * Пул файлового I/O занят и очередь заполнена - 503 с Retry-After, файл не читается.
+     */
+    @Test
+    public void whenFileIoQueueIsFullThenServiceUnavailable() throws InterruptedException {
+        var bulkhead = new FileIoBulkhead(1, 1, 7, meterRegistry);
+        fileController = new FileController(fileService, bulkhead, meterRegistry);
+        when(fileService.findById(1)).thenReturn(Optional.of(file));
+        var started = new CountDownLatch(1);
+        var release = new CountDownLatch(1);
+        Runnable blocking = () -> {
+            started.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        };
+        bulkhead.getTaskExecutor().execute(blocking);
+        started.await();
+        bulkhead.getTaskExecutor().execute(blocking);
+
+        var request = new ServletWebRequest(new MockHttpServletRequest("GET", "/files/1"),
+                new MockHttpServletResponse());
+        var response = (ResponseEntity<?>) fileController.getById(1, request);
+        release.countDown();
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.SERVICE_UNAVAILABLE);
+        assertThat(response.getHeaders().getFirst("Retry-After")).isEqualTo("7");
+        assertThat(meterRegistry.get("dreamjob.file.io.rejected").counter().count())
+                .isEqualTo(1);
+        verify(fileService, never()).getContent(any());
+        bulkhead.shutdown();
+    }
+}
@@ -0,0 +1,150 @@
+package ru.job4j.dreamjob.controller;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.commons.dbcp2.BasicDataSource;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.sql2o.Sql2o;
+import org.thymeleaf.spring5.SpringTemplateEngine;
+import org.thymeleaf.spring5.view.ThymeleafViewResolver;
+import org.thymeleaf.templateresolver.ClassLoaderTemplateResolver;
+import ru.job4j.dreamjob.configuration.DatasourceConfiguration;
+import ru.job4j.dreamjob.configuration.LocalDateTimeQuirks;
+import ru.job4j.dreamjob.model.File;
+import ru.job4j.dreamjob.model.SessionPrincipal;
+import ru.job4j.dreamjob.model.Vacancy;
+import ru.job4j.dreamjob.repository.Sql2oFileRepository;
+import ru.job4j.dreamjob.repository.Sql2oVacancyRepository;
+import ru.job4j.dreamjob.service.CityService;
+import ru.job4j.dreamjob.service.VacancyService;
+
+import javax.servlet.Filter;
+import javax.servlet.http.HttpServletResponse;
+import javax.servlet.http.HttpServletResponseWrapper;
+import java.io.IOException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+
+/**
+ * Потоковая отрисовка настоящего шаблона списка вакансий со строками из H2:
+ * строк больше одной порции чтения, чтобы поток прошел через несколько запросов к БД.
+ */
+class ListStreamingRenderingTest {
+    private static final int ROWS = 450;
+
+    private static BasicDataSource dataSource;
+
+    private static Sql2oVacancyRepository vacancyRepository;
+
+    private static Sql2oFileRepository fileRepository;
+
+    private static File file;
+
+    private final List<Integer> activeOnFlush = new ArrayList<>();
+
+    @BeforeAll
+    public static void initRepositories() throws Exception {
+        var properties = new Properties();
+        try (var inputStream = ListStreamingRenderingTest.class.getClassLoader()
+                .getResourceAsStream("connection.properties")) {
+            properties.load(inputStream);
+        }
+        var configuration = new DatasourceConfiguration(Duration.ofSeconds(5));
+        dataSource = (BasicDataSource) configuration.connectionPool(
+                properties.getProperty("datasource.url"),
+                properties.getProperty("datasource.username"),
+                properties.getProperty("datasource.password"));
+        var sql2o = new Sql2o(dataSource, new LocalDateTimeQuirks());
+        vacancyRepository = new Sql2oVacancyRepository(sql2o);
+        fileRepository = new Sql2oFileRepository(sql2o);
+        file = fileRepository.save(new File("test", "test"));
+        for (var i = 1; i <= ROWS; i++) {
+            vacancyRepository.save(new Vacancy(0, "Java Developer " + i, "description",
+                    LocalDateTime.now(), true, 1, file.getId()));
+        }
+    }
+
+    @AfterAll
+    public static void clearDatabase() throws Exception {
+        for (var vacancy : vacancyRepository.findAll()) {
+            vacancyRepository.deleteById(vacancy.getId());
+        }
+        fileRepository.deleteById(file.getId());
+        dataSource.close();
+    }
+
+    private MockMvc mockMvc() {
+        var vacancyService = mock(VacancyService.class);
+        when(vacancyService.getVersion()).thenReturn(1L);
+        when(vacancyService.count()).thenAnswer(invocation -> vacancyRepository.count());
+        when(vacancyService.streamAll()).thenAnswer(invocation -> vacancyRepository.streamAll());
+        var cityService = mock(CityService.class);
+        var viewResolver = viewResolver();
+        var controller = new VacancyController(vacancyService, cityService,
+                new RenderedFragmentCache(viewResolver.getTemplateEngine(),
+                        new SimpleMeterRegistry(), 100),
+                new PageETags(new PathMatchingResourcePatternResolver()),
+                new ListStreaming(0, 100));
+        return MockMvcBuilders.standaloneSetup(controller)
+                .setViewResolvers(viewResolver)
+                .addFilters(recordingFlushes())
+                .defaultRequest(get("/").requestAttr("user", SessionPrincipal.GUEST))
+                .build();
+    }
+
+    private static ThymeleafViewResolver viewResolver() {
+        var templateResolver = new ClassLoaderTemplateResolver();
+        templateResolver.setPrefix("templates/");
+        templateResolver.setSuffix(".html");
+        templateResolver.setCharacterEncoding("UTF-8");
+        var templateEngine = new SpringTemplateEngine();
+        templateEngine.setTemplateResolver(templateResolver);
+        var viewResolver = new ThymeleafViewResolver();
+        viewResolver.setTemplateEngine(templateEngine);
+        viewResolver.setCharacterEncoding("UTF-8");
+        return viewResolver;
+    }
+
+    /* Запоминает, сколько соединений пула занято в момент каждого сброса ответа клиенту */
+    private Filter recordingFlushes() {
+        return (request, response, chain) -> chain.doFilter(request,
+                new HttpServletResponseWrapper((HttpServletResponse) response) {
+                    @Override
+                    public void flushBuffer() throws IOException {
+                        activeOnFlush.add(dataSource.getNumActive());
+                        super.flushBuffer();
+                    }
+                });
+    }
+
+    /**
+     * Тест на полный список: все строки отрисованы шаблоном по порядку, ответ
+     * сбрасывался частями, и ни при одном сбросе соединение из пула не было занято.
+     */
+    @Test
+    public void whenLargeListRenderedThenAllRowsWrittenAndConnectionsReleased()
+            throws Exception {
+        var html = mockMvc().perform(get("/vacancies")).andReturn()
+                .getResponse().getContentAsString();
+
+        assertThat(html).contains("<table class=\"table\">", "</table>");
+        assertThat(html).contains("Java Developer 1<", "Java Developer 200<",
+                "Java Developer 201<", "Java Developer " + ROWS + "<");
+        assertThat(html.indexOf("Java Developer 200<"))
+                .isLessThan(html.indexOf("Java Developer 201<"));
+        assertThat(activeOnFlush).hasSize(ROWS / 100 + 1).containsOnly(0);
+        assertThat(dataSource.getNumActive()).isZero();
+    }
+}
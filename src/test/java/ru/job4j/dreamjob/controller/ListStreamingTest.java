@@ -0,0 +1,91 @@
+package ru.job4j.dreamjob.controller;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+import org.springframework.web.context.request.ServletWebRequest;
+import ru.job4j.dreamjob.filter.ServerTimingFilter;
+
+import javax.servlet.http.HttpServletResponse;
+import java.util.ArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+class ListStreamingTest {
+    private final ListStreaming listStreaming = new ListStreaming(3, 2);
+
+    private final MockHttpServletRequest servletRequest = new MockHttpServletRequest();
+
+    private final HttpServletResponse response = mock(HttpServletResponse.class);
+
+    private final AtomicBoolean closed = new AtomicBoolean();
+
+    private ServletRequestAttributes attributes;
+
+    @BeforeEach
+    public void bindRequest() {
+        attributes = new ServletRequestAttributes(servletRequest);
+        RequestContextHolder.setRequestAttributes(attributes);
+    }
+
+    @AfterEach
+    public void unbindRequest() {
+        RequestContextHolder.resetRequestAttributes();
+    }
+
+    private Stream<Integer> rows() {
+        return Stream.of(1, 2, 3, 4, 5).onClose(() -> closed.set(true));
+    }
+
+    /**
+     * Тест на порог: потоково отдаются только списки длиннее threshold.
+     */
+    @Test
+    public void whenRowsAboveThresholdThenLarge() {
+        assertThat(listStreaming.isLarge(3)).isFalse();
+        assertThat(listStreaming.isLarge(4)).isTrue();
+    }
+
+    /**
+     * Тест на полный проход: ответ сбрасывается перед первой строкой и далее
+     * через каждые flush-rows строк, курсор закрывается, как только строки кончились.
+     */
+    @Test
+    public void whenAllRowsIteratedThenFlushedByChunksAndClosed() throws Exception {
+        var iterator = listStreaming.iterate(rows(),
+                new ServletWebRequest(servletRequest, response));
+        var result = new ArrayList<Integer>();
+
+        iterator.forEachRemaining(result::add);
+        var hasNextAfterEnd = iterator.hasNext();
+
+        assertThat(result).containsExactly(1, 2, 3, 4, 5);
+        verify(response, times(3)).flushBuffer();
+        assertThat(closed).isTrue();
+        assertThat(hasNextAfterEnd).isFalse();
+        assertThat(servletRequest.getAttribute(ServerTimingFilter.STREAMING_ATTRIBUTE))
+                .isEqualTo(true);
+    }
+
+    /**
+     * Тест на прерванную отрисовку: курсор закрывается по завершении запроса.
+     */
+    @Test
+    public void whenRenderingAbortedThenClosedOnRequestCompletion() {
+        var iterator = listStreaming.iterate(rows(),
+                new ServletWebRequest(servletRequest, response));
+        iterator.next();
+
+        assertThat(closed).isFalse();
+        attributes.requestCompleted();
+        assertThat(closed).isTrue();
+    }
+}
@@ -0,0 +1,88 @@
+package ru.job4j.dreamjob.controller;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.context.request.ServletWebRequest;
+import ru.job4j.dreamjob.model.SessionPrincipal;
+import ru.job4j.dreamjob.repository.LastKnownGoodCache;
+
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PageETagsTest {
+    private static final SessionPrincipal IVAN = new SessionPrincipal(1, "Иван", Set.of());
+
+    private final PageETags pageETags =
+            new PageETags(new PathMatchingResourcePatternResolver());
+
+    private static ServletWebRequest request(SessionPrincipal user, String ifNoneMatch) {
+        var request = new MockHttpServletRequest("GET", "/vacancies");
+        request.setAttribute("user", user);
+        if (ifNoneMatch != null) {
+            request.addHeader("If-None-Match", ifNoneMatch);
+        }
+        return new ServletWebRequest(request, new MockHttpServletResponse());
+    }
+
+    private String eTag(SessionPrincipal user, long version) {
+        var request = request(user, null);
+        pageETags.checkNotModified(request, "vacancies", version);
+        return request.getResponse().getHeader("ETag");
+    }
+
+    /**
+     * Тест на повторный запрос с тем же ETag: ответ 304, страница не строится.
+     */
+    @Test
+    public void whenSameVersionAndUserThenNotModified() {
+        var eTag = eTag(IVAN, 3);
+        var request = request(IVAN, eTag);
+
+        var notModified = pageETags.checkNotModified(request, "vacancies", 3);
+
+        assertThat(eTag).startsWith("W/\"vacancies-");
+        assertThat(notModified).isTrue();
+        assertThat(request.getResponse().getStatus()).isEqualTo(304);
+        assertThat(request.getResponse().getHeader("Cache-Control"))
+                .isEqualTo("private, no-cache");
+    }
+
+    /**
+     * Тест на изменение данных или пользователя: ETag другой, страница строится заново.
+     */
+    @Test
+    public void whenVersionOrUserChangesThenModified() {
+        var eTag = eTag(IVAN, 3);
+
+        assertThat(pageETags.checkNotModified(request(IVAN, eTag), "vacancies", 4)).isFalse();
+        assertThat(pageETags.checkNotModified(request(SessionPrincipal.GUEST, eTag),
+                "vacancies", 3)).isFalse();
+        assertThat(eTag(SessionPrincipal.GUEST, 3)).isNotEqualTo(eTag);
+    }
+
+    /**
+     * Тест на другой экземпляр приложения той же сборки: ETag совпадает, ответ 304.
+     */
+    @Test
+    public void whenAnotherInstanceThenSameETag() {
+        var another = new PageETags(new PathMatchingResourcePatternResolver());
+        var request = request(IVAN, eTag(IVAN, 3));
+
+        assertThat(another.checkNotModified(request, "vacancies", 3)).isTrue();
+    }
+
+    /**
+     * Тест на страницу из сохраненной копии: ETag не ставится, 304 не отдается.
+     */
+    @Test
+    public void whenStaleThenNeverNotModified() {
+        var request = request(IVAN, eTag(IVAN, 3));
+        request.getRequest().setAttribute(LastKnownGoodCache.STALE_ATTRIBUTE, true);
+
+        assertThat(pageETags.checkNotModified(request, "vacancies", 3)).isFalse();
+        assertThat(request.getResponse().getHeader("ETag")).isNull();
+    }
+}
@@ -0,0 +1,124 @@
+package ru.job4j.dreamjob.controller;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.thymeleaf.spring5.SpringTemplateEngine;
+import org.thymeleaf.templateresolver.ClassLoaderTemplateResolver;
+import ru.job4j.dreamjob.model.Vacancy;
+import ru.job4j.dreamjob.repository.LastKnownGoodCache;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static java.time.LocalDateTime.now;
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RenderedFragmentCacheTest {
+    private static final String TEMPLATE = "vacancies/table";
+
+    private SimpleMeterRegistry meterRegistry;
+
+    private RenderedFragmentCache cache;
+
+    private AtomicInteger loads;
+
+    private Supplier<Map<String, Object>> variables;
+
+    @BeforeEach
+    public void initCache() {
+        var templateResolver = new ClassLoaderTemplateResolver();
+        templateResolver.setPrefix("templates/");
+        templateResolver.setSuffix(".html");
+        templateResolver.setCharacterEncoding("UTF-8");
+        var templateEngine = new SpringTemplateEngine();
+        templateEngine.setTemplateResolver(templateResolver);
+        meterRegistry = new SimpleMeterRegistry();
+        cache = new RenderedFragmentCache(templateEngine, meterRegistry, 10);
+        loads = new AtomicInteger();
+        variables = () -> {
+            loads.incrementAndGet();
+            return Map.of("vacancies",
+                    List.of(new Vacancy(1, "Java Developer", "desc", now(), true, 1, 1)));
+        };
+    }
+
+    private String render(long version, MockHttpServletRequest request) {
+        return cache.render(TEMPLATE, version, request, new MockHttpServletResponse(),
+                variables);
+    }
+
+    private double count(String result) {
+        return meterRegistry.get("dreamjob.fragment.cache.requests")
+                .tag("fragment", TEMPLATE).tag("result", result).counter().count();
+    }
+
+    /**
+     * Тест на попадание: при той же версии данные не загружаются,
+     * таблица не отрисовывается повторно, доля попаданий учитывается.
+     */
+    @Test
+    public void whenSameVersionThenRenderedOnce() {
+        var first = render(1, new MockHttpServletRequest("GET", "/vacancies"));
+        var second = render(1, new MockHttpServletRequest("GET", "/vacancies"));
+
+        assertThat(first).contains("Java Developer").contains("/vacancies/1");
+        assertThat(second).isEqualTo(first);
+        assertThat(loads).hasValue(1);
+        assertThat(count("hit")).isEqualTo(1);
+        assertThat(count("miss")).isEqualTo(1);
+        assertThat(meterRegistry.get("dreamjob.fragment.cache.hit.ratio").gauge().value())
+                .isEqualTo(0.5);
+    }
+
+    /**
+     * Тест на общий фрагмент: идентификатор сессии первого посетителя
+     * не попадает в ссылки, которые получат остальные.
+     */
+    @Test
+    public void whenResponseEncodesSessionIdThenCachedLinksStayClean() {
+        var response = new MockHttpServletResponse() {
+            @Override
+            public String encodeURL(String url) {
+                return url + ";jsessionid=secret";
+            }
+        };
+        var html = cache.render(TEMPLATE, 1, new MockHttpServletRequest("GET", "/vacancies"),
+                response, variables);
+
+        assertThat(html).contains("/vacancies/1").doesNotContain("jsessionid");
+    }
+
+    /**
+     * Тест на смену версии и строки запроса: и то и другое дает новый фрагмент.
+     */
+    @Test
+    public void whenVersionOrQueryChangesThenRenderedAgain() {
+        render(1, new MockHttpServletRequest("GET", "/vacancies"));
+        render(2, new MockHttpServletRequest("GET", "/vacancies"));
+        var filtered = new MockHttpServletRequest("GET", "/vacancies");
+        filtered.setQueryString("page=2");
+        render(2, filtered);
+        render(1, new MockHttpServletRequest("GET", "/vacancies"));
+
+        assertThat(loads).hasValue(4);
+        assertThat(count("hit")).isZero();
+    }
+
+    /**
+     * Тест на недоступную БД: таблица из сохраненной копии не кешируется.
+     */
+    @Test
+    public void whenStaleDataThenNotCached() {
+        var request = new MockHttpServletRequest("GET", "/vacancies");
+        request.setAttribute(LastKnownGoodCache.STALE_ATTRIBUTE, true);
+        render(1, request);
+        render(1, new MockHttpServletRequest("GET", "/vacancies"));
+
+        assertThat(loads).hasValue(2);
+    }
+}
@@ -3,8 +3,11 @@ package ru.job4j.dreamjob.controller;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.ArgumentCaptor;
+import org.springframework.mock.web.MockHttpServletResponse;
 import org.springframework.ui.ConcurrentModel;
+import ru.job4j.dreamjob.model.SessionPrincipal;
 import ru.job4j.dreamjob.model.User;
+import ru.job4j.dreamjob.security.SessionAuthenticationStore;
 import ru.job4j.dreamjob.service.UserService;
 
 import javax.servlet.http.HttpServletRequest;
@@ -14,6 +17,7 @@ import java.util.Optional;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 class UserControllerTest {
@@ -23,7 +27,8 @@ class UserControllerTest {
     @BeforeEach
     public void initService() {
         userService = mock(UserService.class);
-        userController = new UserController(userService);
+        userController = new UserController(userService, new SessionAuthenticationStore(),
+                " Admin@Email , ");
     }
 
     /**
@@ -86,14 +91,32 @@ class UserControllerTest {
         when(userService.findByEmailAndPassword("user1@email", "password"))
                 .thenReturn(Optional.of(user));
         when(request.getSession()).thenReturn(session);
-        when(session.getAttribute("user")).thenReturn(user);
 
         var model = new ConcurrentModel();
-        var view = userController.loginUser(user, model, request);
-        var actualUser = session.getAttribute("user");
+        var view = userController.loginUser(user, model, request,
+                new MockHttpServletResponse());
 
         assertThat(view).isEqualTo("redirect:/vacancies");
-        assertThat(actualUser).isEqualTo(user);
+        verify(session).setAttribute("user", SessionPrincipal.of(user));
+    }
+
+    /**
+     * Тест на метод loginUser(): почта из admin.emails (без учета регистра) получает роль ADMIN.
+     */
+    @Test
+    public void whenAdminEmailLoggedThenAdminRoleGranted() {
+        var user = new User(2, "admin@email", "admin", "password");
+        var request = mock(HttpServletRequest.class);
+        var session = mock(HttpSession.class);
+        when(userService.findByEmailAndPassword("admin@email", "password"))
+                .thenReturn(Optional.of(user));
+        when(request.getSession()).thenReturn(session);
+
+        userController.loginUser(user, new ConcurrentModel(), request,
+                new MockHttpServletResponse());
+
+        verify(session).setAttribute("user", SessionPrincipal.of(user, true));
+        assertThat(SessionPrincipal.of(user, true).hasRole(SessionPrincipal.ROLE_ADMIN)).isTrue();
     }
 
     @Test
@@ -106,7 +129,8 @@ class UserControllerTest {
                 .thenReturn(Optional.empty());
 
         var model = new ConcurrentModel();
-        var view = userController.loginUser(new User(), model, request);
+        var view = userController.loginUser(new User(), model, request,
+                new MockHttpServletResponse());
         var actualExceptionMessage = model.getAttribute("error");
 
         assertThat(view).isEqualTo("users/login");
@@ -3,8 +3,11 @@ package ru.job4j.dreamjob.controller;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.ArgumentCaptor;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
 import org.springframework.mock.web.MockMultipartFile;
 import org.springframework.ui.ConcurrentModel;
+import org.springframework.web.context.request.ServletWebRequest;
 import org.springframework.web.multipart.MultipartFile;
 import ru.job4j.dreamjob.dto.FileDto;
 import ru.job4j.dreamjob.model.City;
@@ -13,7 +16,10 @@ import ru.job4j.dreamjob.service.CityService;
 import ru.job4j.dreamjob.service.VacancyService;
 
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
 
 import static java.time.LocalDateTime.now;
 import static org.assertj.core.api.AssertionsForClassTypes.assertThat;
@@ -26,6 +32,12 @@ public class VacancyControllerTest {
 
     private CityService cityService;
 
+    private RenderedFragmentCache fragmentCache;
+
+    private PageETags pageETags;
+
+    private ListStreaming listStreaming;
+
     private VacancyController vacancyController;
 
     private MultipartFile testFile;
@@ -34,10 +46,18 @@ public class VacancyControllerTest {
     public void initServices() {
         vacancyService = mock(VacancyService.class);
         cityService = mock(CityService.class);
-        vacancyController = new VacancyController(vacancyService, cityService);
+        fragmentCache = mock(RenderedFragmentCache.class);
+        pageETags = mock(PageETags.class);
+        listStreaming = mock(ListStreaming.class);
+        vacancyController = new VacancyController(vacancyService, cityService, fragmentCache,
+                pageETags, listStreaming);
         testFile = new MockMultipartFile("testFile.img", new byte[] {1, 2, 3});
     }
 
+    private static ServletWebRequest webRequest() {
+        return new ServletWebRequest(new MockHttpServletRequest(), new MockHttpServletResponse());
+    }
+
     /**
      * Тест на метод getAll().
      * Возвращаем список вакансий сохраненных в БД.
@@ -48,13 +68,58 @@ public class VacancyControllerTest {
         var vacancy2 = new Vacancy(2, "test2", "desc2", now(), false, 3, 4);
         var expectedVacancies = List.of(vacancy1, vacancy2);
         when(vacancyService.findAll()).thenReturn(expectedVacancies);
+        when(vacancyService.getVersion()).thenReturn(7L);
+        var variablesCaptor = ArgumentCaptor.forClass(Supplier.class);
+        when(fragmentCache.render(eq("vacancies/table"), eq(7L), any(), any(),
+                variablesCaptor.capture())).thenReturn("<table></table>");
+
+        var model = new ConcurrentModel();
+        var view = vacancyController.getAll(model, webRequest());
+        var actualVacancies = variablesCaptor.getValue().get();
+
+        assertThat(view).isEqualTo("vacancies/list");
+        assertThat(model.getAttribute("vacancyTable")).isEqualTo("<table></table>");
+        assertThat(actualVacancies).isEqualTo(Map.of("vacancies", expectedVacancies));
+    }
+
+    /**
+     * Тест на метод getAll() с условным запросом: версия и пользователь не изменились,
+     * ответ 304 формируется без обращения к данным и отрисовки.
+     */
+    @Test
+    public void whenListNotModifiedThenNoDataAccess() {
+        when(vacancyService.getVersion()).thenReturn(7L);
+        var request = webRequest();
+        when(pageETags.checkNotModified(request, "vacancies", 7L)).thenReturn(true);
+
+        var view = vacancyController.getAll(new ConcurrentModel(), request);
+
+        assertThat(view).isNull();
+        verify(vacancyService, never()).findAll();
+        verify(fragmentCache, never()).render(any(), anyLong(), any(), any(), any());
+    }
+
+    /**
+     * Тест на метод getAll() с большим списком: строки отдаются итератором
+     * по курсору, список целиком не загружается и в кеш фрагментов не попадает.
+     */
+    @Test
+    public void whenListLargeThenRowsStreamedBypassingCache() {
+        var rows = Stream.<Vacancy>empty();
+        var iterator = List.<Vacancy>of().iterator();
+        var request = webRequest();
+        when(vacancyService.count()).thenReturn(5000);
+        when(vacancyService.streamAll()).thenReturn(rows);
+        when(listStreaming.isLarge(5000)).thenReturn(true);
+        when(listStreaming.iterate(rows, request)).thenReturn(iterator);
 
         var model = new ConcurrentModel();
-        var view = vacancyController.getAll(model);
-        var actualVacancies = model.getAttribute("vacancies");
+        var view = vacancyController.getAll(model, request);
 
         assertThat(view).isEqualTo("vacancies/list");
-        assertThat(actualVacancies).isEqualTo(expectedVacancies);
+        assertThat(model.getAttribute("vacancies")).isEqualTo(iterator);
+        verify(vacancyService, never()).findAll();
+        verify(fragmentCache, never()).render(any(), anyLong(), any(), any(), any());
     }
 
     /**
@@ -128,7 +193,7 @@ public class VacancyControllerTest {
         when(vacancyService.findById(1)).thenReturn(expectedVacancy);
 
         var model = new ConcurrentModel();
-        var view = vacancyController.getById(model, vacancy.getId());
+        var view = vacancyController.getById(model, vacancy.getId(), webRequest());
         var actualVacancy = model.getAttribute("vacancy");
 
         assertThat(view).isEqualTo("vacancies/one");
@@ -146,7 +211,7 @@ public class VacancyControllerTest {
         when(vacancyService.findById(0)).thenReturn(Optional.empty());
 
         var model = new ConcurrentModel();
-        var view = vacancyController.getById(model, 0);
+        var view = vacancyController.getById(model, 0, webRequest());
         var actualExceptionMessage = model.getAttribute("message");
 
         assertThat(view).isEqualTo("errors/404");
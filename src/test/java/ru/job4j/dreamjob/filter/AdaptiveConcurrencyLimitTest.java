@@ -0,0 +1,75 @@
+package ru.job4j.dreamjob.filter;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class AdaptiveConcurrencyLimitTest {
+    private static final long SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    /**
+     * Тест на метод tryAcquire(): анонимные запросы занимают только свою долю
+     * предела, вошедшим пользователям доступен весь предел.
+     */
+    @Test
+    public void whenAnonymousShareExhaustedThenOnlyPriorityAdmitted() {
+        var limit = new AdaptiveConcurrencyLimit(10, 1, 100, 0.5, 0.8, SECOND);
+
+        for (var i = 0; i < 8; i++) {
+            assertThat(limit.tryAcquire(false)).isTrue();
+        }
+
+        assertThat(limit.tryAcquire(false)).isFalse();
+        assertThat(limit.tryAcquire(true)).isTrue();
+        assertThat(limit.tryAcquire(true)).isTrue();
+        assertThat(limit.tryAcquire(true)).isFalse();
+        assertThat(limit.getInFlight()).isEqualTo(10);
+    }
+
+    /**
+     * Тест на метод release(): при перегрузке предел уменьшается не чаще раза
+     * за интервал и не ниже минимума.
+     */
+    @Test
+    public void whenOverloadedThenLimitDecreasesOncePerInterval() {
+        var limit = new AdaptiveConcurrencyLimit(10, 3, 100, 0.5, 1, SECOND);
+        var now = System.nanoTime();
+
+        limit.tryAcquire(true);
+        limit.release(true, now + SECOND);
+        limit.tryAcquire(true);
+        limit.release(true, now + SECOND + 1);
+        assertThat(limit.getLimit()).isEqualTo(5);
+
+        limit.tryAcquire(true);
+        limit.release(true, now + 3 * SECOND);
+        assertThat(limit.getLimit()).isEqualTo(3);
+        assertThat(limit.getInFlight()).isZero();
+    }
+
+    /**
+     * Тест на метод release(): без перегрузки предел растет, только пока
+     * используется хотя бы наполовину.
+     */
+    @Test
+    public void whenHealthyAndBusyThenLimitGrows() {
+        var limit = new AdaptiveConcurrencyLimit(4, 1, 100, 0.5, 1, SECOND);
+        var now = System.nanoTime();
+
+        limit.tryAcquire(true);
+        limit.release(false, now);
+        assertThat(limit.getLimit()).isEqualTo(4);
+
+        for (var round = 0; round < 4; round++) {
+            for (var i = 0; i < 4; i++) {
+                limit.tryAcquire(true);
+            }
+            for (var i = 0; i < 4; i++) {
+                limit.release(false, now);
+            }
+        }
+        assertThat(limit.getLimit()).isEqualTo(5);
+    }
+}
@@ -0,0 +1,79 @@
+package ru.job4j.dreamjob.filter;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.mock.web.MockHttpSession;
+import ru.job4j.dreamjob.model.SessionPrincipal;
+import ru.job4j.dreamjob.security.SessionAuthenticationStore;
+
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class AuthorizationFilterTest {
+    private final AuthorizationFilter filter = new AuthorizationFilter(
+            new SessionAuthenticationStore(),
+            new RouteClassifier("/users/login", "/css/**", "/files/**", "/admin/**",
+                    "/metrics"),
+            "scrape-secret");
+
+    private MockHttpServletResponse perform(String uri, SessionPrincipal principal)
+            throws Exception {
+        return perform(uri, principal, null);
+    }
+
+    private MockHttpServletResponse perform(String uri, SessionPrincipal principal,
+                                            String authorization) throws Exception {
+        var request = new MockHttpServletRequest("GET", uri);
+        if (authorization != null) {
+            request.addHeader("Authorization", authorization);
+        }
+        if (principal != null) {
+            var session = new MockHttpSession();
+            session.setAttribute("user", principal);
+            request.setSession(session);
+        }
+        var response = new MockHttpServletResponse();
+        filter.doFilter(request, response, new MockFilterChain());
+        return response;
+    }
+
+    /**
+     * Тест на служебные адреса: без входа - на страницу входа, без роли ADMIN - 403,
+     * с ролью ADMIN - запрос проходит дальше.
+     */
+    @Test
+    public void whenAdminRouteThenOnlyAdminPasses() throws Exception {
+        var user = new SessionPrincipal(1, "Иван", Set.of(SessionPrincipal.ROLE_USER));
+        var admin = new SessionPrincipal(2, "Петр",
+                Set.of(SessionPrincipal.ROLE_USER, SessionPrincipal.ROLE_ADMIN));
+
+        assertThat(perform("/admin/slow-queries", null).getRedirectedUrl())
+                .isEqualTo("/users/login");
+        assertThat(perform("/admin/slow-queries", user).getStatus()).isEqualTo(403);
+        assertThat(perform("/admin/slow-queries", admin).getStatus()).isEqualTo(200);
+        assertThat(perform("/vacancies", user).getStatus()).isEqualTo(200);
+    }
+
+    /**
+     * Тест на метрики: без входа они недоступны, с токеном сборщика отдаются,
+     * с неверным токеном - 401, под входом - только с ролью ADMIN.
+     */
+    @Test
+    public void whenMetricsThenScrapeTokenOrAdminRequired() throws Exception {
+        var user = new SessionPrincipal(1, "Иван", Set.of(SessionPrincipal.ROLE_USER));
+        var admin = new SessionPrincipal(2, "Петр",
+                Set.of(SessionPrincipal.ROLE_USER, SessionPrincipal.ROLE_ADMIN));
+
+        assertThat(perform("/metrics", null).getRedirectedUrl()).isEqualTo("/users/login");
+        assertThat(perform("/metrics", null, "Bearer scrape-secret").getStatus())
+                .isEqualTo(200);
+        assertThat(perform("/metrics", null, "Bearer wrong").getStatus()).isEqualTo(401);
+        assertThat(perform("/metrics", user).getStatus()).isEqualTo(403);
+        assertThat(perform("/metrics", admin).getStatus()).isEqualTo(200);
+        assertThat(perform("/admin/slow-queries", null, "Bearer scrape-secret")
+                .getRedirectedUrl()).isEqualTo("/users/login");
+    }
+}
@@ -0,0 +1,78 @@
+package ru.job4j.dreamjob.filter;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import ru.job4j.dreamjob.security.SessionAuthenticationStore;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.sql.DataSource;
+import java.sql.SQLException;
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+
+class LoadSheddingFilterTest {
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private final LoadSheddingFilter filter = new LoadSheddingFilter(10, 1, 100, 0.5, 0.8,
+            Duration.ofMillis(50), Duration.ofMillis(100), new SessionAuthenticationStore(),
+            new RouteClassifier("/users/login", "/css/**", "/files/**", "/admin/**",
+                    "/metrics"),
+            mock(DataSource.class), meterRegistry);
+
+    private double limit() {
+        return meterRegistry.get("dreamjob.admission.limit").gauge().value();
+    }
+
+    private void perform(FilterChain chain) throws Exception {
+        filter.doFilter(new MockHttpServletRequest("GET", "/vacancies"),
+                new MockHttpServletResponse(), chain);
+    }
+
+    /**
+     * Тест на ошибку запроса: исключение не из-за БД и не таймаут предел не снижает.
+     */
+    @Test
+    public void whenRequestErrorThenLimitKept() {
+        assertThatThrownBy(() -> perform((request, response) -> {
+            throw new IllegalArgumentException("Неверный параметр");
+        })).isInstanceOf(IllegalArgumentException.class);
+
+        assertThat(limit()).isEqualTo(10);
+    }
+
+    /**
+     * Тест на сбой пула соединений: такое исключение считается перегрузкой.
+     */
+    @Test
+    public void whenPoolFailureThenLimitDecreased() {
+        assertThatThrownBy(() -> perform((request, response) -> {
+            throw new ServletException(new SQLException("Cannot get a connection"));
+        })).isInstanceOf(ServletException.class);
+
+        assertThat(limit()).isEqualTo(5);
+    }
+
+    /**
+     * Тест на медленного клиента: время после завершения контроллера не учитывается.
+     */
+    @Test
+    public void whenSlowWriteAfterHandlerThenLimitKept() throws Exception {
+        perform((request, response) -> {
+            request.setAttribute(HandlerCompletionInterceptor.COMPLETED_ATTRIBUTE,
+                    System.nanoTime());
+            try {
+                Thread.sleep(80);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+
+        assertThat(limit()).isEqualTo(10);
+    }
+}
@@ -0,0 +1,54 @@
+package ru.job4j.dreamjob.filter;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import ru.job4j.dreamjob.security.SessionAuthenticationStore;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RateLimitFilterTest {
+    private final RateLimitFilter filter = new RateLimitFilter("POST /users/login=1/1m",
+            Duration.ofMinutes(1), new SessionAuthenticationStore());
+
+    @AfterEach
+    public void shutdown() {
+        filter.shutdown();
+    }
+
+    private int perform(String contextPath, String uri, String remoteAddr) throws Exception {
+        var request = new MockHttpServletRequest("POST", uri);
+        request.setContextPath(contextPath);
+        request.setRemoteAddr(remoteAddr);
+        var response = new MockHttpServletResponse();
+        filter.doFilter(request, response, new MockFilterChain());
+        return response.getStatus();
+    }
+
+    /**
+     * Тест на сопоставление пути: / в конце, ;параметры и context path
+     * не выводят адрес из-под лимита.
+     */
+    @Test
+    public void whenPathVariantThenSameLimitApplies() throws Exception {
+        assertThat(perform("", "/users/login", "10.0.0.1")).isEqualTo(200);
+        assertThat(perform("", "/users/login/", "10.0.0.1")).isEqualTo(429);
+        assertThat(perform("", "/users/login;x=1", "10.0.0.1")).isEqualTo(429);
+        assertThat(perform("/app", "/app/users/login", "10.0.0.1")).isEqualTo(429);
+        assertThat(perform("", "/users/register", "10.0.0.1")).isEqualTo(200);
+    }
+
+    /**
+     * Тест на ключ анонимного запроса: у разных клиентов свои лимиты.
+     */
+    @Test
+    public void whenDifferentClientsThenSeparateLimits() throws Exception {
+        assertThat(perform("", "/users/login", "10.0.0.1")).isEqualTo(200);
+        assertThat(perform("", "/users/login", "10.0.0.2")).isEqualTo(200);
+        assertThat(perform("", "/users/login", "10.0.0.1")).isEqualTo(429);
+    }
+}
@@ -0,0 +1,82 @@
+package ru.job4j.dreamjob.filter;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import ru.job4j.dreamjob.security.AuthenticationStore;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class RateLimiterTest {
+    private static final long SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    /**
+     * Тест на метод tryAcquire(): сначала проходит вся емкость корзины,
+     * затем запросы ждут пополнения с заданной скоростью.
+     */
+    @Test
+    public void whenBurstExhaustedThenWaitForRefill() {
+        var limiter = new RateLimiter(3, Duration.ofSeconds(3));
+        long now = 1000 * SECOND;
+
+        assertThat(limiter.tryAcquire("ip", now)).isZero();
+        assertThat(limiter.tryAcquire("ip", now)).isZero();
+        assertThat(limiter.tryAcquire("ip", now)).isZero();
+        assertThat(limiter.tryAcquire("ip", now)).isEqualTo(SECOND);
+        assertThat(limiter.tryAcquire("other", now)).isZero();
+        assertThat(limiter.tryAcquire("ip", now + SECOND)).isZero();
+        assertThat(limiter.tryAcquire("ip", now + SECOND)).isPositive();
+    }
+
+    /**
+     * Тест на метод evictIdle(): удаляются только полностью пополненные корзины.
+     */
+    @Test
+    public void whenBucketRefilledThenEvicted() {
+        var limiter = new RateLimiter(2, Duration.ofSeconds(2));
+        long now = 1000 * SECOND;
+        limiter.tryAcquire("idle", now);
+        limiter.tryAcquire("busy", now + SECOND);
+        limiter.tryAcquire("busy", now + SECOND);
+
+        limiter.evictIdle(now + 2 * SECOND);
+
+        assertThat(limiter.size()).isEqualTo(1);
+    }
+
+    /**
+     * Тест на фильтр: превышение лимита на маршруте - 429 с Retry-After,
+     * остальные адреса не ограничиваются.
+     */
+    @Test
+    public void whenRouteLimitExceededThenTooManyRequests() throws Exception {
+        var authenticationStore = mock(AuthenticationStore.class);
+        when(authenticationStore.find(any())).thenReturn(Optional.empty());
+        var filter = new RateLimitFilter("POST /users/login=1/1m, PUT /uploads/**=5/1s",
+                Duration.ofMinutes(1), authenticationStore);
+
+        var first = new MockHttpServletResponse();
+        filter.doFilter(new MockHttpServletRequest("POST", "/users/login"), first,
+                new MockFilterChain());
+        var second = new MockHttpServletResponse();
+        filter.doFilter(new MockHttpServletRequest("POST", "/users/login"), second,
+                new MockFilterChain());
+        var other = new MockHttpServletResponse();
+        filter.doFilter(new MockHttpServletRequest("GET", "/users/login"), other,
+                new MockFilterChain());
+        filter.shutdown();
+
+        assertThat(first.getStatus()).isEqualTo(200);
+        assertThat(second.getStatus()).isEqualTo(429);
+        assertThat(second.getHeader("Retry-After")).isEqualTo("60");
+        assertThat(other.getStatus()).isEqualTo(200);
+    }
+}
@@ -0,0 +1,58 @@
+package ru.job4j.dreamjob.filter;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RouteClassifierTest {
+    private final RouteClassifier routeClassifier = new RouteClassifier(
+            "/users/login, /users/register", "/css/**, /favicon.ico", "/files/**, /uploads/**",
+            "/admin/**", "/metrics");
+
+    private RouteType classify(String uri) {
+        return routeClassifier.classify(uri, 0);
+    }
+
+    /**
+     * Тест на точные маршруты: совпадает только сам адрес.
+     */
+    @Test
+    public void whenExactRouteThenOnlyExactMatch() {
+        assertThat(classify("/users/login")).isEqualTo(RouteType.PUBLIC);
+        assertThat(classify("/users/register")).isEqualTo(RouteType.PUBLIC);
+        assertThat(classify("/favicon.ico")).isEqualTo(RouteType.STATIC);
+        assertThat(classify("/metrics")).isEqualTo(RouteType.METRICS);
+        assertThat(classify("/users/login2")).isEqualTo(RouteType.AUTHENTICATED);
+        assertThat(classify("/users/logout")).isEqualTo(RouteType.AUTHENTICATED);
+    }
+
+    /**
+     * Тест на маршруты /**: совпадают адрес и все под ним, но не адрес с тем же началом.
+     */
+    @Test
+    public void whenSubtreeRouteThenPathAndChildrenMatch() {
+        assertThat(classify("/files")).isEqualTo(RouteType.FILE);
+        assertThat(classify("/files/12")).isEqualTo(RouteType.FILE);
+        assertThat(classify("/uploads/abc/complete")).isEqualTo(RouteType.FILE);
+        assertThat(classify("/css/site/main.css")).isEqualTo(RouteType.STATIC);
+        assertThat(classify("/admin/slow-queries")).isEqualTo(RouteType.ADMIN);
+        assertThat(classify("/administrator")).isEqualTo(RouteType.AUTHENTICATED);
+        assertThat(classify("/filesystem")).isEqualTo(RouteType.AUTHENTICATED);
+        assertThat(classify("/vacancies")).isEqualTo(RouteType.AUTHENTICATED);
+        assertThat(classify("/")).isEqualTo(RouteType.AUTHENTICATED);
+    }
+
+    /**
+     * Тест на запрос: контекстный путь не учитывается, результат сохраняется в запросе.
+     */
+    @Test
+    public void whenClassifyRequestThenContextPathSkippedAndResultCached() {
+        var request = new MockHttpServletRequest("GET", "/app/files/1");
+        request.setContextPath("/app");
+
+        assertThat(routeClassifier.classify(request)).isEqualTo(RouteType.FILE);
+        request.setRequestURI("/app/vacancies");
+        assertThat(routeClassifier.classify(request)).isEqualTo(RouteType.FILE);
+    }
+}
@@ -0,0 +1,89 @@
+package ru.job4j.dreamjob.filter;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import ru.job4j.dreamjob.monitoring.ServerTiming;
+
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ServerTimingFilterTest {
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private final ServerTimingFilter filter = new ServerTimingFilter(
+            new RouteClassifier("/users/login", "/css/**", "/files/**", "/admin/**",
+                    "/metrics"),
+            meterRegistry);
+
+    /* Имитирует контроллер с двумя запросами к БД и шаблон, который пишет и сбрасывает ответ */
+    private static final class PageServlet extends HttpServlet {
+        @Override
+        protected void service(HttpServletRequest request, HttpServletResponse response)
+                throws IOException {
+            ServerTiming.record(ServerTiming.Phase.DB, TimeUnit.MILLISECONDS.toNanos(2));
+            ServerTiming.record(ServerTiming.Phase.DB, TimeUnit.MILLISECONDS.toNanos(1));
+            ServerTiming.start(ServerTiming.Phase.RENDER);
+            response.getWriter().write("<html></html>");
+            response.getWriter().flush();
+            ServerTiming.stop(ServerTiming.Phase.RENDER);
+        }
+    }
+
+    /**
+     * Тест на заголовок: flush() шаблона откладывается, поэтому заголовок
+     * выставляется после отрисовки и содержит все фазы.
+     */
+    @Test
+    public void whenPageRenderedThenHeaderContainsAllPhases() throws Exception {
+        var request = new MockHttpServletRequest("GET", "/vacancies");
+        var response = new MockHttpServletResponse();
+
+        filter.doFilter(request, response, new MockFilterChain(new PageServlet()));
+
+        var header = response.getHeader(ServerTimingFilter.SERVER_TIMING);
+        assertThat(header).startsWith("db;dur=3.00;desc=\"2 calls\", render;dur=")
+                .contains("total;dur=");
+        assertThat(response.getContentAsString()).isEqualTo("<html></html>");
+        assertThat(meterRegistry.get("dreamjob.request.phase").tag("phase", "db").timer()
+                .totalTime(TimeUnit.MILLISECONDS)).isEqualTo(3);
+    }
+
+    /**
+     * Тест на статику: заголовок не добавляется, отметки вне запроса игнорируются.
+     */
+    @Test
+    public void whenStaticRouteThenNoHeader() throws Exception {
+        var request = new MockHttpServletRequest("GET", "/css/main.css");
+        var response = new MockHttpServletResponse();
+
+        filter.doFilter(request, response, new MockFilterChain(new PageServlet()));
+
+        assertThat(response.getHeader(ServerTimingFilter.SERVER_TIMING)).isNull();
+    }
+
+    /**
+     * Тест на потоковую страницу: flush() не откладывается, ответ уходит частями,
+     * а заголовок содержит фазы, завершенные до первой записи в ответ.
+     */
+    @Test
+    public void whenStreamingThenFlushPassesThrough() throws Exception {
+        var request = new MockHttpServletRequest("GET", "/vacancies");
+        request.setAttribute(ServerTimingFilter.STREAMING_ATTRIBUTE, true);
+        var response = new MockHttpServletResponse();
+
+        filter.doFilter(request, response, new MockFilterChain(new PageServlet()));
+
+        assertThat(response.isCommitted()).isTrue();
+        assertThat(response.getHeader(ServerTimingFilter.SERVER_TIMING))
+                .startsWith("db;dur=3.00;desc=\"2 calls\"")
+                .doesNotContain("render");
+    }
+}
@@ -0,0 +1,67 @@
+package ru.job4j.dreamjob.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SessionPrincipalTest {
+
+    private static byte[] serialize(Object object) throws IOException {
+        var bytes = new ByteArrayOutputStream();
+        try (var output = new ObjectOutputStream(bytes)) {
+            output.writeObject(object);
+        }
+        return bytes.toByteArray();
+    }
+
+    private static Object deserialize(byte[] bytes) throws Exception {
+        try (var input = new ObjectInputStream(new ByteArrayInputStream(bytes))) {
+            return input.readObject();
+        }
+    }
+
+    /**
+     * Тест на метод of(): из User берутся только id и имя, пароль и почта не попадают.
+     */
+    @Test
+    public void whenCreateFromUserThenOnlyIdNameAndRole() {
+        var principal = SessionPrincipal.of(new User(3, "user@mail", "Иван", "secret"));
+
+        assertThat(principal.getId()).isEqualTo(3);
+        assertThat(principal.getName()).isEqualTo("Иван");
+        assertThat(principal.getRoles()).containsExactly(SessionPrincipal.ROLE_USER);
+        assertThat(principal.encode()).doesNotContain("secret").doesNotContain("user@mail");
+    }
+
+    /**
+     * Тест на методы encode() и decode(): двоеточие в имени не ломает разбор.
+     */
+    @Test
+    public void whenDecodeEncodedThenGetSame() {
+        var principal = new SessionPrincipal(5, "a:b:c", Set.of("USER", "ADMIN"));
+
+        assertThat(principal.encode()).isEqualTo("5:ADMIN,USER:a:b:c");
+        assertThat(SessionPrincipal.decode(principal.encode())).isEqualTo(principal);
+    }
+
+    /**
+     * Тест на сериализацию: пишется только строка encode(), гость остается тем же объектом.
+     */
+    @Test
+    public void whenSerializeThenCompactAndGuestIsSingleton() throws Exception {
+        var principal = SessionPrincipal.of(new User(3, "user@mail", "Иван", "secret"));
+        var bytes = serialize(principal);
+
+        assertThat(deserialize(bytes)).isEqualTo(principal);
+        assertThat(bytes.length).isLessThan(200);
+        assertThat(deserialize(serialize(SessionPrincipal.GUEST)))
+                .isSameAs(SessionPrincipal.GUEST);
+    }
+}
@@ -0,0 +1,71 @@
+package ru.job4j.dreamjob.monitoring;
+
+import jdk.jfr.Recording;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class JfrSummaryTest {
+    @TempDir
+    private Path directory;
+
+    private static void databaseCall(String query, int rows, long sleepMillis)
+            throws InterruptedException {
+        var event = new DatabaseCallEvent();
+        event.begin();
+        Thread.sleep(sleepMillis);
+        event.setQuery(query);
+        event.setRows(rows);
+        event.commit();
+    }
+
+    private static void fileIo(String operation, long bytes, String path) {
+        var event = new FileIoEvent();
+        event.begin();
+        event.setOperation(operation);
+        event.setBytes(bytes);
+        event.setPath(path);
+        event.commit();
+    }
+
+    /**
+     * Тест на сводку по записи: запросы упорядочены по суммарному времени,
+     * из передач файлов остаются крупнейшие, удаления в них не попадают.
+     */
+    @Test
+    public void whenSummarizeRecordingThenHottestQueriesAndLargestTransfers() throws Exception {
+        var recordingFile = directory.resolve("recording.jfr");
+        try (var recording = new Recording()) {
+            recording.enable(DatabaseCallEvent.class);
+            recording.enable(FileIoEvent.class);
+            recording.start();
+            databaseCall("Sql2oVacancyRepository.findAll", 100, 20);
+            databaseCall("Sql2oVacancyRepository.findAll", 100, 20);
+            databaseCall("Sql2oUserRepository.findByEmail", 1, 5);
+            fileIo("read", 10, "files/a.png");
+            fileIo("write", 3000, "segment:7");
+            fileIo("read", 2000, "files/b.png");
+            fileIo("delete", 5000, "files/c.png");
+            recording.stop();
+            recording.dump(recordingFile);
+        }
+
+        var summary = JfrSummary.summarize(recordingFile, 2);
+
+        assertThat(summary.queries()).extracting(JfrSummary.QueryStats::query)
+                .containsExactly("Sql2oVacancyRepository.findAll",
+                        "Sql2oUserRepository.findByEmail");
+        var findAll = summary.queries().get(0);
+        assertThat(findAll.count()).isEqualTo(2);
+        assertThat(findAll.rows()).isEqualTo(200);
+        assertThat(findAll.total().toMillis()).isGreaterThanOrEqualTo(40);
+        assertThat(summary.transfers()).extracting(JfrSummary.FileTransfer::bytes)
+                .containsExactly(3000L, 2000L);
+        assertThat(summary.transfers()).extracting(JfrSummary.FileTransfer::shard)
+                .containsExactly("segment", "files");
+        assertThat(JfrSummary.format(summary)).contains("Sql2oVacancyRepository.findAll");
+    }
+}
@@ -0,0 +1,106 @@
+package ru.job4j.dreamjob.monitoring;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.sql2o.Sql2o;
+import ru.job4j.dreamjob.configuration.DatasourceConfiguration;
+import ru.job4j.dreamjob.configuration.LocalDateTimeQuirks;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SlowQueryInterceptorTest {
+    private static final String URL = "jdbc:h2:mem:slowquery;DB_CLOSE_DELAY=-1";
+
+    private ExecutorService explainExecutor;
+
+    private SlowQueryLog slowQueryLog;
+
+    private Sql2o sql2o;
+
+    @BeforeEach
+    public void initDatabase() {
+        var configuration = new DatasourceConfiguration(Duration.ofSeconds(5));
+        var dataSource = configuration.connectionPool(URL, "", "");
+        explainExecutor = Executors.newSingleThreadExecutor();
+        slowQueryLog = new SlowQueryLog(10);
+        var interceptor = new SlowQueryInterceptor(slowQueryLog, Duration.ZERO, 1,
+                Duration.ofMinutes(10), explainExecutor);
+        sql2o = new Sql2o(interceptor.wrap(dataSource), new LocalDateTimeQuirks());
+        try (var connection = sql2o.open()) {
+            connection.createQuery("""
+                    CREATE TABLE accounts (
+                        id serial primary key, email varchar, password varchar)
+                    """).executeUpdate();
+        }
+    }
+
+    @AfterEach
+    public void dropDatabase() {
+        try (var connection = sql2o.open()) {
+            connection.createQuery("DROP TABLE accounts").executeUpdate();
+        }
+        explainExecutor.shutdownNow();
+    }
+
+    private List<SlowQuery> awaitEntries() throws InterruptedException {
+        explainExecutor.shutdown();
+        explainExecutor.awaitTermination(5, TimeUnit.SECONDS);
+        return slowQueryLog.findAll();
+    }
+
+    /**
+     * Тест на запись медленного запроса: параметры сохраняются по порядку,
+     * строки скрыты, к записи приложен план EXPLAIN.
+     */
+    @Test
+    public void whenQueryIsSlowThenLoggedWithRedactedStringsAndPlan() throws Exception {
+        try (var connection = sql2o.open()) {
+            connection.createQuery("UPDATE accounts SET password = :password WHERE email = :email")
+                    .addParameter("password", "secret")
+                    .addParameter("email", "user@mail.ru")
+                    .executeUpdate();
+        }
+
+        var entries = awaitEntries();
+        var update = entries.stream()
+                .filter(entry -> entry.sql().startsWith("UPDATE")).findFirst().get();
+        assertThat(update.parameters()).containsOnly(SqlParameters.REDACTED);
+        assertThat(update.plan()).containsIgnoringCase("accounts");
+    }
+
+    /**
+     * Тест на скрытие параметров: видны только числа, даты, логические значения и null,
+     * любые строки скрыты независимо от имени столбца.
+     */
+    @Test
+    public void whenParameterIsNotScalarThenRedacted() {
+        var date = LocalDateTime.of(2024, 1, 1, 12, 0);
+        assertThat(SqlParameters.redact(
+                new Object[] {"a@b.ru", "Иван", "secret", 7, true, date, null}))
+                .containsExactly(SqlParameters.REDACTED, SqlParameters.REDACTED,
+                        SqlParameters.REDACTED, "7", "true", date.toString(), "null");
+    }
+
+    /**
+     * Тест на кольцевой буфер: хранятся только последние записи, новые первыми.
+     */
+    @Test
+    public void whenLogIsFullThenOldestEntriesEvicted() {
+        var log = new SlowQueryLog(2);
+        for (var i = 1; i <= 3; i++) {
+            log.add(new SlowQuery(Instant.now(), i, "SELECT " + i, List.of(), null));
+        }
+
+        assertThat(log.findAll()).extracting(SlowQuery::sql)
+                .containsExactly("SELECT 3", "SELECT 2");
+    }
+}
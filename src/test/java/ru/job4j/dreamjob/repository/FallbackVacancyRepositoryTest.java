@@ -0,0 +1,149 @@
+package ru.job4j.dreamjob.repository;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+import org.sql2o.Sql2o;
+import ru.job4j.dreamjob.configuration.DatasourceConfiguration;
+import ru.job4j.dreamjob.configuration.LocalDateTimeQuirks;
+import ru.job4j.dreamjob.model.Vacancy;
+
+import javax.sql.DataSource;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Отказ БД моделируется остановкой отдельной H2 в памяти: IFEXISTS=TRUE не дает
+ * пулу молча создать новую пустую базу вместо остановленной.
+ */
+class FallbackVacancyRepositoryTest {
+    private static final String URL = "jdbc:h2:mem:fallback;DB_CLOSE_DELAY=-1";
+
+    private DatabaseCircuitBreaker circuitBreaker;
+
+    private FallbackVacancyRepository repository;
+
+    private MockHttpServletRequest request;
+
+    @BeforeEach
+    public void initRepository() throws SQLException {
+        createDatabase();
+        var configuration = new DatasourceConfiguration(Duration.ofSeconds(5));
+        DataSource dataSource = configuration.connectionPool(URL + ";IFEXISTS=TRUE", "", "");
+        var meterRegistry = new SimpleMeterRegistry();
+        circuitBreaker = new DatabaseCircuitBreaker(dataSource, 2, Duration.ofMillis(50),
+                meterRegistry);
+        repository = new FallbackVacancyRepository(
+                new Sql2oVacancyRepository(new Sql2o(dataSource, new LocalDateTimeQuirks())),
+                circuitBreaker, meterRegistry);
+        request = new MockHttpServletRequest();
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request));
+    }
+
+    @AfterEach
+    public void shutdown() throws SQLException {
+        RequestContextHolder.resetRequestAttributes();
+        circuitBreaker.shutdown();
+        shutdownDatabase();
+    }
+
+    private static void execute(String sql) throws SQLException {
+        try (var connection = DriverManager.getConnection(URL);
+             var statement = connection.createStatement()) {
+            statement.execute(sql);
+        }
+    }
+
+    private void createDatabase() throws SQLException {
+        execute("""
+                CREATE TABLE vacancies (
+                    id serial primary key, title varchar not null,
+                    description varchar not null, creation_date timestamp,
+                    visible boolean not null, city_id int, file_id int)
+                """);
+        execute("CREATE TABLE data_versions (name varchar primary key, version bigint not null)");
+        execute("INSERT INTO data_versions VALUES ('vacancies', 0)");
+    }
+
+    private void shutdownDatabase() throws SQLException {
+        execute("SHUTDOWN");
+    }
+
+    private Vacancy vacancy() {
+        var creationDate = LocalDateTime.now().truncatedTo(ChronoUnit.MINUTES);
+        return new Vacancy(0, "title", "description", creationDate, true, 1, 1);
+    }
+
+    /**
+     * Тест на методы findAll(), findById() и version(): после остановки БД отдаются
+     * последние прочитанные данные и версия, запрос помечается как устаревший.
+     */
+    @Test
+    public void whenDatabaseIsDownThenReadsServedFromLastKnownGood() throws SQLException {
+        var vacancy = repository.save(vacancy());
+        repository.findAll();
+        repository.findById(vacancy.getId());
+        var version = repository.version();
+
+        shutdownDatabase();
+
+        assertThat(repository.version()).isEqualTo(version).isEqualTo(1);
+        assertThat(repository.findAll()).usingRecursiveFieldByFieldElementComparator()
+                .containsExactly(vacancy);
+        assertThat(repository.findById(vacancy.getId()).get())
+                .usingRecursiveComparison().isEqualTo(vacancy);
+        assertThat(request.getAttribute(LastKnownGoodCache.STALE_ATTRIBUTE)).isEqualTo(true);
+    }
+
+    /**
+     * Тест на метод save(): после нескольких сбоев предохранитель размыкается,
+     * и запись завершается ошибкой сразу, без обращения к пулу.
+     */
+    @Test
+    public void whenCircuitIsOpenThenWritesFailFast() throws SQLException {
+        shutdownDatabase();
+
+        for (var i = 0; i < 2; i++) {
+            assertThatThrownBy(() -> repository.save(vacancy()))
+                    .isNotInstanceOf(DatabaseUnavailableException.class);
+        }
+
+        assertThat(circuitBreaker.isOpen()).isTrue();
+        assertThatThrownBy(() -> repository.save(vacancy()))
+                .isInstanceOf(DatabaseUnavailableException.class);
+    }
+
+    /**
+     * Тест на фоновую проверку: когда БД снова доступна, предохранитель
+     * замыкается, а список обновляется.
+     */
+    @Test
+    public void whenDatabaseRecoversThenCircuitClosesInBackground() throws Exception {
+        var vacancy = repository.save(vacancy());
+        repository.findAll();
+        shutdownDatabase();
+        repository.findAll();
+        repository.findAll();
+        assertThat(circuitBreaker.isOpen()).isTrue();
+
+        createDatabase();
+        var deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (circuitBreaker.isOpen() && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+
+        assertThat(circuitBreaker.isOpen()).isFalse();
+        assertThat(repository.findById(vacancy.getId())).isEmpty();
+    }
+}
@@ -4,10 +4,13 @@ import org.junit.jupiter.api.AfterAll;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.Test;
+import org.sql2o.Sql2o;
 import ru.job4j.dreamjob.configuration.DatasourceConfiguration;
+import ru.job4j.dreamjob.configuration.LocalDateTimeQuirks;
 import ru.job4j.dreamjob.model.Candidate;
 import ru.job4j.dreamjob.model.File;
 
+import java.time.Duration;
 import java.time.temporal.ChronoUnit;
 import java.util.List;
 import java.util.Properties;
@@ -34,9 +37,9 @@ class Sql2oCandidateRepositoryTest {
         var username = properties.getProperty("datasource.username");
         var password = properties.getProperty("datasource.password");
 
-        var configuration = new DatasourceConfiguration();
+        var configuration = new DatasourceConfiguration(Duration.ofSeconds(5));
         var datasource = configuration.connectionPool(url, username, password);
-        var sql2o = configuration.databaseClient(datasource);
+        var sql2o = new Sql2o(datasource, new LocalDateTimeQuirks());
 
         sql2oCandidateRepository = new Sql2oCandidateRepository(sql2o);
         sql2oFileRepository = new Sql2oFileRepository(sql2o);
@@ -81,6 +84,19 @@ class Sql2oCandidateRepositoryTest {
         assertThat(result).isEqualTo(List.of(candidate1, candidate2, candidate3));
     }
 
+    @Test
+    public void whenSaveSeveralThenStreamAllAndCount() {
+        var creationDate = now().truncatedTo(ChronoUnit.MINUTES);
+        var candidate1 = sql2oCandidateRepository.save(
+                new Candidate(0, "name1", "description1", creationDate, 1, file.getId()));
+        var candidate2 = sql2oCandidateRepository.save(
+                new Candidate(0, "name2", "description2", creationDate, 1, file.getId()));
+        try (var rows = sql2oCandidateRepository.streamAll()) {
+            assertThat(rows.toList()).isEqualTo(List.of(candidate1, candidate2));
+        }
+        assertThat(sql2oCandidateRepository.count()).isEqualTo(2);
+    }
+
     @Test
     public void whenDontSaveThenNothingFound() {
         assertThat(sql2oCandidateRepository.findAll()).isEqualTo(emptyList());
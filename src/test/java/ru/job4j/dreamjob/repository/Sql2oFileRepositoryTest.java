@@ -0,0 +1,69 @@
+package ru.job4j.dreamjob.repository;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.sql2o.Sql2o;
+import ru.job4j.dreamjob.configuration.DatasourceConfiguration;
+import ru.job4j.dreamjob.configuration.LocalDateTimeQuirks;
+import ru.job4j.dreamjob.model.File;
+
+import java.time.Duration;
+import java.time.temporal.ChronoUnit;
+import java.util.Properties;
+
+import static java.time.LocalDateTime.now;
+import static java.util.Optional.empty;
+import static org.assertj.core.api.AssertionsForClassTypes.assertThat;
+
+class Sql2oFileRepositoryTest {
+    private static Sql2oFileRepository sql2oFileRepository;
+
+    @BeforeAll
+    public static void initRepositories() throws Exception {
+        var properties = new Properties();
+        try (var inputStream = Sql2oFileRepositoryTest.class.getClassLoader()
+                .getResourceAsStream("connection.properties")) {
+            properties.load(inputStream);
+        }
+        var url = properties.getProperty("datasource.url");
+        var username = properties.getProperty("datasource.username");
+        var password = properties.getProperty("datasource.password");
+
+        var configuration = new DatasourceConfiguration(Duration.ofSeconds(5));
+        var datasource = configuration.connectionPool(url, username, password);
+        var sql2o = new Sql2o(datasource, new LocalDateTimeQuirks());
+
+        sql2oFileRepository = new Sql2oFileRepository(sql2o);
+    }
+
+    @Test
+    public void whenSaveImageThenGetSameMetadata() {
+        var uploadDate = now().truncatedTo(ChronoUnit.MINUTES);
+        var file = sql2oFileRepository.save(new File("logo.png", "files/metadata-logo.png",
+                1024, "image/png", "abc123", uploadDate, 640, 480));
+        var savedFile = sql2oFileRepository.findById(file.getId()).get();
+        sql2oFileRepository.deleteById(file.getId());
+        assertThat(savedFile).usingRecursiveComparison().isEqualTo(file);
+    }
+
+    @Test
+    public void whenSaveNotImageThenDimensionsAreNull() {
+        var file = sql2oFileRepository.save(new File("resume.pdf", "files/metadata-resume.pdf",
+                2048, "application/pdf", "def456", now(), null, null));
+        var savedFile = sql2oFileRepository.findById(file.getId()).get();
+        sql2oFileRepository.deleteById(file.getId());
+        assertThat(savedFile.getContentType()).isEqualTo("application/pdf");
+        assertThat(savedFile.getSize()).isEqualTo(2048);
+        assertThat(savedFile.getWidth()).isNull();
+        assertThat(savedFile.getHeight()).isNull();
+    }
+
+    @Test
+    public void whenDeleteThenGetEmptyOptional() {
+        var file = sql2oFileRepository.save(new File("test", "files/metadata-deleted"));
+        var isDeleted = sql2oFileRepository.deleteById(file.getId());
+        assertThat(isDeleted).isTrue();
+        assertThat(sql2oFileRepository.findById(file.getId())).isEqualTo(empty());
+    }
+
+}
@@ -0,0 +1,139 @@
+package ru.job4j.dreamjob.repository;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.sql2o.Sql2o;
+import ru.job4j.dreamjob.configuration.DatasourceConfiguration;
+import ru.job4j.dreamjob.configuration.LocalDateTimeQuirks;
+import ru.job4j.dreamjob.model.UserSession;
+
+import java.time.Duration;
+import java.time.temporal.ChronoUnit;
+import java.util.Properties;
+import java.util.UUID;
+
+import static java.time.LocalDateTime.now;
+import static java.util.Optional.empty;
+import static org.assertj.core.api.Assertions.assertThat;
+
+class Sql2oSessionRepositoryTest {
+    private static Sql2oSessionRepository sql2oSessionRepository;
+
+    @BeforeAll
+    public static void initRepositories() throws Exception {
+        var properties = new Properties();
+        try (var inputStream = Sql2oSessionRepositoryTest.class.getClassLoader()
+                .getResourceAsStream("connection.properties")) {
+            properties.load(inputStream);
+        }
+        var url = properties.getProperty("datasource.url");
+        var username = properties.getProperty("datasource.username");
+        var password = properties.getProperty("datasource.password");
+
+        var configuration = new DatasourceConfiguration(Duration.ofSeconds(5));
+        var datasource = configuration.connectionPool(url, username, password);
+        var sql2o = new Sql2o(datasource, new LocalDateTimeQuirks());
+
+        sql2oSessionRepository = new Sql2oSessionRepository(sql2o);
+    }
+
+    @AfterEach
+    public void clearSessions() {
+        sql2oSessionRepository.deleteExpired(now().plusYears(1), Integer.MAX_VALUE);
+    }
+
+    private UserSession newSession(long minutesToLive) {
+        var creationDate = now().truncatedTo(ChronoUnit.SECONDS);
+        return new UserSession(UUID.randomUUID().toString(), creationDate,
+                creationDate.plusMinutes(minutesToLive));
+    }
+
+    @Test
+    public void whenSaveSessionThenFindSameWithAttributes() {
+        var session = newSession(30);
+        session.setAttribute("user.id", "1");
+        session.setAttribute("user.name", "Иван");
+        sql2oSessionRepository.save(session);
+
+        var savedSession = sql2oSessionRepository.findById(session.getId()).get();
+
+        assertThat(savedSession.getCreationDate()).isEqualTo(session.getCreationDate());
+        assertThat(savedSession.getExpiresAt()).isEqualTo(session.getExpiresAt());
+        assertThat(savedSession.getAttribute("user.id")).contains("1");
+        assertThat(savedSession.getAttribute("user.name")).contains("Иван");
+        assertThat(savedSession.pollDirtyAttributes()).isEmpty();
+    }
+
+    /**
+     * Тест на метод saveAttributes(): после первого сохранения записываются
+     * только измененные и удаленные атрибуты.
+     */
+    @Test
+    public void whenChangeAttributesAfterSaveThenOnlyDirtyAreWritten() {
+        var session = newSession(30);
+        session.setAttribute("a", "1");
+        session.setAttribute("b", "2");
+        session.setAttribute("c", "3");
+        sql2oSessionRepository.save(session);
+
+        session.setAttribute("a", "10");
+        session.setAttribute("b", "2");
+        session.removeAttribute("c");
+        sql2oSessionRepository.saveAttributes(session);
+        session.setAttribute("a", "11");
+        session.setAttribute("d", "4");
+        sql2oSessionRepository.saveAttributes(session);
+
+        var savedSession = sql2oSessionRepository.findById(session.getId()).get();
+        assertThat(savedSession.getAttribute("a")).contains("11");
+        assertThat(savedSession.getAttribute("b")).contains("2");
+        assertThat(savedSession.getAttribute("c")).isEmpty();
+        assertThat(savedSession.getAttribute("d")).contains("4");
+        assertThat(session.pollDirtyAttributes()).isEmpty();
+    }
+
+    @Test
+    public void whenUpdateExpiresAtThenGetNewValue() {
+        var session = newSession(30);
+        sql2oSessionRepository.save(session);
+        var expiresAt = session.getExpiresAt().plusHours(1);
+
+        var isUpdated = sql2oSessionRepository.updateExpiresAt(session.getId(), expiresAt);
+
+        assertThat(isUpdated).isTrue();
+        assertThat(sql2oSessionRepository.findById(session.getId()).get().getExpiresAt())
+                .isEqualTo(expiresAt);
+    }
+
+    @Test
+    public void whenDeleteThenGetEmptyOptional() {
+        var session = newSession(30);
+        session.setAttribute("user.id", "1");
+        sql2oSessionRepository.save(session);
+
+        var isDeleted = sql2oSessionRepository.deleteById(session.getId());
+
+        assertThat(isDeleted).isTrue();
+        assertThat(sql2oSessionRepository.findById(session.getId())).isEqualTo(empty());
+    }
+
+    /**
+     * Тест на метод deleteExpired(): удаляются только истекшие сессии и не больше limit.
+     */
+    @Test
+    public void whenDeleteExpiredThenRemovedInBatches() {
+        for (var i = 0; i < 3; i++) {
+            var expired = newSession(-10);
+            expired.setAttribute("user.id", String.valueOf(i));
+            sql2oSessionRepository.save(expired);
+        }
+        var active = newSession(30);
+        sql2oSessionRepository.save(active);
+
+        assertThat(sql2oSessionRepository.deleteExpired(now(), 2)).isEqualTo(2);
+        assertThat(sql2oSessionRepository.deleteExpired(now(), 2)).isEqualTo(1);
+        assertThat(sql2oSessionRepository.deleteExpired(now(), 2)).isEqualTo(0);
+        assertThat(sql2oSessionRepository.findById(active.getId())).isPresent();
+    }
+}
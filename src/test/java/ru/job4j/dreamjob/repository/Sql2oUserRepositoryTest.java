@@ -3,15 +3,20 @@ package ru.job4j.dreamjob.repository;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.Test;
+import org.sql2o.Sql2o;
+import org.sql2o.Sql2oException;
 import ru.job4j.dreamjob.configuration.DatasourceConfiguration;
+import ru.job4j.dreamjob.configuration.LocalDateTimeQuirks;
 import ru.job4j.dreamjob.model.User;
 
+import java.time.Duration;
 import java.util.List;
 import java.util.Properties;
 
 import static java.util.Collections.emptyList;
 import static java.util.Optional.empty;
 import static org.assertj.core.api.AssertionsForClassTypes.assertThat;
+import static org.assertj.core.api.AssertionsForClassTypes.assertThatThrownBy;
 
 class Sql2oUserRepositoryTest {
     private static Sql2oUserRepository sql2oUserRepository;
@@ -27,9 +32,9 @@ class Sql2oUserRepositoryTest {
         var username = properties.getProperty("datasource.username");
         var password = properties.getProperty("datasource.password");
 
-        var configuration = new DatasourceConfiguration();
+        var configuration = new DatasourceConfiguration(Duration.ofSeconds(5));
         var datasource = configuration.connectionPool(url, username, password);
-        var sql2o = configuration.databaseClient(datasource);
+        var sql2o = new Sql2o(datasource, new LocalDateTimeQuirks());
 
         sql2oUserRepository = new Sql2oUserRepository(sql2o);
     }
@@ -46,8 +51,7 @@ class Sql2oUserRepositoryTest {
     void whenSaveThenGetSame() {
         var user1 = sql2oUserRepository.save(
                 new User(0, "user1@mail.ru", "user1", "password1")).get();
-        var savedUser = sql2oUserRepository
-                .findByEmailAndPassword(user1.getEmail(), user1.getPassword()).get();
+        var savedUser = sql2oUserRepository.findByEmail(user1.getEmail()).get();
         assertThat(user1).usingRecursiveComparison().isEqualTo(savedUser);
     }
 
@@ -66,8 +70,7 @@ class Sql2oUserRepositoryTest {
     @Test
     public void whenDontSaveThenNothingFound() {
         assertThat(sql2oUserRepository.findAll()).isEqualTo(emptyList());
-        assertThat(sql2oUserRepository.findByEmailAndPassword("user1@mail.ru", "user1"))
-                .isEqualTo(empty());
+        assertThat(sql2oUserRepository.findByEmail("user1@mail.ru")).isEqualTo(empty());
     }
 
     @Test
@@ -80,11 +83,23 @@ class Sql2oUserRepositoryTest {
                 new User(0, "user3@mail.ru", "user3", "password3")).get();
 
         var isDeleted = sql2oUserRepository.deleteByEmail("user1@mail.ru");
-        var savedVacancy = sql2oUserRepository.findByEmailAndPassword("user1@mail.ru", "user1");
+        var savedVacancy = sql2oUserRepository.findByEmail("user1@mail.ru");
         assertThat(isDeleted).isTrue();
         assertThat(savedVacancy).isEqualTo(empty());
     }
 
+    @Test
+    public void whenUpdatePasswordThenGetNewPassword() {
+        var user = sql2oUserRepository.save(
+                new User(0, "user1@mail.ru", "user1", "password1")).get();
+
+        var isUpdated = sql2oUserRepository.updatePassword(user.getId(), "hash");
+
+        assertThat(isUpdated).isTrue();
+        assertThat(sql2oUserRepository.findByEmail("user1@mail.ru").get().getPassword())
+                .isEqualTo("hash");
+    }
+
     @Test
     public void whenDeleteByInvalidEmailThenGetFalse() {
         assertThat(sql2oUserRepository.deleteByEmail("user111@mail.ru")).isFalse();
@@ -97,4 +112,18 @@ class Sql2oUserRepositoryTest {
         assertThat(sql2oUserRepository.save(user)).isEqualTo(empty());
     }
 
+    /**
+     * Тест на создание репозитория при недоступной БД: соединение не открывается,
+     * ошибка возникает только при первом обращении.
+     */
+    @Test
+    public void whenDatabaseIsDownThenRepositoryStillCreated() {
+        var sql2o = new Sql2o("jdbc:h2:tcp://localhost:1/none", "sa", "");
+
+        var repository = new Sql2oUserRepository(sql2o);
+
+        assertThatThrownBy(() -> repository.save(new User(0, "user1@mail.ru", "user1", "p")))
+                .isInstanceOf(Sql2oException.class);
+    }
+
 }
\ No newline at end of file
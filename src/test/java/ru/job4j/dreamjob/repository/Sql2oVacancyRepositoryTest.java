@@ -4,10 +4,13 @@ import org.junit.jupiter.api.AfterAll;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.Test;
+import org.sql2o.Sql2o;
 import ru.job4j.dreamjob.configuration.DatasourceConfiguration;
+import ru.job4j.dreamjob.configuration.LocalDateTimeQuirks;
 import ru.job4j.dreamjob.model.File;
 import ru.job4j.dreamjob.model.Vacancy;
 
+import java.time.Duration;
 import java.time.temporal.ChronoUnit;
 import java.util.List;
 import java.util.Properties;
@@ -35,9 +38,9 @@ public class Sql2oVacancyRepositoryTest {
         var username = properties.getProperty("datasource.username");
         var password = properties.getProperty("datasource.password");
 
-        var configuration = new DatasourceConfiguration();
+        var configuration = new DatasourceConfiguration(Duration.ofSeconds(5));
         var datasource = configuration.connectionPool(url, username, password);
-        var sql2o = configuration.databaseClient(datasource);
+        var sql2o = new Sql2o(datasource, new LocalDateTimeQuirks());
 
         sql2oVacancyRepository = new Sql2oVacancyRepository(sql2o);
         sql2oFileRepository = new Sql2oFileRepository(sql2o);
@@ -82,6 +85,19 @@ public class Sql2oVacancyRepositoryTest {
         assertThat(result).isEqualTo(List.of(vacancy1, vacancy2, vacancy3));
     }
 
+    @Test
+    public void whenSaveSeveralThenStreamAllAndCount() {
+        var creationDate = now().truncatedTo(ChronoUnit.MINUTES);
+        var vacancy1 = sql2oVacancyRepository.save(
+                new Vacancy(0, "title1", "description1", creationDate, true, 1, file.getId()));
+        var vacancy2 = sql2oVacancyRepository.save(
+                new Vacancy(0, "title2", "description2", creationDate, true, 1, file.getId()));
+        try (var rows = sql2oVacancyRepository.streamAll()) {
+            assertThat(rows.toList()).isEqualTo(List.of(vacancy1, vacancy2));
+        }
+        assertThat(sql2oVacancyRepository.count()).isEqualTo(2);
+    }
+
     @Test
     public void whenDontSaveThenNothingFound() {
         assertThat(sql2oVacancyRepository.findAll()).isEqualTo(emptyList());
@@ -127,4 +143,19 @@ public class Sql2oVacancyRepositoryTest {
         assertThat(isUpdated).isFalse();
     }
 
+    /**
+     * Тест на версию данных: каждая запись увеличивает ее в БД, чтение не меняет.
+     */
+    @Test
+    public void whenWriteThenVersionIncremented() {
+        var creationDate = now().truncatedTo(ChronoUnit.MINUTES);
+        var initial = sql2oVacancyRepository.version();
+        var vacancy = sql2oVacancyRepository.save(
+                new Vacancy(0, "title", "description", creationDate, true, 1, file.getId()));
+        sql2oVacancyRepository.update(vacancy);
+        sql2oVacancyRepository.findAll();
+        sql2oVacancyRepository.deleteById(vacancy.getId());
+        assertThat(sql2oVacancyRepository.version()).isEqualTo(initial + 3);
+    }
+
 }
@@ -0,0 +1,56 @@
+package ru.job4j.dreamjob.security;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PasswordHasherTest {
+    private final PasswordHasher passwordHasher = new PasswordHasher(1000);
+
+    /**
+     * Тест на метод hash(): соль случайная, поэтому хеши одного пароля различаются.
+     */
+    @Test
+    public void whenHashTwiceThenDifferentHashesAndBothMatch() {
+        var first = passwordHasher.hash("password");
+        var second = passwordHasher.hash("password");
+
+        assertThat(first).startsWith("pbkdf2-sha256$1000$").isNotEqualTo(second);
+        assertThat(passwordHasher.matches("password", first)).isTrue();
+        assertThat(passwordHasher.matches("password", second)).isTrue();
+        assertThat(passwordHasher.matches("Password", first)).isFalse();
+    }
+
+    /**
+     * Тест на метод needsRehash(): пароль открытым текстом и хеш с другим
+     * числом итераций нужно пересчитать.
+     */
+    @Test
+    public void whenPlaintextOrOtherCostThenNeedsRehash() {
+        var oldHash = new PasswordHasher(500).hash("password");
+
+        assertThat(passwordHasher.matches("password", "password")).isTrue();
+        assertThat(passwordHasher.needsRehash("password")).isTrue();
+        assertThat(passwordHasher.matches("password", oldHash)).isTrue();
+        assertThat(passwordHasher.needsRehash(oldHash)).isTrue();
+        assertThat(passwordHasher.needsRehash(passwordHasher.hash("password"))).isFalse();
+    }
+
+    /**
+     * Тест на метод matches(): поврежденный хеш (число итераций, соль) не подходит
+     * ни к какому паролю и не приводит к исключению.
+     */
+    @Test
+    public void whenStoredHashMalformedThenNoMatch() {
+        var parts = passwordHasher.hash("password").split("\\$");
+
+        for (var stored : new String[] {
+                parts[0] + "$abc$" + parts[2] + "$" + parts[3],
+                parts[0] + "$0$" + parts[2] + "$" + parts[3],
+                parts[0] + "$" + parts[1] + "$!!!$" + parts[3]}) {
+            assertThat(passwordHasher.matches("password", stored)).isFalse();
+        }
+        assertThat(passwordHasher.needsRehash(parts[0] + "$abc$" + parts[2] + "$" + parts[3]))
+                .isTrue();
+    }
+}
@@ -0,0 +1,94 @@
+package ru.job4j.dreamjob.security;
+
+import org.junit.jupiter.api.Test;
+import ru.job4j.dreamjob.model.SessionPrincipal;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.Base64;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class TokenCodecTest {
+    private static final String KEY1 = "k1:" + Base64.getEncoder().encodeToString(new byte[32]);
+
+    private static final String KEY2 = "k2:" + Base64.getEncoder().encodeToString(
+            "0123456789abcdef0123456789abcdef".getBytes());
+
+    private final SessionPrincipal user = new SessionPrincipal(7, "Пётр.Иванов: admin",
+            Set.of(SessionPrincipal.ROLE_USER));
+
+    private final Clock now = Clock.fixed(Instant.parse("2024-01-01T10:00:00Z"), ZoneOffset.UTC);
+
+    /**
+     * Тест на методы issue() и verify().
+     * Из токена восстанавливается тот же SessionPrincipal.
+     */
+    @Test
+    public void whenVerifyIssuedTokenThenGetSamePrincipal() {
+        var codec = new TokenCodec(KEY1, Duration.ofHours(1), now);
+
+        var actual = codec.verify(codec.issue(user)).orElseThrow();
+
+        assertThat(actual).isEqualTo(user);
+    }
+
+    /**
+     * Тест на метод verify().
+     * Измененное содержимое или подпись - токен отклоняется.
+     */
+    @Test
+    public void whenTokenTamperedThenEmpty() {
+        var codec = new TokenCodec(KEY1, Duration.ofHours(1), now);
+        var token = codec.issue(user);
+
+        var parts = token.split("\\.");
+        var forged = Base64.getUrlEncoder().withoutPadding()
+                .encodeToString("1:USER:admin".getBytes());
+
+        assertThat(codec.verify(parts[0] + "." + parts[1] + "." + forged + "." + parts[3]))
+                .isEmpty();
+        assertThat(codec.verify(token.substring(0, token.length() - 1) + "x")).isEmpty();
+        assertThat(codec.verify("garbage")).isEmpty();
+    }
+
+    /**
+     * Тест на метод verify().
+     * Токен с истекшим сроком отклоняется.
+     */
+    @Test
+    public void whenTokenExpiredThenEmpty() {
+        var token = new TokenCodec(KEY1, Duration.ofHours(1), now).issue(user);
+        var later = Clock.offset(now, Duration.ofHours(2));
+
+        assertThat(new TokenCodec(KEY1, Duration.ofHours(1), later).verify(token)).isEmpty();
+    }
+
+    /**
+     * Тест на смену ключей: токен старого ключа действует, пока ключ есть в кольце.
+     */
+    @Test
+    public void whenKeyRotatedThenOldTokensValidUntilKeyRemoved() {
+        var oldToken = new TokenCodec(KEY1, Duration.ofHours(1), now).issue(user);
+
+        var rotated = new TokenCodec(KEY2 + "," + KEY1, Duration.ofHours(1), now);
+        var withoutOldKey = new TokenCodec(KEY2, Duration.ofHours(1), now);
+
+        assertThat(rotated.verify(oldToken)).isPresent();
+        assertThat(rotated.issue(user)).startsWith("k2.");
+        assertThat(withoutOldKey.verify(oldToken)).isEmpty();
+    }
+
+    /**
+     * Тест на разбор кольца ключей: короткий ключ не принимается.
+     */
+    @Test
+    public void whenKeyTooShortThenException() {
+        assertThatThrownBy(() -> new TokenCodec("k1:c2hvcnQ=", Duration.ofHours(1)))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -0,0 +1,48 @@
+package ru.job4j.dreamjob.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CachedVersionTest {
+    private final AtomicLong shared = new AtomicLong(5);
+
+    private final AtomicLong reads = new AtomicLong();
+
+    private long load() {
+        reads.incrementAndGet();
+        return shared.get();
+    }
+
+    /**
+     * Тест на копию версии: в пределах ttl БД не читается, чужая запись видна после ttl.
+     */
+    @Test
+    public void whenTtlExpiredThenVersionReread() throws InterruptedException {
+        var version = new CachedVersion(this::load, Duration.ofMillis(50));
+
+        assertThat(version.get()).isEqualTo(5);
+        shared.set(6);
+        assertThat(version.get()).isEqualTo(5);
+        assertThat(reads.get()).isEqualTo(1);
+        Thread.sleep(60);
+        assertThat(version.get()).isEqualTo(6);
+    }
+
+    /**
+     * Тест на свою запись: копия сбрасывается сразу, не дожидаясь ttl.
+     */
+    @Test
+    public void whenInvalidatedThenVersionRereadImmediately() {
+        var version = new CachedVersion(this::load, Duration.ofHours(1));
+
+        assertThat(version.get()).isEqualTo(5);
+        shared.set(6);
+        version.invalidate();
+        assertThat(version.get()).isEqualTo(6);
+        assertThat(reads.get()).isEqualTo(2);
+    }
+}
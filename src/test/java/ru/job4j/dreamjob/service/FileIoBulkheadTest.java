@@ -0,0 +1,81 @@
+package ru.job4j.dreamjob.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.task.TaskRejectedException;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class FileIoBulkheadTest {
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private final FileIoBulkhead bulkhead = new FileIoBulkhead(1, 1, 7, meterRegistry);
+
+    private final CountDownLatch release = new CountDownLatch(1);
+
+    @AfterEach
+    public void shutdown() {
+        release.countDown();
+        bulkhead.shutdown();
+    }
+
+    private void block() {
+        try {
+            release.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Тест на переполнение: задача сверх лимита отклоняется и не выполняется
+     * в вызывающем потоке, после освобождения места задачи снова принимаются.
+     */
+    @Test
+    public void whenFullThenRejectedNotRunInline() throws InterruptedException {
+        assertThat(bulkhead.trySubmit(this::block)).isTrue();
+        assertThat(bulkhead.trySubmit(this::block)).isTrue();
+        var ranOn = new AtomicReference<Thread>();
+
+        assertThat(bulkhead.tryAdmit()).isFalse();
+        assertThat(bulkhead.trySubmit(() -> ranOn.set(Thread.currentThread()))).isFalse();
+        assertThatThrownBy(() -> bulkhead.getTaskExecutor().execute(() -> { }))
+                .isInstanceOf(TaskRejectedException.class);
+        assertThat(ranOn.get()).isNull();
+        assertThat(meterRegistry.get("dreamjob.file.io.rejected").counter().count())
+                .isEqualTo(3);
+
+        release.countDown();
+        var done = new CountDownLatch(1);
+        while (!bulkhead.trySubmit(done::countDown)) {
+            Thread.onSpinWait();
+        }
+        assertThat(done.await(5, TimeUnit.SECONDS)).isTrue();
+    }
+
+    /**
+     * Тест на отмену задачи из очереди (таймаут асинхронного запроса):
+     * место в пуле возвращается, хотя сама задача не выполнялась.
+     */
+    @Test
+    public void whenQueuedTaskCancelledThenPermitReturned() throws Exception {
+        bulkhead.trySubmit(this::block);
+        var queued = bulkhead.getTaskExecutor().submit(() -> { });
+        queued.cancel(false);
+        assertThat(bulkhead.tryAdmit()).isFalse();
+
+        release.countDown();
+        var done = new CountDownLatch(1);
+        while (!bulkhead.trySubmit(done::countDown)) {
+            Thread.onSpinWait();
+        }
+        assertThat(done.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(bulkhead.trySubmit(() -> { })).isTrue();
+    }
+}
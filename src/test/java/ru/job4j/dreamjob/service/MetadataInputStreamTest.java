@@ -0,0 +1,56 @@
+package ru.job4j.dreamjob.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.security.MessageDigest;
+import java.util.HexFormat;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class MetadataInputStreamTest {
+    private static byte[] bytes(int size) {
+        var result = new byte[size];
+        for (var i = 0; i < size; i++) {
+            result[i] = (byte) (i * 31);
+        }
+        return result;
+    }
+
+    /**
+     * Тест на skip(): пропущенные байты учитываются в размере и хеше,
+     * как если бы содержимое было прочитано целиком.
+     */
+    @Test
+    public void whenSkipThenSizeAndHashCoverSkippedBytes() throws Exception {
+        var content = bytes(20_000);
+        var stream = new MetadataInputStream(new ByteArrayInputStream(content));
+
+        stream.readNBytes(100);
+        var skipped = stream.skip(15_000);
+        stream.readAllBytes();
+        var skippedAtEnd = stream.skip(10);
+
+        assertThat(skipped).isEqualTo(15_000);
+        assertThat(skippedAtEnd).isZero();
+        assertThat(stream.getSize()).isEqualTo(content.length);
+        assertThat(stream.getHash()).isEqualTo(HexFormat.of().formatHex(
+                MessageDigest.getInstance("SHA-256").digest(content)));
+        assertThat(stream.getHeader()).hasSize(content.length);
+    }
+
+    /**
+     * Тест на reset(): повторное чтение исказило бы хеш, поэтому не поддерживается.
+     */
+    @Test
+    public void whenResetThenIOException() {
+        var stream = new MetadataInputStream(new ByteArrayInputStream(bytes(10)));
+
+        stream.mark(10);
+
+        assertThat(stream.markSupported()).isFalse();
+        assertThatThrownBy(stream::reset).isInstanceOf(IOException.class);
+    }
+}
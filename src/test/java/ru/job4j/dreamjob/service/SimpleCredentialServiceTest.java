@@ -0,0 +1,141 @@
+package ru.job4j.dreamjob.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+import org.mockito.ArgumentCaptor;
+import ru.job4j.dreamjob.model.User;
+import ru.job4j.dreamjob.repository.UserRepository;
+import ru.job4j.dreamjob.security.PasswordHasher;
+
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class SimpleCredentialServiceTest {
+    private UserRepository userRepository;
+
+    private SimpleMeterRegistry meterRegistry;
+
+    private SimpleCredentialService credentialService;
+
+    @BeforeEach
+    public void initServices() {
+        userRepository = mock(UserRepository.class);
+        meterRegistry = new SimpleMeterRegistry();
+        credentialService = new SimpleCredentialService(userRepository,
+                new PasswordHasher(1000), 1, 4, 1, 1, meterRegistry);
+    }
+
+    @AfterEach
+    public void shutdown() {
+        credentialService.shutdown();
+    }
+
+    /**
+     * Тест на метод authenticate(): пароль открытым текстом при первом входе
+     * заменяется хешем.
+     */
+    @Test
+    public void whenPlaintextPasswordMatchesThenMigratedToHash() {
+        var user = new User(1, "user@mail", "user", "password");
+        when(userRepository.findByEmail("user@mail")).thenReturn(Optional.of(user));
+        var hashCaptor = ArgumentCaptor.forClass(String.class);
+
+        var actual = credentialService.authenticate("user@mail", "password");
+
+        assertThat(actual).isPresent();
+        verify(userRepository).updatePassword(eq(1), hashCaptor.capture());
+        assertThat(hashCaptor.getValue()).startsWith("pbkdf2-sha256$1000$");
+        assertThat(meterRegistry.get("dreamjob.password").tag("operation", "verify")
+                .timer().count()).isEqualTo(1);
+    }
+
+    /**
+     * Тест на метод authenticate(): после изменения числа итераций хеш пересчитывается.
+     */
+    @Test
+    public void whenCostChangedThenRehashedOnLogin() {
+        var oldHash = new PasswordHasher(500).hash("password");
+        var user = new User(1, "user@mail", "user", oldHash);
+        when(userRepository.findByEmail("user@mail")).thenReturn(Optional.of(user));
+
+        assertThat(credentialService.authenticate("user@mail", "password")).isPresent();
+        assertThat(user.getPassword()).startsWith("pbkdf2-sha256$1000$");
+        verify(userRepository).updatePassword(1, user.getPassword());
+    }
+
+    /**
+     * Тест на метод authenticate(): неверный пароль - пусто, хеш не меняется.
+     */
+    @Test
+    public void whenWrongPasswordThenEmptyAndNoRehash() {
+        var user = new User(1, "user@mail", "user", credentialService.hash("password"));
+        when(userRepository.findByEmail("user@mail")).thenReturn(Optional.of(user));
+
+        assertThat(credentialService.authenticate("user@mail", "wrong")).isEmpty();
+        assertThat(credentialService.authenticate("other@mail", "password")).isEmpty();
+        verify(userRepository, never()).updatePassword(anyInt(), anyString());
+    }
+
+    /**
+     * Тест на метод authenticate(): для неизвестной почты пароль тоже сверяется
+     * с хешем, чтобы время ответа не выдавало, зарегистрирована ли почта.
+     */
+    @Test
+    public void whenUnknownEmailThenPasswordStillVerified() {
+        when(userRepository.findByEmail("other@mail")).thenReturn(Optional.empty());
+
+        assertThat(credentialService.authenticate("other@mail", "password")).isEmpty();
+        assertThat(meterRegistry.get("dreamjob.password").tag("operation", "verify")
+                .timer().count()).isEqualTo(1);
+    }
+
+    /**
+     * Тест на раздельные пулы: пока поток хеширования занят регистрацией,
+     * вход проверяется на своем пуле и не ждет его.
+     */
+    @Test
+    @Timeout(10)
+    public void whenRegistrationHashingBusyThenLoginStillVerified() throws Exception {
+        var started = new CountDownLatch(1);
+        var release = new CountDownLatch(1);
+        var hasher = new PasswordHasher(1000) {
+            @Override
+            public String hash(String password) {
+                if ("slow".equals(password)) {
+                    started.countDown();
+                    try {
+                        release.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+                return super.hash(password);
+            }
+        };
+        var service = new SimpleCredentialService(userRepository, hasher, 1, 1, 1, 1,
+                meterRegistry);
+        var registration = Executors.newSingleThreadExecutor();
+        try {
+            registration.submit(() -> service.hash("slow"));
+            started.await();
+            var user = new User(1, "user@mail", "user", hasher.hash("password"));
+            when(userRepository.findByEmail("user@mail")).thenReturn(Optional.of(user));
+
+            assertThat(service.authenticate("user@mail", "password")).isPresent();
+        } finally {
+            release.countDown();
+            registration.shutdown();
+            service.shutdown();
+        }
+    }
+}
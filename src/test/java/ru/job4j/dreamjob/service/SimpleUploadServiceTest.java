@@ -0,0 +1,129 @@
+package ru.job4j.dreamjob.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.util.unit.DataSize;
+import ru.job4j.dreamjob.model.File;
+import ru.job4j.dreamjob.model.Vacancy;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.HexFormat;
+import java.util.NoSuchElementException;
+import java.util.Optional;
+
+import static java.time.LocalDateTime.now;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class SimpleUploadServiceTest {
+    @TempDir
+    Path directory;
+
+    private FileService fileService;
+
+    private VacancyService vacancyService;
+
+    private SimpleUploadService uploadService;
+
+    private final byte[] content = "резюме, которое грузится по частям".repeat(100).getBytes();
+
+    @BeforeEach
+    public void initServices() {
+        fileService = mock(FileService.class);
+        vacancyService = mock(VacancyService.class);
+        uploadService = new SimpleUploadService(fileService, vacancyService,
+                mock(CandidateService.class), directory.toString(), DataSize.ofMegabytes(1),
+                DataSize.ofKilobytes(2), Duration.ofHours(1));
+    }
+
+    private ByteArrayInputStream chunk(int from, int to) {
+        return new ByteArrayInputStream(Arrays.copyOfRange(content, from, to));
+    }
+
+    private String sha256() throws Exception {
+        return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(content));
+    }
+
+    @Test
+    public void whenUploadInChunksThenFileSavedAndAttachedToVacancy() throws Exception {
+        var savedFile = new File("resume.txt", "files/resume.txt");
+        savedFile.setId(7);
+        var saved = new byte[content.length];
+        when(fileService.save(eq("resume.txt"), any())).thenAnswer(invocation -> {
+            try (InputStream input = invocation.getArgument(1)) {
+                input.readNBytes(saved, 0, saved.length);
+            }
+            return savedFile;
+        });
+        when(vacancyService.findById(1)).thenReturn(
+                Optional.of(new Vacancy(1, "title", "desc", now(), true, 1, 2)));
+        when(vacancyService.replaceFile(1, 7)).thenReturn(true);
+
+        var upload = uploadService.init("resume.txt", content.length);
+        uploadService.append(upload.getId(), 0, chunk(0, 1500));
+        var state = uploadService.append(upload.getId(), 1500, chunk(1500, content.length));
+        var file = uploadService.complete(upload.getId(), sha256(),
+                UploadService.UploadTarget.VACANCY, 1);
+
+        assertThat(state.getOffset()).isEqualTo(content.length);
+        assertThat(file.getId()).isEqualTo(7);
+        assertThat(saved).isEqualTo(content);
+        verify(vacancyService).replaceFile(1, 7);
+        assertThat(uploadService.findById(upload.getId())).isEmpty();
+    }
+
+    @Test
+    public void whenChunkOffsetDoesNotMatchThenConflictAndProgressKept() {
+        var upload = uploadService.init("resume.txt", content.length);
+        uploadService.append(upload.getId(), 0, chunk(0, 1000));
+
+        assertThatThrownBy(() -> uploadService.append(upload.getId(), 0, chunk(0, 1000)))
+                .isInstanceOf(IllegalStateException.class);
+        assertThat(uploadService.findById(upload.getId()).get().getOffset()).isEqualTo(1000);
+    }
+
+    @Test
+    public void whenChecksumDoesNotMatchThenFileNotSaved() {
+        var upload = uploadService.init("resume.txt", content.length);
+        uploadService.append(upload.getId(), 0, chunk(0, 2000));
+        uploadService.append(upload.getId(), 2000, chunk(2000, content.length));
+
+        assertThatThrownBy(() -> uploadService.complete(upload.getId(), "00",
+                UploadService.UploadTarget.VACANCY, 1))
+                .isInstanceOf(IllegalArgumentException.class);
+        verify(fileService, never()).save(any(), any(InputStream.class));
+    }
+
+    @Test
+    public void whenCompleteBeforeAllChunksThenIllegalState() {
+        var upload = uploadService.init("resume.txt", content.length);
+        uploadService.append(upload.getId(), 0, chunk(0, 100));
+
+        assertThatThrownBy(() -> uploadService.complete(upload.getId(), sha256(),
+                UploadService.UploadTarget.VACANCY, 1))
+                .isInstanceOf(IllegalStateException.class);
+    }
+
+    @Test
+    public void whenChunkLargerThanLimitThenRejected() {
+        var upload = uploadService.init("resume.txt", content.length);
+
+        assertThatThrownBy(() -> uploadService.append(upload.getId(), 0, chunk(0, 3000)))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    public void whenUnknownUploadThenNoSuchElement() {
+        assertThatThrownBy(() -> uploadService.append("unknown", 0, chunk(0, 10)))
+                .isInstanceOf(NoSuchElementException.class);
+    }
+}
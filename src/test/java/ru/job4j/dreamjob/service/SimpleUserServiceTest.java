@@ -0,0 +1,91 @@
+package ru.job4j.dreamjob.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import ru.job4j.dreamjob.model.User;
+import ru.job4j.dreamjob.repository.UserRepository;
+
+import java.time.Duration;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class SimpleUserServiceTest {
+    private UserRepository userRepository;
+
+    private CredentialService credentialService;
+
+    private SimpleUserService userService;
+
+    @BeforeEach
+    public void initServices() {
+        userRepository = mock(UserRepository.class);
+        credentialService = mock(CredentialService.class);
+        when(credentialService.hash(any())).thenReturn("hash");
+        userService = new SimpleUserService(userRepository, credentialService,
+                100, Duration.ofMinutes(10));
+    }
+
+    /**
+     * Тест на метод save(): пароль сохраняется хешем.
+     */
+    @Test
+    public void whenSaveThenPasswordHashed() {
+        when(userRepository.save(any())).thenAnswer(invocation -> Optional.of(
+                invocation.getArgument(0, User.class)));
+
+        var savedUser = userService.save(new User(0, "user@mail", "user", "password"));
+
+        assertThat(savedUser.get().getPassword()).isEqualTo("hash");
+    }
+
+    /**
+     * Тест на метод save(): повторная регистрация с недавно занятой почтой
+     * отклоняется без хеширования и без обращения к БД.
+     */
+    @Test
+    public void whenEmailRecentlyTakenThenRejectedWithoutHashing() {
+        when(userRepository.save(any())).thenReturn(Optional.empty());
+
+        assertThat(userService.save(new User(0, "user@mail", "user", "password"))).isEmpty();
+        assertThat(userService.save(new User(0, "user@mail", "user", "password"))).isEmpty();
+
+        verify(userRepository, times(1)).save(any());
+        verify(credentialService, times(1)).hash(any());
+    }
+
+    /**
+     * Тест на метод save(): почта, которой нет в кеше, но которая уже есть в БД,
+     * отклоняется до хеширования пароля.
+     */
+    @Test
+    public void whenEmailExistsInDatabaseThenRejectedWithoutHashing() {
+        when(userRepository.findByEmail("user@mail")).thenReturn(Optional.of(
+                new User(1, "user@mail", "user", "hash")));
+
+        assertThat(userService.save(new User(0, "user@mail", "user", "password"))).isEmpty();
+
+        verify(credentialService, never()).hash(any());
+        verify(userRepository, never()).save(any());
+    }
+
+    /**
+     * Тест на метод deleteByEmail(): почта удаленного пользователя убирается из кеша
+     * занятых и сразу снова доступна для регистрации.
+     */
+    @Test
+    public void whenDeletedThenEmailAvailableAgain() {
+        when(userRepository.save(any())).thenAnswer(invocation -> Optional.of(
+                invocation.getArgument(0, User.class)));
+        when(userRepository.deleteByEmail("user@mail")).thenReturn(true);
+        userService.save(new User(0, "user@mail", "user", "password"));
+
+        assertThat(userService.deleteByEmail("user@mail")).isTrue();
+        var savedAgain = userService.save(new User(0, "user@mail", "user", "password"));
+
+        assertThat(savedAgain).isPresent();
+        verify(userRepository, times(2)).save(any());
+    }
+}
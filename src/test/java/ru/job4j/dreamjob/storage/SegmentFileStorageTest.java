@@ -0,0 +1,230 @@
+package ru.job4j.dreamjob.storage;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.util.unit.DataSize;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class SegmentFileStorageTest {
+    @TempDir
+    Path directory;
+
+    private SegmentFileStorage storage;
+
+    @BeforeEach
+    public void openStorage() {
+        storage = open();
+    }
+
+    @AfterEach
+    public void closeStorage() {
+        storage.close();
+    }
+
+    private SegmentFileStorage open() {
+        return new SegmentFileStorage(directory.toString(), DataSize.ofKilobytes(4), 0.5, 0, false);
+    }
+
+    private static byte[] bytes(int size, int seed) {
+        var result = new byte[size];
+        for (var i = 0; i < size; i++) {
+            result[i] = (byte) (i * 31 + seed);
+        }
+        return result;
+    }
+
+    private byte[] read(SegmentFileStorage source, String location) throws IOException {
+        try (var input = source.read(location)) {
+            return input.readAllBytes();
+        }
+    }
+
+    @Test
+    public void whenWriteThenReadSame() throws IOException {
+        var content = bytes(1000, 1);
+        var location = storage.write("a.txt", new ByteArrayInputStream(content));
+        assertThat(location).startsWith("segment:");
+        assertThat(read(storage, location)).isEqualTo(content);
+    }
+
+    @Test
+    public void whenSegmentIsFullThenNextSegmentCreated() throws IOException {
+        var first = storage.write("a", new ByteArrayInputStream(bytes(3000, 1)));
+        var second = storage.write("b", new ByteArrayInputStream(bytes(3000, 2)));
+        var third = storage.write("c", new ByteArrayInputStream(bytes(3000, 3)));
+        assertThat(read(storage, first)).isEqualTo(bytes(3000, 1));
+        assertThat(read(storage, second)).isEqualTo(bytes(3000, 2));
+        assertThat(read(storage, third)).isEqualTo(bytes(3000, 3));
+        try (var files = Files.list(directory)) {
+            assertThat(files.filter(path -> path.toString().endsWith(".dat")).count())
+                    .isEqualTo(2);
+        }
+    }
+
+    @Test
+    public void whenDeleteThenCannotRead() {
+        var location = storage.write("a", new ByteArrayInputStream(bytes(10, 1)));
+        assertThat(storage.delete(location)).isTrue();
+        assertThat(storage.delete(location)).isFalse();
+        assertThatThrownBy(() -> storage.read(location))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    public void whenReopenThenIndexRestoredFromLog() throws IOException {
+        var kept = storage.write("a", new ByteArrayInputStream(bytes(500, 1)));
+        var deleted = storage.write("b", new ByteArrayInputStream(bytes(500, 2)));
+        storage.delete(deleted);
+        storage.close();
+
+        storage = open();
+        assertThat(read(storage, kept)).isEqualTo(bytes(500, 1));
+        assertThatThrownBy(() -> storage.read(deleted))
+                .isInstanceOf(IllegalArgumentException.class);
+        var next = storage.write("c", new ByteArrayInputStream(bytes(500, 3)));
+        assertThat(read(storage, next)).isEqualTo(bytes(500, 3));
+        assertThat(read(storage, kept)).isEqualTo(bytes(500, 1));
+    }
+
+    @Test
+    public void whenCompactThenLiveBlobsMovedAndOldSegmentRemoved() throws IOException {
+        var dead = storage.write("a", new ByteArrayInputStream(bytes(3000, 1)));
+        var live = storage.write("b", new ByteArrayInputStream(bytes(1100, 2)));
+        storage.write("c", new ByteArrayInputStream(bytes(3000, 3)));
+        storage.delete(dead);
+        var firstSegment = directory.resolve("segment-000001.dat");
+        assertThat(firstSegment).exists();
+
+        storage.compact();
+
+        assertThat(firstSegment).doesNotExist();
+        assertThat(read(storage, live)).isEqualTo(bytes(1100, 2));
+        storage.close();
+        storage = open();
+        assertThat(read(storage, live)).isEqualTo(bytes(1100, 2));
+    }
+
+    /**
+     * После рестарта текущий сегмент известен до первой записи: уплотнение
+     * до записи не трогает сегмент, в который пойдут новые файлы.
+     */
+    @Test
+    public void whenReopenAndCompactBeforeWriteThenActiveSegmentKept() throws IOException {
+        var live = storage.write("a", new ByteArrayInputStream(bytes(1000, 1)));
+        var dead = storage.write("b", new ByteArrayInputStream(bytes(2000, 2)));
+        storage.delete(dead);
+        storage.close();
+
+        storage = open();
+        storage.compact();
+
+        assertThat(directory.resolve("segment-000001.dat")).exists();
+        assertThat(read(storage, live)).isEqualTo(bytes(1000, 1));
+        var next = storage.write("c", new ByteArrayInputStream(bytes(500, 3)));
+        assertThat(read(storage, next)).isEqualTo(bytes(500, 3));
+        storage.close();
+        storage = open();
+        assertThat(read(storage, live)).isEqualTo(bytes(1000, 1));
+        assertThat(read(storage, next)).isEqualTo(bytes(500, 3));
+    }
+
+    /**
+     * Открытый поток чтения закрепляет сегмент: уплотнение переносит записи,
+     * но файл старого сегмента удаляется только после закрытия потока.
+     */
+    @Test
+    public void whenReadOpenDuringCompactionThenSegmentDeletedAfterClose() throws IOException {
+        var dead = storage.write("a", new ByteArrayInputStream(bytes(3000, 1)));
+        var live = storage.write("b", new ByteArrayInputStream(bytes(1100, 2)));
+        storage.write("c", new ByteArrayInputStream(bytes(3000, 3)));
+        storage.delete(dead);
+        var firstSegment = directory.resolve("segment-000001.dat");
+
+        try (var input = storage.read(live)) {
+            var head = input.readNBytes(100);
+            storage.compact();
+
+            assertThat(firstSegment).exists();
+            var rest = input.readAllBytes();
+            var content = new byte[head.length + rest.length];
+            System.arraycopy(head, 0, content, 0, head.length);
+            System.arraycopy(rest, 0, content, head.length, rest.length);
+            assertThat(content).isEqualTo(bytes(1100, 2));
+        }
+
+        assertThat(firstSegment).doesNotExist();
+        assertThat(read(storage, live)).isEqualTo(bytes(1100, 2));
+    }
+
+    /**
+     * Ошибка фонового уплотнения не останавливает его: следующий запуск
+     * по расписанию уплотняет сегменты, как только ошибка ушла.
+     */
+    @Test
+    public void whenScheduledCompactionFailsThenNextRunStillCompacts() throws Exception {
+        storage.close();
+        storage = new SegmentFileStorage(directory.toString(), DataSize.ofKilobytes(4), 0.5, 1,
+                false);
+        var first = storage.write("a", new ByteArrayInputStream(bytes(3000, 1)));
+        storage.write("b", new ByteArrayInputStream(bytes(3000, 2)));
+        var second = storage.write("c", new ByteArrayInputStream(bytes(3000, 3)));
+        var live = storage.write("d", new ByteArrayInputStream(bytes(1100, 4)));
+        storage.write("e", new ByteArrayInputStream(bytes(3000, 5)));
+        /* каталог на месте временного файла индекса: переписать индекс не получится */
+        var blocker = Files.createDirectory(directory.resolve("index.log.tmp"));
+        storage.delete(first);
+        awaitDeleted(directory.resolve("segment-000001.dat"));
+
+        Files.delete(blocker);
+        storage.delete(second);
+
+        awaitDeleted(directory.resolve("segment-000002.dat"));
+        assertThat(read(storage, live)).isEqualTo(bytes(1100, 4));
+        storage.close();
+        storage = open();
+        assertThat(read(storage, live)).isEqualTo(bytes(1100, 4));
+    }
+
+    private static void awaitDeleted(Path path) throws InterruptedException {
+        var deadline = System.nanoTime() + 10_000_000_000L;
+        while (Files.exists(path) && System.nanoTime() < deadline) {
+            Thread.sleep(50);
+        }
+        assertThat(path).doesNotExist();
+    }
+
+    /**
+     * Запись дальше 2 ГБ от начала сегмента читается: отображается только она сама.
+     * Сегмент разреженный, место на диске занимают только записанные байты.
+     */
+    @Test
+    public void whenRecordBeyondTwoGigabytesThenReadable() throws IOException {
+        storage.close();
+        var offset = 3L * 1024 * 1024 * 1024;
+        var content = bytes(1000, 7);
+        try (var segment = new RandomAccessFile(
+                directory.resolve("segment-000001.dat").toFile(), "rw")) {
+            segment.seek(offset - Long.BYTES * 2);
+            segment.writeLong(1);
+            segment.writeLong(content.length);
+            segment.write(content);
+        }
+        Files.writeString(directory.resolve("index.log"),
+                "P 1 1 " + offset + " " + content.length + "\n", StandardCharsets.US_ASCII);
+
+        storage = open();
+
+        assertThat(read(storage, "segment:1")).isEqualTo(content);
+    }
+}